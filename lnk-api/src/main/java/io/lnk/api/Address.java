@@ -12,8 +12,10 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class Address implements Comparable<Address>, Serializable {
     private static final long serialVersionUID = -3826228304734021497L;
+    public static final int DEFAULT_WEIGHT = 100;
     private String host;
     private int port;
+    private int weight = DEFAULT_WEIGHT;// 服务提供方在注册中心发布的权重, 不参与equals与hashCode
 
     public Address() {
         super();
@@ -52,6 +54,14 @@ public class Address implements Comparable<Address>, Serializable {
         this.port = port;
     }
 
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
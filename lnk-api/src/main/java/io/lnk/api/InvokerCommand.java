@@ -2,6 +2,8 @@ package io.lnk.api;
 
 import java.io.Serializable;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import io.lnk.api.app.Application;
 import io.lnk.api.exception.ex.SimpleLnkException;
 
@@ -25,6 +27,7 @@ public class InvokerCommand implements Serializable {
     private ProtocolObject[] args;
     private ProtocolObject retObject;
     private SimpleLnkException exception;
+    private transient String hashKey;// 调用方负载均衡使用的hash键, 不发送到服务端
 
     public String commandSignature() {
         StringBuilder sb = new StringBuilder(serviceId).append(".").append(method).append("(");
@@ -131,4 +134,14 @@ public class InvokerCommand implements Serializable {
     public void setIp(String ip) {
         this.ip = ip;
     }
+
+    @JsonIgnore
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    @JsonIgnore
+    public void setHashKey(String hashKey) {
+        this.hashKey = hashKey;
+    }
 }
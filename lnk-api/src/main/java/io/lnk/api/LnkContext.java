@@ -0,0 +1,60 @@
+package io.lnk.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前线程正在处理的请求的上下文。服务端在调用服务方法前设置调用方的截止时间，服务方法可以据此提前放弃耗时的工作；
+ * 服务方法内发起的同步、future调用的超时时间不会超过剩余时间，截止时间随之传递给下游
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月23日 上午9:41:18
+ */
+public final class LnkContext {
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<Long>();
+
+    private LnkContext() {}
+
+    public static void setDeadlineNanos(long deadlineNanos) {
+        DEADLINE_NANOS.set(deadlineNanos);
+    }
+
+    public static void clearDeadline() {
+        DEADLINE_NANOS.remove();
+    }
+
+    public static boolean hasDeadline() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    /**
+     * 截止时间(System.nanoTime)，没有截止时间时为null
+     */
+    public static Long getDeadlineNanos() {
+        return DEADLINE_NANOS.get();
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数，没有截止时间时为Long.MAX_VALUE
+     */
+    public static long getRemainingMillis() {
+        Long deadlineNanos = DEADLINE_NANOS.get();
+        if (deadlineNanos == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public static boolean isDeadlineExceeded() {
+        Long deadlineNanos = DEADLINE_NANOS.get();
+        return deadlineNanos != null && System.nanoTime() - deadlineNanos >= 0L;
+    }
+
+    /**
+     * 下游调用的超时时间：取配置的超时时间与剩余时间中较小的一个
+     */
+    public static long timeoutMillis(long timeoutMillis) {
+        return Math.min(timeoutMillis, getRemainingMillis());
+    }
+}
@@ -12,6 +12,14 @@ public class ProtocolObject implements Serializable {
     private static final long serialVersionUID = 7960470799984378957L;
     private Class<?> type;
     private byte[] data;
+    /**
+     * 内联模式下参数/返回值直接由InvokerCommand所用的ProtocolFactory一并序列化，此时data为空
+     */
+    private Object value;
+    /**
+     * 内联的value为远程对象存根
+     */
+    private boolean remote;
 
     public Class<?> getType() {
         return type;
@@ -29,8 +37,28 @@ public class ProtocolObject implements Serializable {
         this.data = data;
     }
 
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public void setRemote(boolean remote) {
+        this.remote = remote;
+    }
+
+    public boolean isInline() {
+        return value != null;
+    }
+
     @Override
     public String toString() {
-        return "ProtocolObject [type=" + type + "]";
+        return "ProtocolObject [type=" + type + ", inline=" + isInline() + "]";
     }
 }
@@ -10,4 +10,5 @@ public interface Protocols {
     int DEFAULT_PROTOCOL = 0;
     int JAVA_NATIVE_PROTOCOL = 1;
     int HESSIAN_PROTOCOL = 2;
+    int SMILE_PROTOCOL = 3;// Jackson Smile二进制JSON，数据模型与DEFAULT_PROTOCOL一致
 }
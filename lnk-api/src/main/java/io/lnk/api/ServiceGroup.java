@@ -9,6 +9,7 @@ package io.lnk.api;
 public class ServiceGroup {
     private String serviceGroup;
     private int serviceGroupWorkerProcessorThreads = 10;
+    private boolean inline = false;// 直接在IO线程上处理请求, 仅适用于不阻塞且耗时极短的服务
 
     public String getServiceGroup() {
         return serviceGroup;
@@ -26,8 +27,16 @@ public class ServiceGroup {
         this.serviceGroupWorkerProcessorThreads = serviceGroupWorkerProcessorThreads;
     }
 
+    public boolean isInline() {
+        return inline;
+    }
+
+    public void setInline(boolean inline) {
+        this.inline = inline;
+    }
+
     @Override
     public String toString() {
-        return "ServiceGroup [serviceGroup=" + serviceGroup + ", serviceGroupWorkerProcessorThreads=" + serviceGroupWorkerProcessorThreads + "]";
+        return "ServiceGroup [serviceGroup=" + serviceGroup + ", serviceGroupWorkerProcessorThreads=" + serviceGroupWorkerProcessorThreads + ", inline=" + inline + "]";
     }
 }
@@ -0,0 +1,27 @@
+package io.lnk.api.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 作为@LnkMethod的cache属性声明幂等方法的服务端返回值缓存，ttlMillis大于0时生效。near为true时调用方同步调用也缓存返回值，
+ * 命中时不发起远程调用，数据变更后通过CacheInvalidator组播失效
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午9:36:20
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface LnkCache {
+    public static final String LRU = "lru";
+    public static final String FIFO = "fifo";
+    public static final String SLRU = "slru";
+    public long ttlMillis() default 0L;
+    public int maxEntries() default 1024;
+    public long maxBytes() default 16 * 1024 * 1024L;
+    public String policy() default LRU;
+    public boolean near() default false;
+}
@@ -0,0 +1,23 @@
+package io.lnk.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在接口方法的参数上，以该参数(或其属性)的字符串值作为一致性hash负载均衡的键，相同的键总是落在同一个服务提供方
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 上午9:36:12
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.PARAMETER })
+public @interface LnkHashKey {
+    /**
+     * 参数对象的属性名，为空时使用参数本身
+     */
+    public String value() default "";
+}
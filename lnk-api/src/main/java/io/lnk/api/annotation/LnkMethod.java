@@ -19,4 +19,6 @@ public @interface LnkMethod {
     public static final long DEFAULT_TIMEOUT_MILLIS = 3000L;
     public long timeoutMillis() default DEFAULT_TIMEOUT_MILLIS;
     public InvokeType type() default InvokeType.SYNC;
+    public LnkCache cache() default @LnkCache;
+    public boolean coalesce() default false;// 同步调用时合并相同参数的并发调用, 仅适用于幂等方法
 }
@@ -0,0 +1,25 @@
+package io.lnk.api.cache;
+
+import io.lnk.api.InvokeType;
+import io.lnk.api.annotation.LnkMethod;
+import io.lnk.api.annotation.LnkService;
+
+/**
+ * 每个LnkEndpoint启动时都注册该服务。服务提供方数据变更后通过RemoteObjectFactory获取该接口的远程对象调用invalidate，
+ * 组播到所有节点，清除调用方缓存与服务端返回值缓存中对应方法的条目
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 下午2:14:52
+ */
+@LnkService(group = CacheInvalidator.SERVICE_GROUP)
+public interface CacheInvalidator {
+    String SERVICE_GROUP = "lnk-cache-invalidator";
+
+    /**
+     * @param method 为空时清除serviceId所有方法的缓存
+     */
+    @LnkMethod(type = InvokeType.MULTICAST)
+    void invalidate(String serviceId, String method);
+}
@@ -0,0 +1,7 @@
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 下午2:10:37
+ */
+package io.lnk.api.cache;
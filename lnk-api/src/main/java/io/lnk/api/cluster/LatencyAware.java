@@ -0,0 +1,17 @@
+package io.lnk.api.cluster;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+
+/**
+ * 需要调用响应时间的负载均衡实现此接口，LnkEndpoint在同步与future调用收到响应或超时后回调，
+ * 同一地址上不同服务的响应时间分别统计
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 下午2:14:05
+ */
+public interface LatencyAware {
+    void updateLatency(InvokerCommand command, Address address, long latencyNanos);
+}
@@ -9,4 +9,11 @@ package io.lnk.api.flow;
 public interface FlowController {
     boolean tryAcquireFailure(long timeoutMillis);
     void release();
+
+    /**
+     * @param latencyNanos 从获取许可到请求处理完成的耗时(含线程池排队)，不关注耗时的实现直接释放许可
+     */
+    default void release(long latencyNanos) {
+        this.release();
+    }
 }
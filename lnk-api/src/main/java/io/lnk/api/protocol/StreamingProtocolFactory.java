@@ -0,0 +1,17 @@
+package io.lnk.api.protocol;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 支持流式编解码的ProtocolFactory，报文体可直接序列化到网络缓冲区、从网络缓冲区反序列化
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月15日 下午3:09:40
+ */
+public interface StreamingProtocolFactory extends ProtocolFactory {
+    void encode(Object obj, OutputStream out);
+    <T> T decode(Class<T> objType, InputStream in);
+}
@@ -0,0 +1,23 @@
+package io.lnk.api.protocol;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 直接写入输出流、从输入流读取的序列化，避免中间byte[]的分配与复制
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月15日 下午3:06:12
+ */
+public interface StreamingSerializer extends Serializer {
+    /**
+     * 写入后不关闭out
+     */
+    void serialize(Object bean, OutputStream out);
+    /**
+     * 读取后不关闭in
+     */
+    <T> T deserialize(Class<T> clazz, InputStream in);
+}
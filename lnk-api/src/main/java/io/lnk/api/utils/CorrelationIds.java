@@ -14,13 +14,7 @@ import org.apache.commons.lang3.StringUtils;
 public class CorrelationIds {
     
     public static String buildGuid() {
-        String uuidString = 
-                Long.toHexString(System.nanoTime() >> 2) + "-" + 
-                Long.toHexString(System.nanoTime() >> 3) + "-" + 
-                Long.toHexString(System.nanoTime() >> 4) + "-" + 
-                Long.toHexString(System.nanoTime() >> 5) + "-" + 
-                Long.toHexString(System.nanoTime() >> 6);
-        String uuid = UUID.fromString(uuidString).toString();
+        String uuid = new UUID(System.nanoTime() >> 2, System.nanoTime() >> 3).toString();
         uuid = StringUtils.upperCase(RandomStringUtils.randomAlphabetic(10) + Thread.currentThread().getId() + StringUtils.replace(uuid, "-", StringUtils.EMPTY));
         return uuid;
     }
@@ -0,0 +1,78 @@
+package io.lnk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.remoting.netty.codec.CommandProtocolDecoder;
+import io.lnk.remoting.netty.codec.CommandProtocolEncoder;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * CommandProtocolEncoder/Decoder在复制与零拷贝两种模式下的一次编码加一次解码，报文体为池化ByteBuf，
+ * 复制模式写入报文帧，零拷贝模式与报文头组合成CompositeByteBuf
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:32:44
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandProtocolCodecBenchmark {
+    @Param({"false", "true"})
+    private boolean zeroCopy;
+    @Param({"128", "4096", "65536"})
+    private int bodySize;
+    private EmbeddedChannel channel;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        this.channel = new EmbeddedChannel(new CommandProtocolEncoder(zeroCopy), new CommandProtocolDecoder(zeroCopy));
+        this.body = new byte[bodySize];
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int encodeAndDecode() {
+        RemotingCommand command = new RemotingCommand();
+        command.setCode(CommandCode.SUCCESS);
+        ByteBuf bodyBuffer = PooledByteBufAllocator.DEFAULT.directBuffer(bodySize);
+        bodyBuffer.writeBytes(body);
+        command.setBodyBuffer(bodyBuffer);
+        channel.writeOutbound(command);// 编码后释放command，同时释放本次调用的bodyBuffer
+        ByteBuf frame = channel.readOutbound();
+        channel.writeInbound(frame);
+        RemotingCommand decoded = channel.readInbound();
+        int bodyLength = decoded.getBodyLength();
+        decoded.release();
+        if (bodyBuffer.refCnt() != 0) {
+            throw new IllegalStateException("bodyBuffer leaked, refCnt : " + bodyBuffer.refCnt());
+        }
+        return bodyLength;
+    }
+}
@@ -0,0 +1,90 @@
+package io.lnk.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.benchmark.support.EchoRequest;
+import io.lnk.protocol.jackson.JacksonProtocolFactory;
+import io.lnk.remoting.Configuration;
+import io.lnk.remoting.exception.RemotingCommandException;
+import io.lnk.remoting.protocol.CommandCompressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 报文体压缩与解压耗时，报文体为JSON序列化的EchoRequest列表，压缩率在setup时打印
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月17日 下午4:05:22
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+    @Param({"snappy", "deflate"})
+    private String compressType;
+    @Param({"4096", "131072"})
+    private int bodySize;
+    private CommandCompressor compressor;
+    private ByteBuf body;
+    private ByteBuf compressed;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setCompressEnable(true);
+        configuration.setCompressThreshold(0);
+        configuration.setCompressType(compressType);
+        this.compressor = new CommandCompressor(configuration);
+        List<EchoRequest> report = new ArrayList<EchoRequest>();
+        byte[] bytes = new byte[0];
+        while (bytes.length < bodySize) {
+            report.add(EchoRequest.newEchoRequest());
+            bytes = new JacksonProtocolFactory().encode(report);
+        }
+        this.body = Unpooled.wrappedBuffer(bytes, 0, bodySize);
+        this.compressed = compressor.compress(body, PooledByteBufAllocator.DEFAULT);
+        System.out.println(compressType + " body " + body.readableBytes() + " bytes, compressed " + compressed.readableBytes() + " bytes");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.compressed.release();
+    }
+
+    @Benchmark
+    public int compress() {
+        ByteBuf buf = compressor.compress(body, PooledByteBufAllocator.DEFAULT);
+        int length = buf.readableBytes();
+        buf.release();
+        return length;
+    }
+
+    @Benchmark
+    public int decompress() throws RemotingCommandException {
+        ByteBuf buf = compressor.decompress(compressed, compressor.isDeflate(), PooledByteBufAllocator.DEFAULT);
+        int length = buf.readableBytes();
+        buf.release();
+        return length;
+    }
+}
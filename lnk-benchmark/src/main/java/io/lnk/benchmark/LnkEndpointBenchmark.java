@@ -0,0 +1,117 @@
+package io.lnk.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.api.ServiceGroup;
+import io.lnk.api.ServiceVersion;
+import io.lnk.api.app.Application;
+import io.lnk.api.port.ServerPortAllocator;
+import io.lnk.benchmark.support.Benchmarks;
+import io.lnk.benchmark.support.DefaultEchoService;
+import io.lnk.benchmark.support.EchoRequest;
+import io.lnk.benchmark.support.EchoService;
+import io.lnk.benchmark.support.InMemoryRegistry;
+import io.lnk.benchmark.support.SimpleServiceObjectFinder;
+import io.lnk.cluster.NestedLoadBalance;
+import io.lnk.core.caller.DefaultRemoteObjectFactory;
+import io.lnk.core.lnk.DefaultLnkEndpoint;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.object.DefaultObjectProtocolFactory;
+import io.lnk.remoting.Configuration;
+
+/**
+ * 通过远程存根经DefaultLnkEndpoint的端到端回环调用，注册中心为进程内实现
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 下午2:48:15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LnkEndpointBenchmark {
+    @Param({"false", "true"})
+    private boolean compactInvokerCommandEnable;
+    @Param({"false", "true"})
+    private boolean streamingProtocolEnable;
+    @Param({"false", "true"})
+    private boolean inlineProtocolObjectEnable;
+    private DefaultLnkEndpoint endpoint;
+    private EchoService echoService;
+    private EchoRequest request;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setCompactInvokerCommandEnable(compactInvokerCommandEnable);
+        configuration.setStreamingProtocolEnable(streamingProtocolEnable);
+        configuration.setZeroCopyCodecEnable(streamingProtocolEnable);
+        configuration.setInlineProtocolObjectEnable(inlineProtocolObjectEnable);
+        DefaultProtocolFactorySelector protocolFactorySelector = new DefaultProtocolFactorySelector();
+        DefaultObjectProtocolFactory objectProtocolFactory = new DefaultObjectProtocolFactory();
+        objectProtocolFactory.setInlineEnable(inlineProtocolObjectEnable);
+        ServiceGroup serviceGroup = new ServiceGroup();
+        serviceGroup.setServiceGroup(EchoService.SERVICE_GROUP);
+        this.endpoint = new DefaultLnkEndpoint();
+        this.endpoint.setConfiguration(configuration);
+        this.endpoint.setApplication(Benchmarks.newApplication());
+        this.endpoint.setRegistry(new InMemoryRegistry());
+        this.endpoint.setLoadBalance(new NestedLoadBalance("roundrobin"));
+        this.endpoint.setServerPortAllocator(new ServerPortAllocator() {
+            @Override
+            public int selectPort(int expectListenPort, Application application) {
+                return 0;
+            }
+        });
+        this.endpoint.setProtocolFactorySelector(protocolFactorySelector);
+        this.endpoint.setObjectProtocolFactory(objectProtocolFactory);
+        this.endpoint.setServiceObjectFinder(new SimpleServiceObjectFinder());
+        this.endpoint.setServiceGroups(Collections.singletonList(serviceGroup));
+        this.endpoint.start();
+        this.endpoint.registry(EchoService.class.getName(), ServiceVersion.DEFAULT_VERSION, protocolFactorySelector.select(0).getProtocol(), new DefaultEchoService());
+        DefaultRemoteObjectFactory remoteObjectFactory = new DefaultRemoteObjectFactory();
+        remoteObjectFactory.setEndpoint(endpoint);
+        remoteObjectFactory.setProtocolFactorySelector(protocolFactorySelector);
+        remoteObjectFactory.setObjectProtocolFactory(objectProtocolFactory);
+        remoteObjectFactory.setBeanClassLoader(LnkEndpointBenchmark.class.getClassLoader());
+        objectProtocolFactory.setRemoteObjectFactory(remoteObjectFactory);
+        this.echoService = remoteObjectFactory.getServiceObject(EchoService.class, ServiceVersion.DEFAULT_VERSION);
+        this.request = EchoRequest.newEchoRequest();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.endpoint.shutdown();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public EchoRequest sync() {
+        return echoService.echo(request);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public EchoRequest future() {
+        return echoService.echoFuture(request).join();
+    }
+}
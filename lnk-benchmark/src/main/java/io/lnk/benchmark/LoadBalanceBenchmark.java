@@ -0,0 +1,64 @@
+package io.lnk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.cluster.LoadBalance;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.benchmark.support.Benchmarks;
+import io.lnk.cluster.NestedLoadBalance;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.object.DefaultObjectProtocolFactory;
+
+/**
+ * 各LoadBalance在不同候选地址数下的一次选择
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午11:21:52
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBalanceBenchmark {
+    @Param({"hash", "random", "roundrobin", "local", "leastpending", "peakewma"})
+    private String type;
+    @Param({"4", "32"})
+    private int candidatesNum;
+    private LoadBalance loadBalance;
+    private InvokerCommand command;
+    private Address[] candidates;
+
+    @Setup
+    public void setup() throws Throwable {
+        ProtocolFactory protocolFactory = new DefaultProtocolFactorySelector().select(0);
+        this.loadBalance = new NestedLoadBalance(type);
+        this.command = Benchmarks.newEchoCommand(protocolFactory, new DefaultObjectProtocolFactory());
+        this.candidates = new Address[candidatesNum];
+        for (int i = 0; i < candidatesNum; i++) {
+            this.candidates[i] = new Address("10.0.0." + (i + 1), 20880);
+        }
+    }
+
+    @Benchmark
+    public Address select() {
+        return loadBalance.select(command, candidates);
+    }
+}
@@ -0,0 +1,125 @@
+package io.lnk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.api.protocol.StreamingProtocolFactory;
+import io.lnk.benchmark.support.Benchmarks;
+import io.lnk.benchmark.support.EchoRequest;
+import io.lnk.benchmark.support.EchoService;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.invoker.CompactInvokerCommandCodec;
+import io.lnk.protocol.object.DefaultObjectProtocolFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 各ProtocolFactory对InvokerCommand、参数数组的编解码，以及紧凑信封格式的对比，编码后的字节数在每组参数开始时输出
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:47:26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolFactoryBenchmark {
+    @Param({"0", "1", "2", "3"})
+    private int protocol;
+    @Param({"false", "true"})
+    private boolean inlineEnable;
+    private DefaultProtocolFactorySelector protocolFactorySelector;
+    private ProtocolFactory protocolFactory;
+    private DefaultObjectProtocolFactory objectProtocolFactory;
+    private CompactInvokerCommandCodec compactInvokerCommandCodec;
+    private InvokerCommand command;
+    private byte[] commandBytes;
+    private byte[] compactCommandBytes;
+    private ByteBuf commandBuffer;
+    private Object[] args;
+    private ProtocolObject[] protocolArgs;
+
+    @Setup
+    public void setup() throws Throwable {
+        this.protocolFactorySelector = new DefaultProtocolFactorySelector();
+        this.protocolFactory = protocolFactorySelector.select(protocol);
+        this.objectProtocolFactory = new DefaultObjectProtocolFactory();
+        this.objectProtocolFactory.setInlineEnable(inlineEnable);
+        this.compactInvokerCommandCodec = new CompactInvokerCommandCodec();
+        this.compactInvokerCommandCodec.registry(EchoService.class.getName(), EchoService.class);
+        this.command = Benchmarks.newEchoCommand(protocolFactory, objectProtocolFactory);
+        this.commandBytes = protocolFactory.encode(command);
+        this.compactCommandBytes = compactInvokerCommandCodec.encodeRequest(command, protocolFactory);
+        this.commandBuffer = Unpooled.wrappedBuffer(commandBytes);
+        this.args = new Object[] {EchoRequest.newEchoRequest()};
+        this.protocolArgs = objectProtocolFactory.encode(args, protocolFactory);
+        System.out.println(protocolFactory + " inline " + inlineEnable + ", InvokerCommand " + commandBytes.length + " bytes, compact " + compactCommandBytes.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encodeInvokerCommand() {
+        return protocolFactory.encode(command);
+    }
+
+    @Benchmark
+    public InvokerCommand decodeInvokerCommand() {
+        return protocolFactory.decode(InvokerCommand.class, commandBytes);
+    }
+
+    @Benchmark
+    public int encodeInvokerCommandToByteBuf() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.ioBuffer();
+        try {
+            ((StreamingProtocolFactory) protocolFactory).encode(command, new ByteBufOutputStream(buf));
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public InvokerCommand decodeInvokerCommandFromByteBuf() {
+        return ((StreamingProtocolFactory) protocolFactory).decode(InvokerCommand.class, new ByteBufInputStream(commandBuffer.duplicate()));
+    }
+
+    @Benchmark
+    public byte[] encodeCompactInvokerCommand() throws Throwable {
+        return compactInvokerCommandCodec.encodeRequest(command, protocolFactory);
+    }
+
+    @Benchmark
+    public InvokerCommand decodeCompactInvokerCommand() throws Throwable {
+        return compactInvokerCommandCodec.decodeRequest(compactCommandBytes, protocolFactorySelector);
+    }
+
+    @Benchmark
+    public ProtocolObject[] encodeArgs() throws Throwable {
+        return objectProtocolFactory.encode(args, protocolFactory);
+    }
+
+    @Benchmark
+    public Object[] decodeArgs() throws Throwable {
+        return objectProtocolFactory.decode(protocolArgs, protocolFactory);
+    }
+}
@@ -0,0 +1,130 @@
+package io.lnk.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.remoting.CommandProcessor;
+import io.lnk.remoting.Configuration;
+import io.lnk.remoting.RemotingCallback;
+import io.lnk.remoting.ReplyFuture;
+import io.lnk.remoting.netty.NettyRemotingClient;
+import io.lnk.remoting.netty.NettyRemotingServer;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * NettyRemotingClient到NettyRemotingServer的回环调用吞吐量，不经过InvokerCommand的序列化。
+ * 每请求的系统调用数可在 strace -f -c -e trace=write,writev,read,epoll_wait 下运行本基准后按ops换算
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 下午2:10:36
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemotingBenchmark {
+    private static final int ASYNC_BATCH = 64;
+    @Param({"false", "true"})
+    private boolean flushConsolidationEnable;
+    @Param({"1", "4"})
+    private int clientChannelsPerAddress;
+    @Param({"true", "false"})
+    private boolean eventExecutorGroupEnable;
+    private NettyRemotingServer remotingServer;
+    private NettyRemotingClient remotingClient;
+    private ExecutorService processorExecutor;
+    private String addr;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setListenPort(0);
+        configuration.setFlushConsolidationEnable(flushConsolidationEnable);
+        configuration.setClientChannelsPerAddress(clientChannelsPerAddress);
+        configuration.setEventExecutorGroupEnable(eventExecutorGroupEnable);
+        this.remotingServer = new NettyRemotingServer(new DefaultProtocolFactorySelector(), configuration);
+        this.processorExecutor = Executors.newFixedThreadPool(8);
+        this.remotingServer.registerDefaultProcessor(new CommandProcessor() {
+            @Override
+            public RemotingCommand processCommand(RemotingCommand request) throws Throwable {
+                return request;
+            }
+
+            @Override
+            public boolean tryAcquireFailure(long timeoutMillis) {
+                return false;
+            }
+
+            @Override
+            public void release() {}
+        }, processorExecutor);
+        this.remotingServer.start();
+        this.remotingClient = new NettyRemotingClient(new DefaultProtocolFactorySelector(), configuration);
+        this.remotingClient.start();
+        this.addr = "127.0.0.1:" + remotingServer.getServerAddress().getPort();
+        this.body = new byte[256];
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.remotingClient.shutdown();
+        this.remotingServer.shutdown();
+        this.processorExecutor.shutdown();
+    }
+
+    private RemotingCommand createRequest() {
+        RemotingCommand request = new RemotingCommand();
+        request.setCode(CommandCode.SUCCESS);
+        request.setBody(body);
+        return request;
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int invokeSync() throws Throwable {
+        RemotingCommand response = remotingClient.invokeSync(addr, createRequest(), 3000L);
+        int bodyLength = response.getBodyLength();
+        response.release();
+        return bodyLength;
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(ASYNC_BATCH)
+    public void invokeAsync() throws Throwable {
+        final CountDownLatch replies = new CountDownLatch(ASYNC_BATCH);
+        for (int i = 0; i < ASYNC_BATCH; i++) {
+            remotingClient.invokeAsync(addr, createRequest(), 3000L, new RemotingCallback() {
+                @Override
+                public void onComplete(ReplyFuture replyFuture) {
+                    replies.countDown();
+                }
+            });
+        }
+        replies.await(3000L, TimeUnit.MILLISECONDS);
+    }
+}
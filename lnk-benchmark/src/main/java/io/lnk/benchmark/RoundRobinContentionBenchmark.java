@@ -0,0 +1,88 @@
+package io.lnk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.cluster.LoadBalance;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.benchmark.support.Benchmarks;
+import io.lnk.benchmark.support.LegacyRoundRobinLoadBalance;
+import io.lnk.cluster.RoundRobinLoadBalance;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.object.DefaultObjectProtocolFactory;
+
+/**
+ * 多线程同时轮询选择：legacy为所有服务共享一个锁的旧实现，roundrobin为按服务无锁的平滑加权轮询。
+ * services个服务平均分给各线程，weighted时候选地址权重为100、200、300...
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 下午5:10:43
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundRobinContentionBenchmark {
+    @Param({"legacy", "roundrobin"})
+    private String type;
+    @Param({"1", "8"})
+    private int services;
+    @Param({"false", "true"})
+    private boolean weighted;
+    private LoadBalance loadBalance;
+    private InvokerCommand[] commands;
+    private Address[] candidates;
+    private final AtomicInteger threads = new AtomicInteger(0);
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private InvokerCommand command;
+
+        @Setup
+        public void setup(RoundRobinContentionBenchmark benchmark) {
+            this.command = benchmark.commands[benchmark.threads.getAndIncrement() % benchmark.commands.length];
+        }
+    }
+
+    @Setup
+    public void setup() throws Throwable {
+        ProtocolFactory protocolFactory = new DefaultProtocolFactorySelector().select(0);
+        this.loadBalance = StringUtils.equals(type, "legacy") ? new LegacyRoundRobinLoadBalance() : new RoundRobinLoadBalance();
+        this.commands = new InvokerCommand[services];
+        for (int i = 0; i < services; i++) {
+            this.commands[i] = Benchmarks.newEchoCommand(protocolFactory, new DefaultObjectProtocolFactory());
+            this.commands[i].setServiceId(this.commands[i].getServiceId() + i);
+        }
+        this.candidates = new Address[8];
+        for (int i = 0; i < this.candidates.length; i++) {
+            this.candidates[i] = new Address("10.0.0." + (i + 1), 20880);
+            this.candidates[i].setWeight(weighted ? Address.DEFAULT_WEIGHT * (i + 1) : Address.DEFAULT_WEIGHT);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Address select(ThreadState threadState) {
+        return loadBalance.select(threadState.command, candidates);
+    }
+}
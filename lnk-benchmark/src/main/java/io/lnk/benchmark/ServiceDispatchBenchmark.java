@@ -0,0 +1,125 @@
+package io.lnk.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ServiceVersion;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.api.protocol.ProtocolFactorySelector;
+import io.lnk.benchmark.support.Benchmarks;
+import io.lnk.benchmark.support.DefaultEchoService;
+import io.lnk.benchmark.support.EchoRequest;
+import io.lnk.benchmark.support.EchoService;
+import io.lnk.benchmark.support.SimpleServiceObjectFinder;
+import io.lnk.core.ServiceMethodInvoker;
+import io.lnk.core.cache.CacheRule;
+import io.lnk.core.cache.ResponseCache;
+import io.lnk.core.lnk.DefaultCommandProcessor;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.object.DefaultObjectProtocolFactory;
+import io.lnk.remoting.Configuration;
+import io.lnk.remoting.protocol.CommandBodyCodec;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * 服务端方法分发：每次反射查找、缓存的MethodHandle，以及DefaultCommandProcessor完整处理一次请求(未命中/命中返回值缓存)
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午11:05:39
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceDispatchBenchmark {
+    private SimpleServiceObjectFinder serviceObjectFinder;
+    private DefaultCommandProcessor commandProcessor;
+    private DefaultCommandProcessor cachedCommandProcessor;
+    private InvokerCommand command;
+    private Object serviceObject;
+    private Object[] args;
+    private byte[] requestBody;
+    private ServiceMethodInvoker serviceMethodInvoker;
+
+    @Setup
+    public void setup() throws Throwable {
+        ProtocolFactorySelector protocolFactorySelector = new DefaultProtocolFactorySelector();
+        ProtocolFactory protocolFactory = protocolFactorySelector.select(0);
+        DefaultObjectProtocolFactory objectProtocolFactory = new DefaultObjectProtocolFactory();
+        this.serviceObject = new DefaultEchoService();
+        this.serviceObjectFinder = new SimpleServiceObjectFinder();
+        this.serviceObjectFinder.registry(EchoService.class.getName(), ServiceVersion.DEFAULT_VERSION, protocolFactory.getProtocol(), serviceObject);
+        this.commandProcessor = new DefaultCommandProcessor();
+        this.commandProcessor.setProtocolFactorySelector(protocolFactorySelector);
+        this.commandProcessor.setServiceObjectFinder(serviceObjectFinder);
+        this.commandProcessor.setObjectProtocolFactory(objectProtocolFactory);
+        this.commandProcessor.setCommandBodyCodec(new CommandBodyCodec(new Configuration()));
+        CacheRule cacheRule = new CacheRule();
+        cacheRule.setServiceId(EchoService.class.getName());
+        cacheRule.setMethod("echo");
+        cacheRule.setTtlMillis(TimeUnit.MINUTES.toMillis(10));
+        this.cachedCommandProcessor = new DefaultCommandProcessor();
+        this.cachedCommandProcessor.setProtocolFactorySelector(protocolFactorySelector);
+        this.cachedCommandProcessor.setServiceObjectFinder(serviceObjectFinder);
+        this.cachedCommandProcessor.setObjectProtocolFactory(objectProtocolFactory);
+        this.cachedCommandProcessor.setCommandBodyCodec(new CommandBodyCodec(new Configuration()));
+        this.cachedCommandProcessor.setResponseCache(new ResponseCache(Collections.singletonList(cacheRule)));
+        this.command = Benchmarks.newEchoCommand(protocolFactory, objectProtocolFactory);
+        this.requestBody = protocolFactory.encode(command);
+        this.args = new Object[] {EchoRequest.newEchoRequest()};
+        this.serviceMethodInvoker = serviceObjectFinder.getServiceMethodInvoker(serviceObject, command);
+    }
+
+    @Benchmark
+    public Object reflection() throws Throwable {
+        Method method = ReflectionUtils.findMethod(serviceObject.getClass(), command.getMethod(), command.getSignature());
+        return method.invoke(serviceObject, args);
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        return serviceObjectFinder.getServiceMethodInvoker(serviceObject, command).invoke(serviceObject, args);
+    }
+
+    @Benchmark
+    public Object methodHandleResolved() throws Throwable {
+        return serviceMethodInvoker.invoke(serviceObject, args);
+    }
+
+    @Benchmark
+    public RemotingCommand processCommand() throws Throwable {
+        RemotingCommand request = new RemotingCommand();
+        request.setCode(EchoService.SERVICE_GROUP.hashCode());
+        request.setBody(requestBody);
+        return commandProcessor.processCommand(request);
+    }
+
+    /**
+     * 相同参数的请求命中服务端返回值缓存
+     */
+    @Benchmark
+    public RemotingCommand processCommandCached() throws Throwable {
+        RemotingCommand request = new RemotingCommand();
+        request.setCode(EchoService.SERVICE_GROUP.hashCode());
+        request.setBody(requestBody);
+        return cachedCommandProcessor.processCommand(request);
+    }
+}
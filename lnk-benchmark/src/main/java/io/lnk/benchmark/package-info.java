@@ -0,0 +1,9 @@
+/**
+ * JMH基准测试, 打包后执行 java -jar lnk-benchmark/target/benchmarks.jar [正则] 运行
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:05:18
+ */
+package io.lnk.benchmark;
@@ -0,0 +1,44 @@
+package io.lnk.benchmark.support;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ServiceVersion;
+import io.lnk.api.app.Application;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.api.protocol.object.ObjectProtocolFactory;
+import io.lnk.api.utils.CorrelationIds;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:21:13
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {}
+
+    public static Application newApplication() {
+        Application application = new Application();
+        application.setApp("lnk-benchmark");
+        application.setType("jar");
+        return application;
+    }
+
+    /**
+     * 与RemoteCaller构造的请求一致的EchoService.echo调用
+     */
+    public static InvokerCommand newEchoCommand(ProtocolFactory protocolFactory, ObjectProtocolFactory objectProtocolFactory) throws Throwable {
+        InvokerCommand command = new InvokerCommand();
+        command.setId(CorrelationIds.buildGuid());
+        command.setIp("127.0.0.1");
+        command.setApplication(newApplication());
+        command.setVersion(ServiceVersion.DEFAULT_VERSION);
+        command.setProtocol(protocolFactory.getProtocol());
+        command.setServiceGroup(EchoService.SERVICE_GROUP);
+        command.setServiceId(EchoService.class.getName());
+        command.setMethod("echo");
+        command.setSignature(new Class<?>[] {EchoRequest.class});
+        command.setArgs(objectProtocolFactory.encode(new Object[] {EchoRequest.newEchoRequest()}, protocolFactory));
+        return command;
+    }
+}
@@ -0,0 +1,22 @@
+package io.lnk.benchmark.support;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:12:09
+ */
+public class DefaultEchoService implements EchoService {
+
+    @Override
+    public EchoRequest echo(EchoRequest request) {
+        return request;
+    }
+
+    @Override
+    public CompletableFuture<EchoRequest> echoFuture(EchoRequest request) {
+        return CompletableFuture.completedFuture(request);
+    }
+}
@@ -0,0 +1,80 @@
+package io.lnk.benchmark.support;
+
+import java.io.Serializable;
+
+/**
+ * 有代表性的小报文业务对象
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:08:41
+ */
+public class EchoRequest implements Serializable {
+    private static final long serialVersionUID = -4402215935271376092L;
+    private String txnId;
+    private String memberId;
+    private String name;
+    private String mobile;
+    private long amount;
+    private long timestamp;
+
+    public static EchoRequest newEchoRequest() {
+        EchoRequest request = new EchoRequest();
+        request.setTxnId("20170814100841000000000000000001");
+        request.setMemberId("100000000001");
+        request.setName("刘飞");
+        request.setMobile("13800000000");
+        request.setAmount(10000L);
+        request.setTimestamp(1502676521000L);
+        return request;
+    }
+
+    public String getTxnId() {
+        return txnId;
+    }
+
+    public void setTxnId(String txnId) {
+        this.txnId = txnId;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(String memberId) {
+        this.memberId = memberId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getMobile() {
+        return mobile;
+    }
+
+    public void setMobile(String mobile) {
+        this.mobile = mobile;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
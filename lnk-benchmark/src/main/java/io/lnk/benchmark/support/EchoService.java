@@ -0,0 +1,20 @@
+package io.lnk.benchmark.support;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.lnk.api.annotation.LnkService;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:11:27
+ */
+@LnkService(group = EchoService.SERVICE_GROUP)
+public interface EchoService {
+    String SERVICE_GROUP = "lnk-benchmark";
+
+    EchoRequest echo(EchoRequest request);
+
+    CompletableFuture<EchoRequest> echoFuture(EchoRequest request);
+}
@@ -0,0 +1,52 @@
+package io.lnk.benchmark.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import io.lnk.api.Address;
+import io.lnk.api.registry.Registry;
+
+/**
+ * 不依赖ZooKeeper的进程内注册中心
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:14:35
+ */
+public class InMemoryRegistry implements Registry {
+    private static final Address[] EMPTY_ADDRESSES = new Address[0];
+    private final ConcurrentHashMap<String, CopyOnWriteArraySet<Address>> services = new ConcurrentHashMap<String, CopyOnWriteArraySet<Address>>();
+
+    @Override
+    public Address[] lookup(String serviceId, String version, int protocol) {
+        CopyOnWriteArraySet<Address> addrs = this.services.get(this.buildKey(serviceId, version, protocol));
+        return (addrs == null) ? EMPTY_ADDRESSES : addrs.toArray(new Address[addrs.size()]);
+    }
+
+    @Override
+    public void registry(String serviceId, String version, int protocol, Address addr) {
+        String key = this.buildKey(serviceId, version, protocol);
+        CopyOnWriteArraySet<Address> addrs = this.services.get(key);
+        if (addrs == null) {
+            addrs = new CopyOnWriteArraySet<Address>();
+            CopyOnWriteArraySet<Address> prev = this.services.putIfAbsent(key, addrs);
+            if (prev != null) {
+                addrs = prev;
+            }
+        }
+        addrs.add(addr);
+    }
+
+    @Override
+    public void unregistry(String serviceId, String version, int protocol, Address addr) {
+        CopyOnWriteArraySet<Address> addrs = this.services.get(this.buildKey(serviceId, version, protocol));
+        if (addrs != null) {
+            addrs.remove(addr);
+        }
+    }
+
+    private String buildKey(String serviceId, String version, int protocol) {
+        return serviceId + "." + version + "." + protocol;
+    }
+}
@@ -0,0 +1,30 @@
+package io.lnk.benchmark.support;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.cluster.LoadBalance;
+
+/**
+ * 改为按服务无锁轮询之前的RoundRobinLoadBalance，所有服务共享一个静态下标并在装箱的Integer上加锁，仅作为基准对照
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 下午5:02:16
+ */
+public class LegacyRoundRobinLoadBalance implements LoadBalance {
+    private static Integer index = 0;
+
+    @Override
+    public Address select(InvokerCommand command, Address[] candidates) {
+        Address candidate;
+        synchronized (index) {
+            if (index >= candidates.length) {
+                index = 0;
+            }
+            candidate = candidates[index];
+            index++;
+        }
+        return candidate;
+    }
+}
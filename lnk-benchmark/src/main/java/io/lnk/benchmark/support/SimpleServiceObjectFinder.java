@@ -0,0 +1,46 @@
+package io.lnk.benchmark.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.exception.NotFoundServiceException;
+import io.lnk.core.ServiceMethodInvoker;
+import io.lnk.core.ServiceMethodInvokers;
+import io.lnk.core.ServiceObjectFinder;
+
+/**
+ * 不依赖Spring容器的ServiceObjectFinder
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:17:50
+ */
+public class SimpleServiceObjectFinder implements ServiceObjectFinder {
+    private final ConcurrentHashMap<String, Object> serviceObjects = new ConcurrentHashMap<String, Object>();
+    private final ServiceMethodInvokers serviceMethodInvokers = new ServiceMethodInvokers();
+
+    @Override
+    public Object getServiceObject(InvokerCommand command) throws NotFoundServiceException {
+        Object serviceObject = this.serviceObjects.get(this.buildKey(command.getServiceId(), command.getVersion(), command.getProtocol()));
+        if (serviceObject == null) {
+            throw new NotFoundServiceException(command.getServiceId());
+        }
+        return serviceObject;
+    }
+
+    @Override
+    public void registry(String serviceId, String version, int protocol, Object bean) {
+        this.serviceObjects.put(this.buildKey(serviceId, version, protocol), bean);
+        this.serviceMethodInvokers.registry(bean.getClass());
+    }
+
+    @Override
+    public ServiceMethodInvoker getServiceMethodInvoker(Object serviceObject, InvokerCommand command) throws NotFoundServiceException {
+        return this.serviceMethodInvokers.getServiceMethodInvoker(serviceObject.getClass(), command.getMethod(), command.getSignature());
+    }
+
+    private String buildKey(String serviceId, String version, int protocol) {
+        return serviceId + "." + version + "." + protocol;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月14日 上午10:06:02
+ */
+package io.lnk.benchmark.support;
@@ -1,20 +1,106 @@
 package io.lnk.cluster;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
 import io.lnk.api.Address;
 import io.lnk.api.InvokerCommand;
 import io.lnk.api.cluster.LoadBalance;
 
 /**
+ * ketama一致性hash：每个候选地址在环上放置VIRTUAL_NODES个虚拟节点，请求按hash键顺时针落到第一个虚拟节点。
+ * 环按服务缓存，仅在Registry.lookup返回的候选地址集合变化时重建(与返回顺序无关)，增减一个服务提供方只会迁移约1/N的键。
+ * hash键取自方法参数上的LnkHashKey，没有时使用调用的correlationId
+ *
  * @author 刘飞 E-mail:liufei_it@126.com
  *
  * @version 1.0.0
  * @since 2017年5月24日 下午9:01:34
  */
 public class ConsistencyHashLoadBalance implements LoadBalance {
+    private static final int VIRTUAL_NODES = 160;
+    private static final ThreadLocal<MessageDigest> MD5 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("MD5 not supported.", e);
+            }
+        }
+    };
+    private final ConcurrentHashMap<ServiceKey, HashRing> rings = new ConcurrentHashMap<ServiceKey, HashRing>(64);
 
     @Override
     public Address select(InvokerCommand command, Address[] candidates) {
-        int index = Math.abs(command.getId().hashCode()) % candidates.length;
-        return candidates[index];
+        if (candidates.length == 1) {
+            return candidates[0];
+        }
+        ServiceKey ringKey = new ServiceKey(command);
+        HashRing ring = this.rings.get(ringKey);
+        if (ring == null || ring.matches(candidates) == false) {
+            ring = new HashRing(candidates);
+            this.rings.put(ringKey, ring);
+        }
+        String hashKey = StringUtils.defaultString(command.getHashKey(), command.getId());
+        return ring.select(hash(md5(hashKey), 0));
+    }
+
+    private static byte[] md5(String key) {
+        return MD5.get().digest(key.getBytes(StandardCharsets.UTF_8));// digest完成后MessageDigest自动重置
+    }
+
+    private static long hash(byte[] digest, int number) {
+        return (((long) (digest[3 + number * 4] & 0xFF) << 24) | ((long) (digest[2 + number * 4] & 0xFF) << 16) | ((long) (digest[1 + number * 4] & 0xFF) << 8) | (digest[number * 4] & 0xFF)) & 0xFFFFFFFFL;
+    }
+
+    private static final class HashRing {
+        private final Set<Address> candidateSet;
+        private final TreeMap<Long, Address> nodes = new TreeMap<Long, Address>();
+
+        HashRing(Address[] candidates) {
+            this.candidateSet = new HashSet<Address>(Arrays.asList(candidates));
+            for (Address candidate : candidates) {
+                String addr = candidate.toString();
+                for (int i = 0; i < VIRTUAL_NODES / 4; i++) {
+                    byte[] digest = md5(addr + "-" + i);
+                    for (int h = 0; h < 4; h++) {
+                        this.nodes.put(hash(digest, h), candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Registry.lookup返回的候选地址互不重复，个数相同且都在环上即为同一集合
+         */
+        boolean matches(Address[] candidates) {
+            if (this.candidateSet.size() != candidates.length) {
+                return false;
+            }
+            for (Address candidate : candidates) {
+                if (this.candidateSet.contains(candidate) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Address select(long hash) {
+            Map.Entry<Long, Address> entry = this.nodes.ceilingEntry(hash);
+            if (entry == null) {
+                entry = this.nodes.firstEntry();
+            }
+            return entry.getValue();
+        }
     }
 }
@@ -0,0 +1,48 @@
+package io.lnk.cluster;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.cluster.LoadBalance;
+import io.lnk.remoting.RemotingClient;
+import io.lnk.remoting.RemotingClientAware;
+
+/**
+ * 最少未完成请求：随机取两个候选地址，选择客户端上未完成请求数较少的一个(power of two choices)，
+ * 相等时取第一个。RemotingClient注入前退化为随机
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月20日 下午3:12:40
+ */
+public class LeastPendingLoadBalance implements LoadBalance, RemotingClientAware {
+    private volatile RemotingClient remotingClient;
+
+    @Override
+    public Address select(InvokerCommand command, Address[] candidates) {
+        int candidatesNum = candidates.length;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidatesNum);
+        RemotingClient remotingClient = this.remotingClient;
+        if (candidatesNum == 1 || remotingClient == null) {
+            return candidates[first];
+        }
+        int second = random.nextInt(candidatesNum - 1);
+        if (second >= first) {
+            second++;
+        }
+        Address firstCandidate = candidates[first];
+        Address secondCandidate = candidates[second];
+        if (remotingClient.getPendings(secondCandidate.toString()) < remotingClient.getPendings(firstCandidate.toString())) {
+            return secondCandidate;
+        }
+        return firstCandidate;
+    }
+
+    @Override
+    public void setRemotingClient(RemotingClient remotingClient) {
+        this.remotingClient = remotingClient;
+    }
+}
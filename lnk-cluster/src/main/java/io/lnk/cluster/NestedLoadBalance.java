@@ -7,7 +7,10 @@ import org.slf4j.LoggerFactory;
 
 import io.lnk.api.Address;
 import io.lnk.api.InvokerCommand;
+import io.lnk.api.cluster.LatencyAware;
 import io.lnk.api.cluster.LoadBalance;
+import io.lnk.remoting.RemotingClient;
+import io.lnk.remoting.RemotingClientAware;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -15,7 +18,7 @@ import io.lnk.api.cluster.LoadBalance;
  * @version 1.0.0
  * @since 2017年6月26日 下午6:01:21
  */
-public class NestedLoadBalance implements LoadBalance {
+public class NestedLoadBalance implements LoadBalance, RemotingClientAware, LatencyAware {
     private static final Logger log = LoggerFactory.getLogger(NestedLoadBalance.class.getSimpleName());
     private final LoadBalance nestedLoadBalance;
 
@@ -30,6 +33,10 @@ public class NestedLoadBalance implements LoadBalance {
             this.nestedLoadBalance = new RoundRobinLoadBalance();
         } else if (StringUtils.equals(type, "local")) {
             this.nestedLoadBalance = new PriorityLocalLoadBalance();
+        } else if (StringUtils.equals(type, "leastpending")) {
+            this.nestedLoadBalance = new LeastPendingLoadBalance();
+        } else if (StringUtils.equals(type, "peakewma")) {
+            this.nestedLoadBalance = new PeakEwmaLoadBalance();
         } else {
             this.nestedLoadBalance = new ConsistencyHashLoadBalance();
         }
@@ -42,4 +49,30 @@ public class NestedLoadBalance implements LoadBalance {
         }
         return nestedLoadBalance.select(command, candidates);
     }
+
+    @Override
+    public void setRemotingClient(RemotingClient remotingClient) {
+        if (nestedLoadBalance instanceof RemotingClientAware) {
+            ((RemotingClientAware) nestedLoadBalance).setRemotingClient(remotingClient);
+        }
+    }
+
+    @Override
+    public void updateLatency(InvokerCommand command, Address address, long latencyNanos) {
+        if (nestedLoadBalance instanceof LatencyAware) {
+            ((LatencyAware) nestedLoadBalance).updateLatency(command, address, latencyNanos);
+        }
+    }
+
+    public void setWarmupMillis(long warmupMillis) {
+        if (nestedLoadBalance instanceof PeakEwmaLoadBalance) {
+            ((PeakEwmaLoadBalance) nestedLoadBalance).setWarmupMillis(warmupMillis);
+        }
+    }
+
+    public void setDecayMillis(long decayMillis) {
+        if (nestedLoadBalance instanceof PeakEwmaLoadBalance) {
+            ((PeakEwmaLoadBalance) nestedLoadBalance).setDecayMillis(decayMillis);
+        }
+    }
 }
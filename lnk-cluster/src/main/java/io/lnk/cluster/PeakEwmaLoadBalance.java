@@ -0,0 +1,170 @@
+package io.lnk.cluster;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.cluster.LatencyAware;
+import io.lnk.api.cluster.LoadBalance;
+import io.lnk.remoting.RemotingClient;
+import io.lnk.remoting.RemotingClientAware;
+
+/**
+ * peak EWMA：每个服务的每个地址维护按decayMillis衰减的响应时间估计，新样本高于估计值时直接取新样本(峰值)，
+ * 随机取两个候选地址，选择 响应时间估计 * (未完成请求数 + 1) / 预热权重 较小的一个。
+ * 服务的候选地址变化时，新加入的地址以原候选地址中最大的响应时间估计起步，预热权重在warmupMillis内从MIN_WARMUP_WEIGHT线性升到1，
+ * 离开的地址的估计值随之丢弃。各服务的状态相互独立，一个服务的候选地址变化不影响其他服务
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 下午2:20:37
+ */
+public class PeakEwmaLoadBalance implements LoadBalance, RemotingClientAware, LatencyAware {
+    public static final long DEFAULT_WARMUP_MILLIS = 60000L;
+    public static final long DEFAULT_DECAY_MILLIS = 10000L;
+    private static final double MIN_WARMUP_WEIGHT = 0.1D;
+    private final ConcurrentHashMap<ServiceKey, ServiceLatencies> services = new ConcurrentHashMap<ServiceKey, ServiceLatencies>(64);
+    private volatile RemotingClient remotingClient;
+    private long warmupNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_WARMUP_MILLIS);
+    private double decayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DECAY_MILLIS);
+
+    @Override
+    public Address select(InvokerCommand command, Address[] candidates) {
+        int candidatesNum = candidates.length;
+        if (candidatesNum == 1) {
+            return candidates[0];
+        }
+        long nowNanos = System.nanoTime();
+        ServiceLatencies serviceLatencies = this.refresh(new ServiceKey(command), candidates, nowNanos);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidatesNum);
+        int second = random.nextInt(candidatesNum - 1);
+        if (second >= first) {
+            second++;
+        }
+        Address firstCandidate = candidates[first];
+        Address secondCandidate = candidates[second];
+        if (this.score(serviceLatencies, secondCandidate, nowNanos) < this.score(serviceLatencies, firstCandidate, nowNanos)) {
+            return secondCandidate;
+        }
+        return firstCandidate;
+    }
+
+    /**
+     * 服务第一次出现的候选地址视为已预热，之后新加入的地址(包括下线后重新上线的地址)重新预热。
+     * 候选地址变化时整体替换该服务的状态，保留仍在的地址的估计值，丢弃离开的地址
+     */
+    private ServiceLatencies refresh(ServiceKey serviceKey, Address[] candidates, long nowNanos) {
+        while (true) {
+            ServiceLatencies prev = this.services.get(serviceKey);
+            if (prev != null && Arrays.equals(prev.candidates, candidates)) {
+                return prev;
+            }
+            ServiceLatencies next = new ServiceLatencies(candidates.clone());
+            double initialCost = 0D;
+            if (prev != null) {
+                for (Latency latency : prev.latencies.values()) {
+                    initialCost = Math.max(initialCost, latency.getCost(nowNanos, this.decayNanos));
+                }
+            }
+            for (Address candidate : candidates) {
+                Latency latency = (prev == null) ? null : prev.latencies.get(candidate);
+                if (latency == null) {
+                    latency = (prev == null) ? new Latency(nowNanos - this.warmupNanos, 0D, nowNanos) : new Latency(nowNanos, initialCost, nowNanos);
+                }
+                next.latencies.put(candidate, latency);
+            }
+            if ((prev == null) ? (this.services.putIfAbsent(serviceKey, next) == null) : this.services.replace(serviceKey, prev, next)) {
+                return next;
+            }
+        }
+    }
+
+    private double score(ServiceLatencies serviceLatencies, Address candidate, long nowNanos) {
+        Latency latency = serviceLatencies.latencies.get(candidate);
+        if (latency == null) {
+            return 0D;
+        }
+        RemotingClient remotingClient = this.remotingClient;
+        int pendings = (remotingClient == null) ? 0 : remotingClient.getPendings(candidate.toString());
+        double warmupWeight = Math.min(1D, Math.max(MIN_WARMUP_WEIGHT, (double) (nowNanos - latency.warmupStartNanos) / this.warmupNanos));
+        return (latency.getCost(nowNanos, this.decayNanos) + 1D) * (pendings + 1) / warmupWeight;
+    }
+
+    @Override
+    public void updateLatency(InvokerCommand command, Address address, long latencyNanos) {
+        ServiceLatencies serviceLatencies = this.services.get(new ServiceKey(command));
+        Latency latency = (serviceLatencies == null) ? null : serviceLatencies.latencies.get(address);
+        if (latency != null) {
+            latency.observe(latencyNanos, System.nanoTime(), this.decayNanos);
+        }
+    }
+
+    /**
+     * @return 服务在该地址上当前的响应时间估计(纳秒)，地址不在服务的候选地址中时返回-1
+     */
+    public double getCost(InvokerCommand command, Address address) {
+        ServiceLatencies serviceLatencies = this.services.get(new ServiceKey(command));
+        Latency latency = (serviceLatencies == null) ? null : serviceLatencies.latencies.get(address);
+        return (latency == null) ? -1D : latency.getCost(System.nanoTime(), this.decayNanos);
+    }
+
+    @Override
+    public void setRemotingClient(RemotingClient remotingClient) {
+        this.remotingClient = remotingClient;
+    }
+
+    public void setWarmupMillis(long warmupMillis) {
+        this.warmupNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, warmupMillis));
+    }
+
+    public void setDecayMillis(long decayMillis) {
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, decayMillis));
+    }
+
+    /**
+     * 一个服务的候选地址及其响应时间估计，候选地址变化时整体替换
+     */
+    private static final class ServiceLatencies {
+        private final Address[] candidates;
+        private final ConcurrentHashMap<Address, Latency> latencies;
+
+        ServiceLatencies(Address[] candidates) {
+            this.candidates = candidates;
+            this.latencies = new ConcurrentHashMap<Address, Latency>(candidates.length * 2);
+        }
+    }
+
+    private static final class Latency {
+        private final long warmupStartNanos;
+        private double cost;
+        private long stampNanos;
+
+        Latency(long warmupStartNanos, double cost, long stampNanos) {
+            this.warmupStartNanos = warmupStartNanos;
+            this.cost = cost;
+            this.stampNanos = stampNanos;
+        }
+
+        synchronized void observe(long latencyNanos, long nowNanos, double decayNanos) {
+            if (latencyNanos > this.cost) {
+                this.cost = latencyNanos;
+            } else {
+                double weight = Math.exp(-Math.max(0L, nowNanos - this.stampNanos) / decayNanos);
+                this.cost = this.cost * weight + latencyNanos * (1D - weight);
+            }
+            this.stampNanos = Math.max(this.stampNanos, nowNanos);
+        }
+
+        /**
+         * 长时间没有样本的地址估计值逐渐衰减，使其重新获得流量
+         */
+        synchronized double getCost(long nowNanos, double decayNanos) {
+            return this.cost * Math.exp(-Math.max(0L, nowNanos - this.stampNanos) / decayNanos);
+        }
+    }
+}
@@ -1,28 +1,128 @@
 package io.lnk.cluster;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import io.lnk.api.Address;
 import io.lnk.api.InvokerCommand;
 import io.lnk.api.cluster.LoadBalance;
 
 /**
+ * 按服务(serviceId, version, protocol)独立轮询。候选地址(含权重)变化时按平滑加权轮询预先生成一轮的选择序列，
+ * 之后每次选择只对序列下标做一次原子自增，不加锁。权重相同时序列即候选地址本身，退化为普通轮询
+ *
  * @author 刘飞 E-mail:liufei_it@126.com
  *
  * @version 1.0.0
  * @since 2017年5月24日 下午9:05:46
  */
 public class RoundRobinLoadBalance implements LoadBalance {
-    private static Integer index = 0;
+    private static final int MAX_SEQUENCE_LENGTH = 8192;
+    private final ConcurrentHashMap<ServiceKey, Schedule> schedules = new ConcurrentHashMap<ServiceKey, Schedule>(64);
 
     @Override
     public Address select(InvokerCommand command, Address[] candidates) {
-        Address candidate;
-        synchronized (index) {
-            if (index >= candidates.length) {
-                index = 0;
+        if (candidates.length == 1) {
+            return candidates[0];
+        }
+        ServiceKey scheduleKey = new ServiceKey(command);
+        Schedule schedule = this.schedules.get(scheduleKey);
+        if (schedule == null || schedule.matches(candidates) == false) {
+            schedule = new Schedule(candidates);
+            this.schedules.put(scheduleKey, schedule);
+        }
+        return schedule.next();
+    }
+
+    private static final class Schedule {
+        private final Address[] source;// 生成序列时传入的候选数组，注册中心复用同一数组时只需比较权重
+        private final Address[] candidates;
+        private final int[] weights;
+        private final Address[] sequence;
+        private final AtomicInteger index = new AtomicInteger(0);
+
+        Schedule(Address[] candidates) {
+            this.source = candidates;
+            this.candidates = candidates.clone();
+            this.weights = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                this.weights[i] = candidates[i].getWeight();
+            }
+            this.sequence = buildSequence(this.candidates, this.weights);
+        }
+
+        boolean matches(Address[] candidates) {
+            if (this.source != candidates && Arrays.equals(this.candidates, candidates) == false) {
+                return false;
+            }
+            for (int i = 0; i < candidates.length; i++) {
+                if (this.weights[i] != candidates[i].getWeight()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Address next() {
+            return this.sequence[(this.index.getAndIncrement() & Integer.MAX_VALUE) % this.sequence.length];
+        }
+
+        /**
+         * 平滑加权轮询：每一步所有地址的当前值加上各自权重，选当前值最大的地址并将其当前值减去总权重。
+         * 权重先约去最大公约数，总权重超过MAX_SEQUENCE_LENGTH时按比例缩小；权重不大于0的地址不参与，全部不大于0时按相同权重处理
+         */
+        private static Address[] buildSequence(Address[] candidates, int[] weights) {
+            int[] effectiveWeights = new int[weights.length];
+            long total = 0L;
+            int gcd = 0;
+            for (int i = 0; i < weights.length; i++) {
+                effectiveWeights[i] = Math.max(0, weights[i]);
+                total += effectiveWeights[i];
+                gcd = gcd(gcd, effectiveWeights[i]);
+            }
+            if (total == 0L) {
+                Arrays.fill(effectiveWeights, 1);
+                total = weights.length;
+                gcd = 1;
+            }
+            long scaledTotal = 0L;
+            for (int i = 0; i < effectiveWeights.length; i++) {
+                if (effectiveWeights[i] == 0) {
+                    continue;
+                }
+                effectiveWeights[i] /= gcd;
+                if (total / gcd > MAX_SEQUENCE_LENGTH) {
+                    effectiveWeights[i] = (int) Math.max(1L, (long) effectiveWeights[i] * MAX_SEQUENCE_LENGTH / (total / gcd));
+                }
+                scaledTotal += effectiveWeights[i];
+            }
+            Address[] sequence = new Address[(int) scaledTotal];
+            int[] currentWeights = new int[effectiveWeights.length];
+            for (int step = 0; step < sequence.length; step++) {
+                int selected = -1;
+                for (int i = 0; i < effectiveWeights.length; i++) {
+                    if (effectiveWeights[i] == 0) {
+                        continue;
+                    }
+                    currentWeights[i] += effectiveWeights[i];
+                    if (selected < 0 || currentWeights[i] > currentWeights[selected]) {
+                        selected = i;
+                    }
+                }
+                currentWeights[selected] -= (int) scaledTotal;
+                sequence[step] = candidates[selected];
+            }
+            return sequence;
+        }
+
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
             }
-            candidate = candidates[index];
-            index++;
+            return a;
         }
-        return candidate;
     }
 }
@@ -0,0 +1,51 @@
+package io.lnk.cluster;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.lnk.api.InvokerCommand;
+
+/**
+ * 负载均衡按服务缓存状态时使用的键(serviceId, version, protocol)，避免每次选择都拼接字符串
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 下午5:36:20
+ */
+final class ServiceKey {
+    private final String serviceId;
+    private final String version;
+    private final int protocol;
+    private final int hash;
+
+    ServiceKey(InvokerCommand command) {
+        this.serviceId = command.getServiceId();
+        this.version = command.getVersion();
+        this.protocol = command.getProtocol();
+        int hash = (this.serviceId == null) ? 0 : this.serviceId.hashCode();
+        hash = 31 * hash + ((this.version == null) ? 0 : this.version.hashCode());
+        this.hash = 31 * hash + this.protocol;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof ServiceKey == false) {
+            return false;
+        }
+        ServiceKey other = (ServiceKey) obj;
+        return this.protocol == other.protocol && StringUtils.equals(this.serviceId, other.serviceId) && StringUtils.equals(this.version, other.version);
+    }
+
+    @Override
+    public String toString() {
+        return serviceId + "|" + version + "|" + protocol;
+    }
+}
@@ -0,0 +1,117 @@
+package io.lnk.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.protocol.jackson.JacksonProtocolFactory;
+import io.lnk.protocol.jackson.JacksonSmileProtocolFactory;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 下午5:02:38
+ */
+public class ConsistencyHashLoadBalanceTest {
+    private static final int KEYS = 10000;
+    private final Address[] candidates = new Address[] {new Address("10.0.0.1", 8000), new Address("10.0.0.2", 8000), new Address("10.0.0.3", 8000), new Address("10.0.0.4", 8000), new Address("10.0.0.5", 8000)};
+
+    private static InvokerCommand command(String hashKey) {
+        InvokerCommand command = new InvokerCommand();
+        command.setId("correlation-" + hashKey);
+        command.setServiceId("io.lnk.demo.DemoService");
+        command.setMethod("hello");
+        command.setHashKey(hashKey);
+        return command;
+    }
+
+    private static Map<String, Address> select(ConsistencyHashLoadBalance loadBalance, Address[] candidates) {
+        Map<String, Address> selected = new HashMap<String, Address>();
+        for (int i = 0; i < KEYS; i++) {
+            String hashKey = "user-" + i;
+            selected.put(hashKey, loadBalance.select(command(hashKey), candidates));
+        }
+        return selected;
+    }
+
+    @Test
+    public void testSticky() {
+        ConsistencyHashLoadBalance loadBalance = new ConsistencyHashLoadBalance();
+        Map<String, Address> selected = select(loadBalance, this.candidates);
+        assertEquals(selected, select(loadBalance, this.candidates));
+        assertEquals(selected, select(new ConsistencyHashLoadBalance(), this.candidates));// 不同调用方节点得到同样的环
+        Address[] reversed = this.candidates.clone();
+        Collections.reverse(Arrays.asList(reversed));
+        assertEquals(selected, select(loadBalance, reversed));// 与注册中心返回的地址顺序无关
+        for (Address addr : this.candidates) {
+            int count = Collections.frequency(selected.values(), addr);
+            assertTrue(addr + " : " + count, count > KEYS / this.candidates.length / 2);
+        }
+    }
+
+    @Test
+    public void testRemoveOneRemapsOnlyItsKeys() {
+        ConsistencyHashLoadBalance loadBalance = new ConsistencyHashLoadBalance();
+        Map<String, Address> before = select(loadBalance, this.candidates);
+        Address removed = this.candidates[2];
+        Address[] remains = new Address[] {this.candidates[0], this.candidates[1], this.candidates[3], this.candidates[4]};
+        Map<String, Address> after = select(loadBalance, remains);
+        int moved = 0;
+        for (Map.Entry<String, Address> entry : before.entrySet()) {
+            Address now = after.get(entry.getKey());
+            if (entry.getValue().equals(removed)) {
+                moved++;
+                assertFalse(now.equals(removed));
+            } else {
+                assertEquals(entry.getValue(), now);// 其余地址上的键不迁移
+            }
+        }
+        double ratio = (double) moved / KEYS;
+        assertTrue("moved " + ratio, ratio > 0.12 && ratio < 0.28);// 约1/N
+    }
+
+    @Test
+    public void testAddOneRemapsAboutOneNth() {
+        ConsistencyHashLoadBalance loadBalance = new ConsistencyHashLoadBalance();
+        Map<String, Address> before = select(loadBalance, this.candidates);
+        Address added = new Address("10.0.0.6", 8000);
+        Address[] grown = Arrays.copyOf(this.candidates, this.candidates.length + 1);
+        grown[this.candidates.length] = added;
+        Map<String, Address> after = select(loadBalance, grown);
+        int moved = 0;
+        for (Map.Entry<String, Address> entry : before.entrySet()) {
+            Address now = after.get(entry.getKey());
+            if (now.equals(entry.getValue()) == false) {
+                moved++;
+                assertEquals(added, now);// 迁移的键只会落到新地址
+            }
+        }
+        double ratio = (double) moved / KEYS;
+        assertTrue("moved " + ratio, ratio > 0.10 && ratio < 0.24);
+    }
+
+    @Test
+    public void testHashKeyNotSerialized() {
+        for (ProtocolFactory protocolFactory : new ProtocolFactory[] {new JacksonProtocolFactory(), new JacksonSmileProtocolFactory()}) {
+            InvokerCommand command = command("user-1");
+            command.setSignature(new Class<?>[0]);
+            byte[] data = protocolFactory.encode(command);
+            assertFalse(new String(data).contains("hashKey"));
+            InvokerCommand decoded = protocolFactory.decode(InvokerCommand.class, data);
+            assertNull(decoded.getHashKey());
+            assertEquals(command.getServiceId(), decoded.getServiceId());
+        }
+    }
+}
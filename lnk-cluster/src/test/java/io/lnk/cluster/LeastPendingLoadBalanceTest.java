@@ -0,0 +1,98 @@
+package io.lnk.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.remoting.RemotingClient;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 下午4:20:15
+ */
+public class LeastPendingLoadBalanceTest {
+    private static final int SELECTS = 3000;
+    private final Address[] candidates = new Address[] {new Address("10.0.0.1", 8000), new Address("10.0.0.2", 8000), new Address("10.0.0.3", 8000)};
+    private final InvokerCommand command = new InvokerCommand();
+
+    private static RemotingClient remotingClient(final Map<String, Integer> pendings) {
+        return (RemotingClient) Proxy.newProxyInstance(RemotingClient.class.getClassLoader(), new Class<?>[] {RemotingClient.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getPendings".equals(method.getName())) {
+                    Integer pending = pendings.get(args[0]);
+                    return (pending == null) ? 0 : pending;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private Map<Address, Integer> select(LeastPendingLoadBalance loadBalance, Address[] candidates) {
+        Map<Address, Integer> selected = new HashMap<Address, Integer>();
+        for (int i = 0; i < SELECTS; i++) {
+            Address addr = loadBalance.select(this.command, candidates);
+            Integer count = selected.get(addr);
+            selected.put(addr, (count == null) ? 1 : count + 1);
+        }
+        return selected;
+    }
+
+    @Test
+    public void testTwoCandidatesAlwaysPickLessPending() {
+        Map<String, Integer> pendings = new HashMap<String, Integer>();
+        pendings.put(this.candidates[0].toString(), 10);
+        pendings.put(this.candidates[1].toString(), 1);
+        LeastPendingLoadBalance loadBalance = new LeastPendingLoadBalance();
+        loadBalance.setRemotingClient(remotingClient(pendings));
+        Map<Address, Integer> selected = this.select(loadBalance, new Address[] {this.candidates[0], this.candidates[1]});
+        assertNull(selected.get(this.candidates[0]));
+        assertEquals(SELECTS, selected.get(this.candidates[1]).intValue());
+    }
+
+    @Test
+    public void testTwoChoicesAmongThree() {
+        Map<String, Integer> pendings = new HashMap<String, Integer>();
+        pendings.put(this.candidates[0].toString(), 0);
+        pendings.put(this.candidates[1].toString(), 5);
+        pendings.put(this.candidates[2].toString(), 10);
+        LeastPendingLoadBalance loadBalance = new LeastPendingLoadBalance();
+        loadBalance.setRemotingClient(remotingClient(pendings));
+        Map<Address, Integer> selected = this.select(loadBalance, this.candidates);
+        // 每次比较两个不同的地址：最空闲的地址只要被抽中就胜出(2/3)，最繁忙的地址永远不会被选中
+        assertNull(selected.get(this.candidates[2]));
+        int least = selected.get(this.candidates[0]);
+        assertTrue(least > SELECTS * 0.6 && least < SELECTS * 0.73);
+        assertEquals(SELECTS - least, selected.get(this.candidates[1]).intValue());
+    }
+
+    @Test
+    public void testEqualPendingsSpreadEvenly() {
+        LeastPendingLoadBalance loadBalance = new LeastPendingLoadBalance();
+        loadBalance.setRemotingClient(remotingClient(new HashMap<String, Integer>()));
+        Map<Address, Integer> selected = this.select(loadBalance, this.candidates);
+        for (Address addr : this.candidates) {
+            int count = selected.get(addr);
+            assertTrue(count > SELECTS / 3 * 0.8 && count < SELECTS / 3 * 1.2);
+        }
+    }
+
+    @Test
+    public void testWithoutRemotingClient() {
+        LeastPendingLoadBalance loadBalance = new LeastPendingLoadBalance();
+        assertEquals(this.candidates[1], loadBalance.select(this.command, new Address[] {this.candidates[1]}));
+        assertEquals(this.candidates.length, this.select(loadBalance, this.candidates).size());
+    }
+}
@@ -0,0 +1,77 @@
+package io.lnk.cluster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 下午5:48:10
+ */
+public class PeakEwmaLoadBalanceTest {
+    private static final double DELTA = TimeUnit.MILLISECONDS.toNanos(1);
+    private final Address a = new Address("10.0.0.1", 8000);
+    private final Address b = new Address("10.0.0.2", 8000);
+    private final Address c = new Address("10.0.0.3", 8000);
+    private final Address d = new Address("10.0.0.4", 8000);
+
+    private static InvokerCommand command(String serviceId) {
+        InvokerCommand command = new InvokerCommand();
+        command.setServiceId(serviceId);
+        command.setMethod("hello");
+        return command;
+    }
+
+    @Test
+    public void testPreferLowerLatency() {
+        PeakEwmaLoadBalance loadBalance = new PeakEwmaLoadBalance();
+        InvokerCommand command = command("io.lnk.demo.DemoService");
+        Address[] candidates = new Address[] {a, b};
+        loadBalance.select(command, candidates);
+        loadBalance.updateLatency(command, a, TimeUnit.MILLISECONDS.toNanos(1));
+        loadBalance.updateLatency(command, b, TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a, loadBalance.select(command, candidates));
+        }
+    }
+
+    @Test
+    public void testServicesDoNotShareState() {
+        PeakEwmaLoadBalance loadBalance = new PeakEwmaLoadBalance();
+        InvokerCommand serviceA = command("io.lnk.demo.ServiceA");
+        InvokerCommand serviceB = command("io.lnk.demo.ServiceB");
+        loadBalance.select(serviceA, new Address[] {a, b});
+        loadBalance.updateLatency(serviceA, b, TimeUnit.MILLISECONDS.toNanos(50));
+        loadBalance.select(serviceB, new Address[] {c, d});
+        loadBalance.select(serviceB, new Address[] {c, d, b});// b对服务B是新加入的地址
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), loadBalance.getCost(serviceA, b), DELTA);
+        assertEquals(0D, loadBalance.getCost(serviceB, b), DELTA);
+        loadBalance.updateLatency(serviceB, b, TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), loadBalance.getCost(serviceA, b), DELTA);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), loadBalance.getCost(serviceB, b), DELTA);
+    }
+
+    @Test
+    public void testDepartedAddressRemoved() {
+        PeakEwmaLoadBalance loadBalance = new PeakEwmaLoadBalance();
+        InvokerCommand command = command("io.lnk.demo.DemoService");
+        loadBalance.select(command, new Address[] {a, b, c});
+        loadBalance.updateLatency(command, a, TimeUnit.MILLISECONDS.toNanos(10));
+        loadBalance.updateLatency(command, b, TimeUnit.MILLISECONDS.toNanos(20));
+        loadBalance.updateLatency(command, c, TimeUnit.MILLISECONDS.toNanos(1));
+        loadBalance.select(command, new Address[] {a, b});
+        assertEquals(-1D, loadBalance.getCost(command, c), 0D);
+        loadBalance.updateLatency(command, c, TimeUnit.MILLISECONDS.toNanos(1));// 离开的地址的迟到样本被忽略
+        assertEquals(-1D, loadBalance.getCost(command, c), 0D);
+        loadBalance.select(command, new Address[] {a, b, c});// 重新上线的地址以最大的估计值起步
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), loadBalance.getCost(command, c), DELTA);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), loadBalance.getCost(command, a), DELTA);
+    }
+}
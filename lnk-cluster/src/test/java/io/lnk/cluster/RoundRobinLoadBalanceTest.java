@@ -0,0 +1,100 @@
+package io.lnk.cluster;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 下午5:40:18
+ */
+public class RoundRobinLoadBalanceTest {
+
+    private static Address addr(String host, int weight) {
+        Address addr = new Address(host, 8000);
+        addr.setWeight(weight);
+        return addr;
+    }
+
+    private static InvokerCommand command(String serviceId) {
+        InvokerCommand command = new InvokerCommand();
+        command.setServiceId(serviceId);
+        command.setVersion("1.0.0");
+        command.setMethod("hello");
+        return command;
+    }
+
+    private static Address[] select(RoundRobinLoadBalance loadBalance, InvokerCommand command, Address[] candidates, int times) {
+        Address[] selected = new Address[times];
+        for (int i = 0; i < times; i++) {
+            selected[i] = loadBalance.select(command, candidates);
+        }
+        return selected;
+    }
+
+    @Test
+    public void testSmoothWeightedSequence() {
+        Address a = addr("10.0.0.1", 5);
+        Address b = addr("10.0.0.2", 1);
+        Address c = addr("10.0.0.3", 1);
+        Address[] round = new Address[] {a, a, b, a, c, a, a};
+        RoundRobinLoadBalance loadBalance = new RoundRobinLoadBalance();
+        InvokerCommand command = command("io.lnk.demo.DemoService");
+        assertArrayEquals(round, select(loadBalance, command, new Address[] {a, b, c}, 7));
+        assertArrayEquals(round, select(loadBalance, command, new Address[] {addr("10.0.0.1", 5), addr("10.0.0.2", 1), addr("10.0.0.3", 1)}, 7));// 每次查询得到的新数组不打断序列
+    }
+
+    @Test
+    public void testEqualAndZeroWeights() {
+        Address a = addr("10.0.0.1", 100);
+        Address b = addr("10.0.0.2", 100);
+        Address c = addr("10.0.0.3", 100);
+        RoundRobinLoadBalance loadBalance = new RoundRobinLoadBalance();
+        InvokerCommand command = command("io.lnk.demo.DemoService");
+        assertArrayEquals(new Address[] {a, b, c, a, b, c}, select(loadBalance, command, new Address[] {a, b, c}, 6));
+        Address[] candidates = new Address[] {addr("10.0.0.1", 0), addr("10.0.0.2", 2)};
+        assertArrayEquals(new Address[] {candidates[1], candidates[1]}, select(loadBalance, command, candidates, 2));// 权重为0的地址不参与
+        candidates = new Address[] {addr("10.0.0.1", 0), addr("10.0.0.2", 0)};
+        assertArrayEquals(new Address[] {candidates[0], candidates[1]}, select(loadBalance, command, candidates, 2));// 全部为0时按相同权重处理
+    }
+
+    @Test
+    public void testPerServiceIsolation() {
+        Address a = addr("10.0.0.1", 1);
+        Address b = addr("10.0.0.2", 1);
+        Address[] candidates = new Address[] {a, b};
+        RoundRobinLoadBalance loadBalance = new RoundRobinLoadBalance();
+        InvokerCommand demo = command("io.lnk.demo.DemoService");
+        InvokerCommand other = command("io.lnk.demo.OtherService");
+        InvokerCommand otherVersion = command("io.lnk.demo.DemoService");
+        otherVersion.setVersion("2.0.0");
+        assertEquals(a, loadBalance.select(demo, candidates));
+        assertEquals(a, loadBalance.select(other, candidates));
+        assertEquals(a, loadBalance.select(otherVersion, candidates));
+        assertEquals(b, loadBalance.select(demo, candidates));
+        assertArrayEquals(new Address[] {b, a, b}, select(loadBalance, other, candidates, 3));
+        assertEquals(a, loadBalance.select(demo, candidates));
+    }
+
+    @Test
+    public void testWeightChange() {
+        Address a = addr("10.0.0.1", 1);
+        Address b = addr("10.0.0.2", 1);
+        Address[] candidates = new Address[] {a, b};
+        RoundRobinLoadBalance loadBalance = new RoundRobinLoadBalance();
+        InvokerCommand command = command("io.lnk.demo.DemoService");
+        assertArrayEquals(new Address[] {a, b, a, b}, select(loadBalance, command, candidates, 4));
+        Address[] reweighted = new Address[] {addr("10.0.0.1", 1), addr("10.0.0.2", 2)};
+        assertArrayEquals(new Address[] {b, a, b, b, a, b}, select(loadBalance, command, reweighted, 6));// 新权重下重新生成序列
+        b.setWeight(3);// 同一数组中的地址权重变化也重新生成序列
+        assertArrayEquals(new Address[] {b, a, b, b, b, a, b, b}, select(loadBalance, command, candidates, 8));
+        Address c = addr("10.0.0.3", 3);
+        assertArrayEquals(new Address[] {b, c, a, b, c, b, c}, select(loadBalance, command, new Address[] {a, b, c}, 7));// 地址增加
+    }
+}
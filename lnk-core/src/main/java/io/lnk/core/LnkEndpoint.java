@@ -1,5 +1,7 @@
 package io.lnk.core;
 
+import java.util.concurrent.CompletableFuture;
+
 import io.lnk.api.InvokerCommand;
 import io.lnk.api.ServiceGroup;
 import io.lnk.api.exception.LnkException;
@@ -18,6 +20,7 @@ public interface LnkEndpoint {
     
     InvokerCommand sync(final InvokerCommand command, final long timeoutMillis) throws LnkException, LnkTimeoutException;
     void async(final InvokerCommand command) throws LnkException, LnkTimeoutException;
+    CompletableFuture<InvokerCommand> future(final InvokerCommand command, final long timeoutMillis);
     void multicast(final InvokerCommand command);
     
     void start();
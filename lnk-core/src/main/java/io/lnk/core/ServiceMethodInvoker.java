@@ -0,0 +1,45 @@
+package io.lnk.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 基于MethodHandle的服务方法调用器，创建后调用只有一次直接的invokeExact
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月8日 下午2:16:51
+ */
+public class ServiceMethodInvoker {
+    private static final Object[] EMPTY_ARGS = new Object[0];
+    private final Method method;
+    private final MethodHandle methodHandle;
+
+    public ServiceMethodInvoker(Method method) throws IllegalAccessException {
+        this.method = method;
+        if (!method.isAccessible()) {
+            method.setAccessible(true);
+        }
+        int parameterCount = method.getParameterTypes().length;
+        this.methodHandle = MethodHandles.lookup().unreflect(method)
+                .asType(MethodType.genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount);
+    }
+
+    public Object invoke(Object serviceObject, Object[] args) throws Throwable {
+        Object[] spreadArgs = (args == null) ? EMPTY_ARGS : args;// 条件表达式会被javac推断为Object，导致invokeExact的调用点类型不匹配
+        return this.methodHandle.invokeExact(serviceObject, spreadArgs);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceMethodInvoker[" + method + "]";
+    }
+}
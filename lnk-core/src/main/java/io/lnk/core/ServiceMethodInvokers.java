@@ -0,0 +1,103 @@
+package io.lnk.core;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ReflectionUtils;
+
+import io.lnk.api.exception.NotFoundServiceException;
+
+/**
+ * 按(服务对象类型, 方法名, 方法签名)缓存的ServiceMethodInvoker表，在服务注册时预先构建
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月8日 下午2:31:07
+ */
+public class ServiceMethodInvokers {
+    private static final Logger log = LoggerFactory.getLogger(ServiceMethodInvokers.class.getSimpleName());
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<MethodKey, ServiceMethodInvoker>> invokers = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<MethodKey, ServiceMethodInvoker>>(64);
+
+    public void registry(Class<?> serviceClass) {
+        ConcurrentHashMap<MethodKey, ServiceMethodInvoker> methodInvokers = this.getMethodInvokers(serviceClass);
+        for (Method method : serviceClass.getMethods()) {
+            if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            MethodKey methodKey = new MethodKey(method.getName(), method.getParameterTypes());
+            if (methodInvokers.containsKey(methodKey)) {
+                continue;
+            }
+            try {
+                methodInvokers.putIfAbsent(methodKey, new ServiceMethodInvoker(method));
+            } catch (Throwable e) {
+                log.warn("create ServiceMethodInvoker " + method + " Error.", e);
+            }
+        }
+        log.info("registry service class {} methods {}", serviceClass.getName(), methodInvokers.size());
+    }
+
+    public ServiceMethodInvoker getServiceMethodInvoker(Class<?> serviceClass, String methodName, Class<?>[] signature) throws NotFoundServiceException {
+        ConcurrentHashMap<MethodKey, ServiceMethodInvoker> methodInvokers = this.getMethodInvokers(serviceClass);
+        MethodKey methodKey = new MethodKey(methodName, signature);
+        ServiceMethodInvoker invoker = methodInvokers.get(methodKey);
+        if (invoker != null) {
+            return invoker;
+        }
+        Method method = ReflectionUtils.findMethod(serviceClass, methodName, signature);
+        if (method == null) {
+            throw new NotFoundServiceException(serviceClass.getName() + "." + methodName);
+        }
+        try {
+            invoker = new ServiceMethodInvoker(method);
+        } catch (IllegalAccessException e) {
+            throw new NotFoundServiceException(serviceClass.getName() + "." + methodName, e);
+        }
+        ServiceMethodInvoker prev = methodInvokers.putIfAbsent(methodKey, invoker);
+        return (prev == null) ? invoker : prev;
+    }
+
+    private ConcurrentHashMap<MethodKey, ServiceMethodInvoker> getMethodInvokers(Class<?> serviceClass) {
+        ConcurrentHashMap<MethodKey, ServiceMethodInvoker> methodInvokers = this.invokers.get(serviceClass);
+        if (methodInvokers != null) {
+            return methodInvokers;
+        }
+        methodInvokers = new ConcurrentHashMap<MethodKey, ServiceMethodInvoker>(16);
+        ConcurrentHashMap<MethodKey, ServiceMethodInvoker> prev = this.invokers.putIfAbsent(serviceClass, methodInvokers);
+        return (prev == null) ? methodInvokers : prev;
+    }
+
+    private static final class MethodKey {
+        private final String methodName;
+        private final Class<?>[] signature;
+        private final int hashCode;
+
+        MethodKey(String methodName, Class<?>[] signature) {
+            this.methodName = methodName;
+            this.signature = (signature == null) ? new Class<?>[0] : signature;
+            this.hashCode = 31 * methodName.hashCode() + Arrays.hashCode(this.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return this.hashCode == other.hashCode && this.methodName.equals(other.methodName) && Arrays.equals(this.signature, other.signature);
+        }
+    }
+}
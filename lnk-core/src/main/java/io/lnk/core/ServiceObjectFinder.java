@@ -12,4 +12,5 @@ import io.lnk.api.exception.NotFoundServiceException;
 public interface ServiceObjectFinder {
     Object getServiceObject(InvokerCommand command) throws NotFoundServiceException;
     void registry(String serviceId, String version, int protocol, Object bean);
+    ServiceMethodInvoker getServiceMethodInvoker(Object serviceObject, InvokerCommand command) throws NotFoundServiceException;
 }
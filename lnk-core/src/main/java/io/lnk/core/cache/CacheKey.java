@@ -0,0 +1,84 @@
+package io.lnk.core.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.RemoteObject;
+import io.lnk.api.protocol.ProtocolFactory;
+
+/**
+ * 以协议、版本与序列化后的调用参数作为缓存键，hashCode在创建时计算一次
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午10:47:06
+ */
+public final class CacheKey {
+    private final byte[] bytes;
+    private final int hashCode;
+
+    public CacheKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * @return 参数中含有远程对象(回调存根)时不缓存，返回null
+     */
+    public static CacheKey valueOf(InvokerCommand command, ProtocolFactory protocolFactory) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(command.getProtocol());
+        out.writeUTF(StringUtils.defaultString(command.getVersion()));
+        ProtocolObject[] args = command.getArgs();
+        if (args != null) {
+            for (ProtocolObject arg : args) {
+                Class<?> type = (arg == null) ? null : arg.getType();
+                if (type == RemoteObject.class) {
+                    return null;
+                }
+                out.writeUTF((type == null) ? "" : type.getName());
+                if (type == null) {
+                    continue;
+                }
+                byte[] data = arg.isInline() ? protocolFactory.encode(arg.getValue()) : arg.getData();
+                if (data == null) {
+                    out.writeInt(-1);
+                    continue;
+                }
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        out.flush();
+        return new CacheKey(bytes.toByteArray());
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) obj;
+        return this.hashCode == other.hashCode && Arrays.equals(this.bytes, other.bytes);
+    }
+}
@@ -0,0 +1,94 @@
+package io.lnk.core.cache;
+
+import io.lnk.api.annotation.LnkCache;
+
+/**
+ * 按serviceId与方法名配置的缓存规则，优先于方法上的@LnkMethod(cache=...)，ttlMillis不大于0时关闭该方法的缓存
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午9:52:41
+ */
+public class CacheRule {
+    private String serviceId;
+    private String method;
+    private long ttlMillis;
+    private int maxEntries = 1024;
+    private long maxBytes = 16 * 1024 * 1024L;
+    private String policy = LnkCache.LRU;
+    private boolean near = false;// 调用方同时缓存
+
+    public static CacheRule valueOf(String serviceId, String method, LnkCache lnkCache) {
+        CacheRule rule = new CacheRule();
+        rule.setServiceId(serviceId);
+        rule.setMethod(method);
+        rule.setTtlMillis(lnkCache.ttlMillis());
+        rule.setMaxEntries(lnkCache.maxEntries());
+        rule.setMaxBytes(lnkCache.maxBytes());
+        rule.setPolicy(lnkCache.policy());
+        rule.setNear(lnkCache.near());
+        return rule;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy;
+    }
+
+    public boolean isNear() {
+        return near;
+    }
+
+    public void setNear(boolean near) {
+        this.near = near;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRule [serviceId=" + serviceId + ", method=" + method + ", ttlMillis=" + ttlMillis + ", maxEntries=" + maxEntries + ", maxBytes=" + maxBytes + ", policy=" + policy + ", near=" + near + "]";
+    }
+}
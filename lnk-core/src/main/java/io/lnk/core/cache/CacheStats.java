@@ -0,0 +1,71 @@
+package io.lnk.core.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存命中、未命中、写入以及因容量淘汰和过期移除的累计计数
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午10:03:17
+ */
+public class CacheStats {
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong putCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+    private final AtomicLong expireCount = new AtomicLong(0);
+
+    void hit() {
+        this.hitCount.incrementAndGet();
+    }
+
+    void miss() {
+        this.missCount.incrementAndGet();
+    }
+
+    void put() {
+        this.putCount.incrementAndGet();
+    }
+
+    void evicted() {
+        this.evictionCount.incrementAndGet();
+    }
+
+    void expired() {
+        this.expireCount.incrementAndGet();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getPutCount() {
+        return putCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getExpireCount() {
+        return expireCount.get();
+    }
+
+    public double getHitRatio() {
+        long hits = this.getHitCount();
+        long requests = hits + this.getMissCount();
+        return (requests == 0) ? 0.0D : ((double) hits / requests);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats[hit=" + getHitCount() + ", miss=" + getMissCount() + ", hitRatio=" + String.format("%.3f", getHitRatio()) + ", put=" + getPutCount() + ", eviction=" + getEvictionCount() + ", expire="
+                + getExpireCount() + "]";
+    }
+}
@@ -0,0 +1,208 @@
+package io.lnk.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.lnk.api.annotation.LnkCache;
+
+/**
+ * 按条目数与字节数限定容量的本地缓存，条目写入后ttlMillis过期。lru按访问顺序淘汰，fifo按写入顺序淘汰，
+ * slru分为试用段与保护段：新条目进入试用段，在试用段中再次命中后晋升到保护段(占容量的80%)，
+ * 保护段满时其最久未访问的条目降回试用段，淘汰总是先从试用段开始，因此一次性的扫描访问不会挤出热点条目。
+ * 每次失效递增generation，调用前取得的generation已过期时写入被丢弃，避免失效前发出的调用把旧值写回缓存
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午10:18:45
+ */
+public class LocalCache<K, V> {
+    private final String name;
+    private final CacheRule rule;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final LinkedHashMap<K, Entry<V>> protectedEntries;
+    private final int maxProtectedEntries;
+    private final CacheStats stats = new CacheStats();
+    private long bytes;
+    private long generation;
+
+    public LocalCache(String name, CacheRule rule) {
+        this.name = name;
+        this.rule = rule;
+        this.ttlMillis = rule.getTtlMillis();
+        this.maxEntries = rule.getMaxEntries();
+        this.maxBytes = rule.getMaxBytes();
+        boolean accessOrder = !StringUtils.equalsIgnoreCase(LnkCache.FIFO, rule.getPolicy());
+        this.entries = new LinkedHashMap<K, Entry<V>>(Math.min(this.maxEntries, 1024), 0.75F, accessOrder);
+        if (StringUtils.equalsIgnoreCase(LnkCache.SLRU, rule.getPolicy())) {
+            this.maxProtectedEntries = this.maxEntries * 4 / 5;
+            this.protectedEntries = new LinkedHashMap<K, Entry<V>>(Math.min(this.maxProtectedEntries, 1024), 0.75F, true);
+        } else {
+            this.maxProtectedEntries = 0;
+            this.protectedEntries = null;
+        }
+    }
+
+    public V get(K key) {
+        Entry<V> entry;
+        synchronized (this) {
+            boolean probation = true;
+            entry = this.entries.get(key);
+            if (entry == null && this.protectedEntries != null) {
+                entry = this.protectedEntries.get(key);
+                probation = false;
+            }
+            if (entry != null && entry.expireMillis <= System.currentTimeMillis()) {
+                this.remove(key);
+                this.stats.expired();
+                entry = null;
+            }
+            if (entry != null && probation && this.protectedEntries != null) {
+                this.promote(key, entry);
+            }
+        }
+        if (entry == null) {
+            this.stats.miss();
+            return null;
+        }
+        this.stats.hit();
+        return entry.value;
+    }
+
+    private void promote(K key, Entry<V> entry) {
+        this.entries.remove(key);
+        this.protectedEntries.put(key, entry);
+        if (this.protectedEntries.size() <= this.maxProtectedEntries) {
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> iterator = this.protectedEntries.entrySet().iterator();
+        Map.Entry<K, Entry<V>> eldest = iterator.next();
+        iterator.remove();
+        this.entries.put(eldest.getKey(), eldest.getValue());
+    }
+
+    /**
+     * 超过maxBytes的单个条目不缓存
+     */
+    public void put(K key, V value, int weight) {
+        this.put(key, value, weight, -1L);
+    }
+
+    /**
+     * @param generation 加载value之前取得的generation()，其后缓存被失效过时不写入，小于0时不检查
+     */
+    public void put(K key, V value, int weight, long generation) {
+        if (weight > this.maxBytes) {
+            return;
+        }
+        Entry<V> entry = new Entry<V>(value, weight, System.currentTimeMillis() + this.ttlMillis);
+        synchronized (this) {
+            if (generation >= 0L && generation != this.generation) {
+                return;
+            }
+            Entry<V> prev = null;
+            if (this.protectedEntries != null && this.protectedEntries.containsKey(key)) {
+                prev = this.protectedEntries.put(key, entry);
+            } else {
+                prev = this.entries.put(key, entry);
+            }
+            if (prev != null) {
+                this.bytes -= prev.weight;
+            }
+            this.bytes += weight;
+            this.evict(this.entries);
+            if (this.protectedEntries != null) {
+                this.evict(this.protectedEntries);
+            }
+        }
+        this.stats.put();
+    }
+
+    private void evict(LinkedHashMap<K, Entry<V>> segment) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = segment.entrySet().iterator();
+        while ((this.size0() > this.maxEntries || this.bytes > this.maxBytes) && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next().getValue();
+            iterator.remove();
+            this.bytes -= eldest.weight;
+            this.stats.evicted();
+        }
+    }
+
+    private void remove(K key) {
+        Entry<V> entry = this.entries.remove(key);
+        if (entry == null && this.protectedEntries != null) {
+            entry = this.protectedEntries.remove(key);
+        }
+        if (entry != null) {
+            this.bytes -= entry.weight;
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        this.remove(key);
+        this.generation++;
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.entries.clear();
+        if (this.protectedEntries != null) {
+            this.protectedEntries.clear();
+        }
+        this.bytes = 0;
+    }
+
+    public synchronized int size() {
+        return this.size0();
+    }
+
+    private int size0() {
+        return this.entries.size() + ((this.protectedEntries == null) ? 0 : this.protectedEntries.size());
+    }
+
+    public synchronized long bytes() {
+        return this.bytes;
+    }
+
+    public synchronized long generation() {
+        return this.generation;
+    }
+
+    /**
+     * @param method 为空时匹配serviceId的所有方法
+     */
+    public boolean matches(String serviceId, String method) {
+        return StringUtils.equals(this.rule.getServiceId(), serviceId) && (method == null || StringUtils.equals(this.rule.getMethod(), method));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalCache[" + name + ", policy=" + rule.getPolicy() + ", size=" + size() + ", bytes=" + bytes() + ", " + stats + "]";
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final int weight;
+        private final long expireMillis;
+
+        Entry(V value, int weight, long expireMillis) {
+            this.value = value;
+            this.weight = weight;
+            this.expireMillis = expireMillis;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.lnk.core.cache;
+
+import io.lnk.api.ProtocolObject;
+
+/**
+ * 接口方法首次创建缓存时回调，用于只在确实启用了缓存时才注册缓存失效服务
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 上午10:12:36
+ */
+public interface MethodCacheListener {
+
+    void onCreated(LocalCache<CacheKey, ProtocolObject> methodCache);
+}
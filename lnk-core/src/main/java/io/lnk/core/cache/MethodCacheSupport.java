@@ -0,0 +1,141 @@
+package io.lnk.core.cache;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.CollectionUtils;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.annotation.LnkMethod;
+
+/**
+ * 按方法维护LocalCache：配置的CacheRule优先，其次是方法上@LnkMethod(cache=...)的声明，
+ * 首次调用时确定是否启用并记住结果，未启用的方法不再重复查找规则
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午10:42:07
+ */
+public abstract class MethodCacheSupport<K> {
+    private static final Logger log = LoggerFactory.getLogger(MethodCacheSupport.class.getSimpleName());
+    private static final LocalCache<CacheKey, ProtocolObject> NOT_CACHED = new LocalCache<CacheKey, ProtocolObject>("NOT_CACHED", new CacheRule());
+    /**
+     * 方法返回null时缓存没有type的ProtocolObject
+     */
+    protected static final ProtocolObject NULL_RET_OBJECT = new ProtocolObject();
+    private final ConcurrentHashMap<String, CacheRule> rules = new ConcurrentHashMap<String, CacheRule>();
+    private final ConcurrentHashMap<K, LocalCache<CacheKey, ProtocolObject>> caches = new ConcurrentHashMap<K, LocalCache<CacheKey, ProtocolObject>>(64);
+    private MethodCacheListener methodCacheListener;
+
+    /**
+     * @return 缓存键对应的方法
+     */
+    protected abstract Method getMethod(K key);
+
+    /**
+     * @return 规则是否启用了本类缓存
+     */
+    protected abstract boolean isEnabled(CacheRule rule);
+
+    /**
+     * @return 该返回值类型能否缓存
+     */
+    protected abstract boolean isCacheable(Class<?> returnType);
+
+    /**
+     * @return 方法未启用缓存时返回null
+     */
+    public LocalCache<CacheKey, ProtocolObject> getMethodCache(K key, InvokerCommand command) {
+        LocalCache<CacheKey, ProtocolObject> methodCache = this.caches.get(key);
+        if (methodCache == null) {
+            methodCache = this.createMethodCache(key, command);
+            LocalCache<CacheKey, ProtocolObject> prev = this.caches.putIfAbsent(key, methodCache);
+            if (prev != null) {
+                methodCache = prev;
+            } else if (methodCache != NOT_CACHED && this.methodCacheListener != null) {
+                this.methodCacheListener.onCreated(methodCache);
+            }
+        }
+        return (methodCache == NOT_CACHED) ? null : methodCache;
+    }
+
+    private LocalCache<CacheKey, ProtocolObject> createMethodCache(K key, InvokerCommand command) {
+        Method method = this.getMethod(key);
+        CacheRule rule = this.rules.get(buildRuleKey(command.getServiceId(), command.getMethod()));
+        if (rule == null) {
+            LnkMethod lnkMethod = AnnotationUtils.findAnnotation(method, LnkMethod.class);
+            if (lnkMethod != null) {
+                rule = CacheRule.valueOf(command.getServiceId(), command.getMethod(), lnkMethod.cache());
+            }
+        }
+        if (rule == null || this.isEnabled(rule) == false || this.isCacheable(method.getReturnType()) == false) {
+            return NOT_CACHED;
+        }
+        log.info("create {} {} for {}", new Object[] {this.getClass().getSimpleName(), rule, command.commandSignature()});
+        return new LocalCache<CacheKey, ProtocolObject>(command.commandSignature(), rule);
+    }
+
+    /**
+     * @param method 为空时清除serviceId所有方法的缓存
+     */
+    public void invalidate(String serviceId, String method) {
+        for (LocalCache<CacheKey, ProtocolObject> methodCache : this.caches.values()) {
+            if (methodCache.matches(serviceId, method)) {
+                methodCache.clear();
+            }
+        }
+    }
+
+    public void clear() {
+        for (LocalCache<CacheKey, ProtocolObject> methodCache : this.caches.values()) {
+            methodCache.clear();
+        }
+    }
+
+    public List<LocalCache<CacheKey, ProtocolObject>> getMethodCaches() {
+        List<LocalCache<CacheKey, ProtocolObject>> methodCaches = new ArrayList<LocalCache<CacheKey, ProtocolObject>>();
+        for (LocalCache<CacheKey, ProtocolObject> methodCache : this.caches.values()) {
+            if (methodCache != NOT_CACHED) {
+                methodCaches.add(methodCache);
+            }
+        }
+        return methodCaches;
+    }
+
+    /**
+     * @return 是否配置了生效的缓存规则，方法上@LnkMethod(cache=...)声明的缓存在首次调用时才能知道
+     */
+    public boolean hasCacheRules() {
+        for (CacheRule rule : this.rules.values()) {
+            if (this.isEnabled(rule)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setMethodCacheListener(MethodCacheListener methodCacheListener) {
+        this.methodCacheListener = methodCacheListener;
+    }
+
+    protected void setRules(List<CacheRule> cacheRules) {
+        this.rules.clear();
+        if (CollectionUtils.isEmpty(cacheRules)) {
+            return;
+        }
+        for (CacheRule rule : cacheRules) {
+            this.rules.put(buildRuleKey(rule.getServiceId(), rule.getMethod()), rule);
+        }
+    }
+
+    private static String buildRuleKey(String serviceId, String method) {
+        return serviceId + "." + method;
+    }
+}
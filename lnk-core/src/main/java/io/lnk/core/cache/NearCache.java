@@ -0,0 +1,60 @@
+package io.lnk.core.cache;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.protocol.ProtocolFactory;
+
+/**
+ * 调用方返回值缓存，只用于同步调用，每个启用near的接口方法一个LocalCache。缓存序列化后的返回值，
+ * 命中时反序列化出新的对象返回，调用方之间不共享可变对象
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 下午2:36:18
+ */
+public class NearCache extends MethodCacheSupport<Method> {
+
+    @Override
+    protected Method getMethod(Method method) {
+        return method;
+    }
+
+    @Override
+    protected boolean isEnabled(CacheRule rule) {
+        return rule.isNear() && rule.getTtlMillis() > 0;
+    }
+
+    @Override
+    protected boolean isCacheable(Class<?> returnType) {
+        return returnType != void.class && InputStream.class.isAssignableFrom(returnType) == false && Future.class.isAssignableFrom(returnType) == false;
+    }
+
+    /**
+     * 内联的返回值先序列化再缓存，返回远程对象存根时不缓存。远程方法返回null时缓存没有type的ProtocolObject
+     *
+     * @param generation 发起调用前的methodCache.generation()，调用期间缓存被失效时不写入
+     */
+    public void put(LocalCache<CacheKey, ProtocolObject> methodCache, CacheKey cacheKey, ProtocolObject retObject, ProtocolFactory protocolFactory, long generation) {
+        if (retObject == null || retObject.getType() == null) {
+            methodCache.put(cacheKey, NULL_RET_OBJECT, cacheKey.length(), generation);
+            return;
+        }
+        if (retObject.isRemote()) {
+            return;
+        }
+        ProtocolObject cached = new ProtocolObject();
+        cached.setType(retObject.getType());
+        cached.setData(retObject.isInline() ? protocolFactory.encode(retObject.getValue()) : retObject.getData());
+        byte[] data = cached.getData();
+        methodCache.put(cacheKey, cached, cacheKey.length() + ((data == null) ? 0 : data.length), generation);
+    }
+
+    public void setCacheRules(List<CacheRule> cacheRules) {
+        this.setRules(cacheRules);
+    }
+}
@@ -0,0 +1,53 @@
+package io.lnk.core.cache;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import io.lnk.api.ProtocolObject;
+import io.lnk.core.ServiceMethodInvoker;
+
+/**
+ * 服务端返回值缓存，每个启用缓存的服务方法一个LocalCache。缓存键见CacheKey，
+ * 缓存值为已序列化的返回值，命中时既不调用服务方法也不再序列化返回值
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月19日 上午11:05:32
+ */
+public class ResponseCache extends MethodCacheSupport<ServiceMethodInvoker> {
+
+    public ResponseCache(List<CacheRule> cacheRules) {
+        this.setRules(cacheRules);
+    }
+
+    @Override
+    protected Method getMethod(ServiceMethodInvoker serviceMethodInvoker) {
+        return serviceMethodInvoker.getMethod();
+    }
+
+    @Override
+    protected boolean isEnabled(CacheRule rule) {
+        return rule.getTtlMillis() > 0;
+    }
+
+    @Override
+    protected boolean isCacheable(Class<?> returnType) {
+        return returnType != void.class;
+    }
+
+    /**
+     * 缓存的返回值在命中的请求间只读共享，服务方法返回null时缓存没有type的ProtocolObject
+     *
+     * @param retObject 必须是已序列化的非内联返回值
+     * @param generation 调用服务方法前的methodCache.generation()，调用期间缓存被失效时不写入
+     */
+    public void put(LocalCache<CacheKey, ProtocolObject> methodCache, CacheKey cacheKey, ProtocolObject retObject, long generation) {
+        if (retObject == null) {
+            methodCache.put(cacheKey, NULL_RET_OBJECT, cacheKey.length(), generation);
+            return;
+        }
+        byte[] data = retObject.getData();
+        methodCache.put(cacheKey, retObject, cacheKey.length() + ((data == null) ? 0 : data.length), generation);
+    }
+}
@@ -12,6 +12,7 @@ import io.lnk.api.annotation.LnkService;
 import io.lnk.api.protocol.ProtocolFactorySelector;
 import io.lnk.api.protocol.object.ObjectProtocolFactory;
 import io.lnk.core.LnkEndpoint;
+import io.lnk.core.cache.NearCache;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -25,6 +26,8 @@ public class DefaultRemoteObjectFactory implements RemoteObjectFactory, BeanClas
     private ConcurrentHashMap<String, Object> remoteObjects = new ConcurrentHashMap<String, Object>();
     private ProtocolFactorySelector protocolFactorySelector;
     private ObjectProtocolFactory objectProtocolFactory;
+    private NearCache nearCache;
+    private final SyncCoalescer syncCoalescer = new SyncCoalescer();
     private ClassLoader classLoader;
 
     @Override
@@ -36,6 +39,8 @@ public class DefaultRemoteObjectFactory implements RemoteObjectFactory, BeanClas
         RemoteCaller caller = new RemoteCaller(endpoint, serializeStub, protocolFactorySelector);
         caller.setRemoteObjectFactory(this);
         caller.setObjectProtocolFactory(this.objectProtocolFactory);
+        caller.setNearCache(this.nearCache);
+        caller.setSyncCoalescer(this.syncCoalescer);
         remoteObject = Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class[] {serviceInterface, RemoteObject.class, RemoteObjectFactory.class}, caller);
         remoteObjects.put(serializeStub, remoteObject);
         return serviceInterface.cast(remoteObject);
@@ -60,6 +65,8 @@ public class DefaultRemoteObjectFactory implements RemoteObjectFactory, BeanClas
         RemoteCaller caller = new RemoteCaller(endpoint, remoteStub, protocolFactorySelector);
         caller.setRemoteObjectFactory(this);
         caller.setObjectProtocolFactory(objectProtocolFactory);
+        caller.setNearCache(nearCache);
+        caller.setSyncCoalescer(syncCoalescer);
         remoteObject = Proxy.newProxyInstance(this.classLoader, new Class[] {serviceInterface, RemoteObject.class, RemoteObjectFactory.class}, caller);
         remoteObjects.put(serializeStub, remoteObject);
         return serviceInterface.cast(remoteObject);
@@ -77,6 +84,8 @@ public class DefaultRemoteObjectFactory implements RemoteObjectFactory, BeanClas
             RemoteCaller caller = new RemoteCaller(endpoint, remoteStub, protocolFactorySelector);
             caller.setRemoteObjectFactory(this);
             caller.setObjectProtocolFactory(objectProtocolFactory);
+            caller.setNearCache(nearCache);
+            caller.setSyncCoalescer(syncCoalescer);
             remoteObject = Proxy.newProxyInstance(this.classLoader, new Class[] {serviceInterface, RemoteObject.class, RemoteObjectFactory.class}, caller);
             remoteObjects.put(serializeStub, remoteObject);
             return serviceInterface.cast(remoteObject);
@@ -101,4 +110,12 @@ public class DefaultRemoteObjectFactory implements RemoteObjectFactory, BeanClas
     public void setObjectProtocolFactory(ObjectProtocolFactory objectProtocolFactory) {
         this.objectProtocolFactory = objectProtocolFactory;
     }
+    
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+    
+    public SyncCoalescer getSyncCoalescer() {
+        return syncCoalescer;
+    }
 }
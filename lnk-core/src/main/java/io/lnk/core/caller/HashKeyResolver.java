@@ -0,0 +1,88 @@
+package io.lnk.core.caller;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.ReflectionUtils;
+
+import io.lnk.api.annotation.LnkHashKey;
+
+/**
+ * 按方法参数上的LnkHashKey取一致性hash负载均衡的键，每个接口方法只解析一次注解
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月21日 上午9:52:47
+ */
+public class HashKeyResolver {
+    private static final HashKeyResolver NO_HASH_KEY = new HashKeyResolver(-1, null);
+    private static final ConcurrentHashMap<Method, HashKeyResolver> resolvers = new ConcurrentHashMap<Method, HashKeyResolver>(64);
+    private final int index;
+    private final String property;
+    private final ConcurrentHashMap<Class<?>, Method> readMethods = new ConcurrentHashMap<Class<?>, Method>();
+
+    private HashKeyResolver(int index, String property) {
+        this.index = index;
+        this.property = property;
+    }
+
+    /**
+     * @return 方法未标注LnkHashKey或键值为null时返回null
+     */
+    public static String resolve(Method method, Object[] args) {
+        HashKeyResolver resolver = resolvers.get(method);
+        if (resolver == null) {
+            resolver = create(method);
+            HashKeyResolver prev = resolvers.putIfAbsent(method, resolver);
+            if (prev != null) {
+                resolver = prev;
+            }
+        }
+        return (resolver == NO_HASH_KEY) ? null : resolver.resolve(args);
+    }
+
+    private static HashKeyResolver create(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof LnkHashKey) {
+                    return new HashKeyResolver(i, ((LnkHashKey) annotation).value());
+                }
+            }
+        }
+        return NO_HASH_KEY;
+    }
+
+    private String resolve(Object[] args) {
+        Object arg = args[this.index];
+        if (arg == null || StringUtils.isBlank(this.property)) {
+            return (arg == null) ? null : arg.toString();
+        }
+        Method readMethod = this.readMethods.get(arg.getClass());
+        if (readMethod == null) {
+            readMethod = this.findReadMethod(arg.getClass());
+            this.readMethods.putIfAbsent(arg.getClass(), readMethod);
+        }
+        Object value = ReflectionUtils.invokeMethod(readMethod, arg);
+        return (value == null) ? null : value.toString();
+    }
+
+    private Method findReadMethod(Class<?> argClass) {
+        try {
+            for (PropertyDescriptor propertyDescriptor : Introspector.getBeanInfo(argClass).getPropertyDescriptors()) {
+                if (StringUtils.equals(this.property, propertyDescriptor.getName()) && propertyDescriptor.getReadMethod() != null) {
+                    return propertyDescriptor.getReadMethod();
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalArgumentException("introspect " + argClass.getName() + " Error.", e);
+        }
+        throw new IllegalArgumentException("LnkHashKey property " + this.property + " not readable in " + argClass.getName());
+    }
+}
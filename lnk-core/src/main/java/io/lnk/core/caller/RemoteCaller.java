@@ -1,9 +1,13 @@
 package io.lnk.core.caller;
 
+import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.util.ReflectionUtils;
@@ -24,6 +28,9 @@ import io.lnk.api.protocol.object.ObjectProtocolFactory;
 import io.lnk.api.utils.CorrelationIds;
 import io.lnk.core.LnkEndpoint;
 import io.lnk.core.MdcCaller;
+import io.lnk.core.cache.CacheKey;
+import io.lnk.core.cache.LocalCache;
+import io.lnk.core.cache.NearCache;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -38,6 +45,8 @@ public class RemoteCaller implements InvocationHandler {
     private RemoteObjectFactory remoteObjectFactory;
     private ProtocolFactory protocolFactory;
     private ObjectProtocolFactory objectProtocolFactory;
+    private NearCache nearCache;
+    private SyncCoalescer syncCoalescer;
 
     public RemoteCaller(LnkEndpoint endpoint, String serializeStub, ProtocolFactorySelector protocolFactorySelector) {
         this(endpoint, new RemoteStub(serializeStub), protocolFactorySelector);
@@ -68,17 +77,23 @@ public class RemoteCaller implements InvocationHandler {
         }
         InvokeType type = InvokeType.SYNC;
         long timeoutMillis = LnkMethod.DEFAULT_TIMEOUT_MILLIS;
+        boolean coalesce = false;
+        final Class<?> returnType = method.getReturnType();
         if (method.isAnnotationPresent(LnkMethod.class)) {
             LnkMethod lnkMethod = method.getAnnotation(LnkMethod.class);
             type = lnkMethod.type();
             timeoutMillis = lnkMethod.timeoutMillis();
+            coalesce = lnkMethod.coalesce() && InputStream.class.isAssignableFrom(returnType) == false;// 分块返回的InputStream不能共享
         }
-        final Class<?> returnType = method.getReturnType();
         if (returnType == void.class) {
             if (type != InvokeType.MULTICAST) {
                 type = InvokeType.ASYNC;
             }
         }
+        final boolean futureReturnType = (returnType != Object.class && returnType.isAssignableFrom(CompletableFuture.class));
+        if (futureReturnType) {
+            type = InvokeType.FUTURE;
+        }
         String id = CorrelationIds.buildGuid();
         MdcCaller.setTrackingCode(id);
         InvokerCommand command = new InvokerCommand();
@@ -90,10 +105,11 @@ public class RemoteCaller implements InvocationHandler {
         command.setMethod(method.getName());
         command.setSignature(method.getParameterTypes());
         command.setArgs(this.objectProtocolFactory.encode(args, protocolFactory));
+        command.setHashKey(HashKeyResolver.resolve(method, args));
         try {
             switch (type) {
                 case SYNC: {
-                    return this.sync(command, timeoutMillis);
+                    return this.sync(method, coalesce, command, timeoutMillis);
                 }
                 case ASYNC: {
                     this.endpoint.async(command);
@@ -103,6 +119,17 @@ public class RemoteCaller implements InvocationHandler {
                     this.endpoint.multicast(command);
                 }
                     break;
+                case FUTURE: {
+                    CompletableFuture<Object> future = this.future(command, timeoutMillis);
+                    if (futureReturnType) {
+                        return future;
+                    }
+                    try {
+                        return future.get();
+                    } catch (ExecutionException e) {
+                        throw e.getCause();
+                    }
+                }
             }
         } catch (Throwable e) {
             if (e instanceof InvocationTargetException) {
@@ -113,8 +140,51 @@ public class RemoteCaller implements InvocationHandler {
         return null;
     }
 
-    private Object sync(InvokerCommand command, long timeoutMillis) throws Throwable {
-        InvokerCommand response = this.endpoint.sync(command, timeoutMillis);
+    private Object sync(Method method, boolean coalesce, InvokerCommand command, long timeoutMillis) throws Throwable {
+        LocalCache<CacheKey, ProtocolObject> methodCache = (this.nearCache == null) ? null : this.nearCache.getMethodCache(method, command);
+        coalesce = coalesce && this.syncCoalescer != null;
+        CacheKey cacheKey = (methodCache == null && coalesce == false) ? null : CacheKey.valueOf(command, protocolFactory);
+        ProtocolObject cachedRetObject = (methodCache == null || cacheKey == null) ? null : methodCache.get(cacheKey);
+        if (cachedRetObject != null) {
+            return (cachedRetObject.getType() == null) ? null : protocolFactory.decode(cachedRetObject.getType(), cachedRetObject.getData());
+        }
+        long generation = (methodCache == null) ? -1L : methodCache.generation();// 调用期间缓存被失效时不写回旧的返回值
+        InvokerCommand response;
+        if (coalesce && cacheKey != null) {
+            response = this.syncCoalescer.sync(method, cacheKey, command, timeoutMillis, this.endpoint, protocolFactory);
+        } else {
+            response = this.endpoint.sync(command, timeoutMillis);
+        }
+        Object retObject = this.reply(response);
+        if (methodCache != null && cacheKey != null) {
+            this.nearCache.put(methodCache, cacheKey, response.getRetObject(), protocolFactory, generation);
+        }
+        return retObject;
+    }
+
+    /**
+     * 非阻塞调用，返回的CompletableFuture在remoting客户端的回调线程中完成
+     */
+    private CompletableFuture<Object> future(InvokerCommand command, long timeoutMillis) {
+        final CompletableFuture<Object> future = new CompletableFuture<Object>();
+        this.endpoint.future(command, timeoutMillis).whenComplete(new BiConsumer<InvokerCommand, Throwable>() {
+            @Override
+            public void accept(InvokerCommand response, Throwable cause) {
+                if (cause != null) {
+                    future.completeExceptionally(cause);
+                    return;
+                }
+                try {
+                    future.complete(reply(response));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private Object reply(InvokerCommand response) throws Throwable {
         SimpleLnkException exception = response.getException();
         if (exception != null) {
             Throwable e;
@@ -137,6 +207,9 @@ public class RemoteCaller implements InvocationHandler {
         }
         ProtocolObject retObject = response.getRetObject();
         if (retObject != null) {
+            if (retObject.isInline()) {
+                return retObject.getValue();
+            }
             byte[] retObjectBytes = retObject.getData();
             if (ArrayUtils.isNotEmpty(retObjectBytes)) {
                 return protocolFactory.decode(retObject.getType(), retObjectBytes);
@@ -156,4 +229,12 @@ public class RemoteCaller implements InvocationHandler {
     public void setObjectProtocolFactory(ObjectProtocolFactory objectProtocolFactory) {
         this.objectProtocolFactory = objectProtocolFactory;
     }
+
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public void setSyncCoalescer(SyncCoalescer syncCoalescer) {
+        this.syncCoalescer = syncCoalescer;
+    }
 }
@@ -0,0 +1,141 @@
+package io.lnk.core.caller;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.exception.LnkTimeoutException;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.core.LnkEndpoint;
+import io.lnk.core.cache.CacheKey;
+
+/**
+ * 合并相同方法、相同参数的并发同步调用：第一个调用方发起远程调用，其余调用方各自按自己的超时时间等待同一个结果。
+ * 先到的调用方失败时等待中的调用方收到同一个异常；先到的调用方因自己的超时时间较短而超时时，
+ * 等待中的调用方按各自剩余的超时时间重新发起或加入调用
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月20日 上午10:12:33
+ */
+public class SyncCoalescer {
+    private final ConcurrentHashMap<Method, ConcurrentHashMap<CacheKey, Call>> calls = new ConcurrentHashMap<Method, ConcurrentHashMap<CacheKey, Call>>(64);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+
+    public InvokerCommand sync(Method method, CacheKey cacheKey, InvokerCommand command, long timeoutMillis, LnkEndpoint endpoint, ProtocolFactory protocolFactory) throws Throwable {
+        ConcurrentHashMap<CacheKey, Call> methodCalls = this.getMethodCalls(method);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0L) {
+                throw new LnkTimeoutException("coalesced invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> timeout " + timeoutMillis + "(ms).");
+            }
+            Call call = new Call();
+            Call inflight = methodCalls.putIfAbsent(cacheKey, call);
+            if (inflight == null) {
+                return this.lead(methodCalls, cacheKey, call, command, remainingMillis, endpoint, protocolFactory);
+            }
+            if (inflight.join() == false) {
+                continue;// 先到的调用已经结束，重新发起或加入下一次调用
+            }
+            this.coalescedCount.incrementAndGet();
+            try {
+                return inflight.future.get(remainingMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof LnkTimeoutException) {
+                    continue;// 先到的调用方按它自己的超时时间超时，不代表本调用方也超时
+                }
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                throw new LnkTimeoutException("coalesced invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> timeout " + timeoutMillis + "(ms).", e);
+            }
+        }
+    }
+
+    private InvokerCommand lead(ConcurrentHashMap<CacheKey, Call> methodCalls, CacheKey cacheKey, Call call, InvokerCommand command, long timeoutMillis, LnkEndpoint endpoint, ProtocolFactory protocolFactory) throws Throwable {
+        InvokerCommand response;
+        try {
+            response = endpoint.sync(command, timeoutMillis);
+        } catch (Throwable e) {
+            methodCalls.remove(cacheKey, call);
+            call.seal();
+            call.future.completeExceptionally(e);
+            throw e;
+        }
+        methodCalls.remove(cacheKey, call);
+        if (call.seal() > 0) {
+            try {
+                call.future.complete(this.share(response, protocolFactory));// 在返回给调用方之前序列化，调用方随后修改返回值不影响等待中的调用方
+            } catch (Throwable e) {
+                call.future.completeExceptionally(e);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 内联的返回值是已经反序列化的对象，重新序列化后交给等待的调用方，避免多个调用方共享同一个可变对象
+     */
+    private InvokerCommand share(InvokerCommand response, ProtocolFactory protocolFactory) {
+        ProtocolObject retObject = response.getRetObject();
+        if (retObject == null || retObject.isInline() == false || retObject.isRemote()) {
+            return response;
+        }
+        ProtocolObject sharedRetObject = new ProtocolObject();
+        sharedRetObject.setType(retObject.getType());
+        sharedRetObject.setData(protocolFactory.encode(retObject.getValue()));
+        InvokerCommand shared = new InvokerCommand();
+        shared.setId(response.getId());
+        shared.setRetObject(sharedRetObject);
+        return shared;
+    }
+
+    private ConcurrentHashMap<CacheKey, Call> getMethodCalls(Method method) {
+        ConcurrentHashMap<CacheKey, Call> methodCalls = this.calls.get(method);
+        if (methodCalls != null) {
+            return methodCalls;
+        }
+        methodCalls = new ConcurrentHashMap<CacheKey, Call>();
+        ConcurrentHashMap<CacheKey, Call> prev = this.calls.putIfAbsent(method, methodCalls);
+        return (prev == null) ? methodCalls : prev;
+    }
+
+    /**
+     * 被合并(未发起远程调用)的同步调用次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * 进行中的调用，waiters为-1表示已结束，不再接受等待的调用方
+     */
+    private static final class Call {
+        private final CompletableFuture<InvokerCommand> future = new CompletableFuture<InvokerCommand>();
+        private final AtomicInteger waiters = new AtomicInteger(0);
+
+        boolean join() {
+            while (true) {
+                int current = this.waiters.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (this.waiters.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        int seal() {
+            return this.waiters.getAndSet(-1);
+        }
+    }
+}
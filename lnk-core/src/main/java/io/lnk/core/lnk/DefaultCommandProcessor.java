@@ -1,22 +1,36 @@
 package io.lnk.core.lnk;
 
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.ReflectionUtils;
 
 import io.lnk.api.InvokerCommand;
+import io.lnk.api.LnkContext;
 import io.lnk.api.ProtocolObject;
+import io.lnk.api.annotation.LnkMethod;
+import io.lnk.api.exception.LnkTimeoutException;
 import io.lnk.api.exception.ex.SimpleLnkException;
 import io.lnk.api.flow.FlowController;
 import io.lnk.api.protocol.ProtocolFactory;
 import io.lnk.api.protocol.ProtocolFactorySelector;
 import io.lnk.api.protocol.object.ObjectProtocolFactory;
 import io.lnk.core.MdcCaller;
+import io.lnk.core.ServiceMethodInvoker;
 import io.lnk.core.ServiceObjectFinder;
+import io.lnk.core.cache.CacheKey;
+import io.lnk.core.cache.LocalCache;
+import io.lnk.core.cache.ResponseCache;
+import io.lnk.flow.RateLimiter;
+import io.lnk.protocol.invoker.CompactInvokerCommandCodec;
+import io.lnk.protocol.invoker.CompactInvokerCommandCodec.MethodDescriptor;
 import io.lnk.remoting.CommandProcessor;
+import io.lnk.remoting.protocol.CommandBodyCodec;
 import io.lnk.remoting.protocol.RemotingCommand;
 
 /**
@@ -31,38 +45,156 @@ public class DefaultCommandProcessor implements CommandProcessor {
     private ServiceObjectFinder serviceObjectFinder;
     private FlowController flowController;
     private ObjectProtocolFactory objectProtocolFactory;
+    private CompactInvokerCommandCodec compactInvokerCommandCodec;
+    private CommandBodyCodec commandBodyCodec;
+    private ResponseCache responseCache;
+    private RateLimiter rateLimiter;
+    private long futureTimeoutMillis = LnkMethod.DEFAULT_TIMEOUT_MILLIS;
 
     @Override
     public RemotingCommand processCommand(RemotingCommand request) throws Throwable {
         long startMillis = System.currentTimeMillis();
         ProtocolFactory protocolFactory = protocolFactorySelector.select(request.getProtocol());
-        InvokerCommand command = protocolFactory.decode(InvokerCommand.class, request.getBody());
+        final boolean compact = request.isCompact();
+        InvokerCommand command = (request.getDecodedBody() instanceof InvokerCommand) ? (InvokerCommand) request.getDecodedBody() : this.decodeRequest(request, protocolFactory);
         MdcCaller.setTrackingCode(command.getId());
         Object serviceObject = serviceObjectFinder.getServiceObject(command);
+        InputStream streamBody = null;
+        if (request.hasDeadline()) {
+            LnkContext.setDeadlineNanos(request.getDeadlineNanos());
+        }
         try {
-            Method serviceMethod = ReflectionUtils.findMethod(serviceObject.getClass(), command.getMethod(), command.getSignature());
-            Object retObject = serviceMethod.invoke(serviceObject, this.objectProtocolFactory.decode(command.getArgs(), protocolFactory));
-            if (retObject != null) {
-                ProtocolObject protocolObject = new ProtocolObject();
-                protocolObject.setType(retObject.getClass());
-                protocolObject.setData(protocolFactory.encode(retObject));
-                command.setRetObject(protocolObject);
+            ServiceMethodInvoker serviceMethodInvoker = serviceObjectFinder.getServiceMethodInvoker(serviceObject, command);
+            LocalCache<CacheKey, ProtocolObject> methodCache = (responseCache == null) ? null : responseCache.getMethodCache(serviceMethodInvoker, command);
+            CacheKey cacheKey = (methodCache == null || request.isOneway()) ? null : CacheKey.valueOf(command, protocolFactory);
+            long generation = (cacheKey == null) ? -1L : methodCache.generation();
+            ProtocolObject cachedRetObject = (cacheKey == null) ? null : methodCache.get(cacheKey);
+            if (cachedRetObject != null) {
+                command.setRetObject((cachedRetObject.getType() == null) ? null : cachedRetObject);// 命中时不调用服务方法, 也不再序列化返回值
+            } else {
+                Object retObject = serviceMethodInvoker.invoke(serviceObject, this.objectProtocolFactory.decode(command.getArgs(), protocolFactory));
+                if (retObject instanceof Future) {
+                    retObject = this.awaitFuture((Future<?>) retObject, command);// 服务端返回CompletableFuture时等待其完成后回写结果
+                }
+                if (retObject instanceof InputStream) {
+                    streamBody = (InputStream) retObject;
+                    if (request.isStream() == false || request.isOneway()) {
+                        throw new UnsupportedOperationException("client not support stream reply, serviceId<" + command.commandSignature() + ">");
+                    }
+                    ProtocolObject protocolObject = new ProtocolObject();// 返回值随后按分块写出
+                    protocolObject.setType(InputStream.class);
+                    command.setRetObject(protocolObject);
+                } else if (retObject != null) {
+                    ProtocolObject protocolObject = new ProtocolObject();
+                    protocolObject.setType(retObject.getClass());
+                    if (request.isInline() && cacheKey == null) {
+                        protocolObject.setValue(retObject);
+                    } else {
+                        protocolObject.setData(protocolFactory.encode(retObject));
+                    }
+                    command.setRetObject(protocolObject);
+                }
+                if (cacheKey != null && streamBody == null) {
+                    responseCache.put(methodCache, cacheKey, command.getRetObject(), generation);
+                }
             }
         } catch (Throwable e) {
             if (e instanceof InvocationTargetException) {
                 e = ((InvocationTargetException) e).getCause();
             }
+            if (streamBody != null) {
+                this.closeQuietly(streamBody);
+                streamBody = null;
+            }
             command.setException(new SimpleLnkException(e));
             log.error("invoke correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> Error.", e);
+        } finally {
+            LnkContext.clearDeadline();
         }
         command.setArgs(null);// 减少数据的传输量
         RemotingCommand response = RemotingCommand.replyCommand(request, request.getCode());
-        response.setBody(protocolFactory.encode(command));
+        if (streamBody != null) {
+            response.setStream();
+            response.setStreamBody(streamBody);
+        }
+        if (compact) {
+            response.setCompact();
+            response.setBody(compactInvokerCommandCodec.encodeReply(command, protocolFactory));
+        } else {
+            commandBodyCodec.encode(response, command, protocolFactory);
+        }
         long endMillis = System.currentTimeMillis();
         log.info("server invoker correlationId<{}>, serviceId<{}>, used {}(ms) success.", new Object[] {command.getId(), command.commandSignature(), (endMillis - startMillis)});
         return response;
     }
     
+    /**
+     * 等待时间不超过调用方的截止时间，请求没有截止时间时不超过futureTimeoutMillis，超时后取消该Future并释放处理线程
+     */
+    private Object awaitFuture(Future<?> future, InvokerCommand command) throws Throwable {
+        long timeoutMillis = LnkContext.timeoutMillis(this.futureTimeoutMillis);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new LnkTimeoutException("wait future return value correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> timeout " + timeoutMillis + "(ms).", e);
+        }
+    }
+
+    private InvokerCommand decodeRequest(RemotingCommand request, ProtocolFactory protocolFactory) throws Throwable {
+        if (request.isCompact()) {
+            return compactInvokerCommandCodec.decodeRequest(request.getBody(), protocolFactorySelector);
+        }
+        return commandBodyCodec.decode(request, InvokerCommand.class, protocolFactory);
+    }
+
+    private void closeQuietly(InputStream streamBody) {
+        try {
+            streamBody.close();
+        } catch (Throwable e) {
+            log.warn("close stream Error.", e);
+        }
+    }
+
+    /**
+     * 请求的服务可能配置了限流规则时在IO线程上解码请求并检查限流，解码结果留给处理线程复用；解码失败时不限流，由处理线程按原流程报错
+     */
+    @Override
+    public boolean tryAcquireFailure(RemotingCommand request, long timeoutMillis) {
+        if (this.mayRateLimit(request)) {
+            InvokerCommand command = null;
+            try {
+                command = this.decodeRequest(request, protocolFactorySelector.select(request.getProtocol()));
+            } catch (Throwable e) {
+                log.warn("decode request before rate limit Error.", e);
+            }
+            if (command != null) {
+                if (rateLimiter.tryAcquireFailure(command)) {
+                    log.debug("rate limit correlationId<{}>, serviceId<{}>", command.getId(), command.commandSignature());
+                    return true;
+                }
+                request.setDecodedBody(command);
+            }
+        }
+        return this.tryAcquireFailure(timeoutMillis);
+    }
+
+    /**
+     * 紧凑格式只读取方法ID判断，其余格式按请求所在的服务组判断，没有命中限流规则的请求不在IO线程上解码
+     */
+    private boolean mayRateLimit(RemotingCommand request) {
+        if (rateLimiter == null || rateLimiter.isEmpty()) {
+            return false;
+        }
+        if (request.isCompact()) {
+            MethodDescriptor descriptor = compactInvokerCommandCodec.peekMethod(request.getBody());
+            return descriptor != null && rateLimiter.matches(descriptor.getServiceId(), descriptor.getMethod());
+        }
+        return rateLimiter.matches(request.getCode());
+    }
+
     @Override
     public boolean tryAcquireFailure(long timeoutMillis) {
         if (flowController == null) {
@@ -79,6 +211,14 @@ public class DefaultCommandProcessor implements CommandProcessor {
         flowController.release();
     }
 
+    @Override
+    public void release(long latencyNanos) {
+        if (flowController == null) {
+            return;
+        }
+        flowController.release(latencyNanos);
+    }
+
     public void setProtocolFactorySelector(ProtocolFactorySelector protocolFactorySelector) {
         this.protocolFactorySelector = protocolFactorySelector;
     }
@@ -94,4 +234,24 @@ public class DefaultCommandProcessor implements CommandProcessor {
     public void setObjectProtocolFactory(ObjectProtocolFactory objectProtocolFactory) {
         this.objectProtocolFactory = objectProtocolFactory;
     }
+
+    public void setCompactInvokerCommandCodec(CompactInvokerCommandCodec compactInvokerCommandCodec) {
+        this.compactInvokerCommandCodec = compactInvokerCommandCodec;
+    }
+
+    public void setCommandBodyCodec(CommandBodyCodec commandBodyCodec) {
+        this.commandBodyCodec = commandBodyCodec;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public void setFutureTimeoutMillis(long futureTimeoutMillis) {
+        this.futureTimeoutMillis = futureTimeoutMillis;
+    }
 }
@@ -1,20 +1,34 @@
 package io.lnk.core.lnk;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 import io.lnk.api.Address;
 import io.lnk.api.InvokerCommand;
+import io.lnk.api.LnkContext;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.Protocols;
 import io.lnk.api.ServiceGroup;
+import io.lnk.api.ServiceVersion;
+import io.lnk.api.annotation.LnkService;
 import io.lnk.api.app.Application;
+import io.lnk.api.cache.CacheInvalidator;
+import io.lnk.api.cluster.LatencyAware;
 import io.lnk.api.cluster.LoadBalance;
 import io.lnk.api.exception.LnkException;
 import io.lnk.api.exception.LnkRejectException;
@@ -29,15 +43,28 @@ import io.lnk.api.utils.LnkThreadFactory;
 import io.lnk.api.utils.NetUtils;
 import io.lnk.core.LnkEndpoint;
 import io.lnk.core.ServiceObjectFinder;
+import io.lnk.core.cache.CacheKey;
+import io.lnk.core.cache.CacheRule;
+import io.lnk.core.cache.LocalCache;
+import io.lnk.core.cache.MethodCacheListener;
+import io.lnk.core.cache.NearCache;
+import io.lnk.core.cache.ResponseCache;
+import io.lnk.flow.RateLimitRule;
+import io.lnk.flow.RateLimiter;
+import io.lnk.protocol.invoker.CompactInvokerCommandCodec;
 import io.lnk.remoting.CommandProcessor;
 import io.lnk.remoting.Configuration;
+import io.lnk.remoting.RemotingCallback;
 import io.lnk.remoting.RemotingClient;
+import io.lnk.remoting.RemotingClientAware;
 import io.lnk.remoting.RemotingServer;
+import io.lnk.remoting.ReplyFuture;
 import io.lnk.remoting.exception.RemotingConnectException;
 import io.lnk.remoting.exception.RemotingSendRequestException;
 import io.lnk.remoting.exception.RemotingTimeoutException;
 import io.lnk.remoting.netty.NettyRemotingClient;
 import io.lnk.remoting.netty.NettyRemotingServer;
+import io.lnk.remoting.protocol.CommandBodyCodec;
 import io.lnk.remoting.protocol.RemotingCommand;
 import sun.misc.Signal;
 import sun.misc.SignalHandler;
@@ -61,11 +88,20 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
     private ProtocolFactorySelector protocolFactorySelector;
     private ServiceObjectFinder serviceObjectFinder;
     private FlowController flowController;
+    private FlowController serverFlowController;// 服务端处理请求使用，未配置时与调用方共用flowController
     private List<ServiceGroup> serviceGroups;
+    private List<CacheRule> cacheRules;
+    private ResponseCache responseCache;
+    private List<RateLimitRule> rateLimitRules;
+    private RateLimiter rateLimiter;
+    private NearCache nearCache;
     private Application application;
     private ObjectProtocolFactory objectProtocolFactory;
     private AtomicBoolean started = new AtomicBoolean(false);
+    private AtomicBoolean cacheInvalidatorRegistered = new AtomicBoolean(false);
     private Semaphore multiCastSemaphore = new Semaphore(30, true);
+    private final CompactInvokerCommandCodec compactInvokerCommandCodec = new CompactInvokerCommandCodec();
+    private CommandBodyCodec commandBodyCodec;
 
     @Override
     public void start() {
@@ -74,6 +110,9 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
             return;
         }
         configuration.setListenPort(serverPortAllocator.selectPort(configuration.getListenPort(), application));
+        commandBodyCodec = new CommandBodyCodec(configuration);
+        responseCache = new ResponseCache(cacheRules);
+        rateLimiter = new RateLimiter(rateLimitRules);
         remotingServer = new NettyRemotingServer(protocolFactorySelector, configuration);
         remotingServer.registerDefaultProcessor(this.createCommandProcessor(), Executors.newFixedThreadPool(configuration.getDefaultWorkerProcessorThreads(), LnkThreadFactory.newThreadFactory("LnkEndpointWorkerProcessor-%d", false)));
         remotingServer.start();
@@ -81,8 +120,24 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         if (CollectionUtils.isEmpty(serviceGroups) == false) {
             this.bind(serviceGroups.toArray(new ServiceGroup[serviceGroups.size()]));
         }
+        MethodCacheListener methodCacheListener = new MethodCacheListener() {
+            @Override
+            public void onCreated(LocalCache<CacheKey, ProtocolObject> methodCache) {
+                registryCacheInvalidator();// 方法注解声明的缓存在首次调用时才创建
+            }
+        };
+        responseCache.setMethodCacheListener(methodCacheListener);
+        if (nearCache != null) {
+            nearCache.setMethodCacheListener(methodCacheListener);
+        }
+        if (responseCache.hasCacheRules() || responseCache.getMethodCaches().isEmpty() == false || (nearCache != null && (nearCache.hasCacheRules() || nearCache.getMethodCaches().isEmpty() == false))) {
+            this.registryCacheInvalidator();
+        }
         remotingClient = new NettyRemotingClient(protocolFactorySelector, configuration);
         remotingClient.start();
+        if (loadBalance instanceof RemotingClientAware) {
+            ((RemotingClientAware) loadBalance).setRemotingClient(remotingClient);
+        }
         Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
             public void run() {
                 try {
@@ -117,13 +172,48 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         System.out.println(String.format("LnkEndpoint '%s' start success bind %s", remotingServer, serverAddress));
     }
 
+    /**
+     * 只有启用了服务端缓存或调用方缓存的节点才注册缓存失效服务，没有缓存的节点不接收失效广播
+     */
+    private void registryCacheInvalidator() {
+        if (this.cacheInvalidatorRegistered.compareAndSet(false, true) == false) {
+            return;
+        }
+        this.registry(CacheInvalidator.class.getName(), ServiceVersion.DEFAULT_VERSION, Protocols.DEFAULT_PROTOCOL, new CacheInvalidator() {
+            @Override
+            public void invalidate(String serviceId, String method) {
+                log.info("invalidate cache serviceId : {}, method : {}", serviceId, method);
+                responseCache.invalidate(serviceId, method);
+                if (nearCache != null) {
+                    nearCache.invalidate(serviceId, method);
+                }
+            }
+        });
+    }
+
     @Override
     public void registry(String serviceId, String version, int protocol, Object bean) throws LnkException {
         log.info("registry service serviceId : {}, version : {}, protocol : {}", new Object[] {serviceId, version, protocol});
         this.serviceObjectFinder.registry(serviceId, version, protocol, bean);
+        this.compactInvokerCommandCodec.registry(serviceId, bean.getClass());
+        if (this.rateLimiter != null) {
+            this.rateLimiter.registry(serviceId, serviceGroupOf(serviceId, bean.getClass()));
+        }
         this.registry.registry(serviceId, version, protocol, serverAddress);
     }
 
+    /**
+     * 调用方按接口上@LnkService的group设置请求的command code，服务端从服务对象实现的同名接口上取得
+     */
+    private static String serviceGroupOf(String serviceId, Class<?> beanType) {
+        for (Class<?> beanInterface : ClassUtils.getAllInterfaces(beanType)) {
+            if (beanInterface.getName().equals(serviceId) && beanInterface.isAnnotationPresent(LnkService.class)) {
+                return beanInterface.getAnnotation(LnkService.class).group();
+            }
+        }
+        return null;
+    }
+
     @Override
     public void unregistry(String serviceId, String version, int protocol) throws LnkException {
         log.info("unregistry service serviceId : {}, version : {}, protocol : {}", new Object[] {serviceId, version, protocol});
@@ -142,39 +232,50 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         }
         for (ServiceGroup serviceGroup : serviceGroups) {
             int commandCode = serviceGroup.getServiceGroup().hashCode();
-            this.remotingServer.registerProcessor(commandCode, this.createCommandProcessor(), Executors.newFixedThreadPool(serviceGroup.getServiceGroupWorkerProcessorThreads(),
-                    LnkThreadFactory.newThreadFactory("LnkEndpointWorkerProcessor[" + serviceGroup.getServiceGroup() + "]-%d", false)));
+            ExecutorService executor = null;
+            if (serviceGroup.isInline()) {
+                executor = MoreExecutors.newDirectExecutorService();
+            } else {
+                executor = Executors.newFixedThreadPool(serviceGroup.getServiceGroupWorkerProcessorThreads(), LnkThreadFactory.newThreadFactory("LnkEndpointWorkerProcessor[" + serviceGroup.getServiceGroup() + "]-%d", false));
+            }
+            this.remotingServer.registerProcessor(commandCode, this.createCommandProcessor(), executor);
             log.info("bind serviceGroup {} success.", serviceGroup.getServiceGroup());
         }
     }
 
     @Override
     public InvokerCommand sync(InvokerCommand command, long timeoutMillis) throws LnkException, LnkTimeoutException {
+        timeoutMillis = LnkContext.timeoutMillis(timeoutMillis);// 服务方法内的调用不超过上游调用方的截止时间
+        if (timeoutMillis <= 0L) {
+            throw new LnkTimeoutException("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> deadline exceeded.");
+        }
         if (this.tryAcquireFailure(timeoutMillis)) {
             throw new LnkRejectException(command.commandSignature());
         }
         Address selectedAddr = null;
+        long startNanos = 0L;
         try {
             long startMillis = System.currentTimeMillis();
-            command.setIp(serverAddress.getHost());
-            command.setApplication(application);
-            int commandCode = command.getServiceGroup().hashCode();
             ProtocolFactory protocolFactory = protocolFactorySelector.select(command.getProtocol());
-            RemotingCommand request = new RemotingCommand();
-            request.setCode(commandCode);
-            request.setProtocol(command.getProtocol());
-            request.setBody(protocolFactory.encode(command));
             Address[] candidates = registry.lookup(command.getServiceId(), command.getVersion(), command.getProtocol());
             selectedAddr = loadBalance.select(command, candidates);
+            RemotingCommand request = this.createRequest(command, protocolFactory);
+            startNanos = System.nanoTime();
             RemotingCommand response = remotingClient.invokeSync(selectedAddr.toString(), request, timeoutMillis);
-            if (commandCode == response.getCode()) {
-                InvokerCommand invokerCommand = protocolFactory.decode(InvokerCommand.class, response.getBody());
-                long endMillis = System.currentTimeMillis();
-                log.info("invoker sync correlationId<{}>, serviceId<{}>, used {}(ms) success.", new Object[] {command.getId(), command.commandSignature(), (endMillis - startMillis)});
-                return invokerCommand;
+            this.updateLatency(command, selectedAddr, startNanos);
+            try {
+                if (request.getCode() == response.getCode()) {
+                    InvokerCommand invokerCommand = this.decodeReply(command, response, protocolFactory);
+                    long endMillis = System.currentTimeMillis();
+                    log.info("invoker sync correlationId<{}>, serviceId<{}>, used {}(ms) success.", new Object[] {command.getId(), command.commandSignature(), (endMillis - startMillis)});
+                    return invokerCommand;
+                }
+                closeStream(response);
+                log.error("invoker sync correlationId<" + command.getId() + ">, serviceId<{}>, code<{}> Error.", new Object[] {command.commandSignature(), response.getCode()});
+                throw new LnkException("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + ">, code<" + response.getCode() + "> Error.");
+            } finally {
+                response.release();
             }
-            log.error("invoker sync correlationId<" + command.getId() + ">, serviceId<{}>, code<{}> Error.", new Object[] {command.commandSignature(), response.getCode()});
-            throw new LnkException("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + ">, code<" + response.getCode() + "> Error.");
         } catch (RemotingConnectException e) {
             log.error("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + e.getLocalizedMessage(), e);
             registry.unregistry(command.getServiceId(), command.getVersion(), command.getProtocol(), selectedAddr);
@@ -183,6 +284,7 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
             log.error("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + e.getLocalizedMessage(), e);
             throw new LnkException("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + e.getLocalizedMessage(), e);
         } catch (RemotingTimeoutException e) {
+            this.updateLatency(command, selectedAddr, startNanos);
             log.error("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> timeout " + e.getLocalizedMessage(), e);
             throw new LnkTimeoutException("invoker sync correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> timeout " + e.getLocalizedMessage(), e);
         } catch (InterruptedException e) {
@@ -201,16 +303,10 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         Address selectedAddr = null;
         try {
             long startMillis = System.currentTimeMillis();
-            command.setIp(serverAddress.getHost());
-            command.setApplication(application);
-            int commandCode = command.getServiceGroup().hashCode();
             ProtocolFactory protocolFactory = protocolFactorySelector.select(command.getProtocol());
-            RemotingCommand request = new RemotingCommand();
-            request.setCode(commandCode);
-            request.setProtocol(command.getProtocol());
-            request.setBody(protocolFactory.encode(command));
             Address[] candidates = registry.lookup(command.getServiceId(), command.getVersion(), command.getProtocol());
             selectedAddr = loadBalance.select(command, candidates);
+            RemotingCommand request = this.createRequest(command, protocolFactory);
             remotingClient.invokeOneway(selectedAddr.toString(), request);
             long endMillis = System.currentTimeMillis();
             log.info("invoker async correlationId<{}>, serviceId<{}>, used {}(ms) success.", new Object[] {command.getId(), command.commandSignature(), (endMillis - startMillis)});
@@ -229,6 +325,84 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         }
     }
 
+    @Override
+    public CompletableFuture<InvokerCommand> future(final InvokerCommand command, long timeoutMillis) {
+        final CompletableFuture<InvokerCommand> future = new CompletableFuture<InvokerCommand>();
+        timeoutMillis = LnkContext.timeoutMillis(timeoutMillis);
+        if (timeoutMillis <= 0L) {
+            future.completeExceptionally(new LnkTimeoutException("invoker future correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> deadline exceeded."));
+            return future;
+        }
+        if (this.tryAcquireFailure(0L)) {// 不阻塞调用线程，没有许可时立即拒绝
+            future.completeExceptionally(new LnkRejectException(command.commandSignature()));
+            return future;
+        }
+        final AtomicBoolean released = new AtomicBoolean(false);// 回调与发送异常可能都会执行，许可只归还一次
+        Address selectedAddr = null;
+        try {
+            final long startMillis = System.currentTimeMillis();
+            final ProtocolFactory protocolFactory = protocolFactorySelector.select(command.getProtocol());
+            Address[] candidates = registry.lookup(command.getServiceId(), command.getVersion(), command.getProtocol());
+            selectedAddr = loadBalance.select(command, candidates);
+            final RemotingCommand request = this.createRequest(command, protocolFactory);
+            final Address invokeAddr = selectedAddr;
+            final long startNanos = System.nanoTime();
+            remotingClient.invokeAsync(selectedAddr.toString(), request, timeoutMillis, new RemotingCallback() {
+                @Override
+                public void onComplete(ReplyFuture replyFuture) {
+                    try {
+                        RemotingCommand response = replyFuture.getResponse();
+                        if (response != null || replyFuture.getCause() instanceof RemotingTimeoutException) {
+                            updateLatency(command, invokeAddr, startNanos);
+                        }
+                        if (response == null) {
+                            Throwable cause = replyFuture.getCause();
+                            String message = "invoker future correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + ((cause == null) ? "Error." : cause.getLocalizedMessage());
+                            log.error(message, cause);
+                            if (cause instanceof RemotingTimeoutException) {
+                                future.completeExceptionally(new LnkTimeoutException(message, cause));
+                            } else {
+                                future.completeExceptionally(new LnkException(message, cause));
+                            }
+                            return;
+                        }
+                        if (request.getCode() != response.getCode()) {
+                            closeStream(response);
+                            log.error("invoker future correlationId<" + command.getId() + ">, serviceId<{}>, code<{}> Error.", new Object[] {command.commandSignature(), response.getCode()});
+                            future.completeExceptionally(new LnkException("invoker future correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + ">, code<" + response.getCode() + "> Error."));
+                            return;
+                        }
+                        InvokerCommand invokerCommand = decodeReply(command, response, protocolFactory);
+                        long endMillis = System.currentTimeMillis();
+                        log.info("invoker future correlationId<{}>, serviceId<{}>, used {}(ms) success.", new Object[] {command.getId(), command.commandSignature(), (endMillis - startMillis)});
+                        future.complete(invokerCommand);
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        release(released);
+                    }
+                }
+            });
+        } catch (Throwable e) {
+            if (e instanceof RemotingConnectException) {
+                registry.unregistry(command.getServiceId(), command.getVersion(), command.getProtocol(), selectedAddr);
+            }
+            log.error("invoker future correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + e.getLocalizedMessage(), e);
+            future.completeExceptionally(new LnkException("invoker future correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + e.getLocalizedMessage(), e));
+            this.release(released);
+        }
+        return future;
+    }
+
+    /**
+     * 收到响应或超时后把本次调用的耗时反馈给关注响应时间的负载均衡
+     */
+    private void updateLatency(InvokerCommand command, Address selectedAddr, long startNanos) {
+        if (loadBalance instanceof LatencyAware) {
+            ((LatencyAware) loadBalance).updateLatency(command, selectedAddr, System.nanoTime() - startNanos);
+        }
+    }
+
     @Override
     public void multicast(InvokerCommand command) {
         if (this.multicastTryAcquireFailure(3000L)) {
@@ -236,19 +410,13 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         }
         try {
             long startMillis = System.currentTimeMillis();
-            command.setIp(serverAddress.getHost());
-            command.setApplication(application);
-            int commandCode = command.getServiceGroup().hashCode();
             ProtocolFactory protocolFactory = protocolFactorySelector.select(command.getProtocol());
-            RemotingCommand request = new RemotingCommand();
-            request.setCode(commandCode);
-            request.setProtocol(command.getProtocol());
-            request.setBody(protocolFactory.encode(command));
             Address[] addrList = registry.lookup(command.getServiceId(), command.getVersion(), command.getProtocol());
             if (ArrayUtils.isNotEmpty(addrList)) {
+                RemotingCommand request = this.createRequest(command, protocolFactory);
                 for (Address address : addrList) {
                     try {
-                        remotingClient.invokeOneway(address.toString(), request);
+                        remotingClient.invokeOneway(address.toString(), request.retain());// 每次发送后都会释放一次报文体
                     } catch (Throwable e) {
                         if (e instanceof RemotingConnectException) {
                             registry.unregistry(command.getServiceId(), command.getVersion(), command.getProtocol(), address);
@@ -256,6 +424,7 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
                         log.error("invoker async multicast correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> " + e.getLocalizedMessage(), e);
                     }
                 }
+                request.release();
             }
             long endMillis = System.currentTimeMillis();
             log.info("invoker async multicast correlationId<{}>, serviceId<{}>, used {}(ms) success.", new Object[] {command.getId(), command.commandSignature(), (endMillis - startMillis)});
@@ -280,6 +449,9 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         } catch (Throwable e) {
             log.error("shutdown LnkEndpoint Error.", e);
         }
+        if (this.cacheInvalidatorRegistered.compareAndSet(true, false)) {
+            this.unregistry(CacheInvalidator.class.getName(), ServiceVersion.DEFAULT_VERSION, Protocols.DEFAULT_PROTOCOL);
+        }
         if (this.remotingClient != null) {
             this.remotingClient.shutdown();
             this.remotingClient = null;
@@ -288,6 +460,23 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
             remotingServer.shutdown();
             remotingServer = null;
         }
+        for (LocalCache<CacheKey, ProtocolObject> methodCache : this.responseCache.getMethodCaches()) {
+            log.info("response cache : {}", methodCache);
+        }
+        if (this.nearCache != null) {
+            for (LocalCache<CacheKey, ProtocolObject> methodCache : this.nearCache.getMethodCaches()) {
+                log.info("near cache : {}", methodCache);
+            }
+        }
+        for (RateLimiter.Bucket bucket : this.rateLimiter.getBuckets()) {
+            log.info("rate limit : {}", bucket);
+        }
+        if (this.flowController != null) {
+            log.info("flow control : {}", this.flowController);
+        }
+        if (this.serverFlowController != null) {
+            log.info("server flow control : {}", this.serverFlowController);
+        }
         log.info("shutdown LnkEndpoint success.");
     }
 
@@ -320,12 +509,84 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
         this.flowController.release();
     }
 
+    private final void release(AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            this.release();
+        }
+    }
+
+    private RemotingCommand createRequest(InvokerCommand command, ProtocolFactory protocolFactory) throws LnkException {
+        command.setIp(serverAddress.getHost());
+        command.setApplication(application);
+        RemotingCommand request = new RemotingCommand();
+        request.setCode(command.getServiceGroup().hashCode());
+        request.setProtocol(command.getProtocol());
+        if (configuration.isInlineProtocolObjectEnable()) {
+            request.setInline();
+        }
+        if (configuration.isCompactInvokerCommandEnable()) {
+            try {
+                request.setBody(compactInvokerCommandCodec.encodeRequest(command, protocolFactory));
+            } catch (IOException e) {
+                throw new LnkException("encode compact correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> Error.", e);
+            }
+            request.setCompact();
+            return request;
+        }
+        commandBodyCodec.encode(request, command, protocolFactory);
+        return request;
+    }
+
+    private InvokerCommand decodeReply(InvokerCommand command, RemotingCommand response, ProtocolFactory protocolFactory) throws LnkException {
+        InvokerCommand reply = null;
+        try {
+            if (response.isCompact() == false) {
+                reply = commandBodyCodec.decode(response, InvokerCommand.class, protocolFactory);
+            } else {
+                reply = compactInvokerCommandCodec.decodeReply(command, response.getBody(), protocolFactory);
+            }
+        } catch (IOException e) {
+            throw new LnkException("decode compact correlationId<" + command.getId() + ">, serviceId<" + command.commandSignature() + "> Error.", e);
+        } finally {
+            if (reply == null) {
+                closeStream(response);
+            }
+        }
+        InputStream streamBody = response.getStreamBody();
+        if (streamBody != null) {
+            ProtocolObject retObject = reply.getRetObject();
+            if (retObject == null) {
+                retObject = new ProtocolObject();
+                retObject.setType(InputStream.class);
+                reply.setRetObject(retObject);
+            }
+            retObject.setValue(streamBody);// 分块到达的返回值直接作为内联值交给调用方读取
+        }
+        return reply;
+    }
+
+    private void closeStream(RemotingCommand response) {
+        InputStream streamBody = response.getStreamBody();
+        if (streamBody == null) {
+            return;
+        }
+        try {
+            streamBody.close();
+        } catch (Throwable e) {
+            log.warn("close stream Error.", e);
+        }
+    }
+
     protected final CommandProcessor createCommandProcessor() {
         DefaultCommandProcessor processor = new DefaultCommandProcessor();
         processor.setProtocolFactorySelector(protocolFactorySelector);
         processor.setServiceObjectFinder(serviceObjectFinder);
-        processor.setFlowController(flowController);
+        processor.setFlowController((serverFlowController == null) ? flowController : serverFlowController);
         processor.setObjectProtocolFactory(objectProtocolFactory);
+        processor.setCompactInvokerCommandCodec(compactInvokerCommandCodec);
+        processor.setCommandBodyCodec(commandBodyCodec);
+        processor.setResponseCache(responseCache);
+        processor.setRateLimiter(rateLimiter);
         return processor;
     }
     
@@ -356,11 +617,35 @@ public class DefaultLnkEndpoint implements LnkEndpoint {
     public void setFlowController(FlowController flowController) {
         this.flowController = flowController;
     }
+
+    public void setServerFlowController(FlowController serverFlowController) {
+        this.serverFlowController = serverFlowController;
+    }
     
     public void setServiceGroups(List<ServiceGroup> serviceGroups) {
         this.serviceGroups = serviceGroups;
     }
     
+    public void setCacheRules(List<CacheRule> cacheRules) {
+        this.cacheRules = cacheRules;
+    }
+    
+    public void setRateLimitRules(List<RateLimitRule> rateLimitRules) {
+        this.rateLimitRules = rateLimitRules;
+    }
+    
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+    
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+    
     public void setApplication(Application application) {
         this.application = application;
     }
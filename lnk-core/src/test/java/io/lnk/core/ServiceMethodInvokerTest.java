@@ -0,0 +1,108 @@
+package io.lnk.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import io.lnk.api.exception.AppBizException;
+import io.lnk.api.exception.NotFoundServiceException;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月23日 下午2:10:36
+ */
+public class ServiceMethodInvokerTest {
+
+    public static class SimpleService {
+        private int counter;
+
+        public String hello() {
+            return "hello";
+        }
+
+        public void incr() {
+            counter++;
+        }
+
+        public long add(int a, long b) {
+            return a + b;
+        }
+
+        public boolean not(boolean value) {
+            return !value;
+        }
+
+        public String echo(String message) {
+            return message;
+        }
+
+        public String fail(String message) throws AppBizException {
+            throw new AppBizException("biz-001", message);
+        }
+
+        public String illegal() {
+            throw new IllegalStateException("illegal");
+        }
+    }
+
+    @Test
+    public void testNoArgs() throws Throwable {
+        ServiceMethodInvokers invokers = this.newInvokers();
+        SimpleService service = new SimpleService();
+        assertEquals("hello", invokers.getServiceMethodInvoker(SimpleService.class, "hello", new Class<?>[0]).invoke(service, null));
+        assertEquals("hello", invokers.getServiceMethodInvoker(SimpleService.class, "hello", null).invoke(service, new Object[0]));
+        assertNull(invokers.getServiceMethodInvoker(SimpleService.class, "incr", null).invoke(service, null));
+        assertEquals(1, service.counter);
+    }
+
+    @Test
+    public void testPrimitiveArgs() throws Throwable {
+        ServiceMethodInvokers invokers = this.newInvokers();
+        SimpleService service = new SimpleService();
+        assertEquals(5L, invokers.getServiceMethodInvoker(SimpleService.class, "add", new Class<?>[] {int.class, long.class}).invoke(service, new Object[] {2, 3L}));
+        assertEquals(Boolean.FALSE, invokers.getServiceMethodInvoker(SimpleService.class, "not", new Class<?>[] {boolean.class}).invoke(service, new Object[] {true}));
+        assertNull(invokers.getServiceMethodInvoker(SimpleService.class, "echo", new Class<?>[] {String.class}).invoke(service, new Object[] {null}));
+    }
+
+    @Test
+    public void testThrowingMethods() throws Throwable {
+        ServiceMethodInvokers invokers = this.newInvokers();
+        SimpleService service = new SimpleService();
+        try {
+            invokers.getServiceMethodInvoker(SimpleService.class, "fail", new Class<?>[] {String.class}).invoke(service, new Object[] {"failed"});
+            fail();
+        } catch (AppBizException e) {
+            assertEquals("failed", e.getMessage());// 服务方法的异常原样抛出，不包装为InvocationTargetException
+        }
+        try {
+            invokers.getServiceMethodInvoker(SimpleService.class, "illegal", null).invoke(service, null);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("illegal", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvokerLookup() throws Throwable {
+        ServiceMethodInvokers invokers = this.newInvokers();
+        ServiceMethodInvoker invoker = invokers.getServiceMethodInvoker(SimpleService.class, "echo", new Class<?>[] {String.class});
+        assertSame(invoker, invokers.getServiceMethodInvoker(SimpleService.class, "echo", new Class<?>[] {String.class}));
+        assertEquals(SimpleService.class.getMethod("echo", String.class), invoker.getMethod());
+        try {
+            invokers.getServiceMethodInvoker(SimpleService.class, "echo", new Class<?>[] {Integer.class});
+            fail();
+        } catch (NotFoundServiceException e) {
+        }
+    }
+
+    private ServiceMethodInvokers newInvokers() {
+        ServiceMethodInvokers invokers = new ServiceMethodInvokers();
+        invokers.registry(SimpleService.class);
+        return invokers;
+    }
+}
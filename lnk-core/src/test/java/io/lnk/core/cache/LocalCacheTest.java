@@ -0,0 +1,131 @@
+package io.lnk.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import io.lnk.api.annotation.LnkCache;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 上午10:40:12
+ */
+public class LocalCacheTest {
+
+    private static LocalCache<String, String> newCache(String policy, int maxEntries, long maxBytes, long ttlMillis) {
+        CacheRule rule = new CacheRule();
+        rule.setServiceId("io.lnk.demo.DemoService");
+        rule.setMethod("hello");
+        rule.setPolicy(policy);
+        rule.setMaxEntries(maxEntries);
+        rule.setMaxBytes(maxBytes);
+        rule.setTtlMillis(ttlMillis);
+        return new LocalCache<String, String>("test", rule);
+    }
+
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        LocalCache<String, String> cache = newCache(LnkCache.LRU, 3, 1024, 60000L);
+        cache.put("a", "A", 1);
+        cache.put("b", "B", 1);
+        cache.put("c", "C", 1);
+        assertEquals("A", cache.get("a"));
+        cache.put("d", "D", 1);
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals("D", cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1L, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void testFifoEvictsEldestWrite() {
+        LocalCache<String, String> cache = newCache(LnkCache.FIFO, 3, 1024, 60000L);
+        cache.put("a", "A", 1);
+        cache.put("b", "B", 1);
+        cache.put("c", "C", 1);
+        assertEquals("A", cache.get("a"));
+        cache.put("d", "D", 1);
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+    }
+
+    @Test
+    public void testSlruPromotesOnSecondHit() {
+        LocalCache<String, String> cache = newCache(LnkCache.SLRU, 5, 1024, 60000L);
+        cache.put("hot1", "H1", 1);
+        cache.put("hot2", "H2", 1);
+        assertEquals("H1", cache.get("hot1"));// 晋升到保护段
+        assertEquals("H2", cache.get("hot2"));
+        for (int i = 0; i < 100; i++) {// 一次性的扫描只在试用段内互相淘汰
+            cache.put("scan" + i, "S" + i, 1);
+        }
+        assertEquals("H1", cache.get("hot1"));
+        assertEquals("H2", cache.get("hot2"));
+        assertNull(cache.get("scan0"));
+        assertEquals("S99", cache.get("scan99"));
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void testSlruDemotesWhenProtectedIsFull() {
+        LocalCache<String, String> cache = newCache(LnkCache.SLRU, 5, 1024, 60000L);// 保护段容量4
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, "V" + i, 1);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals("V" + i, cache.get("k" + i));
+        }
+        // k0最久未访问，被k4挤出保护段后回到试用段，随后的新条目先淘汰它
+        cache.put("n0", "N0", 1);
+        assertNull(cache.get("k0"));
+        for (int i = 1; i < 5; i++) {
+            assertEquals("V" + i, cache.get("k" + i));
+        }
+        assertEquals("N0", cache.get("n0"));
+    }
+
+    @Test
+    public void testMaxBytes() {
+        LocalCache<String, String> cache = newCache(LnkCache.LRU, 100, 10, 60000L);
+        cache.put("big", "BIG", 11);
+        assertNull(cache.get("big"));
+        cache.put("a", "A", 6);
+        cache.put("b", "B", 6);
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        assertEquals(6L, cache.bytes());
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        LocalCache<String, String> cache = newCache(LnkCache.LRU, 10, 1024, 20L);
+        cache.put("a", "A", 1);
+        assertEquals("A", cache.get("a"));
+        Thread.sleep(50L);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.bytes());
+    }
+
+    @Test
+    public void testPutAfterInvalidateIsDropped() {
+        LocalCache<String, String> cache = newCache(LnkCache.SLRU, 10, 1024, 60000L);
+        long generation = cache.generation();// 调用前取得
+        cache.clear();// 调用期间收到失效广播
+        cache.put("a", "STALE", 1, generation);
+        assertNull(cache.get("a"));
+        generation = cache.generation();
+        cache.invalidate("b");
+        cache.put("a", "STALE", 1, generation);
+        assertNull(cache.get("a"));
+        generation = cache.generation();
+        cache.put("a", "FRESH", 1, generation);
+        assertNotNull(cache.get("a"));
+    }
+}
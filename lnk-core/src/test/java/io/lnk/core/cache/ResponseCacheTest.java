@@ -0,0 +1,188 @@
+package io.lnk.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.Protocols;
+import io.lnk.api.annotation.LnkCache;
+import io.lnk.api.annotation.LnkMethod;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.core.ServiceMethodInvoker;
+import io.lnk.protocol.jackson.JacksonProtocolFactory;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 上午11:26:35
+ */
+public class ResponseCacheTest {
+    private static final String SERVICE_ID = "io.lnk.demo.DemoService";
+    private final ProtocolFactory protocolFactory = new JacksonProtocolFactory();
+
+    public interface DemoService {
+        @LnkMethod(cache = @LnkCache(ttlMillis = 60000L))
+        String hello(String name);
+
+        @LnkMethod(cache = @LnkCache(ttlMillis = 60000L))
+        void ping(String name);
+
+        String plain(String name);
+
+        @LnkMethod(cache = @LnkCache(ttlMillis = 60000L))
+        String overridden(String name);
+    }
+
+    private static ServiceMethodInvoker invoker(String method) throws Exception {
+        return new ServiceMethodInvoker(DemoService.class.getMethod(method, String.class));
+    }
+
+    private static CacheRule rule(String method, long ttlMillis) {
+        CacheRule rule = new CacheRule();
+        rule.setServiceId(SERVICE_ID);
+        rule.setMethod(method);
+        rule.setTtlMillis(ttlMillis);
+        return rule;
+    }
+
+    private InvokerCommand command(String method, Object arg) {
+        ProtocolObject protocolObject = new ProtocolObject();
+        protocolObject.setType(arg.getClass());
+        protocolObject.setData(this.protocolFactory.encode(arg));
+        InvokerCommand command = new InvokerCommand();
+        command.setServiceId(SERVICE_ID);
+        command.setVersion("1.0.0");
+        command.setProtocol(Protocols.DEFAULT_PROTOCOL);
+        command.setMethod(method);
+        command.setSignature(new Class<?>[] {String.class});
+        command.setArgs(new ProtocolObject[] {protocolObject});
+        return command;
+    }
+
+    private ProtocolObject retObject(String value) {
+        ProtocolObject retObject = new ProtocolObject();
+        retObject.setType(String.class);
+        retObject.setData(this.protocolFactory.encode(value));
+        return retObject;
+    }
+
+    private CacheKey put(ResponseCache responseCache, LocalCache<CacheKey, ProtocolObject> methodCache, InvokerCommand command, ProtocolObject retObject) throws Exception {
+        CacheKey cacheKey = CacheKey.valueOf(command, this.protocolFactory);
+        responseCache.put(methodCache, cacheKey, retObject, methodCache.generation());
+        return cacheKey;
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        ResponseCache responseCache = new ResponseCache(null);
+        ServiceMethodInvoker invoker = invoker("hello");
+        InvokerCommand command = this.command("hello", "刘飞");
+        LocalCache<CacheKey, ProtocolObject> methodCache = responseCache.getMethodCache(invoker, command);
+        assertNotNull(methodCache);
+        assertSame(methodCache, responseCache.getMethodCache(invoker, command));
+        CacheKey cacheKey = CacheKey.valueOf(command, this.protocolFactory);
+        assertNull(methodCache.get(cacheKey));
+        ProtocolObject retObject = this.retObject("hello 刘飞");
+        this.put(responseCache, methodCache, command, retObject);
+        assertSame(retObject, methodCache.get(CacheKey.valueOf(this.command("hello", "刘飞"), this.protocolFactory)));
+        assertEquals(1L, methodCache.getStats().getHitCount());
+        assertEquals(1L, methodCache.getStats().getMissCount());
+        this.put(responseCache, methodCache, this.command("hello", "nobody"), null);// 返回null也缓存
+        ProtocolObject nullRetObject = methodCache.get(CacheKey.valueOf(this.command("hello", "nobody"), this.protocolFactory));
+        assertNotNull(nullRetObject);
+        assertNull(nullRetObject.getType());
+    }
+
+    @Test
+    public void testTtlExpiry() throws Exception {
+        ResponseCache responseCache = new ResponseCache(Arrays.asList(rule("hello", 50L)));
+        InvokerCommand command = this.command("hello", "刘飞");
+        LocalCache<CacheKey, ProtocolObject> methodCache = responseCache.getMethodCache(invoker("hello"), command);
+        CacheKey cacheKey = this.put(responseCache, methodCache, command, this.retObject("hello 刘飞"));
+        assertNotNull(methodCache.get(cacheKey));
+        Thread.sleep(120L);
+        assertNull(methodCache.get(cacheKey));
+    }
+
+    @Test
+    public void testKeyedBySerializedArgs() throws Exception {
+        ResponseCache responseCache = new ResponseCache(null);
+        InvokerCommand command = this.command("hello", "a");
+        LocalCache<CacheKey, ProtocolObject> methodCache = responseCache.getMethodCache(invoker("hello"), command);
+        CacheKey a = this.put(responseCache, methodCache, command, this.retObject("A"));
+        CacheKey b = this.put(responseCache, methodCache, this.command("hello", "b"), this.retObject("B"));
+        assertNotEquals(a, b);
+        assertEquals(a, CacheKey.valueOf(this.command("hello", "a"), this.protocolFactory));
+        assertEquals("A", this.protocolFactory.decode(String.class, methodCache.get(a).getData()));
+        assertEquals("B", this.protocolFactory.decode(String.class, methodCache.get(b).getData()));
+        InvokerCommand inline = this.command("hello", "a");
+        ProtocolObject inlineArg = new ProtocolObject();
+        inlineArg.setType(String.class);
+        inlineArg.setValue("a");
+        inline.setArgs(new ProtocolObject[] {inlineArg});
+        assertEquals(a, CacheKey.valueOf(inline, this.protocolFactory));// 内联参数与已序列化参数得到相同的键
+        InvokerCommand otherVersion = this.command("hello", "a");
+        otherVersion.setVersion("2.0.0");
+        assertNotEquals(a, CacheKey.valueOf(otherVersion, this.protocolFactory));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ResponseCache responseCache = new ResponseCache(Arrays.asList(rule("plain", 60000L)));
+        InvokerCommand hello = this.command("hello", "刘飞");
+        InvokerCommand plain = this.command("plain", "刘飞");
+        LocalCache<CacheKey, ProtocolObject> helloCache = responseCache.getMethodCache(invoker("hello"), hello);
+        LocalCache<CacheKey, ProtocolObject> plainCache = responseCache.getMethodCache(invoker("plain"), plain);
+        CacheKey helloKey = this.put(responseCache, helloCache, hello, this.retObject("hello"));
+        CacheKey plainKey = this.put(responseCache, plainCache, plain, this.retObject("plain"));
+        responseCache.invalidate(SERVICE_ID, "hello");
+        assertNull(helloCache.get(helloKey));
+        assertNotNull(plainCache.get(plainKey));
+        long generation = helloCache.generation();
+        responseCache.invalidate(SERVICE_ID, null);
+        assertNull(plainCache.get(plainKey));
+        responseCache.put(helloCache, helloKey, this.retObject("stale"), generation);// 调用期间缓存被失效，不写入
+        assertNull(helloCache.get(helloKey));
+    }
+
+    @Test
+    public void testRules() throws Exception {
+        ResponseCache responseCache = new ResponseCache(null);
+        assertFalse(responseCache.hasCacheRules());
+        assertNull(responseCache.getMethodCache(invoker("plain"), this.command("plain", "刘飞")));
+        assertNull(responseCache.getMethodCache(invoker("ping"), this.command("ping", "刘飞")));// void方法不缓存
+        assertNotNull(responseCache.getMethodCache(invoker("hello"), this.command("hello", "刘飞")));
+        assertEquals(1, responseCache.getMethodCaches().size());
+        List<CacheRule> rules = new ArrayList<CacheRule>();
+        rules.add(rule("plain", 60000L));
+        rules.add(rule("overridden", 0L));// 配置的规则优先于方法上的声明
+        responseCache = new ResponseCache(rules);
+        assertTrue(responseCache.hasCacheRules());
+        final List<LocalCache<CacheKey, ProtocolObject>> created = new ArrayList<LocalCache<CacheKey, ProtocolObject>>();
+        responseCache.setMethodCacheListener(new MethodCacheListener() {
+            @Override
+            public void onCreated(LocalCache<CacheKey, ProtocolObject> methodCache) {
+                created.add(methodCache);
+            }
+        });
+        ServiceMethodInvoker plain = invoker("plain");
+        LocalCache<CacheKey, ProtocolObject> plainCache = responseCache.getMethodCache(plain, this.command("plain", "刘飞"));
+        assertNotNull(plainCache);
+        assertNull(responseCache.getMethodCache(invoker("overridden"), this.command("overridden", "刘飞")));
+        assertSame(plainCache, responseCache.getMethodCache(plain, this.command("plain", "刘飞")));
+        assertEquals(Arrays.asList(plainCache), created);
+    }
+}
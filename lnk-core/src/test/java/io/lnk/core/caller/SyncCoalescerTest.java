@@ -0,0 +1,239 @@
+package io.lnk.core.caller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.exception.LnkException;
+import io.lnk.api.exception.LnkTimeoutException;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.core.LnkEndpoint;
+import io.lnk.core.cache.CacheKey;
+import io.lnk.protocol.jackson.JacksonProtocolFactory;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月24日 下午3:05:47
+ */
+public class SyncCoalescerTest {
+    private static final Method METHOD = methodOf("toString");
+    private final ProtocolFactory protocolFactory = new JacksonProtocolFactory();
+    private final SyncCoalescer coalescer = new SyncCoalescer();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CacheKey cacheKey = new CacheKey(new byte[] {1, 2, 3});
+
+    private static abstract class SyncHandler {
+        abstract InvokerCommand sync(InvokerCommand command, long timeoutMillis) throws Exception;
+    }
+
+    private static Method methodOf(String name) {
+        try {
+            return Object.class.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LnkEndpoint endpoint(final SyncHandler handler) {
+        return (LnkEndpoint) Proxy.newProxyInstance(LnkEndpoint.class.getClassLoader(), new Class<?>[] {LnkEndpoint.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("sync".equals(method.getName())) {
+                    return handler.sync((InvokerCommand) args[0], (Long) args[1]);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static InvokerCommand command() {
+        InvokerCommand command = new InvokerCommand();
+        command.setId("coalesce-test");
+        command.setServiceId("io.lnk.demo.DemoService");
+        command.setMethod("list");
+        command.setSignature(new Class<?>[0]);
+        return command;
+    }
+
+    private static InvokerCommand inlineResponse(Object value) {
+        ProtocolObject retObject = new ProtocolObject();
+        retObject.setType(value.getClass());
+        retObject.setValue(value);
+        InvokerCommand response = new InvokerCommand();
+        response.setId("coalesce-test");
+        response.setRetObject(retObject);
+        return response;
+    }
+
+    private Future<InvokerCommand> submit(final LnkEndpoint endpoint, final long timeoutMillis) {
+        return this.executor.submit(new Callable<InvokerCommand>() {
+            @Override
+            public InvokerCommand call() throws Exception {
+                try {
+                    return coalescer.sync(METHOD, cacheKey, command(), timeoutMillis, endpoint, protocolFactory);
+                } catch (Exception e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        });
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (this.coalescer.getCoalescedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(count, this.coalescer.getCoalescedCount());
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testWaiterGetsValueSerializedBeforeLeaderReturns() throws Throwable {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invoked = new AtomicInteger(0);
+        LnkEndpoint endpoint = endpoint(new SyncHandler() {
+            @Override
+            InvokerCommand sync(InvokerCommand command, long timeoutMillis) throws Exception {
+                invoked.incrementAndGet();
+                release.await();
+                List<String> value = new ArrayList<String>();
+                value.add("a");
+                return inlineResponse(value);
+            }
+        });
+        Future<InvokerCommand> leader = this.submit(endpoint, 5000L);
+        while (invoked.get() == 0) {
+            Thread.sleep(5L);
+        }
+        Future<InvokerCommand> waiter = this.submit(endpoint, 5000L);
+        this.awaitCoalesced(1L);
+        release.countDown();
+
+        @SuppressWarnings("unchecked")
+        List<String> leaderValue = (List<String>) leader.get(5, TimeUnit.SECONDS).getRetObject().getValue();
+        leaderValue.add("mutated");// 调用方拿到返回值后立即修改
+        ProtocolObject shared = waiter.get(5, TimeUnit.SECONDS).getRetObject();
+        assertNotNull(shared.getData());
+        assertEquals("[\"a\"]", new String(shared.getData(), "UTF-8"));
+        assertEquals(1, invoked.get());
+    }
+
+    @Test
+    public void testWaiterOutlivesLeaderTimeout() throws Throwable {
+        final AtomicInteger invoked = new AtomicInteger(0);
+        LnkEndpoint endpoint = endpoint(new SyncHandler() {
+            @Override
+            InvokerCommand sync(InvokerCommand command, long timeoutMillis) throws Exception {
+                if (invoked.incrementAndGet() == 1) {
+                    Thread.sleep(timeoutMillis);
+                    throw new LnkTimeoutException("leader timeout " + timeoutMillis + "(ms).");
+                }
+                return inlineResponse("ok");
+            }
+        });
+        Future<InvokerCommand> leader = this.submit(endpoint, 200L);
+        while (invoked.get() == 0) {
+            Thread.sleep(5L);
+        }
+        Future<InvokerCommand> waiter = this.submit(endpoint, 5000L);
+        this.awaitCoalesced(1L);
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof LnkTimeoutException);
+        }
+        assertEquals("ok", waiter.get(5, TimeUnit.SECONDS).getRetObject().getValue());// 按自己的超时时间重新发起
+        assertEquals(2, invoked.get());
+    }
+
+    @Test
+    public void testWaiterTimesOutOnItsOwnTimeout() throws Throwable {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invoked = new AtomicInteger(0);
+        LnkEndpoint endpoint = endpoint(new SyncHandler() {
+            @Override
+            InvokerCommand sync(InvokerCommand command, long timeoutMillis) throws Exception {
+                invoked.incrementAndGet();
+                release.await();
+                return inlineResponse("ok");
+            }
+        });
+        Future<InvokerCommand> leader = this.submit(endpoint, 5000L);
+        while (invoked.get() == 0) {
+            Thread.sleep(5L);
+        }
+        Future<InvokerCommand> waiter = this.submit(endpoint, 100L);
+        try {
+            waiter.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof LnkTimeoutException);
+        }
+        release.countDown();
+        assertEquals("ok", leader.get(5, TimeUnit.SECONDS).getRetObject().getValue());
+        assertEquals(1, invoked.get());
+    }
+
+    @Test
+    public void testWaiterSharesLeaderFailure() throws Throwable {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invoked = new AtomicInteger(0);
+        final LnkException failure = new LnkException("remote failure");
+        LnkEndpoint endpoint = endpoint(new SyncHandler() {
+            @Override
+            InvokerCommand sync(InvokerCommand command, long timeoutMillis) throws Exception {
+                invoked.incrementAndGet();
+                release.await();
+                throw failure;
+            }
+        });
+        Future<InvokerCommand> leader = this.submit(endpoint, 5000L);
+        while (invoked.get() == 0) {
+            Thread.sleep(5L);
+        }
+        Future<InvokerCommand> waiter = this.submit(endpoint, 5000L);
+        this.awaitCoalesced(1L);
+        release.countDown();
+        for (Future<InvokerCommand> future : Arrays.asList(leader, waiter)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(1, invoked.get());
+    }
+}
@@ -0,0 +1,227 @@
+package io.lnk.core.lnk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.lnk.api.Address;
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.Protocols;
+import io.lnk.api.cluster.LoadBalance;
+import io.lnk.api.exception.LnkException;
+import io.lnk.api.exception.LnkRejectException;
+import io.lnk.api.flow.FlowController;
+import io.lnk.api.registry.Registry;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.jackson.JacksonProtocolFactory;
+import io.lnk.remoting.Configuration;
+import io.lnk.remoting.RemotingCallback;
+import io.lnk.remoting.RemotingClient;
+import io.lnk.remoting.ReplyFuture;
+import io.lnk.remoting.exception.RemotingSendRequestException;
+import io.lnk.remoting.protocol.CommandBodyCodec;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月26日 上午10:15:42
+ */
+public class DefaultLnkEndpointFutureTest {
+    private static final Address ADDR = new Address("10.0.0.1", 8000);
+    private final Configuration configuration = new Configuration();
+    private final CommandBodyCodec commandBodyCodec = new CommandBodyCodec(configuration);
+    private final CountingFlowController flowController = new CountingFlowController(1);
+    private final DefaultLnkEndpoint endpoint = new DefaultLnkEndpoint();
+
+    private static class CountingFlowController implements FlowController {
+        private final int limit;
+        private final AtomicInteger acquired = new AtomicInteger(0);
+        private final AtomicInteger released = new AtomicInteger(0);
+
+        CountingFlowController(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean tryAcquireFailure(long timeoutMillis) {
+            if (this.acquired.get() - this.released.get() >= this.limit) {
+                return true;
+            }
+            this.acquired.incrementAndGet();
+            return false;
+        }
+
+        @Override
+        public void release() {
+            this.released.incrementAndGet();
+        }
+    }
+
+    private static abstract class AsyncHandler {
+        abstract void invokeAsync(RemotingCommand request, RemotingCallback callback) throws Exception;
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = DefaultLnkEndpoint.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static InvokerCommand command() {
+        InvokerCommand command = new InvokerCommand();
+        command.setId("future-test");
+        command.setServiceId("io.lnk.demo.DemoService");
+        command.setServiceGroup("demo");
+        command.setVersion("1.0.0");
+        command.setMethod("hello");
+        command.setSignature(new Class<?>[0]);
+        command.setProtocol(Protocols.DEFAULT_PROTOCOL);
+        return command;
+    }
+
+    private RemotingClient remotingClient(final AsyncHandler handler) {
+        return (RemotingClient) Proxy.newProxyInstance(RemotingClient.class.getClassLoader(), new Class<?>[] {RemotingClient.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("invokeAsync".equals(method.getName())) {
+                    handler.invokeAsync((RemotingCommand) args[1], (RemotingCallback) args[3]);
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private RemotingCommand response(RemotingCommand request, Object value) {
+        ProtocolObject retObject = new ProtocolObject();
+        retObject.setType(value.getClass());
+        retObject.setValue(value);
+        InvokerCommand reply = command();
+        reply.setRetObject(retObject);
+        RemotingCommand response = RemotingCommand.replyCommand(request, request.getCode());
+        this.commandBodyCodec.encode(response, reply, new JacksonProtocolFactory());
+        return response;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.endpoint.setConfiguration(this.configuration);
+        this.endpoint.setProtocolFactorySelector(new DefaultProtocolFactorySelector());
+        this.endpoint.setFlowController(this.flowController);
+        this.endpoint.setRegistry((Registry) Proxy.newProxyInstance(Registry.class.getClassLoader(), new Class<?>[] {Registry.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("lookup".equals(method.getName())) {
+                    return new Address[] {ADDR};
+                }
+                return null;
+            }
+        }));
+        this.endpoint.setLoadBalance(new LoadBalance() {
+            @Override
+            public Address select(InvokerCommand command, Address[] candidates) {
+                return candidates[0];
+            }
+        });
+        setField(this.endpoint, "commandBodyCodec", this.commandBodyCodec);
+        setField(this.endpoint, "serverAddress", new Address("10.0.0.9", 9000));
+    }
+
+    @Test
+    public void testComplete() throws Throwable {
+        setField(this.endpoint, "remotingClient", this.remotingClient(new AsyncHandler() {
+            @Override
+            void invokeAsync(RemotingCommand request, RemotingCallback callback) throws Exception {
+                ReplyFuture replyFuture = new ReplyFuture(request.getOpaque(), 3000L);
+                replyFuture.setResponse(response(request, "world"));
+                callback.onComplete(replyFuture);
+            }
+        }));
+        CompletableFuture<InvokerCommand> future = this.endpoint.future(command(), 3000L);
+        assertEquals("world", future.get(5, TimeUnit.SECONDS).getRetObject().getValue());
+        assertEquals(1, this.flowController.acquired.get());
+        assertEquals(1, this.flowController.released.get());
+    }
+
+    @Test
+    public void testReleaseOnceWhenSendFailsAfterCallback() throws Throwable {
+        setField(this.endpoint, "remotingClient", this.remotingClient(new AsyncHandler() {
+            @Override
+            void invokeAsync(RemotingCommand request, RemotingCallback callback) throws Exception {
+                // 回调已注册，发送失败时先通知回调再抛出异常
+                ReplyFuture replyFuture = new ReplyFuture(request.getOpaque(), 3000L);
+                RemotingSendRequestException cause = new RemotingSendRequestException(ADDR.toString());
+                replyFuture.setCause(cause);
+                callback.onComplete(replyFuture);
+                throw cause;
+            }
+        }));
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<InvokerCommand> future = this.endpoint.future(command(), 3000L);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof LnkException);
+            }
+            assertEquals(this.flowController.acquired.get(), this.flowController.released.get());// 许可只归还一次
+        }
+        assertEquals(3, this.flowController.acquired.get());
+    }
+
+    @Test
+    public void testReleaseWhenSendFailsBeforeCallback() throws Throwable {
+        setField(this.endpoint, "remotingClient", this.remotingClient(new AsyncHandler() {
+            @Override
+            void invokeAsync(RemotingCommand request, RemotingCallback callback) throws Exception {
+                throw new RemotingSendRequestException(ADDR.toString());
+            }
+        }));
+        CompletableFuture<InvokerCommand> future = this.endpoint.future(command(), 3000L);
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1, this.flowController.acquired.get());
+        assertEquals(1, this.flowController.released.get());
+    }
+
+    @Test
+    public void testRejectWithoutPermit() throws Throwable {
+        final RemotingCallback[] pending = new RemotingCallback[1];
+        final RemotingCommand[] pendingRequest = new RemotingCommand[1];
+        setField(this.endpoint, "remotingClient", this.remotingClient(new AsyncHandler() {
+            @Override
+            void invokeAsync(RemotingCommand request, RemotingCallback callback) throws Exception {
+                pending[0] = callback;
+                pendingRequest[0] = request;
+            }
+        }));
+        CompletableFuture<InvokerCommand> first = this.endpoint.future(command(), 3000L);
+        CompletableFuture<InvokerCommand> rejected = this.endpoint.future(command(), 3000L);
+        try {
+            rejected.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof LnkRejectException);
+        }
+        ReplyFuture replyFuture = new ReplyFuture(pendingRequest[0].getOpaque(), 3000L);
+        replyFuture.setResponse(this.response(pendingRequest[0], "world"));
+        pending[0].onComplete(replyFuture);
+        assertEquals("world", first.get(5, TimeUnit.SECONDS).getRetObject().getValue());
+        assertEquals(1, this.flowController.acquired.get());
+        assertEquals(1, this.flowController.released.get());
+    }
+}
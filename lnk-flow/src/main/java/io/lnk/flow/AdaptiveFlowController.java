@@ -0,0 +1,158 @@
+package io.lnk.flow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.lnk.api.flow.FlowController;
+
+/**
+ * 按请求耗时自适应调整并发上限(gradient)：每个采样窗口取平均耗时作为短期耗时，长期耗时为短期耗时的慢速移动平均，
+ * 新上限 = 上限 * clamp(TOLERANCE * 长期耗时 / 短期耗时, 0.5, 1) + sqrt(上限)，再与旧上限平滑后限定在[minLimit, maxLimit]。
+ * 排队或下游变慢使短期耗时升高时上限收缩，耗时恢复后上限逐步放开；窗口内并发不到上限一半时不放大上限。
+ * 获取许可从不阻塞，超过上限立即拒绝，timeoutMillis被忽略。只用于服务端处理请求，调用方的请求不带耗时样本，不能共用同一个实例
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月22日 上午10:16:48
+ */
+public class AdaptiveFlowController implements FlowController {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveFlowController.class.getSimpleName());
+    public static final long DEFAULT_WINDOW_MILLIS = 100L;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double LONG_RTT_WINDOWS = 60D;
+    private static final double TOLERANCE = 1.5D;
+    private static final double SMOOTHING = 0.2D;
+    private final AtomicInteger inflight = new AtomicInteger(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong windowLatencyNanos = new AtomicLong(0);
+    private final AtomicInteger windowSamples = new AtomicInteger(0);
+    private final AtomicInteger windowMaxInflight = new AtomicInteger(0);
+    private final AtomicBoolean updating = new AtomicBoolean(false);
+    private long windowNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_WINDOW_MILLIS);
+    private volatile long windowEndNanos = System.nanoTime() + windowNanos;
+    private volatile int limit = 100;
+    private double estimatedLimit = 100D;
+    private double longRttNanos;
+    private double shortRttNanos;
+    private int minLimit = 10;
+    private int maxLimit = 3000;
+
+    @Override
+    public boolean tryAcquireFailure(long timeoutMillis) {
+        while (true) {
+            int current = this.inflight.get();
+            if (current >= this.limit) {
+                this.rejectedCount.incrementAndGet();
+                return true;
+            }
+            if (this.inflight.compareAndSet(current, current + 1)) {
+                int maxInflight;
+                while ((maxInflight = this.windowMaxInflight.get()) <= current && this.windowMaxInflight.compareAndSet(maxInflight, current + 1) == false) {
+                }
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void release() {
+        this.inflight.decrementAndGet();
+    }
+
+    @Override
+    public void release(long latencyNanos) {
+        this.inflight.decrementAndGet();
+        this.windowLatencyNanos.addAndGet(latencyNanos);
+        int samples = this.windowSamples.incrementAndGet();
+        long nowNanos = System.nanoTime();
+        if (samples < MIN_WINDOW_SAMPLES || nowNanos < this.windowEndNanos || this.updating.compareAndSet(false, true) == false) {
+            return;
+        }
+        try {
+            this.update(nowNanos);
+        } finally {
+            this.updating.set(false);
+        }
+    }
+
+    private void update(long nowNanos) {
+        int samples = this.windowSamples.getAndSet(0);
+        long latencyNanos = this.windowLatencyNanos.getAndSet(0);
+        int maxInflight = this.windowMaxInflight.getAndSet(this.inflight.get());
+        this.windowEndNanos = nowNanos + this.windowNanos;
+        if (samples <= 0) {
+            return;
+        }
+        this.shortRttNanos = (double) latencyNanos / samples;
+        if (this.longRttNanos <= 0D) {
+            this.longRttNanos = this.shortRttNanos;
+        } else {
+            this.longRttNanos += (this.shortRttNanos - this.longRttNanos) / LONG_RTT_WINDOWS;
+        }
+        if (this.longRttNanos > this.shortRttNanos * 2D) {
+            this.longRttNanos *= 0.95D;// 过载结束后长期耗时偏高，加快回落
+        }
+        if (maxInflight < this.estimatedLimit / 2D) {
+            return;
+        }
+        double gradient = Math.max(0.5D, Math.min(1D, TOLERANCE * this.longRttNanos / this.shortRttNanos));
+        double newLimit = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+        newLimit = this.estimatedLimit * (1D - SMOOTHING) + newLimit * SMOOTHING;
+        newLimit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+        if ((int) newLimit != this.limit) {
+            log.debug("flow control limit {} -> {}, shortRtt {}(us), longRtt {}(us)", new Object[] {this.limit, (int) newLimit, (long) (this.shortRttNanos / 1000D), (long) (this.longRttNanos / 1000D)});
+        }
+        this.estimatedLimit = newLimit;
+        this.limit = (int) newLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, windowMillis));
+        this.windowEndNanos = System.nanoTime() + this.windowNanos;
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 已获取许可尚未释放的请求数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 超过并发上限被拒绝的请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveFlowController[limit=" + getLimit() + ", inflight=" + getInflight() + ", rejected=" + getRejectedCount() + ", minLimit=" + minLimit + ", maxLimit=" + maxLimit + "]";
+    }
+}
@@ -0,0 +1,64 @@
+package io.lnk.flow;
+
+/**
+ * 服务端按serviceId、方法名、调用方应用配置的限流规则。method为空时作用于服务的全部方法；
+ * app为空时所有调用方共用一个令牌桶，为ANY_APP(*)时每个调用方应用各自一个令牌桶，否则只限制该调用方应用
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月22日 下午3:06:21
+ */
+public class RateLimitRule {
+    public static final String ANY_APP = "*";
+    private String serviceId;
+    private String method;
+    private String app;
+    private double permitsPerSecond;
+    private int burst;// 允许的突发请求数，不大于0时取一秒的许可数
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getApp() {
+        return app;
+    }
+
+    public void setApp(String app) {
+        this.app = app;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitRule [serviceId=" + serviceId + ", method=" + method + ", app=" + app + ", permitsPerSecond=" + permitsPerSecond + ", burst=" + burst + "]";
+    }
+}
@@ -0,0 +1,240 @@
+package io.lnk.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.app.Application;
+
+/**
+ * 按RateLimitRule限流，请求需要通过所有匹配规则的令牌桶。令牌桶按GCRA实现：每个桶只保存下一个请求的理论到达时间，
+ * 获取许可是对该时间的一次CAS，不加锁。前面的规则已放行而后面的规则拒绝时，前面桶里的令牌不归还。
+ * 按调用方应用拆分的规则最多创建MAX_APP_BUCKETS个令牌桶，之后出现的调用方应用共用一个溢出桶
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月22日 下午3:12:47
+ */
+public class RateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class.getSimpleName());
+    public static final int MAX_APP_BUCKETS = 1024;
+    public static final String OVERFLOW_APP = "*overflow";
+    private final Map<String, List<Limit>> limits = new HashMap<String, List<Limit>>();
+    private final List<Limit> allLimits = new ArrayList<Limit>();
+    private final Set<Integer> limitedCommandCodes = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private volatile boolean anyCommandCode = false;
+
+    public RateLimiter(List<RateLimitRule> rules) {
+        if (rules == null) {
+            return;
+        }
+        for (RateLimitRule rule : rules) {
+            if (StringUtils.isBlank(rule.getServiceId()) || rule.getPermitsPerSecond() <= 0D) {
+                log.warn("ignore rate limit rule : {}", rule);
+                continue;
+            }
+            List<Limit> serviceLimits = this.limits.get(rule.getServiceId());
+            if (serviceLimits == null) {
+                serviceLimits = new ArrayList<Limit>();
+                this.limits.put(rule.getServiceId(), serviceLimits);
+            }
+            Limit limit = new Limit(rule);
+            serviceLimits.add(limit);
+            this.allLimits.add(limit);
+            log.info("rate limit rule : {}", rule);
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.allLimits.isEmpty();
+    }
+
+    /**
+     * 服务端注册服务时登记服务所在的服务组，请求的command code即服务组的hashCode。
+     * serviceGroup为空(无法确定服务组)时所有command code都视为可能需要限流
+     */
+    public void registry(String serviceId, String serviceGroup) {
+        if (this.limits.containsKey(serviceId) == false) {
+            return;
+        }
+        if (serviceGroup == null) {
+            log.warn("rate limit serviceId : {} without serviceGroup, check every request.", serviceId);
+            this.anyCommandCode = true;
+            return;
+        }
+        this.limitedCommandCodes.add(serviceGroup.hashCode());
+    }
+
+    /**
+     * @return 该服务组中是否有配置了限流规则的服务，为false时无需解码请求
+     */
+    public boolean matches(int commandCode) {
+        return this.anyCommandCode || this.limitedCommandCodes.contains(commandCode);
+    }
+
+    /**
+     * @return 是否有规则作用于该方法，为false时无需解码请求
+     */
+    public boolean matches(String serviceId, String method) {
+        List<Limit> serviceLimits = this.limits.get(serviceId);
+        if (serviceLimits == null) {
+            return false;
+        }
+        for (Limit limit : serviceLimits) {
+            if (limit.method == null || limit.method.equals(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean tryAcquireFailure(InvokerCommand command) {
+        List<Limit> serviceLimits = this.limits.get(command.getServiceId());
+        if (serviceLimits == null) {
+            return false;
+        }
+        Application application = command.getApplication();
+        String app = StringUtils.defaultString((application == null) ? null : application.getApp());
+        long nowNanos = System.nanoTime();
+        for (Limit limit : serviceLimits) {
+            Bucket bucket = limit.select(command.getMethod(), app, nowNanos);
+            if (bucket != null && bucket.tryAcquire(nowNanos) == false) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已创建的令牌桶及其计数，按调用方应用拆分的规则每个调用方应用一个
+     */
+    public List<Bucket> getBuckets() {
+        List<Bucket> buckets = new ArrayList<Bucket>();
+        for (Limit limit : this.allLimits) {
+            if (limit.bucket != null) {
+                buckets.add(limit.bucket);
+            } else {
+                buckets.addAll(limit.appBuckets.values());
+                buckets.add(limit.overflowBucket);
+            }
+        }
+        return Collections.unmodifiableList(buckets);
+    }
+
+    private static final class Limit {
+        private final RateLimitRule rule;
+        private final String method;
+        private final String app;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Bucket bucket;// 所有调用方共用或只限制指定调用方时的令牌桶
+        private final ConcurrentHashMap<String, Bucket> appBuckets;// 每个调用方应用各自的令牌桶
+        private final Bucket overflowBucket;// 调用方应用超过MAX_APP_BUCKETS后共用的令牌桶
+
+        Limit(RateLimitRule rule) {
+            this.rule = rule;
+            this.method = StringUtils.trimToNull(rule.getMethod());
+            this.app = StringUtils.trimToNull(rule.getApp());
+            this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / rule.getPermitsPerSecond()));
+            int burst = (rule.getBurst() > 0) ? rule.getBurst() : (int) Math.max(1D, Math.ceil(rule.getPermitsPerSecond()));
+            this.toleranceNanos = this.intervalNanos * burst;
+            boolean perApp = StringUtils.equals(this.app, RateLimitRule.ANY_APP);
+            this.bucket = perApp ? null : new Bucket(this.keyOf(this.app), this.intervalNanos, this.toleranceNanos, System.nanoTime());
+            this.appBuckets = perApp ? new ConcurrentHashMap<String, Bucket>() : null;
+            this.overflowBucket = perApp ? new Bucket(this.keyOf(OVERFLOW_APP), this.intervalNanos, this.toleranceNanos, System.nanoTime()) : null;
+        }
+
+        Bucket select(String method, String app, long nowNanos) {
+            if (this.method != null && this.method.equals(method) == false) {
+                return null;
+            }
+            if (this.appBuckets == null) {
+                return (this.app == null || this.app.equals(app)) ? this.bucket : null;
+            }
+            Bucket appBucket = this.appBuckets.get(app);
+            if (appBucket == null) {
+                if (this.appBuckets.size() >= MAX_APP_BUCKETS) {
+                    return this.overflowBucket;
+                }
+                appBucket = new Bucket(this.keyOf(app), this.intervalNanos, this.toleranceNanos, nowNanos);
+                Bucket prev = this.appBuckets.putIfAbsent(app, appBucket);
+                appBucket = (prev == null) ? appBucket : prev;
+            }
+            return appBucket;
+        }
+
+        private String keyOf(String app) {
+            StringBuilder key = new StringBuilder(this.rule.getServiceId());
+            if (this.method != null) {
+                key.append(".").append(this.method);
+            }
+            if (app != null) {
+                key.append("@").append(app);
+            }
+            return key.toString();
+        }
+    }
+
+    public static final class Bucket {
+        private final String key;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrivalNanos;
+        private final AtomicLong passedCount = new AtomicLong(0);
+        private final AtomicLong rejectedCount = new AtomicLong(0);
+
+        Bucket(String key, long intervalNanos, long toleranceNanos, long nowNanos) {
+            this.key = key;
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = toleranceNanos;
+            this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+        }
+
+        /**
+         * 理论到达时间早于当前时间时从当前时间算起，每放行一个请求推后intervalNanos，超出当前时间toleranceNanos即拒绝
+         */
+        boolean tryAcquire(long nowNanos) {
+            while (true) {
+                long arrivalNanos = this.theoreticalArrivalNanos.get();
+                long nextArrivalNanos = ((arrivalNanos - nowNanos > 0L) ? arrivalNanos : nowNanos) + this.intervalNanos;
+                if (nextArrivalNanos - nowNanos > this.toleranceNanos) {
+                    this.rejectedCount.incrementAndGet();
+                    return false;
+                }
+                if (this.theoreticalArrivalNanos.compareAndSet(arrivalNanos, nextArrivalNanos)) {
+                    this.passedCount.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getPassedCount() {
+            return passedCount.get();
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount.get();
+        }
+
+        @Override
+        public String toString() {
+            return "RateLimit[" + key + ", passed=" + getPassedCount() + ", rejected=" + getRejectedCount() + "]";
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.lnk.flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月25日 上午9:36:24
+ */
+public class AdaptiveFlowControllerTest {
+
+    private static AdaptiveFlowController newFlowController(int initialLimit) {
+        AdaptiveFlowController flowController = new AdaptiveFlowController();
+        flowController.setInitialLimit(initialLimit);
+        flowController.setMinLimit(10);
+        flowController.setMaxLimit(1000);
+        flowController.setWindowMillis(1L);
+        return flowController;
+    }
+
+    /**
+     * 占满当前上限，等待采样窗口结束后以同样的耗时全部释放
+     */
+    private static void fullWindow(AdaptiveFlowController flowController, long latencyMillis) throws InterruptedException {
+        int acquired = 0;
+        while (flowController.tryAcquireFailure(0L) == false) {
+            acquired++;
+        }
+        Thread.sleep(2L);
+        for (int i = 0; i < acquired; i++) {
+            flowController.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+
+    @Test
+    public void testGrowWhileLatencyIsStable() throws Exception {
+        AdaptiveFlowController flowController = newFlowController(50);
+        for (int i = 0; i < 20; i++) {
+            fullWindow(flowController, 1L);
+        }
+        assertTrue("limit " + flowController.getLimit(), flowController.getLimit() > 50);
+        assertEquals(0, flowController.getInflight());
+    }
+
+    @Test
+    public void testShrinkWhenLatencyRises() throws Exception {
+        AdaptiveFlowController flowController = newFlowController(200);
+        for (int i = 0; i < 5; i++) {
+            fullWindow(flowController, 1L);
+        }
+        int stableLimit = flowController.getLimit();
+        for (int i = 0; i < 20; i++) {
+            fullWindow(flowController, 10L);// 排队使耗时升高到长期耗时的10倍
+        }
+        assertTrue("limit " + flowController.getLimit() + ", stable " + stableLimit, flowController.getLimit() < stableLimit / 2);
+        assertTrue(flowController.getLimit() >= 10);
+    }
+
+    @Test
+    public void testNotGrowWhenUnderused() throws Exception {
+        AdaptiveFlowController flowController = newFlowController(100);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 20; i++) {// 并发始终只有1，远低于上限的一半
+                assertFalse(flowController.tryAcquireFailure(0L));
+                flowController.release(TimeUnit.MILLISECONDS.toNanos(1L));
+            }
+            Thread.sleep(2L);
+        }
+        assertEquals(100, flowController.getLimit());
+    }
+
+    @Test
+    public void testRejectImmediately() {
+        AdaptiveFlowController flowController = newFlowController(10);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(flowController.tryAcquireFailure(3000L));
+        }
+        long startMillis = System.currentTimeMillis();
+        assertTrue(flowController.tryAcquireFailure(3000L));
+        assertTrue(System.currentTimeMillis() - startMillis < 1000L);// 不按timeoutMillis等待
+        assertEquals(1L, flowController.getRejectedCount());
+        flowController.release();
+        assertFalse(flowController.tryAcquireFailure(0L));
+        assertEquals(10, flowController.getInflight());
+    }
+}
@@ -0,0 +1,120 @@
+package io.lnk.flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.app.Application;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月25日 上午11:02:51
+ */
+public class RateLimiterTest {
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);// 每秒10个许可
+
+    private static int acquire(RateLimiter.Bucket bucket, long nowNanos, int times) {
+        int passed = 0;
+        for (int i = 0; i < times; i++) {
+            if (bucket.tryAcquire(nowNanos)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private static RateLimitRule rule(String method, String app, double permitsPerSecond, int burst) {
+        RateLimitRule rule = new RateLimitRule();
+        rule.setServiceId("io.lnk.demo.DemoService");
+        rule.setMethod(method);
+        rule.setApp(app);
+        rule.setPermitsPerSecond(permitsPerSecond);
+        rule.setBurst(burst);
+        return rule;
+    }
+
+    private static InvokerCommand command(String method, String app) {
+        InvokerCommand command = new InvokerCommand();
+        command.setServiceId("io.lnk.demo.DemoService");
+        command.setMethod(method);
+        if (app != null) {
+            Application application = new Application();
+            application.setApp(app);
+            command.setApplication(application);
+        }
+        return command;
+    }
+
+    @Test
+    public void testBurst() {
+        long nowNanos = 0L;
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("burst", INTERVAL_NANOS, INTERVAL_NANOS * 5, nowNanos);
+        assertEquals(5, acquire(bucket, nowNanos, 100));// 空闲的桶允许burst个突发请求
+        assertEquals(5L, bucket.getPassedCount());
+        assertEquals(95L, bucket.getRejectedCount());
+    }
+
+    @Test
+    public void testRefill() {
+        long nowNanos = 0L;
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("refill", INTERVAL_NANOS, INTERVAL_NANOS * 5, nowNanos);
+        assertEquals(5, acquire(bucket, nowNanos, 10));
+        assertEquals(0, acquire(bucket, nowNanos + INTERVAL_NANOS - 1, 10));
+        assertEquals(1, acquire(bucket, nowNanos + INTERVAL_NANOS, 10));// 每过一个间隔恢复一个许可
+        assertEquals(2, acquire(bucket, nowNanos + INTERVAL_NANOS * 3, 10));
+        assertEquals(5, acquire(bucket, nowNanos + TimeUnit.SECONDS.toNanos(60L), 10));// 长时间空闲后也只恢复到burst
+    }
+
+    @Test
+    public void testSteadyRate() {
+        long nowNanos = 0L;
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("steady", INTERVAL_NANOS, INTERVAL_NANOS, nowNanos);
+        int passed = 0;
+        for (long t = 0L; t < TimeUnit.SECONDS.toNanos(10L); t += TimeUnit.MILLISECONDS.toNanos(10L)) {
+            passed += acquire(bucket, nowNanos + t, 1);
+        }
+        assertEquals(100, passed);// 10秒按每秒10个放行
+    }
+
+    @Test
+    public void testRuleMatching() {
+        RateLimiter rateLimiter = new RateLimiter(Arrays.asList(rule("hello", null, 1D, 1)));
+        assertTrue(rateLimiter.matches("io.lnk.demo.DemoService", "hello"));
+        assertFalse(rateLimiter.matches("io.lnk.demo.DemoService", "echo"));
+        assertFalse(rateLimiter.matches("io.lnk.demo.OtherService", "hello"));
+        assertFalse(rateLimiter.tryAcquireFailure(command("hello", "app1")));
+        assertTrue(rateLimiter.tryAcquireFailure(command("hello", "app2")));// 所有调用方共用一个桶
+        assertFalse(rateLimiter.tryAcquireFailure(command("echo", "app1")));
+    }
+
+    @Test
+    public void testServiceGroupMatching() {
+        RateLimiter rateLimiter = new RateLimiter(Arrays.asList(rule(null, null, 1D, 1)));
+        rateLimiter.registry("io.lnk.demo.OtherService", "other");
+        rateLimiter.registry("io.lnk.demo.DemoService", "demo");
+        assertTrue(rateLimiter.matches("demo".hashCode()));
+        assertFalse(rateLimiter.matches("other".hashCode()));
+        rateLimiter.registry("io.lnk.demo.DemoService", null);
+        assertTrue(rateLimiter.matches("other".hashCode()));
+    }
+
+    @Test
+    public void testAppBucketsBounded() {
+        RateLimiter rateLimiter = new RateLimiter(Arrays.asList(rule(null, RateLimitRule.ANY_APP, 1D, 1)));
+        for (int i = 0; i < RateLimiter.MAX_APP_BUCKETS; i++) {
+            assertFalse(rateLimiter.tryAcquireFailure(command("hello", "app" + i)));
+        }
+        assertTrue(rateLimiter.tryAcquireFailure(command("hello", "app0")));// 每个调用方应用各自一个桶
+        assertFalse(rateLimiter.tryAcquireFailure(command("hello", "overflow-1")));
+        assertTrue(rateLimiter.tryAcquireFailure(command("hello", "overflow-2")));// 超出上限的调用方共用溢出桶
+        assertEquals(RateLimiter.MAX_APP_BUCKETS + 1, rateLimiter.getBuckets().size());
+    }
+}
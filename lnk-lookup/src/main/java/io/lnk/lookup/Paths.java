@@ -1,5 +1,10 @@
 package io.lnk.lookup;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import io.lnk.api.Address;
+
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
  *
@@ -12,6 +17,7 @@ public final class Paths {
     public static final class Registry {
         public static final String ROOT_REGISTRY = ROOT + "registry";
         public static final String PROVIDERS = "providers";
+        public static final String WEIGHT_PREFIX = "?weight=";
         public static String createPath(String serviceId) {
             return new StringBuilder(ROOT_REGISTRY).append(PATH_SEPARATOR).append(serviceId).toString();
         }
@@ -21,6 +27,22 @@ public final class Paths {
         public static String createPath(String serviceId, String version, int protocol) {
             return new StringBuilder(ROOT_REGISTRY).append(PATH_SEPARATOR).append(serviceId).append(PATH_SEPARATOR).append(version).append(PATH_SEPARATOR).append(protocol).append(PATH_SEPARATOR).append(PROVIDERS).toString();
         }
+        /**
+         * 服务提供方节点的数据，格式为 host:port?weight=100
+         */
+        public static String createData(String server, int weight) {
+            return new StringBuilder(server).append(WEIGHT_PREFIX).append(weight).toString();
+        }
+        /**
+         * 没有发布权重(旧版本服务提供方只写入host:port)或无法解析时返回默认权重
+         */
+        public static int parseWeight(String data) {
+            int index = StringUtils.indexOf(data, WEIGHT_PREFIX);
+            if (index < 0) {
+                return Address.DEFAULT_WEIGHT;
+            }
+            return NumberUtils.toInt(StringUtils.substring(data, index + WEIGHT_PREFIX.length()), Address.DEFAULT_WEIGHT);
+        }
     }
     public static final class Manangement {
         public static final String ROOT_MANANGEMENT = ROOT + "manangement";
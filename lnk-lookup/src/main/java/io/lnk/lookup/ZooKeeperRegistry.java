@@ -1,6 +1,7 @@
 package io.lnk.lookup;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
@@ -34,9 +35,11 @@ public class ZooKeeperRegistry implements Registry {
     private static final Logger log = LoggerFactory.getLogger(ZooKeeperRegistry.class.getSimpleName());
     private final Set<NotifyMessage> notifyMessages = new HashSet<NotifyMessage>();
     private final ConcurrentHashMap<String, Set<String>> registryServices;
+    private final ConcurrentHashMap<String, Integer> weights = new ConcurrentHashMap<String, Integer>();
     private final ReentrantLock lock = new ReentrantLock();
     private final ScheduledThreadPoolExecutor recoveryExecutor;
     private ZooKeeperService zooKeeperService;
+    private int weight = Address.DEFAULT_WEIGHT;
     
     public class RegistryNotifyHandler implements NotifyHandler {
         public boolean receiveChildNotify() {
@@ -53,6 +56,7 @@ public class ZooKeeperRegistry implements Registry {
             if (serverList == null || serverList.isEmpty()) {
                 return;
             }
+            loadWeights(path, serverList);
             registryServices.put(path, new TreeSet<String>(serverList));
         }
     }
@@ -81,7 +85,10 @@ public class ZooKeeperRegistry implements Registry {
             Set<String> serverList = this.getServerList(path);
             if (serverList != null && !serverList.isEmpty()) {
                 for (String server : serverList) {
-                    addrList.add(new Address(server));
+                    Address addr = new Address(server);
+                    Integer weight = this.weights.get(path + Paths.PATH_SEPARATOR + server);
+                    addr.setWeight((weight == null) ? Address.DEFAULT_WEIGHT : weight);
+                    addrList.add(addr);
                 }
             }
         } catch (Throwable e) {
@@ -108,8 +115,9 @@ public class ZooKeeperRegistry implements Registry {
             serverList.add(server);
             this.registryServices.put(path, serverList);
             path += ("/" + server);
+            this.weights.put(path, this.weight);
             message.setPath(path);
-            message.setData(server);
+            message.setData(Paths.Registry.createData(server, this.weight));
             message.setMessageMode(MessageMode.EPHEMERAL);
             this.notifyMessages.add(message);
             this.zooKeeperService.push(message);
@@ -157,6 +165,7 @@ public class ZooKeeperRegistry implements Registry {
                         serverList = new TreeSet<String>();
                     }
                     serverList.addAll(onlineServers);
+                    this.loadWeights(path, onlineServers);
                     this.registryServices.put(path, serverList);
                 }
             } catch (Exception e) {
@@ -168,6 +177,32 @@ public class ZooKeeperRegistry implements Registry {
         return serverList;
     }
 
+    /**
+     * 服务提供方列表加载或变化时读取各节点发布的权重，并清除已下线节点的权重
+     */
+    private void loadWeights(String path, List<String> serverList) {
+        String prefix = path + Paths.PATH_SEPARATOR;
+        Set<String> serverPaths = new HashSet<String>();
+        for (String server : serverList) {
+            serverPaths.add(prefix + server);
+        }
+        Iterator<String> iterator = this.weights.keySet().iterator();
+        while (iterator.hasNext()) {
+            String serverPath = iterator.next();
+            if (serverPath.startsWith(prefix) && serverPaths.contains(serverPath) == false) {
+                iterator.remove();
+            }
+        }
+        for (String server : serverList) {
+            String serverPath = path + Paths.PATH_SEPARATOR + server;
+            try {
+                this.weights.put(serverPath, Paths.Registry.parseWeight(this.zooKeeperService.pull(serverPath)));
+            } catch (Throwable e) {
+                log.warn("load weight path : " + serverPath + " Error.", e);
+            }
+        }
+    }
+
     private void registerHandler(String serviceId, String version, int protocol, Address addr) {
         String path = null;
         try {
@@ -188,4 +223,11 @@ public class ZooKeeperRegistry implements Registry {
     public void setZooKeeperService(ZooKeeperService zooKeeperService) {
         this.zooKeeperService = zooKeeperService;
     }
+
+    /**
+     * 本应用注册的服务提供方节点发布的权重，默认100
+     */
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
 }
@@ -11,6 +11,7 @@ import io.lnk.api.protocol.ProtocolFactory;
 import io.lnk.api.protocol.ProtocolFactorySelector;
 import io.lnk.protocol.hessian.HessianProtocolFactory;
 import io.lnk.protocol.jackson.JacksonProtocolFactory;
+import io.lnk.protocol.jackson.JacksonSmileProtocolFactory;
 import io.lnk.protocol.java.JavaNativeProtocolFactory;
 
 /**
@@ -28,6 +29,7 @@ public class DefaultProtocolFactorySelector implements ProtocolFactorySelector {
         this.registry(new JacksonProtocolFactory());
         this.registry(new JavaNativeProtocolFactory());
         this.registry(new HessianProtocolFactory());
+        this.registry(new JacksonSmileProtocolFactory());
     }
 
     @Override
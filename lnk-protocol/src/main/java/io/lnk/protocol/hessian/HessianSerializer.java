@@ -2,13 +2,15 @@ package io.lnk.protocol.hessian;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.codec.binary.Base64;
 
 import com.caucho.hessian.io.Hessian2Input;
 import com.caucho.hessian.io.Hessian2Output;
 
-import io.lnk.api.protocol.Serializer;
+import io.lnk.api.protocol.StreamingSerializer;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -17,16 +19,21 @@ import io.lnk.api.protocol.Serializer;
  * @since 2017年6月3日 上午11:54:19
  */
 @SuppressWarnings("unchecked")
-public class HessianSerializer implements Serializer {
+public class HessianSerializer implements StreamingSerializer {
 
     @Override
     public byte[] serializeAsBytes(Object bean) {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        this.serialize(bean, bout);
+        return bout.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object bean, OutputStream out) {
         try {
-            ByteArrayOutputStream bout = new ByteArrayOutputStream();
-            Hessian2Output hessian2Output = new Hessian2Output(bout);
+            Hessian2Output hessian2Output = new Hessian2Output(out);
             hessian2Output.writeObject(bean);
-            hessian2Output.close();
-            return bout.toByteArray();
+            hessian2Output.close();// 只刷出缓冲，不关闭out
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
@@ -34,9 +41,13 @@ public class HessianSerializer implements Serializer {
 
     @Override
     public <T> T deserialize(Class<T> clazz, byte[] serializeBytes) {
+        return this.deserialize(clazz, new ByteArrayInputStream(serializeBytes));
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> clazz, InputStream in) {
         try {
-            ByteArrayInputStream bin = new ByteArrayInputStream(serializeBytes);
-            Hessian2Input hessian2Input = new Hessian2Input(bin);
+            Hessian2Input hessian2Input = new Hessian2Input(in);
             return (T) hessian2Input.readObject();
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
@@ -0,0 +1,327 @@
+package io.lnk.protocol.invoker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.app.Application;
+import io.lnk.api.exception.NotFoundServiceException;
+import io.lnk.api.exception.ex.SimpleLnkException;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.api.protocol.ProtocolFactorySelector;
+
+/**
+ * InvokerCommand的紧凑二进制信封格式，serviceId/method/signature以稳定的64位方法ID代替，
+ * 只有参数与返回值经过ProtocolFactory序列化
+ * 
+ * <pre>
+ * request : version(1) methodId(8) id ip app appType serviceVersion serviceGroup protocol(4) argc(2) [type length(4) data]...
+ * reply   : version(1) id flag(1) [type length(4) data] | [length(4) exception]
+ * inline  : type -2(4) remote(1) length(4) value
+ * </pre>
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月9日 上午10:14:02
+ */
+public class CompactInvokerCommandCodec {
+    private static final Logger log = LoggerFactory.getLogger(CompactInvokerCommandCodec.class.getSimpleName());
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte REPLY_VOID = 0;
+    private static final byte REPLY_RET_OBJECT = 1;
+    private static final byte REPLY_EXCEPTION = 2;
+    private static final int NULL_DATA = -1;
+    private static final int INLINE_VALUE = -2;
+    private final ConcurrentHashMap<Long, MethodDescriptor> methods = new ConcurrentHashMap<Long, MethodDescriptor>(256);
+    private final ConcurrentHashMap<String, Class<?>> types = new ConcurrentHashMap<String, Class<?>>(256);
+
+    public static long methodId(String serviceId, String method, Class<?>[] signature) {
+        StringBuilder sb = new StringBuilder(serviceId).append(".").append(method).append("(");
+        if (signature != null) {
+            for (int i = 0; i < signature.length; i++) {
+                if (i > 0) {
+                    sb.append(",");
+                }
+                sb.append(signature[i].getName());
+            }
+        }
+        sb.append(")");
+        return Hashing.murmur3_128().hashString(sb, Charsets.UTF_8).asLong();
+    }
+
+    /**
+     * 服务端注册时登记服务对象的全部公共方法，方法ID由(serviceId, 方法名, 方法签名)计算，两端无需协商
+     */
+    public void registry(String serviceId, Class<?> serviceClass) {
+        for (Method method : serviceClass.getMethods()) {
+            if (method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            long methodId = methodId(serviceId, method.getName(), method.getParameterTypes());
+            MethodDescriptor descriptor = new MethodDescriptor(serviceId, method.getName(), method.getParameterTypes());
+            MethodDescriptor prev = this.methods.putIfAbsent(methodId, descriptor);
+            if (prev != null && !prev.equals(descriptor)) {
+                log.warn("methodId {} conflict between {} and {}", new Object[] {methodId, prev, descriptor});
+            }
+        }
+    }
+
+    public byte[] encodeRequest(InvokerCommand command, ProtocolFactory protocolFactory) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(methodId(command.getServiceId(), command.getMethod(), command.getSignature()));
+        writeString(out, command.getId());
+        writeString(out, command.getIp());
+        Application application = command.getApplication();
+        writeString(out, (application == null) ? null : application.getApp());
+        writeString(out, (application == null) ? null : application.getType());
+        writeString(out, command.getVersion());
+        writeString(out, command.getServiceGroup());
+        out.writeInt(command.getProtocol());
+        ProtocolObject[] args = command.getArgs();
+        if (args == null) {
+            out.writeShort(-1);
+        } else {
+            out.writeShort(args.length);
+            for (ProtocolObject arg : args) {
+                writeProtocolObject(out, arg, protocolFactory);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 只读取请求的方法ID，不解码参数，用于在IO线程上判断是否需要完整解码。方法ID未登记或格式不符时返回null
+     */
+    public MethodDescriptor peekMethod(byte[] body) {
+        if (body == null || body.length < 9 || body[0] != FORMAT_VERSION) {
+            return null;
+        }
+        long methodId = 0L;
+        for (int i = 1; i < 9; i++) {
+            methodId = (methodId << 8) | (body[i] & 0xFF);
+        }
+        return this.methods.get(methodId);
+    }
+
+    public InvokerCommand decodeRequest(byte[] body, ProtocolFactorySelector protocolFactorySelector) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        readFormatVersion(in);
+        long methodId = in.readLong();
+        MethodDescriptor descriptor = this.methods.get(methodId);
+        if (descriptor == null) {
+            throw new NotFoundServiceException("methodId:" + methodId);
+        }
+        InvokerCommand command = new InvokerCommand();
+        command.setServiceId(descriptor.serviceId);
+        command.setMethod(descriptor.method);
+        command.setSignature(descriptor.signature);
+        command.setId(readString(in));
+        command.setIp(readString(in));
+        String app = readString(in);
+        String appType = readString(in);
+        if (app != null || appType != null) {
+            Application application = new Application();
+            application.setApp(app);
+            application.setType(appType);
+            command.setApplication(application);
+        }
+        command.setVersion(readString(in));
+        command.setServiceGroup(readString(in));
+        command.setProtocol(in.readInt());
+        int argc = in.readShort();
+        if (argc >= 0) {
+            ProtocolFactory protocolFactory = protocolFactorySelector.select(command.getProtocol());
+            ProtocolObject[] args = new ProtocolObject[argc];
+            for (int i = 0; i < argc; i++) {
+                args[i] = readProtocolObject(in, protocolFactory);
+            }
+            command.setArgs(args);
+        }
+        return command;
+    }
+
+    public byte[] encodeReply(InvokerCommand command, ProtocolFactory protocolFactory) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        writeString(out, command.getId());
+        if (command.getException() != null) {
+            out.writeByte(REPLY_EXCEPTION);
+            byte[] exception = protocolFactory.encode(command.getException());
+            out.writeInt(exception.length);
+            out.write(exception);
+        } else if (command.getRetObject() != null) {
+            out.writeByte(REPLY_RET_OBJECT);
+            writeProtocolObject(out, command.getRetObject(), protocolFactory);
+        } else {
+            out.writeByte(REPLY_VOID);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 响应中只有返回值或异常，解码结果回填到发起调用的InvokerCommand上
+     */
+    public InvokerCommand decodeReply(InvokerCommand command, byte[] body, ProtocolFactory protocolFactory) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        readFormatVersion(in);
+        String id = readString(in);
+        if (id != null && !id.equals(command.getId())) {
+            throw new IOException("reply correlationId<" + id + "> not matched request correlationId<" + command.getId() + ">");
+        }
+        command.setArgs(null);
+        byte flag = in.readByte();
+        switch (flag) {
+            case REPLY_RET_OBJECT:
+                command.setRetObject(readProtocolObject(in, protocolFactory));
+                break;
+            case REPLY_EXCEPTION:
+                byte[] exception = new byte[in.readInt()];
+                in.readFully(exception);
+                command.setException(protocolFactory.decode(SimpleLnkException.class, exception));
+                break;
+            case REPLY_VOID:
+                break;
+            default:
+                throw new IOException("unknown reply flag : " + flag);
+        }
+        return command;
+    }
+
+    private void writeProtocolObject(DataOutputStream out, ProtocolObject obj, ProtocolFactory protocolFactory) throws IOException {
+        Class<?> type = (obj == null) ? null : obj.getType();
+        writeString(out, (type == null) ? null : type.getName());
+        if (type == null) {
+            return;
+        }
+        if (obj.isInline()) {
+            out.writeInt(INLINE_VALUE);
+            out.writeBoolean(obj.isRemote());
+            byte[] value = protocolFactory.encode(obj.getValue());
+            out.writeInt(value.length);
+            out.write(value);
+            return;
+        }
+        byte[] data = obj.getData();
+        if (data == null) {
+            out.writeInt(NULL_DATA);
+            return;
+        }
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private ProtocolObject readProtocolObject(DataInputStream in, ProtocolFactory protocolFactory) throws IOException {
+        ProtocolObject obj = new ProtocolObject();
+        String typeName = readString(in);
+        if (typeName == null) {
+            return obj;
+        }
+        obj.setType(this.loadType(typeName));
+        int length = in.readInt();
+        if (length == INLINE_VALUE) {
+            obj.setRemote(in.readBoolean());
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            Class<?> valueType = obj.isRemote() ? String.class : obj.getType();
+            obj.setValue(protocolFactory.decode(valueType, value));
+            return obj;
+        }
+        if (length >= 0) {
+            byte[] data = new byte[length];
+            in.readFully(data);
+            obj.setData(data);
+        }
+        return obj;
+    }
+
+    private Class<?> loadType(String typeName) throws IOException {
+        Class<?> type = this.types.get(typeName);
+        if (type != null) {
+            return type;
+        }
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            type = Class.forName(typeName, false, (classLoader == null) ? CompactInvokerCommandCodec.class.getClassLoader() : classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("can't load type " + typeName, e);
+        }
+        this.types.putIfAbsent(typeName, type);
+        return type;
+    }
+
+    private static void readFormatVersion(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported compact InvokerCommand version : " + version);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static final class MethodDescriptor {
+        private final String serviceId;
+        private final String method;
+        private final Class<?>[] signature;
+
+        MethodDescriptor(String serviceId, String method, Class<?>[] signature) {
+            this.serviceId = serviceId;
+            this.method = method;
+            this.signature = signature;
+        }
+
+        public String getServiceId() {
+            return serviceId;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MethodDescriptor)) {
+                return false;
+            }
+            MethodDescriptor other = (MethodDescriptor) obj;
+            return serviceId.equals(other.serviceId) && method.equals(other.method) && Arrays.equals(signature, other.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return serviceId.hashCode() * 31 + method.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return serviceId + "." + method + "(" + Arrays.toString(signature) + ")";
+        }
+    }
+}
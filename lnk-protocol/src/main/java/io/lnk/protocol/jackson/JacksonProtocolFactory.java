@@ -1,7 +1,11 @@
 package io.lnk.protocol.jackson;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import io.lnk.api.Protocols;
-import io.lnk.api.protocol.Serializer;
+import io.lnk.api.protocol.StreamingProtocolFactory;
+import io.lnk.api.protocol.StreamingSerializer;
 import io.lnk.protocol.BasicProtocolFactory;
 
 /**
@@ -10,8 +14,8 @@ import io.lnk.protocol.BasicProtocolFactory;
  * @version 1.0.0
  * @since 2017年5月22日 下午4:46:42
  */
-public class JacksonProtocolFactory extends BasicProtocolFactory {
-    private final Serializer serializer;
+public class JacksonProtocolFactory extends BasicProtocolFactory implements StreamingProtocolFactory {
+    private final StreamingSerializer serializer;
     
     public JacksonProtocolFactory() {
         super(Protocols.DEFAULT_PROTOCOL);
@@ -27,4 +31,14 @@ public class JacksonProtocolFactory extends BasicProtocolFactory {
     public <T> T decode(Class<T> objType, byte[] data) {
         return serializer.deserialize(objType, data);
     }
+
+    @Override
+    public void encode(Object obj, OutputStream out) {
+        serializer.serialize(obj, out);
+    }
+
+    @Override
+    public <T> T decode(Class<T> objType, InputStream in) {
+        return serializer.deserialize(objType, in);
+    }
 }
@@ -1,15 +1,19 @@
 package io.lnk.protocol.jackson;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.hibernate4.Hibernate4Module;
 
-import io.lnk.api.protocol.Serializer;
+import io.lnk.api.protocol.StreamingSerializer;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -17,7 +21,7 @@ import io.lnk.api.protocol.Serializer;
  * @version 1.0.0
  * @since 2017年12月6日 下午5:04:35
  */
-public class JacksonSerializer implements Serializer {
+public class JacksonSerializer implements StreamingSerializer {
     private final ObjectMapper objectMapper;
 
     public JacksonSerializer() {
@@ -44,9 +48,12 @@ public class JacksonSerializer implements Serializer {
         objectMapper.setSerializationInclusion(Include.NON_NULL);
         objectMapper.setDateFormat(new SimpleDateFormat(datePattern));
         objectMapper.configure(SerializationFeature.INDENT_OUTPUT, pretty);
+        objectMapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        objectMapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
         Hibernate4Module module = new Hibernate4Module();
         module.enable(Hibernate4Module.Feature.USE_TRANSIENT_ANNOTATION);
         objectMapper.registerModule(module);
+        objectMapper.registerModule(new ProtocolObjectModule());
     }
 
     public String serializeAsString(Object bean) {
@@ -80,4 +87,22 @@ public class JacksonSerializer implements Serializer {
             throw new RuntimeException(e.getMessage(), e);
         }
     }
+
+    @Override
+    public void serialize(Object bean, OutputStream out) {
+        try {
+            objectMapper.writeValue(out, bean);
+        } catch (Throwable e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> clazz, InputStream in) {
+        try {
+            return (T) objectMapper.readValue(in, clazz);
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package io.lnk.protocol.jackson;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.lnk.api.Protocols;
+import io.lnk.api.protocol.StreamingProtocolFactory;
+import io.lnk.api.protocol.StreamingSerializer;
+import io.lnk.protocol.BasicProtocolFactory;
+
+/**
+ * Jackson Smile二进制格式，与JacksonProtocolFactory使用相同的ObjectMapper配置，省去文本JSON的解析开销和报文体积
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月15日 上午10:12:37
+ */
+public class JacksonSmileProtocolFactory extends BasicProtocolFactory implements StreamingProtocolFactory {
+    private final StreamingSerializer serializer;
+
+    public JacksonSmileProtocolFactory() {
+        super(Protocols.SMILE_PROTOCOL);
+        this.serializer = new JacksonSerializer(true);
+    }
+
+    @Override
+    public byte[] encode(Object obj) {
+        return serializer.serializeAsBytes(obj);
+    }
+
+    @Override
+    public <T> T decode(Class<T> objType, byte[] data) {
+        return serializer.deserialize(objType, data);
+    }
+
+    @Override
+    public void encode(Object obj, OutputStream out) {
+        serializer.serialize(obj, out);
+    }
+
+    @Override
+    public <T> T decode(Class<T> objType, InputStream in) {
+        return serializer.deserialize(objType, in);
+    }
+}
@@ -0,0 +1,126 @@
+package io.lnk.protocol.jackson;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import io.lnk.api.ProtocolObject;
+
+/**
+ * ProtocolObject的序列化，内联的value按type直接读写在同一个JSON/Smile文档中，不再嵌套base64编码的data
+ * 
+ * <pre>
+ * {"type":"x.Y","data":"base64"}              非内联
+ * {"type":"x.Y","value":{...}}                内联
+ * {"type":"io.lnk.api.RemoteObject","remote":true,"value":"stub"}
+ * </pre>
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月16日 上午10:24:51
+ */
+public class ProtocolObjectModule extends SimpleModule {
+    private static final long serialVersionUID = -3317372441213585094L;
+    private static final String TYPE = "type";
+    private static final String DATA = "data";
+    private static final String REMOTE = "remote";
+    private static final String VALUE = "value";
+
+    public ProtocolObjectModule() {
+        super(ProtocolObjectModule.class.getSimpleName());
+        this.addSerializer(ProtocolObject.class, new ProtocolObjectSerializer());
+        this.addDeserializer(ProtocolObject.class, new ProtocolObjectDeserializer());
+    }
+
+    static class ProtocolObjectSerializer extends JsonSerializer<ProtocolObject> {
+
+        @Override
+        public void serialize(ProtocolObject obj, JsonGenerator gen, SerializerProvider provider) throws IOException, JsonProcessingException {
+            gen.writeStartObject();
+            Class<?> type = obj.getType();
+            if (type != null) {
+                gen.writeStringField(TYPE, type.getName());
+            }
+            if (obj.getData() != null) {
+                gen.writeFieldName(DATA);
+                gen.writeBinary(obj.getData());
+            }
+            if (obj.isInline()) {
+                if (obj.isRemote()) {
+                    gen.writeBooleanField(REMOTE, true);
+                }
+                gen.writeFieldName(VALUE);
+                provider.defaultSerializeValue(obj.getValue(), gen);
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static class ProtocolObjectDeserializer extends JsonDeserializer<ProtocolObject> {
+
+        @Override
+        public ProtocolObject deserialize(JsonParser p, DeserializationContext ctxt) throws IOException, JsonProcessingException {
+            ProtocolObject obj = new ProtocolObject();
+            TokenBuffer deferredValue = null;
+            JsonToken token = p.getCurrentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = p.nextToken();
+            }
+            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                String name = p.getCurrentName();
+                p.nextToken();
+                if (TYPE.equals(name)) {
+                    obj.setType(this.findClass(p, ctxt));
+                } else if (DATA.equals(name)) {
+                    obj.setData(p.getBinaryValue());
+                } else if (REMOTE.equals(name)) {
+                    obj.setRemote(p.getBooleanValue());
+                } else if (VALUE.equals(name)) {
+                    if (obj.getType() == null) {// 序列化时type总在value之前，这里只是兜底
+                        deferredValue = new TokenBuffer(p);
+                        deferredValue.copyCurrentStructure(p);
+                    } else {
+                        obj.setValue(this.readValue(p, ctxt, obj));
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (deferredValue != null && obj.getType() != null) {
+                JsonParser deferredParser = deferredValue.asParser(p.getCodec());
+                deferredParser.nextToken();
+                obj.setValue(this.readValue(deferredParser, ctxt, obj));
+            }
+            return obj;
+        }
+
+        private Class<?> findClass(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String typeName = p.getText();
+            try {
+                return ctxt.findClass(typeName);
+            } catch (ClassNotFoundException e) {
+                throw ctxt.instantiationException(ProtocolObject.class, e);
+            }
+        }
+
+        private Object readValue(JsonParser p, DeserializationContext ctxt, ProtocolObject obj) throws IOException {
+            if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (obj.isRemote()) {
+                return p.getValueAsString();
+            }
+            return ctxt.readValue(p, obj.getType());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package io.lnk.protocol.java;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import io.lnk.api.Protocols;
-import io.lnk.api.protocol.Serializer;
+import io.lnk.api.protocol.StreamingProtocolFactory;
+import io.lnk.api.protocol.StreamingSerializer;
 import io.lnk.protocol.BasicProtocolFactory;
 
 /**
@@ -10,8 +14,8 @@ import io.lnk.protocol.BasicProtocolFactory;
  * @version 1.0.0
  * @since 2017年6月3日 上午11:44:15
  */
-public class JavaNativeProtocolFactory extends BasicProtocolFactory {
-    private final Serializer serializer;
+public class JavaNativeProtocolFactory extends BasicProtocolFactory implements StreamingProtocolFactory {
+    private final StreamingSerializer serializer;
 
     public JavaNativeProtocolFactory() {
         super(Protocols.JAVA_NATIVE_PROTOCOL);
@@ -27,4 +31,14 @@ public class JavaNativeProtocolFactory extends BasicProtocolFactory {
     public <T> T decode(Class<T> objType, byte[] data) {
         return this.serializer.deserialize(objType, data);
     }
+
+    @Override
+    public void encode(Object obj, OutputStream out) {
+        this.serializer.serialize(obj, out);
+    }
+
+    @Override
+    public <T> T decode(Class<T> objType, InputStream in) {
+        return this.serializer.deserialize(objType, in);
+    }
 }
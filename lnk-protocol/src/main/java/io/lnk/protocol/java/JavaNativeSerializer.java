@@ -2,12 +2,14 @@ package io.lnk.protocol.java;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.codec.binary.Base64;
 
-import io.lnk.api.protocol.Serializer;
+import io.lnk.api.protocol.StreamingSerializer;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -16,7 +18,7 @@ import io.lnk.api.protocol.Serializer;
  * @since 2017年6月3日 上午11:54:19
  */
 @SuppressWarnings("unchecked")
-public class JavaNativeSerializer implements Serializer {
+public class JavaNativeSerializer implements StreamingSerializer {
 
     @Override
     public String serializeAsString(Object bean) {
@@ -26,12 +28,17 @@ public class JavaNativeSerializer implements Serializer {
 
     @Override
     public byte[] serializeAsBytes(Object bean) {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        this.serialize(bean, bout);
+        return bout.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object bean, OutputStream out) {
         try {
-            ByteArrayOutputStream bout = new ByteArrayOutputStream();
-            ObjectOutputStream oout = new ObjectOutputStream(bout);
+            ObjectOutputStream oout = new ObjectOutputStream(out);
             oout.writeObject(bean);
-            oout.close();
-            return bout.toByteArray();
+            oout.flush();// close会关闭out
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
@@ -45,9 +52,13 @@ public class JavaNativeSerializer implements Serializer {
 
     @Override
     public <T> T deserialize(Class<T> clazz, byte[] serializeBytes) {
+        return this.deserialize(clazz, new ByteArrayInputStream(serializeBytes));
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> clazz, InputStream in) {
         try {
-            ByteArrayInputStream bin = new ByteArrayInputStream(serializeBytes);
-            ObjectInputStream oin = new ObjectInputStream(bin);
+            ObjectInputStream oin = new ObjectInputStream(in);
             return (T) oin.readObject();
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
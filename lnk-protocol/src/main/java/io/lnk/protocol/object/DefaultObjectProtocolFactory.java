@@ -20,6 +20,10 @@ public class DefaultObjectProtocolFactory implements ObjectProtocolFactory {
     private static final int COMMON_OBJECT_ARG = 1;
     private static final int REMOTE_OBJECT_ARG = 2;
     private RemoteObjectFactory remoteObjectFactory;
+    /**
+     * 参数直接作为ProtocolObject.value，随InvokerCommand由同一个ProtocolFactory一次序列化
+     */
+    private boolean inlineEnable = false;
 
     @Override
     public ProtocolObject[] encode(final Object[] objs, final ProtocolFactory protocolFactory) throws Throwable {
@@ -37,6 +41,17 @@ public class DefaultObjectProtocolFactory implements ObjectProtocolFactory {
                 continue;
             }
             protocolObject.setType(obj.getClass());
+            if (this.inlineEnable) {
+                if (obj instanceof RemoteObject) {
+                    protocolObject.setType(RemoteObject.class);
+                    protocolObject.setRemote(true);
+                    protocolObject.setValue(((RemoteObject) obj).serializeStub());
+                } else {
+                    protocolObject.setValue(obj);
+                }
+                commandObjs[i] = protocolObject;
+                continue;
+            }
             int type = COMMON_OBJECT_ARG;
             byte[] objBytes = null;
             if (obj instanceof RemoteObject) {
@@ -66,6 +81,10 @@ public class DefaultObjectProtocolFactory implements ObjectProtocolFactory {
         invokeObjs = new Object[argsNum];
         for (int i = 0; i < argsNum; i++) {
             ProtocolObject obj = objs[i];
+            if (obj.isInline()) {
+                invokeObjs[i] = obj.isRemote() ? remoteObjectFactory.getServiceObject((String) obj.getValue()) : obj.getValue();
+                continue;
+            }
             Class<?> objType = obj.getType();
             byte[] objData = obj.getData();
             if (objType == null || ArrayUtils.isEmpty(objData)) {
@@ -93,4 +112,8 @@ public class DefaultObjectProtocolFactory implements ObjectProtocolFactory {
     public void setRemoteObjectFactory(RemoteObjectFactory remoteObjectFactory) {
         this.remoteObjectFactory = remoteObjectFactory;
     }
+
+    public void setInlineEnable(boolean inlineEnable) {
+        this.inlineEnable = inlineEnable;
+    }
 }
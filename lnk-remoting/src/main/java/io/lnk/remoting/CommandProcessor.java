@@ -12,4 +12,18 @@ public interface CommandProcessor {
     RemotingCommand processCommand(RemotingCommand request) throws Throwable;
     boolean tryAcquireFailure(long timeoutMillis);
     void release();
+
+    /**
+     * 请求进入处理线程池之前调用，可以按请求内容(服务、方法、调用方)做流量控制
+     */
+    default boolean tryAcquireFailure(RemotingCommand request, long timeoutMillis) {
+        return this.tryAcquireFailure(timeoutMillis);
+    }
+
+    /**
+     * @param latencyNanos 从获取许可到请求处理完成的耗时(含线程池排队)
+     */
+    default void release(long latencyNanos) {
+        this.release();
+    }
 }
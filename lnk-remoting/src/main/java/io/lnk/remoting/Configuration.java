@@ -14,9 +14,13 @@ public class Configuration implements Cloneable {
     public static final String IO_SOCKET_SNDBUF_SIZE = "io.socket.sndbuf.size";
     public static final String IO_FRAME_MAXLENGTH = "io.frame.maxlength";
     private int listenPort = 8888;
+    //mina实现中未设置, 关闭后编解码直接在IO线程上执行(workerThreads不再生效), 只有命令分发进入业务线程池
+    private boolean eventExecutorGroupEnable = true;
     private int workerThreads = 10;
     //mina实现中未设置
     private int selectorThreads = 5;
+    //mina实现中未设置
+    private int clientSelectorThreads = 2;
     private int connectTimeoutMillis = 3000;
     private int channelMaxIdleTimeSeconds = 120;
     private int socketSndBufSize = Integer.getInteger(IO_SOCKET_SNDBUF_SIZE, 65535);
@@ -24,6 +28,35 @@ public class Configuration implements Cloneable {
     private boolean pooledByteBufAllocatorEnable = true;
     private int defaultWorkerProcessorThreads = 10;
     private int defaultExecutorThreads = 8;
+    //mina实现中未设置, 开启后报文体以池化ByteBuf的形式在编解码器间传递, 不再复制为byte[]
+    private boolean zeroCopyCodecEnable = false;
+    //异步调用超时时间轮的刻度与槽数
+    private long replyTimerTickMillis = 10;
+    private int replyTimerTicksPerWheel = 512;
+    //客户端以紧凑二进制格式发送InvokerCommand, 服务端总是同时支持两种格式, 开启前需先升级服务端
+    private boolean compactInvokerCommandEnable = false;
+    //mina实现中未设置, 客户端到每个地址的连接数及连接选择策略(roundrobin, leastpending)
+    private int clientChannelsPerAddress = 1;
+    private String clientChannelSelector = "roundrobin";
+    //mina实现中未设置, 合并同一轮事件循环内的flush, 最多攒批maxBatch次flush后强制写出, 额外延迟不超过一轮事件循环
+    private boolean flushConsolidationEnable = false;
+    private int flushConsolidationMaxBatch = 256;
+    //mina实现中未设置, 支持流式编解码的协议直接序列化到池化ByteBuf, 配合zeroCopyCodecEnable时接收端也直接从ByteBuf反序列化
+    private boolean streamingProtocolEnable = false;
+    //客户端的参数与返回值内联在InvokerCommand中一次序列化, 服务端总是同时支持两种格式, 开启前需先升级服务端
+    private boolean inlineProtocolObjectEnable = false;
+    //报文体达到compressThreshold字节后压缩(snappy, deflate), 解压总是可用, 只有对端在同一连接上声明支持解压后才压缩, 因此可与旧版本互通
+    private boolean compressEnable = false;
+    private int compressThreshold = 4096;
+    private String compressType = "snappy";
+    //解压后的报文体超过decompressMaxLength字节时在分配内存前拒绝该报文并关闭连接
+    private int decompressMaxLength = 64 * 1024 * 1024;
+    //mina实现中未设置, 服务方法返回InputStream时按streamChunkSize分块回写, 客户端每次最多授予streamCreditWindow个分块的额度, 单次调用缓冲的数据不超过两者之积
+    private int streamChunkSize = 64 * 1024;
+    private int streamCreditWindow = 8;
+    private long streamReadTimeoutMillis = 30000;
+    //客户端在请求头中携带剩余的超时时间, 服务端丢弃调用方已放弃等待的请求并向下游调用传递截止时间, 服务端总是能识别, 开启前需先升级服务端
+    private boolean deadlinePropagationEnable = false;
     
     /**
      * make make install
@@ -41,6 +74,14 @@ public class Configuration implements Cloneable {
         this.listenPort = listenPort;
     }
 
+    public boolean isEventExecutorGroupEnable() {
+        return eventExecutorGroupEnable;
+    }
+
+    public void setEventExecutorGroupEnable(boolean eventExecutorGroupEnable) {
+        this.eventExecutorGroupEnable = eventExecutorGroupEnable;
+    }
+
     public int getWorkerThreads() {
         return workerThreads;
     }
@@ -57,6 +98,14 @@ public class Configuration implements Cloneable {
         this.selectorThreads = selectorThreads;
     }
 
+    public int getClientSelectorThreads() {
+        return clientSelectorThreads;
+    }
+
+    public void setClientSelectorThreads(int clientSelectorThreads) {
+        this.clientSelectorThreads = clientSelectorThreads;
+    }
+
     public int getConnectTimeoutMillis() {
         return connectTimeoutMillis;
     }
@@ -121,6 +170,150 @@ public class Configuration implements Cloneable {
         this.useEpollNativeSelector = useEpollNativeSelector;
     }
 
+    public boolean isZeroCopyCodecEnable() {
+        return zeroCopyCodecEnable;
+    }
+
+    public void setZeroCopyCodecEnable(boolean zeroCopyCodecEnable) {
+        this.zeroCopyCodecEnable = zeroCopyCodecEnable;
+    }
+
+    public long getReplyTimerTickMillis() {
+        return replyTimerTickMillis;
+    }
+
+    public void setReplyTimerTickMillis(long replyTimerTickMillis) {
+        this.replyTimerTickMillis = replyTimerTickMillis;
+    }
+
+    public int getReplyTimerTicksPerWheel() {
+        return replyTimerTicksPerWheel;
+    }
+
+    public void setReplyTimerTicksPerWheel(int replyTimerTicksPerWheel) {
+        this.replyTimerTicksPerWheel = replyTimerTicksPerWheel;
+    }
+
+    public boolean isCompactInvokerCommandEnable() {
+        return compactInvokerCommandEnable;
+    }
+
+    public void setCompactInvokerCommandEnable(boolean compactInvokerCommandEnable) {
+        this.compactInvokerCommandEnable = compactInvokerCommandEnable;
+    }
+
+    public int getClientChannelsPerAddress() {
+        return clientChannelsPerAddress;
+    }
+
+    public void setClientChannelsPerAddress(int clientChannelsPerAddress) {
+        this.clientChannelsPerAddress = clientChannelsPerAddress;
+    }
+
+    public String getClientChannelSelector() {
+        return clientChannelSelector;
+    }
+
+    public void setClientChannelSelector(String clientChannelSelector) {
+        this.clientChannelSelector = clientChannelSelector;
+    }
+
+    public boolean isFlushConsolidationEnable() {
+        return flushConsolidationEnable;
+    }
+
+    public void setFlushConsolidationEnable(boolean flushConsolidationEnable) {
+        this.flushConsolidationEnable = flushConsolidationEnable;
+    }
+
+    public int getFlushConsolidationMaxBatch() {
+        return flushConsolidationMaxBatch;
+    }
+
+    public void setFlushConsolidationMaxBatch(int flushConsolidationMaxBatch) {
+        this.flushConsolidationMaxBatch = flushConsolidationMaxBatch;
+    }
+
+    public boolean isStreamingProtocolEnable() {
+        return streamingProtocolEnable;
+    }
+
+    public void setStreamingProtocolEnable(boolean streamingProtocolEnable) {
+        this.streamingProtocolEnable = streamingProtocolEnable;
+    }
+
+    public boolean isInlineProtocolObjectEnable() {
+        return inlineProtocolObjectEnable;
+    }
+
+    public void setInlineProtocolObjectEnable(boolean inlineProtocolObjectEnable) {
+        this.inlineProtocolObjectEnable = inlineProtocolObjectEnable;
+    }
+
+    public boolean isDeadlinePropagationEnable() {
+        return deadlinePropagationEnable;
+    }
+
+    public void setDeadlinePropagationEnable(boolean deadlinePropagationEnable) {
+        this.deadlinePropagationEnable = deadlinePropagationEnable;
+    }
+
+    public boolean isCompressEnable() {
+        return compressEnable;
+    }
+
+    public void setCompressEnable(boolean compressEnable) {
+        this.compressEnable = compressEnable;
+    }
+
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public void setCompressThreshold(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    public String getCompressType() {
+        return compressType;
+    }
+
+    public void setCompressType(String compressType) {
+        this.compressType = compressType;
+    }
+
+    public int getDecompressMaxLength() {
+        return decompressMaxLength;
+    }
+
+    public void setDecompressMaxLength(int decompressMaxLength) {
+        this.decompressMaxLength = decompressMaxLength;
+    }
+
+    public int getStreamChunkSize() {
+        return streamChunkSize;
+    }
+
+    public void setStreamChunkSize(int streamChunkSize) {
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    public int getStreamCreditWindow() {
+        return streamCreditWindow;
+    }
+
+    public void setStreamCreditWindow(int streamCreditWindow) {
+        this.streamCreditWindow = streamCreditWindow;
+    }
+
+    public long getStreamReadTimeoutMillis() {
+        return streamReadTimeoutMillis;
+    }
+
+    public void setStreamReadTimeoutMillis(long streamReadTimeoutMillis) {
+        this.streamReadTimeoutMillis = streamReadTimeoutMillis;
+    }
+
     @Override
     public Configuration clone() throws CloneNotSupportedException {
         return (Configuration) super.clone();
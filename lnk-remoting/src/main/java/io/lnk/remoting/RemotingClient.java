@@ -8,6 +8,8 @@ import io.lnk.remoting.exception.RemotingTimeoutException;
 import io.lnk.remoting.protocol.RemotingCommand;
 
 /**
+ * 请求的ByteBuf报文体在写出或发送失败后由RemotingClient释放，同一请求多次发送时调用方需在每次发送前retain
+ * 
  * @author 刘飞 E-mail:liufei_it@126.com
  *
  * @version 1.0.0
@@ -22,4 +24,9 @@ public interface RemotingClient extends RemotingService {
     void invokeOneway(final String addr, final RemotingCommand request) throws InterruptedException, RemotingConnectException, RemotingSendRequestException;
 
     void registerProcessor(int commandCode, CommandProcessor processor, ExecutorService executor);
+
+    /**
+     * 发往addr的已发出但尚未收到响应(或超时)的请求数，发送时计入，响应、超时或发送失败时扣减
+     */
+    int getPendings(final String addr);
 }
@@ -0,0 +1,13 @@
+package io.lnk.remoting;
+
+/**
+ * 需要读取客户端连接状态(如未完成请求数)的组件实现此接口，由LnkEndpoint在RemotingClient启动后注入
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月20日 下午3:08:14
+ */
+public interface RemotingClientAware {
+    void setRemotingClient(RemotingClient remotingClient);
+}
@@ -2,8 +2,11 @@ package io.lnk.remoting;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.util.Timeout;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -16,12 +19,15 @@ public class ReplyFuture {
     private final long timeoutMillis;
     private final long startInMillis = System.currentTimeMillis();
     private final CountDownLatch countDownLatch = new CountDownLatch(1);
+    private final AtomicBoolean pendingReleased = new AtomicBoolean(false);
 
     private RemotingCallback callback;
     
     private volatile RemotingCommand response;
     private volatile boolean sent = true;
     private volatile Throwable cause;
+    private volatile Timeout timeout;
+    private volatile AtomicInteger pendings;
     
     public ReplyFuture(long opaque, long timeoutMillis) {
         this.opaque = opaque;
@@ -97,6 +103,29 @@ public class ReplyFuture {
         return timeoutMillis;
     }
 
+    public Timeout getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 计入连接上的未完成请求数，由响应、超时或发送失败中最先发生的一方通过releasePending扣减
+     */
+    public void trackPending(AtomicInteger pendings) {
+        this.pendings = pendings;
+        pendings.incrementAndGet();
+    }
+
+    public void releasePending() {
+        AtomicInteger pendings = this.pendings;
+        if (pendings != null && this.pendingReleased.compareAndSet(false, true)) {
+            pendings.decrementAndGet();
+        }
+    }
+
     @Override
     public String toString() {
         return "ReplyFuture [opaque=" + opaque + ", response=" + response + ", sent=" + sent + "]";
@@ -0,0 +1,73 @@
+package io.lnk.remoting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.lnk.api.utils.LnkThreadFactory;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+/**
+ * ReplyFuture的超时引擎，发送时为每个ReplyFuture注册自己的超时，响应到达时取消
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年7月21日 上午10:42:17
+ */
+public class ReplyTimer {
+    private final Timer timer;
+    private final AtomicLong scheduledCount = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+    private final AtomicLong cancelledCount = new AtomicLong(0);
+
+    public ReplyTimer(final Timer timer) {
+        this.timer = timer;
+    }
+
+    public static ReplyTimer newHashedWheelReplyTimer(final Configuration configuration) {
+        return new ReplyTimer(new HashedWheelTimer(LnkThreadFactory.newThreadFactory("RemotingReplyTimer-%d", true), configuration.getReplyTimerTickMillis(), TimeUnit.MILLISECONDS,
+                configuration.getReplyTimerTicksPerWheel()));
+    }
+
+    public void schedule(final ReplyFuture replyFuture, final TimerTask task) {
+        Timeout timeout = this.timer.newTimeout(new TimerTask() {
+            public void run(Timeout timeout) throws Exception {
+                expiredCount.incrementAndGet();
+                task.run(timeout);
+            }
+        }, replyFuture.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        replyFuture.setTimeout(timeout);
+        this.scheduledCount.incrementAndGet();
+    }
+
+    public void cancel(final ReplyFuture replyFuture) {
+        Timeout timeout = replyFuture.getTimeout();
+        if (timeout != null && timeout.cancel()) {
+            this.cancelledCount.incrementAndGet();
+        }
+    }
+
+    public void stop() {
+        this.timer.stop();
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ReplyTimer [scheduled=" + scheduledCount.get() + ", expired=" + expiredCount.get() + ", cancelled=" + cancelledCount.get() + "]";
+    }
+}
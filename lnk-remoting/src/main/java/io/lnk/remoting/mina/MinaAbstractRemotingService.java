@@ -2,17 +2,10 @@ package io.lnk.remoting.mina;
 
 import java.net.SocketAddress;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.future.WriteFuture;
@@ -22,16 +15,21 @@ import org.slf4j.LoggerFactory;
 
 import io.lnk.api.protocol.ProtocolFactory;
 import io.lnk.api.protocol.ProtocolFactorySelector;
-import io.lnk.api.utils.LnkThreadFactory;
 import io.lnk.remoting.CommandProcessor;
+import io.lnk.remoting.Configuration;
 import io.lnk.remoting.Pair;
 import io.lnk.remoting.RemotingCallback;
 import io.lnk.remoting.ReplyFuture;
+import io.lnk.remoting.ReplyTimer;
 import io.lnk.remoting.exception.RemotingSendRequestException;
 import io.lnk.remoting.exception.RemotingTimeoutException;
 import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.CommandCompressor;
+import io.lnk.remoting.protocol.CompressionStats;
 import io.lnk.remoting.protocol.RemotingCommand;
 import io.lnk.remoting.utils.RemotingUtils;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -41,49 +39,47 @@ import io.lnk.remoting.utils.RemotingUtils;
  */
 public abstract class MinaAbstractRemotingService {
     protected final Logger log = LoggerFactory.getLogger(getClass().getSimpleName());
+    private static final String PENDINGS_KEY = "RemotingPendings";
     protected final ConcurrentHashMap<Long, ReplyFuture> replies;
     protected final HashMap<Integer, Pair<CommandProcessor, ExecutorService>> processors;
     protected Pair<CommandProcessor, ExecutorService> defaultCommandProcessor;
     protected final ProtocolFactorySelector protocolFactorySelector;
-    private final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor;
+    protected final ReplyTimer replyTimer;
+    protected final CommandCompressor commandCompressor;
+    private final boolean deadlinePropagationEnable;
 
-    public MinaAbstractRemotingService(final ProtocolFactorySelector protocolFactorySelector) {
+    public MinaAbstractRemotingService(final ProtocolFactorySelector protocolFactorySelector, final Configuration configuration) {
         super();
         this.protocolFactorySelector = protocolFactorySelector;
         replies = new ConcurrentHashMap<Long, ReplyFuture>(256);
         processors = new HashMap<Integer, Pair<CommandProcessor, ExecutorService>>(64);
-        scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(2, LnkThreadFactory.newThreadFactory("RemotingReply-%d", false), new CallerRunsPolicy() {
-            public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
-                log.info("rejectedExecution Thread resource work out.");
-                super.rejectedExecution(r, e);
-            }
-        });
-        scheduledThreadPoolExecutor.scheduleAtFixedRate(new Runnable() {
-            public void run() {
-                final List<ReplyFuture> replyFutures = new LinkedList<ReplyFuture>();
-                Iterator<Entry<Long, ReplyFuture>> it = replies.entrySet().iterator();
-                while (it.hasNext()) {
-                    Entry<Long, ReplyFuture> next = it.next();
-                    ReplyFuture replyFuture = next.getValue();
-                    if (replyFuture.isTimeout(replyFuture.getTimeoutMillis() + 1000L)) {
-                        it.remove();
-                        replyFutures.add(replyFuture);
-                        log.warn("remove timeout command " + replyFuture);
-                    }
-                }
+        replyTimer = ReplyTimer.newHashedWheelReplyTimer(configuration);
+        commandCompressor = new CommandCompressor(configuration);
+        deadlinePropagationEnable = configuration.isDeadlinePropagationEnable();
+    }
 
-                for (ReplyFuture replyFuture : replyFutures) {
-                    if (!replyFuture.isAsyncCallback()) {
-                        continue;
-                    }
-                    try {
-                        replyFuture.invokeCallback();
-                    } catch (Throwable e) {
-                        log.warn("invoke ReplyFuture callback Error.", e);
-                    }
-                }
+    /**
+     * 会话上已发出但尚未收到响应(或超时)的请求数
+     */
+    static int pendings(IoSession session) {
+        AtomicInteger pendings = (AtomicInteger) session.getAttribute(PENDINGS_KEY);
+        return (pendings == null) ? 0 : pendings.get();
+    }
+
+    private static AtomicInteger pendingsCounter(IoSession session) {
+        AtomicInteger pendings = (AtomicInteger) session.getAttribute(PENDINGS_KEY);
+        if (pendings == null) {
+            pendings = new AtomicInteger(0);
+            AtomicInteger prev = (AtomicInteger) session.setAttributeIfAbsent(PENDINGS_KEY, pendings);
+            if (prev != null) {
+                pendings = prev;
             }
-        }, 5l, 1l, TimeUnit.SECONDS);
+        }
+        return pendings;
+    }
+
+    public CompressionStats getCompressionStats() {
+        return commandCompressor.getStats();
     }
 
     protected void commandProcessor(final IoSession session, RemotingCommand command) throws Exception {
@@ -112,16 +108,21 @@ public abstract class MinaAbstractRemotingService {
             return;
         }
         final CommandProcessor commandProcessor = pair.getKey();
-        if (commandProcessor.tryAcquireFailure(3000L)) {
+        if (commandProcessor.tryAcquireFailure(cmd, 3000L)) {
             final RemotingCommand response = RemotingCommand.replyCommand(cmd, CommandCode.SYSTEM_BUSY);
             response.setBody(protocolFactory.encode("system busy, start flow control for a while"));
             session.write(response);
             return;
         }
+        final long acquiredNanos = System.nanoTime();
         Runnable task = new Runnable() {
             @Override
             public void run() {
                 try {
+                    if (cmd.isExpired()) {
+                        log.warn(RemotingUtils.parseSessionRemoteAddr(session) + ", command deadline exceeded before process, drop it, command code: " + cmd.getCode() + ", opaque: " + opaque);
+                        return;// 调用方已超时，不再处理也不回写
+                    }
                     final RemotingCommand response = commandProcessor.processCommand(cmd);
                     if (!cmd.isOneway()) {
                         if (response != null) {
@@ -142,13 +143,14 @@ public abstract class MinaAbstractRemotingService {
                         session.write(response);
                     }
                 } finally {
-                    commandProcessor.release();
+                    commandProcessor.release(System.nanoTime() - acquiredNanos);
                 }
             }
         };
         try {
             pair.getValue().submit(task);
         } catch (RejectedExecutionException e) {
+            commandProcessor.release();// 任务没有执行，由这里归还许可
             log.warn(RemotingUtils.parseSessionRemoteAddr(session) + ", too many command and system thread pool busy, RejectedExecutionException " + pair.getValue().toString() + " command code: "
                     + cmd.getCode());
             if (!cmd.isOneway()) {
@@ -161,15 +163,20 @@ public abstract class MinaAbstractRemotingService {
 
     protected abstract ExecutorService getCallbackExecutor();
 
+    public ReplyTimer getReplyTimer() {
+        return replyTimer;
+    }
+
     protected void replyCommand(final IoSession session, RemotingCommand cmd) {
         final long opaque = cmd.getOpaque();
-        final ReplyFuture replyFuture = replies.get(opaque);
+        final ReplyFuture replyFuture = replies.remove(opaque);
         if (replyFuture == null) {
             log.warn("receive command, but not matched any command, " + RemotingUtils.parseSessionRemoteAddr(session));
             return;
         }
+        replyTimer.cancel(replyFuture);
+        replyFuture.releasePending();
         replyFuture.setResponse(cmd);
-        replies.remove(opaque);
         if (replyFuture.isAsyncCallback()) {
             invokeCallback(replyFuture);
         } else {
@@ -210,8 +217,12 @@ public abstract class MinaAbstractRemotingService {
 
     protected RemotingCommand __invokeSync(final IoSession session, final RemotingCommand request, final long timeoutMillis) throws InterruptedException, RemotingSendRequestException, RemotingTimeoutException {
         final long opaque = request.getOpaque();
+        final ReplyFuture replyFuture = new ReplyFuture(opaque, timeoutMillis);
+        if (deadlinePropagationEnable) {
+            request.setDeadline(timeoutMillis);// 服务端据此丢弃调用方已放弃等待的请求
+        }
         try {
-            final ReplyFuture replyFuture = new ReplyFuture(opaque, timeoutMillis);
+            replyFuture.trackPending(pendingsCounter(session));
             this.replies.put(opaque, replyFuture);
             final SocketAddress addr = session.getRemoteAddress();
             WriteFuture writeFuture = session.write(request);
@@ -239,6 +250,7 @@ public abstract class MinaAbstractRemotingService {
             return responseCommand;
         } finally {
             this.replies.remove(opaque);
+            replyFuture.releasePending();
         }
     }
 
@@ -247,7 +259,22 @@ public abstract class MinaAbstractRemotingService {
             final long opaque = request.getOpaque();
             final ReplyFuture replyFuture = new ReplyFuture(opaque, timeoutMillis);
             replyFuture.setCallback(callback);
+            if (deadlinePropagationEnable) {
+                request.setDeadline(timeoutMillis);
+            }
+            replyFuture.trackPending(pendingsCounter(session));
             this.replies.put(opaque, replyFuture);
+            this.replyTimer.schedule(replyFuture, new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    if (replies.remove(opaque, replyFuture)) {
+                        replyFuture.releasePending();
+                        replyFuture.setCause(new RemotingTimeoutException(RemotingUtils.parseSessionRemoteAddr(session), timeoutMillis));
+                        log.warn("remove timeout command " + replyFuture);
+                        invokeCallback(replyFuture);
+                    }
+                }
+            });
             WriteFuture writeFuture = session.write(request);
             writeFuture.addListener(new IoFutureListener<WriteFuture>() {
                 public void operationComplete(WriteFuture future) {
@@ -257,7 +284,11 @@ public abstract class MinaAbstractRemotingService {
                     }
                     replyFuture.setSent(false);
                     replyFuture.setReply(null);
-                    replies.remove(opaque);
+                    if (!replies.remove(opaque, replyFuture)) {
+                        return;
+                    }
+                    replyTimer.cancel(replyFuture);
+                    replyFuture.releasePending();
                     replyFuture.setCause(future.getException());
                     callback.onComplete(replyFuture);
                     log.warn("send command to channel <{}> Error.", RemotingUtils.parseSessionRemoteAddr(session));
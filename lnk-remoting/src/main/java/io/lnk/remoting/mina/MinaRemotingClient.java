@@ -46,7 +46,7 @@ public class MinaRemotingClient extends MinaAbstractRemotingService implements R
     private final ExecutorService defaultThreadPoolExecutor;
 
     public MinaRemotingClient(final ProtocolFactorySelector protocolFactorySelector, final Configuration configuration) {
-        super(protocolFactorySelector);
+        super(protocolFactorySelector, configuration);
         this.configuration = configuration;
         this.connector = new NioSocketConnector(configuration.getWorkerThreads());
         this.defaultThreadPoolExecutor =
@@ -59,7 +59,7 @@ public class MinaRemotingClient extends MinaAbstractRemotingService implements R
                 Executors.newFixedThreadPool(configuration.getDefaultExecutorThreads(), LnkThreadFactory.newThreadFactory("MinaRemotingClientDefaultThreadPoolExecutor-%d", false))));
         this.connector.getFilterChain().addLast("mdc", new MdcInjectionFilter());
         this.connector.getFilterChain().addLast("logger", new LoggingFilter());
-        this.connector.getFilterChain().addLast("codec", new CommandProtocolCodecFilter());
+        this.connector.getFilterChain().addLast("codec", new CommandProtocolCodecFilter(commandCompressor));
         this.connector.setConnectTimeoutMillis(configuration.getConnectTimeoutMillis());
         this.connector.getSessionConfig().setReuseAddress(true);
         this.connector.getSessionConfig().setReadBufferSize(configuration.getSocketRcvBufSize());
@@ -147,6 +147,8 @@ public class MinaRemotingClient extends MinaAbstractRemotingService implements R
             }
             this.sessions.clear();
             this.connector.dispose();
+            this.replyTimer.stop();
+            log.info(this.getCompressionStats().toString());
         } catch (Throwable e) {
             log.error("MinaRemotingClient shutdown Error.", e);
         }
@@ -233,6 +235,15 @@ public class MinaRemotingClient extends MinaAbstractRemotingService implements R
         }
     }
 
+    @Override
+    public int getPendings(String addr) {
+        RemotingSessionFuture remotingChannelFuture = this.sessions.get(addr);
+        if (remotingChannelFuture == null || remotingChannelFuture.isActive() == false) {
+            return 0;
+        }
+        return pendings(remotingChannelFuture.getSession());
+    }
+
     private IoSession getAndCreateSession(final String addr) throws InterruptedException {
         RemotingSessionFuture remotingChannelFuture = this.sessions.get(addr);
         if (remotingChannelFuture != null && remotingChannelFuture.isActive()) {
@@ -41,7 +41,7 @@ public class MinaRemotingServer extends MinaAbstractRemotingService implements R
     private InetSocketAddress serverAddress;
 
     public MinaRemotingServer(final ProtocolFactorySelector protocolFactorySelector, final Configuration configuration) {
-        super(protocolFactorySelector);
+        super(protocolFactorySelector, configuration);
         this.configuration = configuration;
         IoBuffer.setUseDirectBuffer(false);
         this.defaultThreadPoolExecutor =
@@ -51,7 +51,7 @@ public class MinaRemotingServer extends MinaAbstractRemotingService implements R
                 Executors.newFixedThreadPool(configuration.getDefaultExecutorThreads(), LnkThreadFactory.newThreadFactory("MinaRemotingServerDefaultThreadPoolExecutor-%d", false))));
         this.acceptor.getFilterChain().addLast("mdc", new MdcInjectionFilter());
         this.acceptor.getFilterChain().addLast("logger", new LoggingFilter());
-        this.acceptor.getFilterChain().addLast("codec", new CommandProtocolCodecFilter());
+        this.acceptor.getFilterChain().addLast("codec", new CommandProtocolCodecFilter(commandCompressor));
         this.acceptor.setReuseAddress(true);
         this.acceptor.setBacklog(1024);
         this.acceptor.getSessionConfig().setReuseAddress(true);
@@ -134,6 +134,8 @@ public class MinaRemotingServer extends MinaAbstractRemotingService implements R
             }
             this.acceptor.unbind();
             this.acceptor.dispose();
+            this.replyTimer.stop();
+            log.info(this.getCompressionStats().toString());
         } catch (Throwable e) {
             log.error("MinaRemotingServer shutdown Error.", e);
         }
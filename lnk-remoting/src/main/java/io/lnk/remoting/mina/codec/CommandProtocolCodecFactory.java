@@ -5,6 +5,8 @@ import org.apache.mina.filter.codec.ProtocolCodecFactory;
 import org.apache.mina.filter.codec.ProtocolDecoder;
 import org.apache.mina.filter.codec.ProtocolEncoder;
 
+import io.lnk.remoting.protocol.CommandCompressor;
+
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
  *
@@ -16,9 +18,13 @@ public class CommandProtocolCodecFactory implements ProtocolCodecFactory {
     private final ProtocolDecoder protocolDecoder;
 
     public CommandProtocolCodecFactory() {
+        this(null);
+    }
+
+    public CommandProtocolCodecFactory(CommandCompressor compressor) {
         super();
-        this.protocolEncoder = new CommandProtocolEncoder();
-        this.protocolDecoder = new CommandProtocolDecoder();
+        this.protocolEncoder = new CommandProtocolEncoder(compressor);
+        this.protocolDecoder = new CommandProtocolDecoder(compressor);
     }
 
     @Override
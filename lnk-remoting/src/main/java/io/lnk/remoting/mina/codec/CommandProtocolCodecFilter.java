@@ -2,6 +2,8 @@ package io.lnk.remoting.mina.codec;
 
 import org.apache.mina.filter.codec.ProtocolCodecFilter;
 
+import io.lnk.remoting.protocol.CommandCompressor;
+
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
  *
@@ -11,6 +13,10 @@ import org.apache.mina.filter.codec.ProtocolCodecFilter;
 public class CommandProtocolCodecFilter extends ProtocolCodecFilter {
 
     public CommandProtocolCodecFilter() {
-        super(new CommandProtocolCodecFactory());
+        this(null);
+    }
+
+    public CommandProtocolCodecFilter(CommandCompressor compressor) {
+        super(new CommandProtocolCodecFactory(compressor));
     }
 }
@@ -7,7 +7,13 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.CumulativeProtocolDecoder;
 import org.apache.mina.filter.codec.ProtocolDecoderOutput;
 
+import io.lnk.remoting.exception.RemotingCommandException;
+import io.lnk.remoting.protocol.CommandCompressor;
 import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -16,6 +22,23 @@ import io.lnk.remoting.protocol.RemotingCommand;
  * @since 2017年6月15日 上午10:12:44
  */
 public class CommandProtocolDecoder extends CumulativeProtocolDecoder {
+    /**
+     * 对端在该会话上声明过能够解压报文体
+     */
+    static final String PEER_ACCEPT_COMPRESS_KEY = "peer.accept.compress";
+    /**
+     * 为null时不解压报文体，编码器也不会声明支持解压
+     */
+    private final CommandCompressor compressor;
+
+    public CommandProtocolDecoder() {
+        this(null);
+    }
+
+    public CommandProtocolDecoder(CommandCompressor compressor) {
+        super();
+        this.compressor = compressor;
+    }
 
     @Override
     protected boolean doDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out) throws Exception {
@@ -23,29 +46,51 @@ public class CommandProtocolDecoder extends CumulativeProtocolDecoder {
             int bodyLength = in.getInt();
             byte[] commandBytes = new byte[bodyLength];
             in.get(commandBytes);
-            RemotingCommand command = this.decodeCommand(commandBytes);
+            RemotingCommand command = this.decodeCommand(session, commandBytes);
             out.write(command);
             return true;
         }
         return false;
     }
 
-    private RemotingCommand decodeCommand(byte[] commandBytes) {
+    private RemotingCommand decodeCommand(IoSession session, byte[] commandBytes) throws RemotingCommandException {
         ByteBuffer byteBuffer = ByteBuffer.wrap(commandBytes);
         int code = byteBuffer.getInt();
         int version = byteBuffer.getInt();
         int command = byteBuffer.getInt();
         int protocol = byteBuffer.getInt();
         long opaque = byteBuffer.getLong();
-        byte[] body = new byte[commandBytes.length - (RemotingCommand.COMMAND_LENGTH_LENGTH - RemotingCommand.BODY_LENGTH)];
-        byteBuffer.get(body);
         RemotingCommand remotingCommand = new RemotingCommand();
         remotingCommand.setCode(code);
         remotingCommand.setVersion(version);
         remotingCommand.setCommand(command);
         remotingCommand.setProtocol(protocol);
         remotingCommand.setOpaque(opaque);
+        if (remotingCommand.hasDeadline()) {
+            remotingCommand.setDeadline(byteBuffer.getInt());
+        }
+        byte[] body = new byte[byteBuffer.remaining()];
+        byteBuffer.get(body);
+        if (this.compressor != null && remotingCommand.isAcceptCompress() && session.containsAttribute(PEER_ACCEPT_COMPRESS_KEY) == false) {
+            session.setAttribute(PEER_ACCEPT_COMPRESS_KEY, Boolean.TRUE);
+        }
+        if (remotingCommand.isCompressed()) {
+            body = this.decompress(body, remotingCommand);
+            remotingCommand.clearCompressed();
+        }
         remotingCommand.setBody(body);
         return remotingCommand;
     }
+
+    private byte[] decompress(byte[] compressed, RemotingCommand remotingCommand) throws RemotingCommandException {
+        if (this.compressor == null) {
+            throw new RemotingCommandException("compressed body not supported, command : " + remotingCommand);
+        }
+        ByteBuf body = this.compressor.decompress(Unpooled.wrappedBuffer(compressed), remotingCommand.isDeflate(), UnpooledByteBufAllocator.DEFAULT);
+        try {
+            return ByteBufUtil.getBytes(body);
+        } finally {
+            body.release();
+        }
+    }
 }
@@ -7,7 +7,12 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolEncoderAdapter;
 import org.apache.mina.filter.codec.ProtocolEncoderOutput;
 
+import io.lnk.remoting.protocol.CommandCompressor;
 import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -16,11 +21,24 @@ import io.lnk.remoting.protocol.RemotingCommand;
  * @since 2017年6月15日 上午10:12:05
  */
 public class CommandProtocolEncoder extends ProtocolEncoderAdapter {
+    /**
+     * 不为null时每个报文都声明支持解压，对端同样声明过之后达到阈值的报文体才会压缩
+     */
+    private final CommandCompressor compressor;
+
+    public CommandProtocolEncoder() {
+        this(null);
+    }
+
+    public CommandProtocolEncoder(CommandCompressor compressor) {
+        super();
+        this.compressor = compressor;
+    }
 
     @Override
     public void encode(IoSession session, Object message, ProtocolEncoderOutput out) throws Exception {
         RemotingCommand command = (RemotingCommand) message;
-        byte[] body = this.encode(command);
+        byte[] body = this.encode(session, command);
         IoBuffer buf = IoBuffer.allocate(4 + body.length).setAutoExpand(true);
         buf.putInt(body.length);
         buf.put(body);
@@ -28,22 +46,50 @@ public class CommandProtocolEncoder extends ProtocolEncoderAdapter {
         out.write(buf);
     }
 
-    private byte[] encode(RemotingCommand command) {
-        int bodyLength = 0;
+    private byte[] encode(IoSession session, RemotingCommand command) {
         byte[] body = command.getBody();
+        int commandBits = RemotingCommand.encodeCommand(command.getCommand(), (this.compressor != null), false, false);
+        byte[] compressed = this.compress(session, body);
+        if (compressed != null) {
+            body = compressed;
+            commandBits = RemotingCommand.encodeCommand(command.getCommand(), true, true, this.compressor.isDeflate());
+        }
+        int bodyLength = 0;
         if (body != null) {
             bodyLength = body.length;
         }
-        ByteBuffer commandBytes = ByteBuffer.allocate(RemotingCommand.COMMAND_LENGTH_LENGTH + bodyLength);
+        final boolean deadline = command.hasDeadline();
+        ByteBuffer commandBytes = ByteBuffer.allocate(RemotingCommand.COMMAND_LENGTH_LENGTH - RemotingCommand.BODY_LENGTH + (deadline ? RemotingCommand.DEADLINE_LENGTH : 0) + bodyLength);
         commandBytes.putInt(command.getCode());
         commandBytes.putInt(command.getVersion());
-        commandBytes.putInt(command.getCommand());
+        commandBytes.putInt(commandBits);
         commandBytes.putInt(command.getProtocol());
         commandBytes.putLong(command.getOpaque());
+        if (deadline) {
+            commandBytes.putInt(command.getRemainingMillis());// 剩余毫秒数，接收端按收到的时间换算截止时间
+        }
         if (body != null) {
             commandBytes.put(body);
         }
         commandBytes.flip();
         return commandBytes.array();
     }
+
+    private byte[] compress(IoSession session, byte[] body) {
+        if (this.compressor == null || this.compressor.isCompressEnable() == false || body == null || body.length == 0) {
+            return null;
+        }
+        if (Boolean.TRUE.equals(session.getAttribute(CommandProtocolDecoder.PEER_ACCEPT_COMPRESS_KEY)) == false) {
+            return null;
+        }
+        ByteBuf compressed = this.compressor.compress(Unpooled.wrappedBuffer(body), UnpooledByteBufAllocator.DEFAULT);
+        if (compressed == null) {
+            return null;
+        }
+        try {
+            return ByteBufUtil.getBytes(compressed);
+        } finally {
+            compressed.release();
+        }
+    }
 }
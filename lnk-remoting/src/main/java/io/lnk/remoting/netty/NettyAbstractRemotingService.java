@@ -1,38 +1,41 @@
 package io.lnk.remoting.netty;
 
+import java.io.InputStream;
 import java.net.SocketAddress;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.api.stream.Frame;
 import io.lnk.api.protocol.ProtocolFactorySelector;
-import io.lnk.api.utils.LnkThreadFactory;
 import io.lnk.remoting.CommandProcessor;
+import io.lnk.remoting.Configuration;
 import io.lnk.remoting.Pair;
 import io.lnk.remoting.RemotingCallback;
 import io.lnk.remoting.ReplyFuture;
+import io.lnk.remoting.ReplyTimer;
 import io.lnk.remoting.exception.RemotingSendRequestException;
 import io.lnk.remoting.exception.RemotingTimeoutException;
 import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.CommandCompressor;
+import io.lnk.remoting.protocol.CompressionStats;
 import io.lnk.remoting.protocol.RemotingCommand;
 import io.lnk.remoting.utils.RemotingUtils;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -41,50 +44,40 @@ import io.netty.channel.ChannelHandlerContext;
  * @since 2017年5月19日 下午8:45:47
  */
 public abstract class NettyAbstractRemotingService {
+    private static final AttributeKey<AtomicInteger> PENDINGS_KEY = AttributeKey.valueOf("RemotingPendings");
+    private static final AttributeKey<ConcurrentHashMap<Long, NettyStreamWriter>> STREAM_WRITERS_KEY = AttributeKey.valueOf("RemotingStreamWriters");
     protected final Logger log = LoggerFactory.getLogger(getClass().getSimpleName());
     protected final ConcurrentHashMap<Long, ReplyFuture> replies;
     protected final HashMap<Integer, Pair<CommandProcessor, ExecutorService>> processors;
     protected Pair<CommandProcessor, ExecutorService> defaultCommandProcessor;
     protected final ProtocolFactorySelector protocolFactorySelector;
-    private final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor;
+    protected final ReplyTimer replyTimer;
+    protected final CommandCompressor commandCompressor;
+    /**
+     * 客户端正在读取的分块返回值
+     */
+    protected final ConcurrentHashMap<Long, NettyRemotingInputStream> streams;
+    private final int streamChunkSize;
+    private final int streamCreditWindow;
+    private final long streamReadTimeoutMillis;
+    private final boolean deadlinePropagationEnable;
 
-    public NettyAbstractRemotingService(final ProtocolFactorySelector protocolFactorySelector) {
+    public NettyAbstractRemotingService(final ProtocolFactorySelector protocolFactorySelector, final Configuration configuration) {
         super();
         this.protocolFactorySelector = protocolFactorySelector;
         replies = new ConcurrentHashMap<Long, ReplyFuture>(256);
         processors = new HashMap<Integer, Pair<CommandProcessor, ExecutorService>>(64);
-        scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(2, LnkThreadFactory.newThreadFactory("RemotingReply-%d", false), new CallerRunsPolicy() {
-            public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
-                log.info("rejectedExecution Thread resource work out.");
-                super.rejectedExecution(r, e);
-            }
-        });
-        scheduledThreadPoolExecutor.scheduleAtFixedRate(new Runnable() {
-            public void run() {
-                final List<ReplyFuture> replyFutures = new LinkedList<ReplyFuture>();
-                Iterator<Entry<Long, ReplyFuture>> it = replies.entrySet().iterator();
-                while (it.hasNext()) {
-                    Entry<Long, ReplyFuture> next = it.next();
-                    ReplyFuture replyFuture = next.getValue();
-                    if (replyFuture.isTimeout(replyFuture.getTimeoutMillis() + 1000L)) {
-                        it.remove();
-                        replyFutures.add(replyFuture);
-                        log.warn("remove timeout command " + replyFuture);
-                    }
-                }
+        replyTimer = ReplyTimer.newHashedWheelReplyTimer(configuration);
+        commandCompressor = new CommandCompressor(configuration);
+        streams = new ConcurrentHashMap<Long, NettyRemotingInputStream>(64);
+        streamChunkSize = configuration.getStreamChunkSize();
+        streamCreditWindow = configuration.getStreamCreditWindow();
+        streamReadTimeoutMillis = configuration.getStreamReadTimeoutMillis();
+        deadlinePropagationEnable = configuration.isDeadlinePropagationEnable();
+    }
 
-                for (ReplyFuture replyFuture : replyFutures) {
-                    if (!replyFuture.isAsyncCallback()) {
-                        continue;
-                    }
-                    try {
-                        replyFuture.invokeCallback();
-                    } catch (Throwable e) {
-                        log.warn("invoke ReplyFuture callback Error.", e);
-                    }
-                }
-            }
-        }, 5l, 1l, TimeUnit.SECONDS);
+    public CompressionStats getCompressionStats() {
+        return commandCompressor.getStats();
     }
 
     protected void commandProcessor(final ChannelHandlerContext ctx, RemotingCommand command) throws Exception {
@@ -96,6 +89,10 @@ public abstract class NettyAbstractRemotingService {
             replyCommand(ctx, cmd);
             return;
         }
+        if (cmd.isCredit()) {
+            streamCredit(ctx, cmd);
+            return;
+        }
         receivedCommand(ctx, cmd);
     }
 
@@ -110,30 +107,49 @@ public abstract class NettyAbstractRemotingService {
             response.setBody(protocolFactory.encode(message));
             ctx.writeAndFlush(response);
             log.error(RemotingUtils.parseChannelRemoteAddr(ctx.channel()) + message);
+            ReferenceCountUtil.release(cmd);
             return;
         }
         final CommandProcessor commandProcessor = pair.getKey();
-        if (commandProcessor.tryAcquireFailure(3000L)) {
+        if (commandProcessor.tryAcquireFailure(cmd, 3000L)) {
             final RemotingCommand response = RemotingCommand.replyCommand(cmd, CommandCode.SYSTEM_BUSY);
             response.setBody(protocolFactory.encode("system busy, start flow control for a while"));
             ctx.writeAndFlush(response);
+            ReferenceCountUtil.release(cmd);
             return;
         }
+        final long acquiredNanos = System.nanoTime();
         Runnable task = new Runnable() {
             @Override
             public void run() {
+                boolean replyWithRequest = false;
                 try {
+                    if (cmd.isExpired()) {
+                        log.warn(RemotingUtils.parseChannelRemoteAddr(ctx.channel()) + ", command deadline exceeded before process, drop it, command code: " + cmd.getCode() + ", opaque: " + opaque);
+                        return;// 调用方已超时，不再处理也不回写
+                    }
                     final RemotingCommand response = commandProcessor.processCommand(cmd);
                     if (!cmd.isOneway()) {
                         if (response != null) {
                             response.setOpaque(opaque);
                             response.setReply();
                             try {
+                                replyWithRequest = (response == cmd);// 请求对象直接作为响应写出时由编码器负责释放
+                                if (response.getStreamBody() != null) {
+                                    streamWriter(ctx.channel(), response);// 先登记再回写，客户端收到响应后才会授予额度
+                                } else {
+                                    response.clearStream();// 请求对象直接作为响应时带有请求方的STREAM位
+                                }
                                 ctx.writeAndFlush(response);
                             } catch (Throwable e) {
                                 log.error("process command over, but reply Error.", e);
                             }
                         }
+                    } else if (response != null) {
+                        closeStream(response.getStreamBody());
+                        if (response != cmd) {
+                            ReferenceCountUtil.release(response);// 单向请求不回写响应
+                        }
                     }
                 } catch (Throwable e) {
                     log.error("process command Error.", e);
@@ -143,13 +159,17 @@ public abstract class NettyAbstractRemotingService {
                         ctx.writeAndFlush(response);
                     }
                 } finally {
-                    commandProcessor.release();
+                    commandProcessor.release(System.nanoTime() - acquiredNanos);
+                    if (!replyWithRequest) {
+                        ReferenceCountUtil.release(cmd);
+                    }
                 }
             }
         };
         try {
             pair.getValue().submit(task);
         } catch (RejectedExecutionException e) {
+            commandProcessor.release();// 任务没有执行，由这里归还许可
             log.warn(RemotingUtils.parseChannelRemoteAddr(ctx.channel()) + ", too many command and system thread pool busy, RejectedExecutionException " + pair.getValue().toString()
                     + " command code: " + cmd.getCode());
             if (!cmd.isOneway()) {
@@ -157,20 +177,123 @@ public abstract class NettyAbstractRemotingService {
                 response.setBody(protocolFactory.encode("system busy, start flow control for a while"));
                 ctx.writeAndFlush(response);
             }
+            ReferenceCountUtil.release(cmd);
         }
     }
     
     protected abstract ExecutorService getCallbackExecutor();
 
+    private void streamWriter(final Channel channel, final RemotingCommand response) {
+        Attribute<ConcurrentHashMap<Long, NettyStreamWriter>> attr = channel.attr(STREAM_WRITERS_KEY);
+        ConcurrentHashMap<Long, NettyStreamWriter> writers = attr.get();
+        if (writers == null) {
+            writers = new ConcurrentHashMap<Long, NettyStreamWriter>(16);
+            ConcurrentHashMap<Long, NettyStreamWriter> prev = attr.setIfAbsent(writers);
+            if (prev != null) {
+                writers = prev;
+            } else {
+                final ConcurrentHashMap<Long, NettyStreamWriter> channelWriters = writers;
+                channel.closeFuture().addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        for (NettyStreamWriter writer : channelWriters.values()) {
+                            writer.cancel();
+                        }
+                    }
+                });
+            }
+        }
+        NettyStreamWriter writer = new NettyStreamWriter(channel, response, streamChunkSize, this.getCallbackExecutor(), writers);
+        writers.put(writer.getOpaque(), writer);
+        if (channel.isActive() == false) {
+            writer.cancel();
+        }
+    }
+
+    private void streamCredit(final ChannelHandlerContext ctx, final RemotingCommand cmd) {
+        try {
+            ConcurrentHashMap<Long, NettyStreamWriter> writers = ctx.channel().attr(STREAM_WRITERS_KEY).get();
+            NettyStreamWriter writer = (writers == null) ? null : writers.get(cmd.getOpaque());
+            if (writer == null) {
+                return;// 已经写完或取消
+            }
+            if (cmd.isChunkEnd()) {
+                writer.cancel();
+                return;
+            }
+            writer.addCredits(Frame.toLength(cmd.getBody()));
+        } finally {
+            ReferenceCountUtil.release(cmd);
+        }
+    }
+
+    private void streamChunk(final ChannelHandlerContext ctx, final RemotingCommand cmd) {
+        NettyRemotingInputStream stream = this.streams.get(cmd.getOpaque());
+        if (stream == null) {
+            ReferenceCountUtil.release(cmd);// 流已关闭
+            return;
+        }
+        stream.onChunk(cmd);
+    }
+
+    protected void closeStream(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (Throwable e) {
+            log.warn("close stream Error.", e);
+        }
+    }
+
+    /**
+     * 连接上已发出但尚未收到响应(或超时)的请求数
+     */
+    static int pendings(Channel channel) {
+        AtomicInteger pendings = channel.attr(PENDINGS_KEY).get();
+        return (pendings == null) ? 0 : pendings.get();
+    }
+
+    private static AtomicInteger pendingsCounter(Channel channel) {
+        Attribute<AtomicInteger> attr = channel.attr(PENDINGS_KEY);
+        AtomicInteger pendings = attr.get();
+        if (pendings == null) {
+            pendings = new AtomicInteger(0);
+            AtomicInteger prev = attr.setIfAbsent(pendings);
+            if (prev != null) {
+                pendings = prev;
+            }
+        }
+        return pendings;
+    }
+
+    public ReplyTimer getReplyTimer() {
+        return replyTimer;
+    }
+
     protected void replyCommand(final ChannelHandlerContext ctx, RemotingCommand cmd) {
+        if (cmd.isChunk()) {
+            streamChunk(ctx, cmd);
+            return;
+        }
         final long opaque = cmd.getOpaque();
-        final ReplyFuture replyFuture = replies.get(opaque);
+        if (cmd.isStream()) {
+            NettyRemotingInputStream stream = new NettyRemotingInputStream(ctx.channel(), cmd, streamCreditWindow, streamReadTimeoutMillis, streams);
+            this.streams.put(opaque, stream);
+            cmd.setStreamBody(stream);
+            stream.start();
+        }
+        final ReplyFuture replyFuture = replies.remove(opaque);
         if (replyFuture == null) {
             log.warn("receive command, but not matched any command, " + RemotingUtils.parseChannelRemoteAddr(ctx.channel()));
+            closeStream(cmd.getStreamBody());
+            ReferenceCountUtil.release(cmd);
             return;
         }
+        replyTimer.cancel(replyFuture);
+        replyFuture.releasePending();
         replyFuture.setResponse(cmd);
-        replies.remove(opaque);
         if (replyFuture.isAsyncCallback()) {
             invokeCallback(replyFuture);
         } else {
@@ -190,6 +313,8 @@ public abstract class NettyAbstractRemotingService {
                             replyFuture.invokeCallback();
                         } catch (Throwable e) {
                             log.warn("invoke callback in CallbackExecutor Error.", e);
+                        } finally {
+                            ReferenceCountUtil.release(replyFuture.getResponse());
                         }
                     }
                 });
@@ -205,14 +330,25 @@ public abstract class NettyAbstractRemotingService {
                 replyFuture.invokeCallback();
             } catch (Throwable e) {
                 log.warn("invoke callback Error.", e);
+            } finally {
+                ReferenceCountUtil.release(replyFuture.getResponse());
             }
         }
     }
 
+    /**
+     * 同步调用返回的RemotingCommand(零拷贝模式下持有池化报文体)由调用方负责release
+     */
     protected RemotingCommand __invokeSync(final Channel channel, final RemotingCommand request, final long timeoutMillis) throws InterruptedException, RemotingSendRequestException, RemotingTimeoutException {
         final long opaque = request.getOpaque();
+        final ReplyFuture replyFuture = new ReplyFuture(opaque, timeoutMillis);
+        RemotingCommand responseCommand = null;
+        request.setStream();
+        if (deadlinePropagationEnable) {
+            request.setDeadline(timeoutMillis);// 服务端据此丢弃调用方已放弃等待的请求
+        }
         try {
-            final ReplyFuture replyFuture = new ReplyFuture(opaque, timeoutMillis);
+            replyFuture.trackPending(pendingsCounter(channel));
             this.replies.put(opaque, replyFuture);
             final SocketAddress addr = channel.remoteAddress();
             channel.writeAndFlush(request).addListener(new ChannelFutureListener() {
@@ -229,7 +365,7 @@ public abstract class NettyAbstractRemotingService {
                     log.warn("send command to channel <" + addr + "> Error.");
                 }
             });
-            RemotingCommand responseCommand = replyFuture.waitFor(timeoutMillis);
+            responseCommand = replyFuture.waitFor(timeoutMillis);
             if (null == responseCommand) {
                 if (replyFuture.isSent()) {
                     throw new RemotingTimeoutException(RemotingUtils.parseSocketAddressAddr(addr), timeoutMillis, replyFuture.getCause());
@@ -240,6 +376,11 @@ public abstract class NettyAbstractRemotingService {
             return responseCommand;
         } finally {
             this.replies.remove(opaque);
+            replyFuture.releasePending();
+            if (responseCommand == null && replyFuture.getResponse() != null) {
+                closeStream(replyFuture.getResponse().getStreamBody());
+                ReferenceCountUtil.release(replyFuture.getResponse());// 超时后才到达的响应
+            }
         }
     }
 
@@ -248,7 +389,23 @@ public abstract class NettyAbstractRemotingService {
             final long opaque = request.getOpaque();
             final ReplyFuture replyFuture = new ReplyFuture(opaque, timeoutMillis);
             replyFuture.setCallback(callback);
+            request.setStream();
+            if (deadlinePropagationEnable) {
+                request.setDeadline(timeoutMillis);
+            }
+            replyFuture.trackPending(pendingsCounter(channel));
             this.replies.put(opaque, replyFuture);
+            this.replyTimer.schedule(replyFuture, new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    if (replies.remove(opaque, replyFuture)) {
+                        replyFuture.releasePending();
+                        replyFuture.setCause(new RemotingTimeoutException(RemotingUtils.parseChannelRemoteAddr(channel), timeoutMillis));
+                        log.warn("remove timeout command " + replyFuture);
+                        invokeCallback(replyFuture);
+                    }
+                }
+            });
             channel.writeAndFlush(request).addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture channelFuture) throws Exception {
@@ -258,7 +415,11 @@ public abstract class NettyAbstractRemotingService {
                     }
                     replyFuture.setSent(false);
                     replyFuture.setReply(null);
-                    replies.remove(opaque);
+                    if (!replies.remove(opaque, replyFuture)) {
+                        return;
+                    }
+                    replyTimer.cancel(replyFuture);
+                    replyFuture.releasePending();
                     replyFuture.setCause(channelFuture.cause());
                     callback.onComplete(replyFuture);
                     log.warn("send command to channel <{}> Error.", RemotingUtils.parseChannelRemoteAddr(channel));
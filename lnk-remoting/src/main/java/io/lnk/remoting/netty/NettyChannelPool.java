@@ -0,0 +1,192 @@
+package io.lnk.remoting.netty;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.lnk.remoting.utils.RemotingUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.AttributeKey;
+
+/**
+ * 单个地址的连接池，固定数量的槽位以CAS方式建立与替换连接，不再使用全局锁
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月10日 下午3:05:21
+ */
+public class NettyChannelPool {
+    public static final String ROUNDROBIN_SELECTOR = "roundrobin";
+    public static final String LEAST_PENDING_SELECTOR = "leastpending";
+    static final AttributeKey<NettyChannelPool> CHANNEL_POOL_KEY = AttributeKey.valueOf("NettyChannelPool");
+    private static final Logger log = LoggerFactory.getLogger(NettyChannelPool.class.getSimpleName());
+    private final String addr;
+    private final Bootstrap bootstrap;
+    private final long connectTimeoutMillis;
+    private final boolean leastPendingSelector;
+    private final AtomicReferenceArray<ChannelFuture> channels;
+    private final AtomicInteger index = new AtomicInteger(0);
+    private final AtomicLong selectCount = new AtomicLong(0);
+    private final AtomicLong connectCount = new AtomicLong(0);
+    private final AtomicLong connectFailureCount = new AtomicLong(0);
+    private final AtomicLong closeCount = new AtomicLong(0);
+
+    public NettyChannelPool(String addr, Bootstrap bootstrap, int channelsPerAddress, String selector, long connectTimeoutMillis) {
+        this.addr = addr;
+        this.bootstrap = bootstrap;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.leastPendingSelector = LEAST_PENDING_SELECTOR.equalsIgnoreCase(selector);
+        this.channels = new AtomicReferenceArray<ChannelFuture>(Math.max(1, channelsPerAddress));
+    }
+
+    public Channel acquire() {
+        this.selectCount.incrementAndGet();
+        int slot = this.leastPendingSelector ? this.selectLeastPendingSlot() : this.nextSlot();
+        ChannelFuture channelFuture = this.channels.get(slot);
+        if (isActive(channelFuture)) {
+            return channelFuture.channel();
+        }
+        channelFuture = this.connect(slot, channelFuture);
+        if (channelFuture.awaitUninterruptibly(this.connectTimeoutMillis)) {
+            if (isActive(channelFuture)) {
+                log.info("connect remote host[{}] success, {}", addr, channelFuture.toString());
+                return channelFuture.channel();
+            }
+            log.warn("connect remote host[" + addr + "] Error, " + channelFuture.toString(), channelFuture.cause());
+        } else {
+            log.warn("connect remote host[{}] timeout {}ms, {}", addr, this.connectTimeoutMillis, channelFuture.toString());
+        }
+        this.connectFailureCount.incrementAndGet();
+        return null;
+    }
+
+    public boolean remove(Channel channel) {
+        for (int i = 0; i < this.channels.length(); i++) {
+            ChannelFuture channelFuture = this.channels.get(i);
+            if (channelFuture != null && channelFuture.channel() == channel && this.channels.compareAndSet(i, channelFuture, null)) {
+                this.closeCount.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void close() {
+        for (int i = 0; i < this.channels.length(); i++) {
+            ChannelFuture channelFuture = this.channels.getAndSet(i, null);
+            if (channelFuture != null) {
+                this.closeCount.incrementAndGet();
+                RemotingUtils.closeChannel(channelFuture.channel());
+            }
+        }
+    }
+
+    private int nextSlot() {
+        return (this.index.getAndIncrement() & Integer.MAX_VALUE) % this.channels.length();
+    }
+
+    /**
+     * 选择未完成请求最少的连接，存在空闲槽位且已有连接都在忙时优先建立新连接
+     */
+    private int selectLeastPendingSlot() {
+        int selected = -1;
+        int selectedPendings = Integer.MAX_VALUE;
+        int emptySlot = -1;
+        for (int i = 0; i < this.channels.length(); i++) {
+            ChannelFuture channelFuture = this.channels.get(i);
+            if (isActive(channelFuture)) {
+                int pendings = NettyAbstractRemotingService.pendings(channelFuture.channel());
+                if (pendings < selectedPendings) {
+                    selected = i;
+                    selectedPendings = pendings;
+                }
+            } else if (emptySlot < 0) {
+                emptySlot = i;
+            }
+        }
+        if (selected >= 0 && (emptySlot < 0 || selectedPendings == 0)) {
+            return selected;
+        }
+        return (emptySlot >= 0) ? emptySlot : this.nextSlot();
+    }
+
+    private ChannelFuture connect(int slot, ChannelFuture expect) {
+        if (expect != null && !expect.isDone()) {
+            return expect;// 其他线程正在建立该槽位的连接
+        }
+        ChannelFuture channelFuture = this.bootstrap.connect(RemotingUtils.string2SocketAddress(addr));
+        channelFuture.channel().attr(CHANNEL_POOL_KEY).set(this);
+        if (this.channels.compareAndSet(slot, expect, channelFuture)) {
+            log.info("begin to connect remote host[{}] slot {} asynchronously", addr, slot);
+            this.connectCount.incrementAndGet();
+            if (expect != null) {
+                RemotingUtils.closeChannel(expect.channel());
+            }
+            return channelFuture;
+        }
+        channelFuture.channel().close();
+        ChannelFuture winner = this.channels.get(slot);
+        return (winner == null) ? this.connect(slot, null) : winner;
+    }
+
+    private static boolean isActive(ChannelFuture channelFuture) {
+        return channelFuture != null && channelFuture.channel() != null && channelFuture.channel().isActive();
+    }
+
+    public String getAddr() {
+        return addr;
+    }
+
+    public int getActiveChannels() {
+        int active = 0;
+        for (int i = 0; i < this.channels.length(); i++) {
+            if (isActive(this.channels.get(i))) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public int getPendings() {
+        int pendings = 0;
+        for (int i = 0; i < this.channels.length(); i++) {
+            ChannelFuture channelFuture = this.channels.get(i);
+            if (channelFuture != null) {
+                pendings += NettyAbstractRemotingService.pendings(channelFuture.channel());
+            }
+        }
+        return pendings;
+    }
+
+    public int getMaxChannels() {
+        return this.channels.length();
+    }
+
+    public long getSelectCount() {
+        return selectCount.get();
+    }
+
+    public long getConnectCount() {
+        return connectCount.get();
+    }
+
+    public long getConnectFailureCount() {
+        return connectFailureCount.get();
+    }
+
+    public long getCloseCount() {
+        return closeCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "NettyChannelPool[addr=" + addr + ", selector=" + (leastPendingSelector ? LEAST_PENDING_SELECTOR : ROUNDROBIN_SELECTOR) + ", active=" + getActiveChannels() + "/" + getMaxChannels() + ", pendings=" + getPendings()
+                + ", select=" + getSelectCount() + ", connect=" + getConnectCount() + ", connectFailure=" + getConnectFailureCount() + ", close=" + getCloseCount() + "]";
+    }
+}
@@ -1,12 +1,10 @@
 package io.lnk.remoting.netty;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import io.lnk.api.protocol.ProtocolFactorySelector;
 import io.lnk.api.utils.LnkThreadFactory;
@@ -25,19 +23,23 @@ import io.lnk.remoting.utils.RemotingUtils;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
-import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 
 /**
@@ -47,26 +49,41 @@ import io.netty.util.concurrent.DefaultEventExecutorGroup;
  * @since 2017年5月19日 下午6:54:59
  */
 public class NettyRemotingClient extends NettyAbstractRemotingService implements RemotingClient {
-    private static final long LOCK_TIMEOUT_MILLIS = 3000;
     private final Configuration configuration;
     private final Bootstrap bootstrap = new Bootstrap();
     private final EventLoopGroup eventLoopGroupWorker;
-    private final Lock lock = new ReentrantLock();
-    private final ConcurrentHashMap<String, RemotingChannelFuture> channels = new ConcurrentHashMap<String, RemotingChannelFuture>();
+    private final boolean usingEpoll;
+    private final Class<? extends SocketChannel> channelClass;
+    private final ConcurrentHashMap<String, NettyChannelPool> channelPools = new ConcurrentHashMap<String, NettyChannelPool>();
     private final ExecutorService defaultThreadPoolExecutor;
     private DefaultEventExecutorGroup defaultEventExecutorGroup;
 
+    private boolean usingEpoll(Configuration configuration) {
+        return (Epoll.isAvailable() && RemotingUtils.isLinuxPlatform() && configuration.isUseEpollNativeSelector());
+    }
+
     public NettyRemotingClient(final ProtocolFactorySelector protocolFactorySelector, final Configuration configuration) {
-        super(protocolFactorySelector);
+        super(protocolFactorySelector, configuration);
         this.configuration = configuration;
         this.defaultThreadPoolExecutor = Executors.newFixedThreadPool(configuration.getDefaultExecutorThreads(), LnkThreadFactory.newThreadFactory("NettyRemotingClientDefaultThreadPoolExecutor-%d", false));
-        this.eventLoopGroupWorker = new NioEventLoopGroup(2, LnkThreadFactory.newThreadFactory("NettyRemotingClientNIOSelector-%d", false));
+        this.usingEpoll = this.usingEpoll(configuration);
+        int clientSelectorThreads = configuration.getClientSelectorThreads();
+        if (this.usingEpoll) {
+            this.channelClass = EpollSocketChannel.class;
+            this.eventLoopGroupWorker = new EpollEventLoopGroup(clientSelectorThreads, LnkThreadFactory.newThreadFactory("NettyRemotingClientEpollSelector-" + clientSelectorThreads + "-%d", false));
+            log.info("OS Platform Epoll isAvailable, so using Epoll sources[EpollSocketChannel, EpollEventLoopGroup]");
+        } else {
+            this.channelClass = NioSocketChannel.class;
+            this.eventLoopGroupWorker = new NioEventLoopGroup(clientSelectorThreads, LnkThreadFactory.newThreadFactory("NettyRemotingClientNIOSelector-" + clientSelectorThreads + "-%d", false));
+        }
     }
 
     @Override
     public void start() {
-        this.defaultEventExecutorGroup = new DefaultEventExecutorGroup(configuration.getWorkerThreads(), LnkThreadFactory.newThreadFactory("NettyRemotingWorker-%d", false));
-        this.bootstrap.group(this.eventLoopGroupWorker).channel(NioSocketChannel.class)
+        if (configuration.isEventExecutorGroupEnable()) {
+            this.defaultEventExecutorGroup = new DefaultEventExecutorGroup(configuration.getWorkerThreads(), LnkThreadFactory.newThreadFactory("NettyRemotingWorker-%d", false));
+        }
+        this.bootstrap.group(this.eventLoopGroupWorker).channel(this.channelClass)
                 .option(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.SO_KEEPALIVE, false)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, configuration.getConnectTimeoutMillis())
@@ -74,9 +91,12 @@ public class NettyRemotingClient extends NettyAbstractRemotingService implements
                 .option(ChannelOption.SO_RCVBUF, configuration.getSocketRcvBufSize())
                 .handler(new ChannelInitializer<SocketChannel>() {
                     public void initChannel(SocketChannel ch) throws Exception {
-                        ch.pipeline().addLast(defaultEventExecutorGroup, new CommandProtocolEncoder(), new CommandProtocolDecoder(),
+                        ch.pipeline().addLast(defaultEventExecutorGroup, new CommandProtocolEncoder(configuration.isZeroCopyCodecEnable(), commandCompressor), new CommandProtocolDecoder(configuration.isZeroCopyCodecEnable(), commandCompressor),
                                 new IdleStateHandler(0, 0, configuration.getChannelMaxIdleTimeSeconds()), 
                                 new NettyConnectManageHandler(), new NettyClientHandler());
+                        if (configuration.isFlushConsolidationEnable()) {
+                            ch.pipeline().addFirst(new FlushConsolidationHandler(configuration.getFlushConsolidationMaxBatch(), true));
+                        }
                     }
                 });
     }
@@ -99,6 +119,7 @@ public class NettyRemotingClient extends NettyAbstractRemotingService implements
             }
         } else {
             this.close(addr, channel);
+            ReferenceCountUtil.release(request);
             throw new RemotingConnectException(addr);
         }
     }
@@ -116,6 +137,7 @@ public class NettyRemotingClient extends NettyAbstractRemotingService implements
             }
         } else {
             this.close(addr, channel);
+            ReferenceCountUtil.release(request);
             throw new RemotingConnectException(addr);
         }
     }
@@ -133,6 +155,7 @@ public class NettyRemotingClient extends NettyAbstractRemotingService implements
             }
         } else {
             this.close(addr, channel);
+            ReferenceCountUtil.release(request);
             throw new RemotingConnectException(addr);
         }
     }
@@ -152,14 +175,17 @@ public class NettyRemotingClient extends NettyAbstractRemotingService implements
     @Override
     public void shutdown() {
         try {
-            for (RemotingChannelFuture remotingChannelFuture : this.channels.values()) {
-                this.close(null, remotingChannelFuture.getChannel());
+            for (NettyChannelPool channelPool : this.channelPools.values()) {
+                log.info("close {}", channelPool);
+                channelPool.close();
             }
-            this.channels.clear();
+            this.channelPools.clear();
             this.eventLoopGroupWorker.shutdownGracefully();
             if (this.defaultEventExecutorGroup != null) {
                 this.defaultEventExecutorGroup.shutdownGracefully();
             }
+            this.replyTimer.stop();
+            log.info(this.getCompressionStats().toString());
         } catch (Throwable e) {
             log.error("NettyRemotingClient shutdown Error.", e);
         }
@@ -174,166 +200,52 @@ public class NettyRemotingClient extends NettyAbstractRemotingService implements
 
     private void close(final String addr, final Channel channel) {
         if (channel == null) {
-            this.channels.remove(addr);
             return;
         }
-        final String addrRemote = (addr == null) ? RemotingUtils.parseChannelRemoteAddr(channel) : addr;
-        try {
-            if (this.lock.tryLock(LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
-                try {
-                    boolean close = true;
-                    final RemotingChannelFuture remotingChannelFuture = this.channels.get(addrRemote);
-                    if (null == remotingChannelFuture) {
-                        close = false;
-                    } else if (remotingChannelFuture.getChannel() != channel) {
-                        close = false;
-                    }
-                    if (close) {
-                        this.channels.remove(addrRemote);
-                    }
-                    RemotingUtils.closeChannel(channel);
-                } catch (Throwable e) {
-                    log.error("close the channel[" + addrRemote +  "] Error.", e);
-                } finally {
-                    this.lock.unlock();
-                }
-            } else {
-                log.warn("try to lock channels, but timeout, {}ms", LOCK_TIMEOUT_MILLIS);
-            }
-        } catch (InterruptedException e) {
-            log.error("close channel Error.", e);
+        NettyChannelPool channelPool = channel.attr(NettyChannelPool.CHANNEL_POOL_KEY).get();
+        if (channelPool != null) {
+            channelPool.remove(channel);
         }
+        RemotingUtils.closeChannel(channel);
     }
 
     public void close(final Channel channel) {
         if (channel == null) {
             return;
         }
-        try {
-            if (this.lock.tryLock(LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
-                try {
-                    boolean close = true;
-                    RemotingChannelFuture remotingChannelFuture = null;
-                    String addrRemote = null;
-                    for (Map.Entry<String, RemotingChannelFuture> entry : channels.entrySet()) {
-                        String key = entry.getKey();
-                        RemotingChannelFuture prev = entry.getValue();
-                        if (prev.getChannel() != null) {
-                            if (prev.getChannel() == channel) {
-                                remotingChannelFuture = prev;
-                                addrRemote = key;
-                                break;
-                            }
-                        }
-                    }
-                    if (null == remotingChannelFuture) {
-                        close = false;
-                    }
-                    if (close) {
-                        this.channels.remove(addrRemote);
-                        RemotingUtils.closeChannel(channel);
-                    }
-                } catch (Throwable e) {
-                    log.error("close the channel Error.", e);
-                } finally {
-                    this.lock.unlock();
-                }
-            } else {
-                log.warn("try to lock channels, but timeout, {}ms", LOCK_TIMEOUT_MILLIS);
-            }
-        } catch (InterruptedException e) {
-            log.error("close channel Error.", e);
+        NettyChannelPool channelPool = channel.attr(NettyChannelPool.CHANNEL_POOL_KEY).get();
+        if (channelPool != null && channelPool.remove(channel)) {
+            RemotingUtils.closeChannel(channel);
         }
     }
 
     private Channel getAndCreateChannel(final String addr) throws InterruptedException {
-        RemotingChannelFuture remotingChannelFuture = this.channels.get(addr);
-        if (remotingChannelFuture != null && remotingChannelFuture.isActive()) {
-            return remotingChannelFuture.getChannel();
-        }
-        return this.createChannel(addr);
-    }
-
-    private Channel createChannel(final String addr) throws InterruptedException {
-        RemotingChannelFuture remotingChannelFuture = this.channels.get(addr);
-        if (remotingChannelFuture != null && remotingChannelFuture.isActive()) {
-            return remotingChannelFuture.getChannel();
-        }
-        if (this.lock.tryLock(LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
-            try {
-                boolean createNewConnection = false;
-                remotingChannelFuture = this.channels.get(addr);
-                if (remotingChannelFuture != null) {
-                    if (remotingChannelFuture.isActive()) {
-                        return remotingChannelFuture.getChannel();
-                    } else if (!remotingChannelFuture.getChannelFuture().isDone()) {
-                        createNewConnection = false;
-                    } else {
-                        this.channels.remove(addr);
-                        createNewConnection = true;
-                        remotingChannelFuture = this.channels.remove(addr);
-                        if (remotingChannelFuture != null) {
-                            try {
-                                Channel channel = remotingChannelFuture.getChannel();
-                                channel.close();
-                                channel = null;
-                                remotingChannelFuture = null;
-                            } catch (Throwable ignore) {}
-                        }
-                    }
-                } else {
-                    createNewConnection = true;
-                }
-                if (createNewConnection) {
-                    ChannelFuture channelFuture = this.bootstrap.connect(RemotingUtils.string2SocketAddress(addr));
-                    log.info("begin to connect remote host[{}] asynchronously", addr);
-                    remotingChannelFuture = new RemotingChannelFuture(channelFuture);
-                    this.channels.put(addr, remotingChannelFuture);
-                }
-            } catch (Throwable e) {
-                log.error("create channel Error.", e);
-            } finally {
-                this.lock.unlock();
-            }
-        } else {
-            log.warn("try to lock channels, but timeout, {}ms", LOCK_TIMEOUT_MILLIS);
-        }
-        if (remotingChannelFuture != null) {
-            ChannelFuture channelFuture = remotingChannelFuture.getChannelFuture();
-            if (channelFuture.awaitUninterruptibly(this.configuration.getConnectTimeoutMillis())) {
-                if (remotingChannelFuture.isActive()) {
-                    log.info("connect remote host[{}] success, {}", addr, channelFuture.toString());
-                    return remotingChannelFuture.getChannel();
-                } else {
-                    log.warn("connect remote host[" + addr + "] Error, " + channelFuture.toString(), channelFuture.cause());
-                }
-            } else {
-                log.warn("connect remote host[{}] timeout {}ms, {}", addr, this.configuration.getConnectTimeoutMillis(), channelFuture.toString());
+        NettyChannelPool channelPool = this.channelPools.get(addr);
+        if (channelPool == null) {
+            channelPool = new NettyChannelPool(addr, this.bootstrap, this.configuration.getClientChannelsPerAddress(), this.configuration.getClientChannelSelector(), this.configuration.getConnectTimeoutMillis());
+            NettyChannelPool prev = this.channelPools.putIfAbsent(addr, channelPool);
+            if (prev != null) {
+                channelPool = prev;
             }
         }
-        return null;
+        return channelPool.acquire();
     }
 
-    private static class RemotingChannelFuture {
-        private final ChannelFuture channelFuture;
-        public RemotingChannelFuture(ChannelFuture channelFuture) {
-            this.channelFuture = channelFuture;
-        }
-
-        public boolean isActive() {
-            return this.channelFuture.channel() != null && this.channelFuture.channel().isActive();
-        }
-
-        private Channel getChannel() {
-            return this.channelFuture.channel();
-        }
+    @Override
+    public int getPendings(String addr) {
+        NettyChannelPool channelPool = this.channelPools.get(addr);
+        return (channelPool == null) ? 0 : channelPool.getPendings();
+    }
 
-        public ChannelFuture getChannelFuture() {
-            return channelFuture;
-        }
+    public Map<String, NettyChannelPool> getChannelPools() {
+        return Collections.unmodifiableMap(this.channelPools);
     }
 
     class NettyClientHandler extends SimpleChannelInboundHandler<RemotingCommand> {
+        NettyClientHandler() {
+            super(false);// RemotingCommand的释放由commandProcessor负责
+        }
+
         protected void channelRead0(ChannelHandlerContext ctx, RemotingCommand command) throws Exception {
             commandProcessor(ctx, command);
         }
@@ -0,0 +1,180 @@
+package io.lnk.remoting.netty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.lnk.api.stream.Frame;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+import io.lnk.remoting.utils.RemotingUtils;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+
+/**
+ * 客户端按到达顺序读取服务端分块写出的返回值。开始时授予服务端creditWindow个分块的额度，
+ * 每读完半个窗口再补充已读的额度，因此缓冲的分块数不超过creditWindow
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月18日 上午11:20:36
+ */
+class NettyRemotingInputStream extends InputStream {
+    private final Channel channel;
+    private final RemotingCommand header;
+    private final int creditWindow;
+    private final long readTimeoutMillis;
+    private final ConcurrentHashMap<Long, NettyRemotingInputStream> streams;
+    private final LinkedBlockingQueue<RemotingCommand> chunks = new LinkedBlockingQueue<RemotingCommand>();
+    private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            RemotingCommand chunk = new RemotingCommand();
+            chunk.setCode(CommandCode.SYSTEM_ERROR);
+            chunk.setChunkEnd();
+            chunk.setBody(("channel " + RemotingUtils.parseChannelRemoteAddr(channel) + " closed.").getBytes(StandardCharsets.UTF_8));
+            onChunk(chunk);
+        }
+    };
+    private byte[] current;
+    private int position;
+    private int consumed;
+    private boolean ended;
+    private IOException cause;
+    private volatile boolean closed;
+
+    NettyRemotingInputStream(Channel channel, RemotingCommand header, int creditWindow, long readTimeoutMillis, ConcurrentHashMap<Long, NettyRemotingInputStream> streams) {
+        this.channel = channel;
+        this.header = header;
+        this.creditWindow = creditWindow;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.streams = streams;
+    }
+
+    void start() {
+        this.channel.closeFuture().addListener(this.closeListener);
+        this.writeCredit(this.creditWindow, false);
+    }
+
+    /**
+     * 在IO线程中调用，报文体转换为byte[]后立即释放
+     */
+    void onChunk(RemotingCommand chunk) {
+        chunk.getBody();
+        chunk.release();
+        if (this.closed) {
+            return;
+        }
+        if (chunk.isChunkEnd()) {
+            this.streams.remove(header.getOpaque(), this);
+            this.channel.closeFuture().removeListener(this.closeListener);
+        }
+        this.chunks.offer(chunk);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = this.read(b, 0, 1);
+        return (n < 0) ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("stream closed.");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (this.current == null || this.position >= this.current.length) {
+            if (this.cause != null) {
+                throw this.cause;
+            }
+            if (this.ended) {
+                return -1;
+            }
+            this.nextChunk();
+        }
+        int n = Math.min(len, this.current.length - this.position);
+        System.arraycopy(this.current, this.position, b, off, n);
+        this.position += n;
+        return n;
+    }
+
+    private void nextChunk() throws IOException {
+        RemotingCommand chunk;
+        try {
+            chunk = this.chunks.poll(this.readTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("read stream opaque : " + header.getOpaque() + " interrupted.");
+        }
+        if (chunk == null) {
+            this.cause = new IOException("read stream opaque : " + header.getOpaque() + " from " + RemotingUtils.parseChannelRemoteAddr(channel) + " timeout " + this.readTimeoutMillis + "(ms).");
+            this.cancel();
+            throw this.cause;
+        }
+        this.current = chunk.getBody();
+        this.position = 0;
+        if (chunk.isChunkEnd()) {
+            this.ended = true;
+            if (chunk.getCode() != CommandCode.SUCCESS) {
+                this.current = null;
+                this.cause = new IOException(new String(chunk.getBody(), StandardCharsets.UTF_8));
+            }
+            return;
+        }
+        this.consumed++;
+        if (this.consumed >= ((this.creditWindow + 1) >> 1)) {
+            this.writeCredit(this.consumed, false);
+            this.consumed = 0;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (this.current == null) ? 0 : (this.current.length - this.position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.cancel();
+        this.closed = true;
+        this.current = null;
+        this.chunks.clear();
+    }
+
+    private void cancel() {
+        if (this.ended) {
+            return;
+        }
+        this.ended = true;
+        this.streams.remove(header.getOpaque(), this);
+        this.channel.closeFuture().removeListener(this.closeListener);
+        this.writeCredit(0, true);
+    }
+
+    private void writeCredit(int credits, boolean cancel) {
+        RemotingCommand credit = new RemotingCommand();
+        credit.setCode(header.getCode());
+        credit.setVersion(header.getVersion());
+        credit.setProtocol(header.getProtocol());
+        credit.setOpaque(header.getOpaque());
+        credit.setCredit();
+        if (cancel) {
+            credit.setChunkEnd();
+        }
+        credit.setBody(Frame.toBytes(credits));
+        this.channel.writeAndFlush(credit);
+    }
+}
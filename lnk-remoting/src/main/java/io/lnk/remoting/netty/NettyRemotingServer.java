@@ -34,6 +34,7 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -62,7 +63,7 @@ public class NettyRemotingServer extends NettyAbstractRemotingService implements
     }
 
     public NettyRemotingServer(final ProtocolFactorySelector protocolFactorySelector, final Configuration configuration) {
-        super(protocolFactorySelector);
+        super(protocolFactorySelector, configuration);
         this.serverBootstrap = new ServerBootstrap();
         this.configuration = configuration;
         this.usingEpoll = this.usingEpoll(this.configuration);
@@ -82,7 +83,9 @@ public class NettyRemotingServer extends NettyAbstractRemotingService implements
 
     @Override
     public void start() {
-        this.defaultEventExecutorGroup = new DefaultEventExecutorGroup(configuration.getWorkerThreads(), LnkThreadFactory.newThreadFactory("NettyRemotingServerCodecThread-%d", false));
+        if (configuration.isEventExecutorGroupEnable()) {
+            this.defaultEventExecutorGroup = new DefaultEventExecutorGroup(configuration.getWorkerThreads(), LnkThreadFactory.newThreadFactory("NettyRemotingServerCodecThread-%d", false));
+        }
         ServerBootstrap childHandler = this.serverBootstrap.group(this.eventLoopGroupBoss, this.eventLoopGroupSelector)
                 .channel(this.channelClass)
                 .option(ChannelOption.SO_BACKLOG, 1024)
@@ -94,9 +97,12 @@ public class NettyRemotingServer extends NettyAbstractRemotingService implements
                 .localAddress(new InetSocketAddress(this.configuration.getListenPort()))
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     public void initChannel(SocketChannel ch) throws Exception {
-                        ch.pipeline().addLast(defaultEventExecutorGroup, new CommandProtocolEncoder(), new CommandProtocolDecoder(),
+                        ch.pipeline().addLast(defaultEventExecutorGroup, new CommandProtocolEncoder(configuration.isZeroCopyCodecEnable(), commandCompressor), new CommandProtocolDecoder(configuration.isZeroCopyCodecEnable(), commandCompressor),
                                 new IdleStateHandler(0, 0, configuration.getChannelMaxIdleTimeSeconds()), 
                                 new NettyConnectManageHandler(), new NettyServerHandler());
+                        if (configuration.isFlushConsolidationEnable()) {
+                            ch.pipeline().addFirst(new FlushConsolidationHandler(configuration.getFlushConsolidationMaxBatch(), true));
+                        }
                     }
                 });
         if (configuration.isPooledByteBufAllocatorEnable()) {
@@ -163,6 +169,8 @@ public class NettyRemotingServer extends NettyAbstractRemotingService implements
             if (this.defaultEventExecutorGroup != null) {
                 this.defaultEventExecutorGroup.shutdownGracefully();
             }
+            this.replyTimer.stop();
+            log.info(this.getCompressionStats().toString());
         } catch (Throwable e) {
             log.error("NettyRemotingServer shutdown Error.", e);
         }
@@ -176,6 +184,10 @@ public class NettyRemotingServer extends NettyAbstractRemotingService implements
     }
 
     class NettyServerHandler extends SimpleChannelInboundHandler<RemotingCommand> {
+        NettyServerHandler() {
+            super(false);// RemotingCommand的释放由commandProcessor负责
+        }
+
         protected void channelRead0(ChannelHandlerContext ctx, RemotingCommand command) throws Exception {
             commandProcessor(ctx, command);
         }
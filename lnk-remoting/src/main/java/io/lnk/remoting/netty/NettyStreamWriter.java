@@ -0,0 +1,146 @@
+package io.lnk.remoting.netty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+import io.lnk.remoting.utils.RemotingUtils;
+import io.netty.channel.Channel;
+
+/**
+ * 服务端把返回的InputStream按分块写出，每写出一块消耗一个客户端授予的额度，额度用完后暂停直到收到新的额度。
+ * 读取InputStream可能阻塞，因此只在executor中执行
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月18日 上午10:42:15
+ */
+class NettyStreamWriter implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(NettyStreamWriter.class.getSimpleName());
+    private final Channel channel;
+    private final RemotingCommand header;
+    private final InputStream in;
+    private final int chunkSize;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Long, NettyStreamWriter> writers;
+    private final AtomicInteger credits = new AtomicInteger(0);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean cancelled = false;
+    private volatile boolean finished = false;
+
+    NettyStreamWriter(Channel channel, RemotingCommand header, int chunkSize, ExecutorService executor, ConcurrentHashMap<Long, NettyStreamWriter> writers) {
+        this.channel = channel;
+        this.header = header;
+        this.in = header.getStreamBody();
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+        this.writers = writers;
+    }
+
+    long getOpaque() {
+        return header.getOpaque();
+    }
+
+    void addCredits(int increment) {
+        this.credits.addAndGet(increment);
+        this.schedule();
+    }
+
+    void cancel() {
+        this.cancelled = true;
+        this.schedule();
+    }
+
+    private void schedule() {
+        if (this.finished || this.scheduled.compareAndSet(false, true) == false) {
+            return;
+        }
+        try {
+            this.executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            this.scheduled.set(false);
+            log.warn("stream writer rejected, opaque : " + getOpaque() + ", " + RemotingUtils.parseChannelRemoteAddr(channel));
+            this.finish();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.cancelled == false && this.credits.get() > 0 && this.channel.isActive()) {
+                byte[] chunk = new byte[this.chunkSize];
+                int length = this.readFully(chunk);
+                boolean end = (length < this.chunkSize);
+                this.credits.decrementAndGet();
+                this.writeChunk(CommandCode.SUCCESS, (length == this.chunkSize) ? chunk : Arrays.copyOf(chunk, length), end);
+                if (end) {
+                    this.finish();
+                    return;
+                }
+            }
+            if (this.cancelled || this.channel.isActive() == false) {
+                this.finish();
+                return;
+            }
+        } catch (Throwable e) {
+            log.error("write stream opaque : " + getOpaque() + " to " + RemotingUtils.parseChannelRemoteAddr(channel) + " Error.", e);
+            this.writeChunk(CommandCode.SYSTEM_ERROR, RemotingUtils.exceptionToString(e).getBytes(StandardCharsets.UTF_8), true);
+            this.finish();
+            return;
+        } finally {
+            this.scheduled.set(false);
+        }
+        if (this.credits.get() > 0 || this.cancelled) {
+            this.schedule();// 本轮结束前到达的额度或取消
+        }
+    }
+
+    private int readFully(byte[] chunk) throws IOException {
+        int length = 0;
+        while (length < chunk.length) {
+            int n = this.in.read(chunk, length, chunk.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        return length;
+    }
+
+    private void writeChunk(int code, byte[] body, boolean end) {
+        RemotingCommand chunk = new RemotingCommand();
+        chunk.setCode(code);
+        chunk.setVersion(header.getVersion());
+        chunk.setProtocol(header.getProtocol());
+        chunk.setOpaque(header.getOpaque());
+        chunk.setReply();
+        chunk.setChunk();
+        if (end) {
+            chunk.setChunkEnd();
+        }
+        chunk.setBody(body);
+        this.channel.writeAndFlush(chunk);
+    }
+
+    void finish() {
+        this.finished = true;
+        this.writers.remove(getOpaque(), this);
+        try {
+            this.in.close();
+        } catch (Throwable e) {
+            log.warn("close stream opaque : " + getOpaque() + " Error.", e);
+        }
+    }
+}
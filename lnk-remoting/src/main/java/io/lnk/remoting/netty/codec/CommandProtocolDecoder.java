@@ -1,16 +1,18 @@
 package io.lnk.remoting.netty.codec;
 
-import java.nio.ByteBuffer;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.lnk.remoting.Configuration;
+import io.lnk.remoting.exception.RemotingCommandException;
+import io.lnk.remoting.protocol.CommandCompressor;
 import io.lnk.remoting.protocol.RemotingCommand;
 import io.lnk.remoting.utils.RemotingUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -20,10 +22,32 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
  */
 public class CommandProtocolDecoder extends LengthFieldBasedFrameDecoder {
     private static final Logger log = LoggerFactory.getLogger(CommandProtocolDecoder.class.getSimpleName());
+    /**
+     * 对端在该连接上声明过能够解压报文体
+     */
+    static final AttributeKey<Boolean> PEER_ACCEPT_COMPRESS_KEY = AttributeKey.valueOf("PeerAcceptCompress");
     private static final int FRAME_MAX_LENGTH = Integer.getInteger(Configuration.IO_FRAME_MAXLENGTH, (Integer.MAX_VALUE - RemotingCommand.COMMAND_LENGTH_LENGTH));
+    /**
+     * 零拷贝模式下报文体直接引用接收缓冲区的切片，由RemotingCommand的持有者负责release
+     */
+    private final boolean zeroCopy;
+    /**
+     * 为null时不解压报文体，编码器也不会声明支持解压
+     */
+    private final CommandCompressor compressor;
 
     public CommandProtocolDecoder() {
+        this(false);
+    }
+
+    public CommandProtocolDecoder(boolean zeroCopy) {
+        this(zeroCopy, null);
+    }
+
+    public CommandProtocolDecoder(boolean zeroCopy, CommandCompressor compressor) {
         super(FRAME_MAX_LENGTH, (RemotingCommand.COMMAND_LENGTH_LENGTH - RemotingCommand.BODY_LENGTH), RemotingCommand.BODY_LENGTH, 0, 0);
+        this.zeroCopy = zeroCopy;
+        this.compressor = compressor;
     }
 
     @Override
@@ -34,7 +58,7 @@ public class CommandProtocolDecoder extends LengthFieldBasedFrameDecoder {
             if (frame == null) {
                 return null;
             }
-            return this.decodeCommand(frame.nioBuffer());
+            return this.decodeCommand(ctx, frame);
         } catch (Throwable e) {
             log.error("decode ByteBuf to RemotingCommand Error, RemoteAddr : " + RemotingUtils.parseChannelRemoteAddr(ctx.channel()), e);
             RemotingUtils.closeChannel(ctx.channel());
@@ -46,22 +70,59 @@ public class CommandProtocolDecoder extends LengthFieldBasedFrameDecoder {
         return null;
     }
     
-    private RemotingCommand decodeCommand(ByteBuffer byteBuffer) {
-        int code = byteBuffer.getInt();
-        int version = byteBuffer.getInt();
-        int command = byteBuffer.getInt();
-        int protocol = byteBuffer.getInt();
-        long opaque = byteBuffer.getLong();
-        int bodyLength = byteBuffer.getInt();
+    private RemotingCommand decodeCommand(ChannelHandlerContext ctx, ByteBuf frame) throws RemotingCommandException {
+        int code = frame.readInt();
+        int version = frame.readInt();
+        int command = frame.readInt();
+        int protocol = frame.readInt();
+        long opaque = frame.readLong();
+        int bodyLength = frame.readInt();
         RemotingCommand remotingCommand = new RemotingCommand();
         remotingCommand.setCode(code);
         remotingCommand.setVersion(version);
         remotingCommand.setCommand(command);
         remotingCommand.setProtocol(protocol);
         remotingCommand.setOpaque(opaque);
+        if (remotingCommand.hasDeadline()) {
+            remotingCommand.setDeadline(frame.readInt());
+            bodyLength -= RemotingCommand.DEADLINE_LENGTH;
+        }
+        if (this.compressor != null && remotingCommand.isAcceptCompress()) {
+            Attribute<Boolean> peerAcceptCompress = ctx.channel().attr(PEER_ACCEPT_COMPRESS_KEY);
+            if (peerAcceptCompress.get() == null) {
+                peerAcceptCompress.set(Boolean.TRUE);
+            }
+        }
+        if (remotingCommand.isCompressed()) {
+            this.decompressBody(ctx, frame.slice(frame.readerIndex(), bodyLength), remotingCommand);
+            return remotingCommand;
+        }
+        if (this.zeroCopy) {
+            remotingCommand.setBodyBuffer(frame.retainedSlice(frame.readerIndex(), bodyLength));
+            return remotingCommand;
+        }
         byte[] body = new byte[bodyLength];
-        byteBuffer.get(body);
+        frame.readBytes(body);
         remotingCommand.setBody(body);
         return remotingCommand;
     }
+
+    private void decompressBody(ChannelHandlerContext ctx, ByteBuf compressed, RemotingCommand remotingCommand) throws RemotingCommandException {
+        if (this.compressor == null) {
+            throw new RemotingCommandException("compressed body not supported, command : " + remotingCommand);
+        }
+        ByteBuf body = this.compressor.decompress(compressed, remotingCommand.isDeflate(), ctx.alloc());
+        remotingCommand.clearCompressed();
+        if (this.zeroCopy) {
+            remotingCommand.setBodyBuffer(body);
+            return;
+        }
+        try {
+            byte[] bytes = new byte[body.readableBytes()];
+            body.readBytes(bytes);
+            remotingCommand.setBody(bytes);
+        } finally {
+            body.release();
+        }
+    }
 }
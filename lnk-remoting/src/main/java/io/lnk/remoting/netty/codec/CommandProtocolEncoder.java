@@ -1,15 +1,18 @@
 package io.lnk.remoting.netty.codec;
 
-import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.lnk.remoting.protocol.CommandCompressor;
 import io.lnk.remoting.protocol.RemotingCommand;
 import io.lnk.remoting.utils.RemotingUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -17,31 +20,98 @@ import io.netty.handler.codec.MessageToByteEncoder;
  * @version 1.0.0
  * @since 2017年5月18日 上午11:57:58
  */
-public class CommandProtocolEncoder extends MessageToByteEncoder<RemotingCommand> {
+public class CommandProtocolEncoder extends MessageToMessageEncoder<RemotingCommand> {
     
     private static final Logger log = LoggerFactory.getLogger(CommandProtocolEncoder.class.getSimpleName());
+    /**
+     * 零拷贝模式下ByteBuf报文体不再复制，而是与报文头组合成CompositeByteBuf直接写出
+     */
+    private final boolean zeroCopy;
+    /**
+     * 不为null时每个报文都声明支持解压，对端同样声明过之后达到阈值的报文体才会压缩
+     */
+    private final CommandCompressor compressor;
+
+    public CommandProtocolEncoder() {
+        this(false);
+    }
+
+    public CommandProtocolEncoder(boolean zeroCopy) {
+        this(zeroCopy, null);
+    }
+
+    public CommandProtocolEncoder(boolean zeroCopy, CommandCompressor compressor) {
+        super();
+        this.zeroCopy = zeroCopy;
+        this.compressor = compressor;
+    }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, RemotingCommand command, ByteBuf out) throws Exception {
+    protected void encode(ChannelHandlerContext ctx, RemotingCommand command, List<Object> out) throws Exception {
         try {
-            ByteBuffer header = this.encodeHeader(command);
-            out.writeBytes(header);
-            out.writeBytes(command.getBody());
+            final int bodyLength = command.getBodyLength();
+            final ByteBuf bodyBuffer = command.getBodyBuffer();
+            final ByteBuf compressed = this.compress(ctx, command, bodyBuffer, bodyLength);
+            if (compressed != null) {
+                ByteBuf header = ctx.alloc().ioBuffer(headerLength(command));
+                this.encodeHeader(command, RemotingCommand.encodeCommand(command.getCommand(), true, true, this.compressor.isDeflate()), compressed.readableBytes(), header);
+                CompositeByteBuf frame = ctx.alloc().compositeBuffer(2);
+                frame.addComponents(true, header, compressed);
+                out.add(frame);
+                return;
+            }
+            final int commandBits = RemotingCommand.encodeCommand(command.getCommand(), (this.compressor != null), false, false);
+            if (this.zeroCopy && bodyBuffer != null) {
+                ByteBuf header = ctx.alloc().ioBuffer(headerLength(command));
+                this.encodeHeader(command, commandBits, bodyLength, header);
+                CompositeByteBuf frame = ctx.alloc().compositeBuffer(2);
+                frame.addComponents(true, header, bodyBuffer.retainedDuplicate());
+                out.add(frame);
+                return;
+            }
+            ByteBuf frame = ctx.alloc().ioBuffer(headerLength(command) + bodyLength);
+            this.encodeHeader(command, commandBits, bodyLength, frame);
+            if (bodyBuffer != null) {
+                frame.writeBytes(bodyBuffer, bodyBuffer.readerIndex(), bodyLength);
+            } else if (bodyLength > 0) {
+                frame.writeBytes(command.getBody());
+            }
+            out.add(frame);
         } catch (Throwable e) {
             log.error("encode RemotingCommand to ByteBuf Error, RemoteAddr : " + RemotingUtils.parseChannelRemoteAddr(ctx.channel()), e);
             RemotingUtils.closeChannel(ctx.channel());
+            throw e;
         }
     }
     
-    public ByteBuffer encodeHeader(RemotingCommand command) {
-        ByteBuffer headerBytes = ByteBuffer.allocate(RemotingCommand.COMMAND_LENGTH_LENGTH);
-        headerBytes.putInt(command.getCode());
-        headerBytes.putInt(command.getVersion());
-        headerBytes.putInt(command.getCommand());
-        headerBytes.putInt(command.getProtocol());
-        headerBytes.putLong(command.getOpaque());
-        headerBytes.putInt(command.getBody().length);
-        headerBytes.flip();
-        return headerBytes;
+    private ByteBuf compress(ChannelHandlerContext ctx, RemotingCommand command, ByteBuf bodyBuffer, int bodyLength) {
+        if (this.compressor == null || this.compressor.isCompressEnable() == false || bodyLength <= 0) {
+            return null;
+        }
+        if (Boolean.TRUE.equals(ctx.channel().attr(CommandProtocolDecoder.PEER_ACCEPT_COMPRESS_KEY).get()) == false) {
+            return null;
+        }
+        ByteBuf body = (bodyBuffer != null) ? bodyBuffer : Unpooled.wrappedBuffer(command.getBody());
+        return this.compressor.compress(body, ctx.alloc());
+    }
+    
+    private static int headerLength(RemotingCommand command) {
+        return RemotingCommand.COMMAND_LENGTH_LENGTH + (command.hasDeadline() ? RemotingCommand.DEADLINE_LENGTH : 0);
+    }
+    
+    /**
+     * 带截止时间的请求在报文头之后写出编码时的剩余毫秒数，同一请求写到多个连接时各自计算
+     */
+    public void encodeHeader(RemotingCommand command, int commandBits, int bodyLength, ByteBuf out) {
+        final boolean deadline = command.hasDeadline();
+        out.writeInt(command.getCode());
+        out.writeInt(command.getVersion());
+        out.writeInt(commandBits);
+        out.writeInt(command.getProtocol());
+        out.writeLong(command.getOpaque());
+        out.writeInt(deadline ? (RemotingCommand.DEADLINE_LENGTH + bodyLength) : bodyLength);
+        if (deadline) {
+            out.writeInt(command.getRemainingMillis());
+        }
     }
 }
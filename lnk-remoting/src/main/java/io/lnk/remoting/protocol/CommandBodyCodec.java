@@ -0,0 +1,53 @@
+package io.lnk.remoting.protocol;
+
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.api.protocol.StreamingProtocolFactory;
+import io.lnk.remoting.Configuration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * RemotingCommand报文体的编解码。开启streamingProtocolEnable后，支持流式编解码的协议直接序列化到ByteBuf报文体，
+ * 该ByteBuf随RemotingCommand一起由编码器写出后释放；接收端的零拷贝报文体直接作为输入流反序列化
+ * 
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月15日 下午3:40:18
+ */
+public class CommandBodyCodec {
+    private final boolean streaming;
+    private final ByteBufAllocator allocator;
+
+    public CommandBodyCodec(Configuration configuration) {
+        this.streaming = configuration.isStreamingProtocolEnable();
+        this.allocator = configuration.isPooledByteBufAllocatorEnable() ? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT;
+    }
+
+    public void encode(RemotingCommand command, Object body, ProtocolFactory protocolFactory) {
+        if (this.streaming == false || (protocolFactory instanceof StreamingProtocolFactory) == false) {
+            command.setBody(protocolFactory.encode(body));
+            return;
+        }
+        ByteBuf bodyBuffer = this.allocator.ioBuffer();
+        try {
+            ((StreamingProtocolFactory) protocolFactory).encode(body, new ByteBufOutputStream(bodyBuffer));
+        } catch (RuntimeException e) {
+            bodyBuffer.release();
+            throw e;
+        }
+        command.setBodyBuffer(bodyBuffer);
+    }
+
+    public <T> T decode(RemotingCommand command, Class<T> objType, ProtocolFactory protocolFactory) {
+        ByteBuf bodyBuffer = command.getBodyBuffer();
+        if (bodyBuffer == null || (protocolFactory instanceof StreamingProtocolFactory) == false) {
+            return protocolFactory.decode(objType, command.getBody());
+        }
+        return ((StreamingProtocolFactory) protocolFactory).decode(objType, new ByteBufInputStream(bodyBuffer.duplicate()));
+    }
+}
@@ -0,0 +1,203 @@
+package io.lnk.remoting.protocol;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.lnk.remoting.Configuration;
+import io.lnk.remoting.exception.RemotingCommandException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.compression.Snappy;
+
+/**
+ * 报文体压缩，压缩后的报文体以原始长度开头：
+ *
+ * <pre>
+ * snappy  : int rawLength, { int blockLength, snappy block }*  每块最多SNAPPY_BLOCK_LENGTH字节原始数据
+ * deflate : int rawLength, deflate stream
+ * </pre>
+ *
+ * 解压总是可用，是否压缩由compressEnable、compressThreshold以及对端是否声明支持解压共同决定；
+ * 原始长度来自对端，超过decompressMaxLength时在分配内存前拒绝
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月17日 上午10:12:37
+ */
+public class CommandCompressor {
+    public static final String SNAPPY = "snappy";
+    public static final String DEFLATE = "deflate";
+    private static final int SNAPPY_BLOCK_LENGTH = Short.MAX_VALUE;
+    private static final int RAW_LENGTH = 4;
+    private static final int BLOCK_LENGTH = 4;
+    private final boolean compressEnable;
+    private final int compressThreshold;
+    private final int decompressMaxLength;
+    private final boolean deflate;
+    private final CompressionStats stats = new CompressionStats();
+
+    public CommandCompressor(Configuration configuration) {
+        this.compressEnable = configuration.isCompressEnable();
+        this.compressThreshold = configuration.getCompressThreshold();
+        this.decompressMaxLength = configuration.getDecompressMaxLength();
+        String compressType = StringUtils.defaultIfBlank(configuration.getCompressType(), SNAPPY);
+        if (StringUtils.equalsIgnoreCase(compressType, DEFLATE)) {
+            this.deflate = true;
+        } else if (StringUtils.equalsIgnoreCase(compressType, SNAPPY)) {
+            this.deflate = false;
+        } else {
+            throw new IllegalArgumentException("unknown compressType : " + compressType);
+        }
+    }
+
+    public boolean isCompressEnable() {
+        return compressEnable;
+    }
+
+    public boolean isDeflate() {
+        return deflate;
+    }
+
+    public CompressionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 报文体达到阈值时压缩，不改变body的读索引；未达到阈值或压缩后没有变小时返回null
+     */
+    public ByteBuf compress(ByteBuf body, ByteBufAllocator allocator) {
+        final int rawLength = body.readableBytes();
+        if (this.compressEnable == false || rawLength < this.compressThreshold) {
+            return null;
+        }
+        long start = System.nanoTime();
+        ByteBuf compressed = allocator.buffer(RAW_LENGTH + (rawLength >>> 1));
+        try {
+            compressed.writeInt(rawLength);
+            if (this.deflate) {
+                this.deflate(body, compressed);
+            } else {
+                this.snappy(body, compressed);
+            }
+        } catch (RuntimeException e) {
+            compressed.release();
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        if (compressed.readableBytes() >= rawLength) {
+            compressed.release();
+            this.stats.skipped(nanos);
+            return null;
+        }
+        this.stats.compressed(rawLength, compressed.readableBytes(), nanos);
+        return compressed;
+    }
+
+    public ByteBuf decompress(ByteBuf body, boolean deflate, ByteBufAllocator allocator) throws RemotingCommandException {
+        long start = System.nanoTime();
+        ByteBuf in = body.duplicate();
+        final int compressedLength = in.readableBytes();
+        if (compressedLength < RAW_LENGTH) {
+            throw new RemotingCommandException("illegal compressed body, compressedLength : " + compressedLength);
+        }
+        final int rawLength = in.readInt();
+        if (rawLength < 0 || rawLength > this.decompressMaxLength) {
+            throw new RemotingCommandException("illegal compressed body, rawLength : " + rawLength + ", decompressMaxLength : " + this.decompressMaxLength);
+        }
+        ByteBuf decompressed = allocator.buffer(rawLength);
+        try {
+            if (deflate) {
+                this.inflate(in, decompressed, rawLength);
+            } else {
+                this.unsnappy(in, decompressed, rawLength);
+            }
+            if (decompressed.readableBytes() != rawLength) {
+                throw new RemotingCommandException("illegal compressed body, rawLength : " + rawLength + ", decompressed : " + decompressed.readableBytes());
+            }
+        } catch (RemotingCommandException e) {
+            decompressed.release();
+            throw e;
+        } catch (RuntimeException e) {
+            decompressed.release();
+            throw new RemotingCommandException("decompress body Error.", e);
+        }
+        this.stats.decompressed(compressedLength, rawLength, System.nanoTime() - start);
+        return decompressed;
+    }
+
+    private void snappy(ByteBuf body, ByteBuf out) {
+        Snappy snappy = new Snappy();
+        ByteBuf in = body.duplicate();
+        while (in.isReadable()) {
+            int length = Math.min(in.readableBytes(), SNAPPY_BLOCK_LENGTH);
+            ByteBuf block = in.readSlice(length);// Snappy.encode把length当作结束位置，要求读索引从0开始
+            int lengthIndex = out.writerIndex();
+            out.writeInt(0);
+            snappy.encode(block, out, length);
+            snappy.reset();
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - BLOCK_LENGTH);
+        }
+    }
+
+    private void unsnappy(ByteBuf in, ByteBuf out, int rawLength) throws RemotingCommandException {
+        Snappy snappy = new Snappy();
+        while (in.isReadable()) {
+            int blockLength = in.readInt();
+            if (blockLength < 0 || blockLength > in.readableBytes()) {
+                throw new RemotingCommandException("illegal snappy block, blockLength : " + blockLength);
+            }
+            snappy.decode(in.readSlice(blockLength), out);
+            snappy.reset();
+            if (out.readableBytes() > rawLength) {
+                throw new RemotingCommandException("illegal compressed body, rawLength : " + rawLength + ", decompressed : " + out.readableBytes());
+            }
+        }
+    }
+
+    private void deflate(ByteBuf body, ByteBuf out) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            if (body.hasArray()) {
+                deflater.setInput(body.array(), body.arrayOffset() + body.readerIndex(), body.readableBytes());
+            } else {
+                deflater.setInput(ByteBufUtil.getBytes(body));
+            }
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.writeBytes(buffer, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void inflate(ByteBuf in, ByteBuf out, int rawLength) throws RemotingCommandException {
+        byte[] input = ByteBufUtil.getBytes(in);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new RemotingCommandException("illegal deflate body, truncated stream");
+                }
+                if (out.readableBytes() + n > rawLength) {
+                    throw new RemotingCommandException("illegal compressed body, rawLength : " + rawLength + ", decompressed : " + (out.readableBytes() + n));
+                }
+                out.writeBytes(buffer, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new RemotingCommandException("illegal deflate body.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.lnk.remoting.protocol;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 报文体压缩与解压的累计计数，压缩率为压缩后字节数与原始字节数之比
+ *
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月17日 上午10:26:51
+ */
+public class CompressionStats {
+    private final AtomicLong compressCount = new AtomicLong(0);
+    private final AtomicLong compressSkipCount = new AtomicLong(0);
+    private final AtomicLong compressInputBytes = new AtomicLong(0);
+    private final AtomicLong compressOutputBytes = new AtomicLong(0);
+    private final AtomicLong compressNanos = new AtomicLong(0);
+    private final AtomicLong decompressCount = new AtomicLong(0);
+    private final AtomicLong decompressInputBytes = new AtomicLong(0);
+    private final AtomicLong decompressOutputBytes = new AtomicLong(0);
+    private final AtomicLong decompressNanos = new AtomicLong(0);
+
+    void compressed(int inputBytes, int outputBytes, long nanos) {
+        this.compressCount.incrementAndGet();
+        this.compressInputBytes.addAndGet(inputBytes);
+        this.compressOutputBytes.addAndGet(outputBytes);
+        this.compressNanos.addAndGet(nanos);
+    }
+
+    /**
+     * 压缩后没有变小，报文体按原样发送
+     */
+    void skipped(long nanos) {
+        this.compressSkipCount.incrementAndGet();
+        this.compressNanos.addAndGet(nanos);
+    }
+
+    void decompressed(int inputBytes, int outputBytes, long nanos) {
+        this.decompressCount.incrementAndGet();
+        this.decompressInputBytes.addAndGet(inputBytes);
+        this.decompressOutputBytes.addAndGet(outputBytes);
+        this.decompressNanos.addAndGet(nanos);
+    }
+
+    public long getCompressCount() {
+        return compressCount.get();
+    }
+
+    public long getCompressSkipCount() {
+        return compressSkipCount.get();
+    }
+
+    public long getCompressInputBytes() {
+        return compressInputBytes.get();
+    }
+
+    public long getCompressOutputBytes() {
+        return compressOutputBytes.get();
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.get();
+    }
+
+    public long getDecompressCount() {
+        return decompressCount.get();
+    }
+
+    public long getDecompressInputBytes() {
+        return decompressInputBytes.get();
+    }
+
+    public long getDecompressOutputBytes() {
+        return decompressOutputBytes.get();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.get();
+    }
+
+    public double getCompressionRatio() {
+        long inputBytes = this.getCompressInputBytes();
+        return (inputBytes == 0) ? 1.0D : ((double) this.getCompressOutputBytes() / inputBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats[compress=" + getCompressCount() + ", skip=" + getCompressSkipCount() + ", ratio=" + String.format("%.3f", getCompressionRatio()) + ", compressMillis="
+                + TimeUnit.NANOSECONDS.toMillis(getCompressNanos()) + ", decompress=" + getDecompressCount() + ", decompressMillis=" + TimeUnit.NANOSECONDS.toMillis(getDecompressNanos()) + "]";
+    }
+}
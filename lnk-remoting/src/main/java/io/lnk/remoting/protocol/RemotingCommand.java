@@ -1,11 +1,16 @@
 package io.lnk.remoting.protocol;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import io.lnk.api.Protocols;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCounted;
 
 /**
  * @author 刘飞 E-mail:liufei_it@126.com
@@ -13,7 +18,7 @@ import io.lnk.api.Protocols;
  * @version 1.0.0
  * @since 2017年5月18日 下午3:42:41
  */
-public class RemotingCommand implements Serializable {
+public class RemotingCommand implements Serializable, ReferenceCounted {
     private static final long serialVersionUID = 4491438068883310566L;
     public static final int CODE_LENGTH = 4;
     public static final int VERSION_LENGTH = 4;
@@ -21,9 +26,21 @@ public class RemotingCommand implements Serializable {
     public static final int PROTOCOL_LENGTH = 4;
     public static final int OPAQUE_LENGTH = 8;
     public static final int BODY_LENGTH = 4;
+    public static final int DEADLINE_LENGTH = 4;
     public static final int COMMAND_LENGTH_LENGTH = CODE_LENGTH + VERSION_LENGTH + COMMAND_LENGTH + PROTOCOL_LENGTH + OPAQUE_LENGTH + BODY_LENGTH;
     private static final int RPC = 0;
     private static final int ONEWAY = 1;
+    private static final int COMPACT = 2;
+    private static final int INLINE = 3;
+    private static final int COMPRESSED = 4;
+    private static final int DEFLATE = 5;
+    private static final int ACCEPT_COMPRESS = 6;
+    private static final int STREAM = 7;
+    private static final int CHUNK = 8;
+    private static final int CHUNK_END = 9;
+    private static final int CREDIT = 10;
+    private static final int DEADLINE = 11;
+    private static final int COMPRESS_BITS = (1 << COMPRESSED) | (1 << DEFLATE);
     private static final AtomicLong REQ_ID = new AtomicLong(1);
     private int code = 0;
     private int version = 0;
@@ -31,6 +48,22 @@ public class RemotingCommand implements Serializable {
     private int protocol = Protocols.DEFAULT_PROTOCOL;
     private long opaque = REQ_ID.getAndIncrement();
     private transient byte[] body;
+    /**
+     * 零拷贝模式下的报文体，引用计数由持有者负责释放
+     */
+    private transient ByteBuf bodyBuffer;
+    /**
+     * 分块传输的流：服务端为待分块写出的返回值，客户端为按分块到达顺序读取的输入流
+     */
+    private transient InputStream streamBody;
+    /**
+     * 接收端在入队前已解码的报文体，处理线程直接复用
+     */
+    private transient Object decodedBody;
+    /**
+     * 请求的截止时间(本机System.nanoTime)，报文中以剩余毫秒数传输，接收端按收到的时间换算
+     */
+    private transient long deadlineNanos;
 
     public static RemotingCommand replyCommand(RemotingCommand request, int code) {
         RemotingCommand command = new RemotingCommand();
@@ -86,13 +119,166 @@ public class RemotingCommand implements Serializable {
     }
 
     public byte[] getBody() {
+        if (body == null && bodyBuffer != null) {
+            body = ByteBufUtil.getBytes(bodyBuffer);
+        }
         return body;
     }
 
     public void setBody(byte[] body) {
+        this.releaseBodyBuffer();
         this.body = body;
     }
 
+    @JsonIgnore
+    public ByteBuf getBodyBuffer() {
+        return bodyBuffer;
+    }
+
+    @JsonIgnore
+    public void setBodyBuffer(ByteBuf bodyBuffer) {
+        this.releaseBodyBuffer();
+        this.body = null;
+        this.bodyBuffer = bodyBuffer;
+    }
+
+    @JsonIgnore
+    public int getBodyLength() {
+        if (bodyBuffer != null) {
+            return bodyBuffer.readableBytes();
+        }
+        if (body != null) {
+            return body.length;
+        }
+        return 0;
+    }
+
+    @JsonIgnore
+    public InputStream getStreamBody() {
+        return streamBody;
+    }
+
+    @JsonIgnore
+    public void setStreamBody(InputStream streamBody) {
+        this.streamBody = streamBody;
+    }
+
+    /**
+     * 请求带有截止时间，报文头之后紧跟DEADLINE_LENGTH字节的剩余毫秒数，计入报文体长度
+     */
+    @JsonIgnore
+    public boolean hasDeadline() {
+        int bits = 1 << DEADLINE;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setDeadline(long timeoutMillis) {
+        this.setDeadlineNanos(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis)));
+    }
+
+    @JsonIgnore
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    @JsonIgnore
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.command |= (1 << DEADLINE);
+    }
+
+    @JsonIgnore
+    public void clearDeadline() {
+        this.deadlineNanos = 0L;
+        this.command &= ~(1 << DEADLINE);
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数，没有截止时间时为Integer.MAX_VALUE
+     */
+    @JsonIgnore
+    public int getRemainingMillis() {
+        if (this.hasDeadline() == false) {
+            return Integer.MAX_VALUE;
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(this.deadlineNanos - System.nanoTime());
+        return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, remainingMillis));
+    }
+
+    @JsonIgnore
+    public boolean isExpired() {
+        return this.hasDeadline() && System.nanoTime() - this.deadlineNanos >= 0L;
+    }
+
+    @JsonIgnore
+    public Object getDecodedBody() {
+        return decodedBody;
+    }
+
+    @JsonIgnore
+    public void setDecodedBody(Object decodedBody) {
+        this.decodedBody = decodedBody;
+    }
+
+    private void releaseBodyBuffer() {
+        ByteBuf buf = this.bodyBuffer;
+        this.bodyBuffer = null;
+        if (buf != null && buf.refCnt() > 0) {
+            buf.release();
+        }
+    }
+
+    @Override
+    public int refCnt() {
+        ByteBuf buf = this.bodyBuffer;
+        return (buf == null) ? 1 : buf.refCnt();
+    }
+
+    @Override
+    public RemotingCommand retain() {
+        ByteBuf buf = this.bodyBuffer;
+        if (buf != null) {
+            buf.retain();
+        }
+        return this;
+    }
+
+    @Override
+    public RemotingCommand retain(int increment) {
+        ByteBuf buf = this.bodyBuffer;
+        if (buf != null) {
+            buf.retain(increment);
+        }
+        return this;
+    }
+
+    @Override
+    public RemotingCommand touch() {
+        return this.touch(null);
+    }
+
+    @Override
+    public RemotingCommand touch(Object hint) {
+        ByteBuf buf = this.bodyBuffer;
+        if (buf != null) {
+            buf.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        ByteBuf buf = this.bodyBuffer;
+        return buf != null && buf.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        ByteBuf buf = this.bodyBuffer;
+        return buf != null && buf.release(decrement);
+    }
+
     @JsonIgnore
     public boolean isOneway() {
         int bits = 1 << ONEWAY;
@@ -105,24 +291,163 @@ public class RemotingCommand implements Serializable {
         this.command |= bits;
     }
 
+    /**
+     * 报文体为紧凑二进制格式的InvokerCommand
+     */
+    @JsonIgnore
+    public boolean isCompact() {
+        int bits = 1 << COMPACT;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setCompact() {
+        int bits = 1 << COMPACT;
+        this.command |= bits;
+    }
+
+    /**
+     * 请求方能够解析内联的ProtocolObject，服务端据此内联返回值
+     */
+    @JsonIgnore
+    public boolean isInline() {
+        int bits = 1 << INLINE;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setInline() {
+        int bits = 1 << INLINE;
+        this.command |= bits;
+    }
+
+    /**
+     * 报文体经过压缩(DEFLATE位标识压缩算法)，由解码器解压后清除
+     */
+    @JsonIgnore
+    public boolean isCompressed() {
+        int bits = 1 << COMPRESSED;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public boolean isDeflate() {
+        int bits = 1 << DEFLATE;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void clearCompressed() {
+        this.command &= ~COMPRESS_BITS;
+    }
+
+    /**
+     * 发送方能够解压报文体，接收方据此决定同一连接上回写的报文是否压缩
+     */
+    @JsonIgnore
+    public boolean isAcceptCompress() {
+        int bits = 1 << ACCEPT_COMPRESS;
+        return (this.command & bits) == bits;
+    }
+
+    /**
+     * 请求上表示客户端能够接收分块回写的返回值，响应上表示报文体之后还有同一opaque的分块
+     */
+    @JsonIgnore
+    public boolean isStream() {
+        int bits = 1 << STREAM;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setStream() {
+        int bits = 1 << STREAM;
+        this.command |= bits;
+    }
+
+    @JsonIgnore
+    public void clearStream() {
+        this.command &= ~(1 << STREAM);
+    }
+
+    /**
+     * 分块数据，CHUNK_END标识最后一块，code非SUCCESS时报文体为错误信息
+     */
+    @JsonIgnore
+    public boolean isChunk() {
+        int bits = 1 << CHUNK;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setChunk() {
+        int bits = 1 << CHUNK;
+        this.command |= bits;
+    }
+
+    @JsonIgnore
+    public boolean isChunkEnd() {
+        int bits = 1 << CHUNK_END;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setChunkEnd() {
+        int bits = 1 << CHUNK_END;
+        this.command |= bits;
+    }
+
+    /**
+     * 客户端授予服务端的分块额度，报文体为额度数；同时带CHUNK_END时表示取消
+     */
+    @JsonIgnore
+    public boolean isCredit() {
+        int bits = 1 << CREDIT;
+        return (this.command & bits) == bits;
+    }
+
+    @JsonIgnore
+    public void setCredit() {
+        int bits = 1 << CREDIT;
+        this.command |= bits;
+    }
+
+    /**
+     * 编码器写出的command位，同一RemotingCommand可能被并发写到多个连接，因此不修改命令本身
+     */
+    public static int encodeCommand(int command, boolean acceptCompress, boolean compressed, boolean deflate) {
+        int bits = command & ~COMPRESS_BITS;
+        if (acceptCompress) {
+            bits |= (1 << ACCEPT_COMPRESS);
+        }
+        if (compressed) {
+            bits |= (1 << COMPRESSED);
+            if (deflate) {
+                bits |= (1 << DEFLATE);
+            }
+        }
+        return bits;
+    }
+
     @JsonIgnore
     public boolean isReply() {
         int bits = 1 << RPC;
         return (this.command & bits) == bits;
     }
 
+    /**
+     * 响应不携带截止时间，请求对象直接作为响应写出时同样清除
+     */
     @JsonIgnore
     public void setReply() {
         int bits = 1 << RPC;
         this.command |= bits;
+        this.clearDeadline();
     }
 
     @Override
     public String toString() {
-        int bodyLength = 0;
-        if (body != null) {
-            bodyLength = body.length;
-        }
+        int bodyLength = this.getBodyLength();
         return "RemotingCommand[code=" + code + ", version=" + version + ", command=" + command + ", protocol=" + protocol + ", opaque=" + opaque + ", body=" + bodyLength + "]";
     }
 }
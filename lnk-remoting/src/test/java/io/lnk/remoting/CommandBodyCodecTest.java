@@ -0,0 +1,74 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import io.lnk.api.Protocols;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.remoting.netty.codec.CommandProtocolDecoder;
+import io.lnk.remoting.netty.codec.CommandProtocolEncoder;
+import io.lnk.remoting.protocol.CommandBodyCodec;
+import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月15日 下午4:32:50
+ */
+public class CommandBodyCodecTest {
+    private final DefaultProtocolFactorySelector protocolFactorySelector = new DefaultProtocolFactorySelector();
+
+    @Test
+    public void testStreamingRoundTrip() throws Throwable {
+        Configuration configuration = new Configuration();
+        configuration.setStreamingProtocolEnable(true);
+        CommandBodyCodec codec = new CommandBodyCodec(configuration);
+        int[] protocols = new int[] {Protocols.DEFAULT_PROTOCOL, Protocols.JAVA_NATIVE_PROTOCOL, Protocols.HESSIAN_PROTOCOL, Protocols.SMILE_PROTOCOL};
+        for (int protocol : protocols) {
+            ProtocolFactory protocolFactory = protocolFactorySelector.select(protocol);
+            HashMap<String, Object> body = this.newBody(protocol);
+            RemotingCommand command = new RemotingCommand();
+            command.setProtocol(protocol);
+            codec.encode(command, body, protocolFactory);
+            ByteBuf bodyBuffer = command.getBodyBuffer();
+            assertNotNull(bodyBuffer);
+            EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolEncoder(true), new CommandProtocolDecoder(true));
+            channel.writeOutbound(command);
+            ByteBuf frame = channel.readOutbound();
+            channel.writeInbound(frame);
+            RemotingCommand decoded = channel.readInbound();
+            assertNotNull(decoded.getBodyBuffer());
+            assertEquals(body, codec.decode(decoded, HashMap.class, protocolFactory));
+            decoded.release();
+            assertEquals(0, bodyBuffer.refCnt());
+            channel.finish();
+        }
+    }
+
+    @Test
+    public void testByteArrayBodyWhenDisabled() throws Throwable {
+        CommandBodyCodec codec = new CommandBodyCodec(new Configuration());
+        ProtocolFactory protocolFactory = protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        HashMap<String, Object> body = this.newBody(Protocols.DEFAULT_PROTOCOL);
+        RemotingCommand command = new RemotingCommand();
+        codec.encode(command, body, protocolFactory);
+        assertNull(command.getBodyBuffer());
+        assertEquals(body, codec.decode(command, HashMap.class, protocolFactory));
+    }
+
+    private HashMap<String, Object> newBody(int protocol) {
+        HashMap<String, Object> body = new HashMap<String, Object>();
+        body.put("protocol", String.valueOf(protocol));
+        body.put("name", "刘飞");
+        return body;
+    }
+}
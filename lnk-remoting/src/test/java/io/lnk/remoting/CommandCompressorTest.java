@@ -0,0 +1,223 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.AbstractProtocolDecoderOutput;
+import org.junit.Test;
+
+import io.lnk.remoting.exception.RemotingCommandException;
+import io.lnk.remoting.netty.codec.CommandProtocolDecoder;
+import io.lnk.remoting.netty.codec.CommandProtocolEncoder;
+import io.lnk.remoting.protocol.CommandCompressor;
+import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月17日 下午2:31:08
+ */
+public class CommandCompressorTest {
+
+    @Test
+    public void testSnappy() throws Throwable {
+        this.roundTrip(CommandCompressor.SNAPPY);
+    }
+
+    @Test
+    public void testDeflate() throws Throwable {
+        this.roundTrip(CommandCompressor.DEFLATE);
+    }
+
+    @Test
+    public void testSkipIncompressible() throws Throwable {
+        CommandCompressor compressor = new CommandCompressor(compressConfiguration(CommandCompressor.SNAPPY));
+        byte[] body = new byte[8192];
+        new Random(17).nextBytes(body);
+        assertNull(compressor.compress(Unpooled.wrappedBuffer(body), PooledByteBufAllocator.DEFAULT));
+        assertNull(compressor.compress(Unpooled.wrappedBuffer(new byte[16]), PooledByteBufAllocator.DEFAULT));
+        assertEquals(1, compressor.getStats().getCompressSkipCount());
+        assertEquals(0, compressor.getStats().getCompressCount());
+    }
+
+    @Test
+    public void testNegotiation() throws Throwable {
+        CommandCompressor compressor = new CommandCompressor(compressConfiguration(CommandCompressor.SNAPPY));
+        EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolEncoder(false, compressor), new CommandProtocolDecoder(false, compressor));
+        byte[] body = compressibleBody(64 * 1024);
+        // 对端尚未声明支持解压
+        channel.writeOutbound(newCommand(body));
+        ByteBuf frame = channel.readOutbound();
+        assertEquals(RemotingCommand.COMMAND_LENGTH_LENGTH + body.length, frame.readableBytes());
+        frame.release();
+        // 旧版本对端的报文没有ACCEPT_COMPRESS位
+        EmbeddedChannel legacy = new EmbeddedChannel(new CommandProtocolEncoder(false), new CommandProtocolDecoder(false));
+        legacy.writeOutbound(newCommand(new byte[0]));
+        channel.writeInbound((ByteBuf) legacy.readOutbound());
+        RemotingCommand legacyCommand = channel.readInbound();
+        assertFalse(legacyCommand.isAcceptCompress());
+        legacyCommand.release();
+        channel.writeOutbound(newCommand(body));
+        frame = channel.readOutbound();
+        assertEquals(RemotingCommand.COMMAND_LENGTH_LENGTH + body.length, frame.readableBytes());
+        // 收到对端自身写出的报文(带ACCEPT_COMPRESS位)后开始压缩
+        channel.writeInbound(frame);
+        RemotingCommand decoded = channel.readInbound();
+        assertTrue(decoded.isAcceptCompress());
+        channel.writeOutbound(newCommand(body));
+        frame = channel.readOutbound();
+        assertTrue(frame.readableBytes() < RemotingCommand.COMMAND_LENGTH_LENGTH + body.length);
+        frame.release();
+        legacy.finish();
+        channel.finish();
+    }
+
+    @Test
+    public void testRejectIllegalRawLength() throws Throwable {
+        for (String compressType : new String[] {CommandCompressor.SNAPPY, CommandCompressor.DEFLATE}) {
+            Configuration configuration = compressConfiguration(compressType);
+            configuration.setDecompressMaxLength(1024 * 1024);
+            CommandCompressor compressor = new CommandCompressor(configuration);
+            for (int rawLength : new int[] {Integer.MAX_VALUE - 64, 1024 * 1024 + 1, -1}) {
+                try {
+                    compressor.decompress(Unpooled.wrappedBuffer(compressedBody(rawLength)), compressor.isDeflate(), PooledByteBufAllocator.DEFAULT);
+                    fail("rawLength : " + rawLength);
+                } catch (RemotingCommandException e) {
+                    assertTrue(e.getMessage().contains("rawLength : " + rawLength));
+                }
+            }
+            assertEquals(0, compressor.getStats().getDecompressCount());
+        }
+    }
+
+    @Test
+    public void testNettyDecoderClosesChannelOnIllegalRawLength() throws Throwable {
+        for (int rawLength : new int[] {Integer.MAX_VALUE - 64, -1}) {
+            CommandCompressor compressor = new CommandCompressor(compressConfiguration(CommandCompressor.SNAPPY));
+            EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolDecoder(true, compressor));
+            byte[] body = compressedBody(rawLength);
+            ByteBuf frame = Unpooled.buffer();
+            writeHeader(frame);
+            frame.writeInt(body.length);
+            frame.writeBytes(body);
+            channel.writeInbound(frame);
+            assertNull(channel.readInbound());
+            assertFalse(channel.isOpen());
+            assertEquals(0, frame.refCnt());
+            channel.finish();
+        }
+    }
+
+    @Test
+    public void testMinaDecoderRejectsIllegalRawLength() throws Throwable {
+        for (int rawLength : new int[] {Integer.MAX_VALUE - 64, -1}) {
+            CommandCompressor compressor = new CommandCompressor(compressConfiguration(CommandCompressor.SNAPPY));
+            io.lnk.remoting.mina.codec.CommandProtocolDecoder decoder = new io.lnk.remoting.mina.codec.CommandProtocolDecoder(compressor);
+            byte[] body = compressedBody(rawLength);
+            ByteBuf frame = Unpooled.buffer();
+            frame.writeInt(RemotingCommand.COMMAND_LENGTH_LENGTH - RemotingCommand.BODY_LENGTH + body.length);
+            writeHeader(frame);
+            frame.writeBytes(body);
+            final int[] decoded = new int[1];
+            try {
+                decoder.decode(new DummySession(), IoBuffer.wrap(frame.nioBuffer()), new AbstractProtocolDecoderOutput() {
+                    @Override
+                    public void flush(NextFilter nextFilter, IoSession session) {
+                        decoded[0]++;
+                    }
+                });
+                fail("rawLength : " + rawLength);
+            } catch (RemotingCommandException e) {
+                assertTrue(e.getMessage().contains("rawLength : " + rawLength));// 异常交给IoHandler.exceptionCaught关闭会话
+            }
+            assertEquals(0, decoded[0]);
+            assertEquals(0, compressor.getStats().getDecompressCount());
+        }
+    }
+
+    /**
+     * 对端声称的原始长度，实际只有几个字节的压缩数据
+     */
+    private static byte[] compressedBody(int rawLength) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(rawLength);
+        body.writeInt(4);
+        body.writeBytes(new byte[] {1, 2, 3, 4});
+        return ByteBufUtil.getBytes(body);
+    }
+
+    private static void writeHeader(ByteBuf frame) {
+        frame.writeInt(100);
+        frame.writeInt(0);
+        frame.writeInt(RemotingCommand.encodeCommand(0, true, true, false));
+        frame.writeInt(0);
+        frame.writeLong(1L);
+    }
+
+    private void roundTrip(String compressType) throws Throwable {
+        for (boolean zeroCopy : new boolean[] {false, true}) {
+            CommandCompressor compressor = new CommandCompressor(compressConfiguration(compressType));
+            EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolEncoder(zeroCopy, compressor), new CommandProtocolDecoder(zeroCopy, compressor));
+            channel.writeOutbound(newCommand(new byte[0]));
+            channel.writeInbound((ByteBuf) channel.readOutbound());
+            ((RemotingCommand) channel.readInbound()).release();
+            byte[] body = compressibleBody(100 * 1024);
+            RemotingCommand command = newCommand(body);
+            command.setOneway();
+            channel.writeOutbound(command);
+            ByteBuf frame = channel.readOutbound();
+            assertTrue(frame.readableBytes() < body.length / 2);
+            channel.writeInbound(frame);
+            RemotingCommand decoded = channel.readInbound();
+            assertFalse(decoded.isCompressed());
+            assertTrue(decoded.isOneway());
+            assertEquals(command.getOpaque(), decoded.getOpaque());
+            assertArrayEquals(body, decoded.getBody());
+            decoded.release();
+            assertEquals(1, compressor.getStats().getCompressCount());
+            assertEquals(1, compressor.getStats().getDecompressCount());
+            assertTrue(compressor.getStats().getCompressionRatio() < 0.5D);
+            channel.finish();
+        }
+    }
+
+    private static RemotingCommand newCommand(byte[] body) {
+        RemotingCommand command = new RemotingCommand();
+        command.setCode(100);
+        command.setBody(body);
+        return command;
+    }
+
+    private static byte[] compressibleBody(int length) {
+        StringBuilder body = new StringBuilder(length);
+        Random random = new Random(31);
+        while (body.length() < length) {
+            body.append("{\"reportId\":").append(random.nextInt(1000)).append(",\"name\":\"日报\",\"amount\":").append(random.nextInt(100000)).append("},");
+        }
+        return body.substring(0, length).getBytes();
+    }
+
+    private static Configuration compressConfiguration(String compressType) {
+        Configuration configuration = new Configuration();
+        configuration.setCompressEnable(true);
+        configuration.setCompressThreshold(4096);
+        configuration.setCompressType(compressType);
+        return configuration;
+    }
+}
@@ -0,0 +1,173 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import io.lnk.remoting.netty.codec.CommandProtocolDecoder;
+import io.lnk.remoting.netty.codec.CommandProtocolEncoder;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年7月20日 下午2:13:05
+ */
+public class CommandProtocolCodecTest {
+
+    /**
+     * 升级前服务端的解码器, 按旧的帧格式解码, 不识别截止时间
+     */
+    private static class LegacyCommandProtocolDecoder extends LengthFieldBasedFrameDecoder {
+
+        public LegacyCommandProtocolDecoder() {
+            super(Integer.MAX_VALUE - RemotingCommand.COMMAND_LENGTH_LENGTH, (RemotingCommand.COMMAND_LENGTH_LENGTH - RemotingCommand.BODY_LENGTH), RemotingCommand.BODY_LENGTH, 0, 0);
+        }
+
+        @Override
+        protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+            ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+            if (frame == null) {
+                return null;
+            }
+            try {
+                ByteBuffer byteBuffer = frame.nioBuffer();
+                RemotingCommand remotingCommand = new RemotingCommand();
+                remotingCommand.setCode(byteBuffer.getInt());
+                remotingCommand.setVersion(byteBuffer.getInt());
+                remotingCommand.setCommand(byteBuffer.getInt());
+                remotingCommand.setProtocol(byteBuffer.getInt());
+                remotingCommand.setOpaque(byteBuffer.getLong());
+                byte[] body = new byte[byteBuffer.getInt()];
+                byteBuffer.get(body);
+                remotingCommand.setBody(body);
+                assertEquals(0, byteBuffer.remaining());
+                return remotingCommand;
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    @Test
+    public void testCopyCodec() throws Throwable {
+        this.roundTrip(false);
+    }
+
+    @Test
+    public void testZeroCopyCodec() throws Throwable {
+        this.roundTrip(true);
+    }
+
+    @Test
+    public void testZeroCopyBodyBuffer() throws Throwable {
+        EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolEncoder(true), new CommandProtocolDecoder(true));
+        byte[] body = "你好吗-bodyBuffer".getBytes("UTF-8");
+        ByteBuf bodyBuffer = PooledByteBufAllocator.DEFAULT.directBuffer(body.length);
+        bodyBuffer.writeBytes(body);
+        RemotingCommand command = new RemotingCommand();
+        command.setBodyBuffer(bodyBuffer);
+        channel.writeOutbound(command);
+        ByteBuf frame = channel.readOutbound();
+        channel.writeInbound(frame);
+        RemotingCommand decoded = channel.readInbound();
+        assertArrayEquals(body, decoded.getBody());
+        decoded.release();
+        assertEquals(0, bodyBuffer.refCnt());
+        channel.finish();
+    }
+
+    @Test
+    public void testDeadlineCodec() throws Throwable {
+        EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolEncoder(true), new CommandProtocolDecoder(true));
+        RemotingCommand command = new RemotingCommand();
+        command.setDeadline(3000L);
+        byte[] body = "hello deadline!".getBytes("UTF-8");
+        command.setBody(body);
+        channel.writeOutbound(command);
+        ByteBuf frame = channel.readOutbound();
+        assertEquals(RemotingCommand.COMMAND_LENGTH_LENGTH + RemotingCommand.DEADLINE_LENGTH + body.length, frame.readableBytes());
+        channel.writeInbound(frame);
+        RemotingCommand decoded = channel.readInbound();
+        assertTrue(decoded.hasDeadline());
+        assertFalse(decoded.isExpired());
+        assertTrue(decoded.getRemainingMillis() > 0 && decoded.getRemainingMillis() <= 3000);
+        assertArrayEquals(body, decoded.getBody());
+        decoded.setReply();
+        assertFalse(decoded.hasDeadline());
+        decoded.release();
+        RemotingCommand expired = new RemotingCommand();
+        expired.setDeadline(0L);
+        assertTrue(expired.isExpired());
+        channel.finish();
+    }
+
+    @Test
+    public void testLegacyDecoderReadsDefaultFrames() throws Throwable {
+        assertFalse(new Configuration().isDeadlinePropagationEnable());// 默认不携带截止时间
+        for (boolean zeroCopy : new boolean[] {false, true}) {
+            EmbeddedChannel client = new EmbeddedChannel(new CommandProtocolEncoder(zeroCopy));
+            EmbeddedChannel legacyServer = new EmbeddedChannel(new LegacyCommandProtocolDecoder());
+            RemotingCommand command = new RemotingCommand();
+            command.setCode(CommandCode.SUCCESS);
+            command.setProtocol(2);
+            byte[] body = "hello legacy!".getBytes("UTF-8");
+            command.setBody(body);
+            client.writeOutbound(command);
+            ByteBuf frame = client.readOutbound();
+            legacyServer.writeInbound(frame);
+            RemotingCommand decoded = legacyServer.readInbound();
+            assertNotNull(decoded);
+            assertEquals(command.getCode(), decoded.getCode());
+            assertEquals(command.getVersion(), decoded.getVersion());
+            assertEquals(command.getCommand(), decoded.getCommand());
+            assertEquals(command.getProtocol(), decoded.getProtocol());
+            assertEquals(command.getOpaque(), decoded.getOpaque());
+            assertArrayEquals(body, decoded.getBody());
+            assertFalse(decoded.hasDeadline());
+            client.finish();
+            legacyServer.finish();
+        }
+    }
+
+    private void roundTrip(boolean zeroCopy) throws Throwable {
+        EmbeddedChannel channel = new EmbeddedChannel(new CommandProtocolEncoder(zeroCopy), new CommandProtocolDecoder(zeroCopy));
+        RemotingCommand command = new RemotingCommand();
+        command.setCode(CommandCode.SYSTEM_BUSY);
+        command.setProtocol(2);
+        command.setOneway();
+        byte[] body = "hello world!".getBytes("UTF-8");
+        command.setBody(body);
+        channel.writeOutbound(command);
+        ByteBuf frame = channel.readOutbound();
+        assertEquals(RemotingCommand.COMMAND_LENGTH_LENGTH + body.length, frame.readableBytes());
+        channel.writeInbound(frame);
+        RemotingCommand decoded = channel.readInbound();
+        assertEquals(command.getCode(), decoded.getCode());
+        assertEquals(command.getCommand(), decoded.getCommand());
+        assertEquals(command.getProtocol(), decoded.getProtocol());
+        assertEquals(command.getOpaque(), decoded.getOpaque());
+        if (zeroCopy) {
+            assertNotNull(decoded.getBodyBuffer());
+        } else {
+            assertNull(decoded.getBodyBuffer());
+        }
+        assertArrayEquals(body, decoded.getBody());
+        decoded.release();
+        channel.finish();
+    }
+}
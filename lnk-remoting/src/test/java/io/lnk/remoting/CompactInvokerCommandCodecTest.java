@@ -0,0 +1,216 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.Protocols;
+import io.lnk.api.app.Application;
+import io.lnk.api.exception.NotFoundServiceException;
+import io.lnk.api.exception.ex.SimpleLnkException;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.invoker.CompactInvokerCommandCodec;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月26日 下午2:10:36
+ */
+public class CompactInvokerCommandCodecTest {
+    private static final String SERVICE_ID = "io.lnk.demo.EchoService";
+    private final DefaultProtocolFactorySelector protocolFactorySelector = new DefaultProtocolFactorySelector();
+    private final CompactInvokerCommandCodec codec = new CompactInvokerCommandCodec();
+
+    public interface EchoService {
+        String echo();
+
+        String echo(String message);
+
+        String echo(String message, int times);
+
+        void ping();
+    }
+
+    public CompactInvokerCommandCodecTest() {
+        this.codec.registry(SERVICE_ID, EchoService.class);
+    }
+
+    private static InvokerCommand command(String method, Class<?>[] signature, ProtocolObject[] args) {
+        InvokerCommand command = new InvokerCommand();
+        command.setId("compact-test");
+        command.setIp("10.0.0.1");
+        Application application = new Application();
+        application.setApp("demo-app");
+        application.setType("web");
+        command.setApplication(application);
+        command.setServiceId(SERVICE_ID);
+        command.setVersion("1.0.0");
+        command.setServiceGroup("demo");
+        command.setProtocol(Protocols.DEFAULT_PROTOCOL);
+        command.setMethod(method);
+        command.setSignature(signature);
+        command.setArgs(args);
+        return command;
+    }
+
+    private static ProtocolObject arg(Object value, ProtocolFactory protocolFactory) {
+        ProtocolObject arg = new ProtocolObject();
+        arg.setType(value.getClass());
+        arg.setData(protocolFactory.encode(value));
+        return arg;
+    }
+
+    private InvokerCommand requestRoundTrip(InvokerCommand command) throws IOException {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(command.getProtocol());
+        byte[] body = this.codec.encodeRequest(command, protocolFactory);
+        assertEquals(command.getMethod(), this.codec.peekMethod(body).getMethod());
+        InvokerCommand decoded = this.codec.decodeRequest(body, this.protocolFactorySelector);
+        assertEquals(command.getId(), decoded.getId());
+        assertEquals(command.getIp(), decoded.getIp());
+        assertEquals(command.getApplication().getApp(), decoded.getApplication().getApp());
+        assertEquals(command.getApplication().getType(), decoded.getApplication().getType());
+        assertEquals(command.getServiceId(), decoded.getServiceId());
+        assertEquals(command.getVersion(), decoded.getVersion());
+        assertEquals(command.getServiceGroup(), decoded.getServiceGroup());
+        assertEquals(command.getProtocol(), decoded.getProtocol());
+        assertEquals(command.getMethod(), decoded.getMethod());
+        assertArrayEquals(command.getSignature(), decoded.getSignature());
+        return decoded;
+    }
+
+    @Test
+    public void testRequestWithArgs() throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        ProtocolObject[] args = new ProtocolObject[] {arg("你好", protocolFactory), arg(3, protocolFactory)};
+        InvokerCommand decoded = this.requestRoundTrip(command("echo", new Class<?>[] {String.class, int.class}, args));
+        assertEquals(2, decoded.getArgs().length);
+        assertEquals(String.class, decoded.getArgs()[0].getType());
+        assertEquals("你好", protocolFactory.decode(String.class, decoded.getArgs()[0].getData()));
+        assertEquals(Integer.valueOf(3), protocolFactory.decode(Integer.class, decoded.getArgs()[1].getData()));
+    }
+
+    @Test
+    public void testRequestWithInlineAndNullArgs() throws Throwable {
+        ProtocolObject inline = new ProtocolObject();
+        inline.setType(String.class);
+        inline.setValue("inline");
+        ProtocolObject nullData = new ProtocolObject();
+        nullData.setType(String.class);
+        ProtocolObject[] args = new ProtocolObject[] {inline, nullData, null};
+        InvokerCommand decoded = this.requestRoundTrip(command("echo", new Class<?>[] {String.class, int.class}, args));
+        assertEquals(3, decoded.getArgs().length);
+        assertEquals("inline", decoded.getArgs()[0].getValue());
+        assertEquals(String.class, decoded.getArgs()[1].getType());
+        assertNull(decoded.getArgs()[1].getData());
+        assertNull(decoded.getArgs()[2].getType());// 空参数解码为空的ProtocolObject
+    }
+
+    @Test
+    public void testRequestWithoutArgs() throws Throwable {
+        InvokerCommand decoded = this.requestRoundTrip(command("echo", new Class<?>[0], new ProtocolObject[0]));
+        assertNotNull(decoded.getArgs());
+        assertEquals(0, decoded.getArgs().length);
+        decoded = this.requestRoundTrip(command("ping", new Class<?>[0], null));
+        assertNull(decoded.getArgs());
+    }
+
+    @Test
+    public void testReplyVoid() throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        InvokerCommand request = command("ping", new Class<?>[0], null);
+        InvokerCommand reply = command("ping", new Class<?>[0], null);
+        InvokerCommand decoded = this.codec.decodeReply(request, this.codec.encodeReply(reply, protocolFactory), protocolFactory);
+        assertNull(decoded.getRetObject());
+        assertNull(decoded.getException());
+    }
+
+    @Test
+    public void testReplyRetObject() throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        InvokerCommand request = command("echo", new Class<?>[] {String.class}, new ProtocolObject[] {arg("hi", protocolFactory)});
+        InvokerCommand reply = command("echo", new Class<?>[] {String.class}, null);
+        reply.setRetObject(arg("hi hi", protocolFactory));
+        InvokerCommand decoded = this.codec.decodeReply(request, this.codec.encodeReply(reply, protocolFactory), protocolFactory);
+        assertNull(decoded.getArgs());// 回填到请求上时清除参数
+        assertEquals(String.class, decoded.getRetObject().getType());
+        assertEquals("hi hi", protocolFactory.decode(String.class, decoded.getRetObject().getData()));
+        assertNull(decoded.getException());
+    }
+
+    @Test
+    public void testReplyException() throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        InvokerCommand request = command("echo", new Class<?>[0], new ProtocolObject[0]);
+        InvokerCommand reply = command("echo", new Class<?>[0], null);
+        reply.setException(new SimpleLnkException(new IllegalStateException("echo failure")));
+        InvokerCommand decoded = this.codec.decodeReply(request, this.codec.encodeReply(reply, protocolFactory), protocolFactory);
+        assertNull(decoded.getRetObject());
+        assertEquals(IllegalStateException.class.getName(), decoded.getException().getClassName());
+        assertEquals("echo failure", decoded.getException().getMessage());
+        assertTrue(decoded.getException().getStackTraces().length > 0);
+    }
+
+    @Test
+    public void testReplyCorrelationIdMismatch() throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        InvokerCommand reply = command("ping", new Class<?>[0], null);
+        reply.setId("other");
+        try {
+            this.codec.decodeReply(command("ping", new Class<?>[0], null), this.codec.encodeReply(reply, protocolFactory), protocolFactory);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("not matched"));
+        }
+    }
+
+    @Test
+    public void testUnknownMethodId() throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        InvokerCommand command = command("echo", new Class<?>[] {Long.class}, new ProtocolObject[] {arg(1L, protocolFactory)});
+        byte[] body = this.codec.encodeRequest(command, protocolFactory);
+        assertNull(this.codec.peekMethod(body));
+        assertNull(new CompactInvokerCommandCodec().peekMethod(this.codec.encodeRequest(command("ping", new Class<?>[0], null), protocolFactory)));// 未登记服务的编解码器
+        try {
+            this.codec.decodeRequest(body, this.protocolFactorySelector);
+            fail();
+        } catch (NotFoundServiceException e) {
+            assertTrue(e.getMessage().contains(String.valueOf(CompactInvokerCommandCodec.methodId(SERVICE_ID, "echo", new Class<?>[] {Long.class}))));
+        }
+        assertNull(this.codec.peekMethod(null));
+        assertNull(this.codec.peekMethod(new byte[] {1, 2, 3}));
+        try {
+            this.codec.decodeRequest(new byte[] {9}, this.protocolFactorySelector);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("unsupported"));
+        }
+    }
+
+    @Test
+    public void testOverloadedMethods() throws Throwable {
+        Class<?>[][] signatures = new Class<?>[][] {new Class<?>[0], new Class<?>[] {String.class}, new Class<?>[] {String.class, int.class}};
+        Set<Long> methodIds = new HashSet<Long>();
+        for (Class<?>[] signature : signatures) {
+            methodIds.add(CompactInvokerCommandCodec.methodId(SERVICE_ID, "echo", signature));
+            InvokerCommand decoded = this.requestRoundTrip(command("echo", signature, null));
+            assertArrayEquals(signature, decoded.getSignature());
+        }
+        assertEquals(signatures.length, methodIds.size());
+        assertNotEquals(CompactInvokerCommandCodec.methodId(SERVICE_ID, "echo", null), CompactInvokerCommandCodec.methodId("io.lnk.demo.OtherService", "echo", null));
+        assertEquals(CompactInvokerCommandCodec.methodId(SERVICE_ID, "echo", null), CompactInvokerCommandCodec.methodId(SERVICE_ID, "echo", new Class<?>[0]));
+    }
+}
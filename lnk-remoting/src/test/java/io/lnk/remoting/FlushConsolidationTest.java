@@ -0,0 +1,73 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.remoting.netty.NettyRemotingClient;
+import io.lnk.remoting.netty.NettyRemotingServer;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月11日 上午11:02:37
+ */
+public class FlushConsolidationTest {
+
+    @Test
+    public void testInvokeAsyncWithFlushConsolidation() throws Throwable {
+        Configuration config = new Configuration();
+        config.setListenPort(0);
+        config.setFlushConsolidationEnable(true);
+        config.setFlushConsolidationMaxBatch(16);
+        NettyRemotingServer remotingServer = new NettyRemotingServer(new DefaultProtocolFactorySelector(), config);
+        remotingServer.registerDefaultProcessor(new CommandProcessor() {
+            public RemotingCommand processCommand(RemotingCommand request) throws Throwable {
+                return request;
+            }
+
+            public boolean tryAcquireFailure(long timeoutMillis) {
+                return false;
+            }
+
+            public void release() {}
+        }, Executors.newFixedThreadPool(4));
+        remotingServer.start();
+        NettyRemotingClient remotingClient = new NettyRemotingClient(new DefaultProtocolFactorySelector(), config);
+        remotingClient.start();
+        try {
+            String addr = "127.0.0.1:" + remotingServer.getServerAddress().getPort();
+            final int requests = 1000;
+            final CountDownLatch replies = new CountDownLatch(requests);
+            final AtomicInteger success = new AtomicInteger(0);
+            for (int i = 0; i < requests; i++) {
+                RemotingCommand request = new RemotingCommand();
+                request.setCode(CommandCode.SUCCESS);
+                request.setBody(new byte[] {(byte) i});
+                remotingClient.invokeAsync(addr, request, 3000L, new RemotingCallback() {
+                    public void onComplete(ReplyFuture replyFuture) {
+                        if (replyFuture.getResponse() != null) {
+                            success.incrementAndGet();
+                        }
+                        replies.countDown();
+                    }
+                });
+            }
+            assertTrue(replies.await(5, TimeUnit.SECONDS));
+            assertEquals(requests, success.get());
+        } finally {
+            remotingClient.shutdown();
+            remotingServer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.remoting.netty.NettyRemotingClient;
+import io.lnk.remoting.netty.NettyRemotingServer;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月11日 下午3:27:50
+ */
+public class InlinePipelineTest {
+
+    @Test
+    public void testProcessOnSelectorThread() throws Throwable {
+        Configuration config = new Configuration();
+        config.setListenPort(0);
+        config.setEventExecutorGroupEnable(false);
+        final AtomicReference<String> processThread = new AtomicReference<String>();
+        NettyRemotingServer remotingServer = new NettyRemotingServer(new DefaultProtocolFactorySelector(), config);
+        remotingServer.registerDefaultProcessor(new CommandProcessor() {
+            public RemotingCommand processCommand(RemotingCommand request) throws Throwable {
+                processThread.set(Thread.currentThread().getName());
+                return request;
+            }
+
+            public boolean tryAcquireFailure(long timeoutMillis) {
+                return false;
+            }
+
+            public void release() {}
+        }, MoreExecutors.newDirectExecutorService());
+        remotingServer.start();
+        NettyRemotingClient remotingClient = new NettyRemotingClient(new DefaultProtocolFactorySelector(), config);
+        remotingClient.start();
+        try {
+            RemotingCommand request = new RemotingCommand();
+            request.setCode(CommandCode.SUCCESS);
+            request.setBody(new byte[] {7});
+            RemotingCommand response = remotingClient.invokeSync("127.0.0.1:" + remotingServer.getServerAddress().getPort(), request, 3000L);
+            assertEquals(7, response.getBody()[0]);
+            System.err.println("process command in " + processThread.get());
+            assertTrue(processThread.get().startsWith("NettyRemotingServer") && processThread.get().contains("Selector"));
+        } finally {
+            remotingClient.shutdown();
+            remotingServer.shutdown();
+        }
+    }
+}
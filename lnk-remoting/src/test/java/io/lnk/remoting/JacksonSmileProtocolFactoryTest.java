@@ -0,0 +1,139 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.lnk.api.Protocols;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.jackson.JacksonProtocolFactory;
+import io.lnk.protocol.jackson.JacksonSmileProtocolFactory;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月26日 下午4:55:03
+ */
+public class JacksonSmileProtocolFactoryTest {
+    private static final byte[] SMILE_HEADER = new byte[] {':', ')', '\n'};
+    private final JacksonSmileProtocolFactory protocolFactory = new JacksonSmileProtocolFactory();
+
+    public static class Report {
+        private long reportId;
+        private String name;
+        private Date createTime;
+        private List<Integer> amounts;
+
+        public long getReportId() {
+            return reportId;
+        }
+
+        public void setReportId(long reportId) {
+            this.reportId = reportId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Date getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Date createTime) {
+            this.createTime = createTime;
+        }
+
+        public List<Integer> getAmounts() {
+            return amounts;
+        }
+
+        public void setAmounts(List<Integer> amounts) {
+            this.amounts = amounts;
+        }
+    }
+
+    private static Report report() {
+        Report report = new Report();
+        report.setReportId(1001L);
+        report.setName("日报");
+        report.setCreateTime(new Date(1503638400000L));
+        report.setAmounts(new ArrayList<Integer>(Arrays.asList(1, 20, 300)));
+        return report;
+    }
+
+    private static void assertReport(Report expected, Report actual) {
+        assertEquals(expected.getReportId(), actual.getReportId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+        assertEquals(expected.getAmounts(), actual.getAmounts());
+    }
+
+    @Test
+    public void testProtocol() {
+        assertEquals(Protocols.SMILE_PROTOCOL, this.protocolFactory.getProtocol());
+        assertSame(JacksonSmileProtocolFactory.class, new DefaultProtocolFactorySelector().select(Protocols.SMILE_PROTOCOL).getClass());
+    }
+
+    @Test
+    public void testPojo() {
+        Report report = report();
+        byte[] data = this.protocolFactory.encode(report);
+        assertArrayEquals(SMILE_HEADER, Arrays.copyOf(data, SMILE_HEADER.length));
+        assertTrue(data.length < new JacksonProtocolFactory().encode(report).length);
+        assertReport(report, this.protocolFactory.decode(Report.class, data));
+    }
+
+    @Test
+    public void testCollection() {
+        List<String> list = new ArrayList<String>(Arrays.asList("a", "刘飞", ""));
+        assertEquals(list, this.protocolFactory.decode(List.class, this.protocolFactory.encode(list)));
+        HashMap<String, Object> map = new HashMap<String, Object>();
+        map.put("name", "刘飞");
+        map.put("count", 3);
+        map.put("tags", Arrays.asList("x", "y"));
+        assertEquals(map, this.protocolFactory.decode(HashMap.class, this.protocolFactory.encode(map)));
+        Report[] reports = new Report[] {report(), report()};
+        Report[] decoded = this.protocolFactory.decode(Report[].class, this.protocolFactory.encode(reports));
+        assertEquals(2, decoded.length);
+        assertReport(reports[1], decoded[1]);
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(this.protocolFactory.decode(Report.class, this.protocolFactory.encode(null)));
+        Report report = report();
+        report.setName(null);
+        report.setAmounts(null);
+        Report decoded = this.protocolFactory.decode(Report.class, this.protocolFactory.encode(report));
+        assertNull(decoded.getName());
+        assertNull(decoded.getAmounts());
+        assertEquals(report.getReportId(), decoded.getReportId());
+    }
+
+    @Test
+    public void testStreaming() {
+        Report report = report();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.protocolFactory.encode(report, out);
+        assertArrayEquals(this.protocolFactory.encode(report), out.toByteArray());
+        assertReport(report, this.protocolFactory.decode(Report.class, new ByteArrayInputStream(out.toByteArray())));
+    }
+}
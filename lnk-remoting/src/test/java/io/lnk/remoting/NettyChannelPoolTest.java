@@ -0,0 +1,115 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.remoting.netty.NettyChannelPool;
+import io.lnk.remoting.netty.NettyRemotingClient;
+import io.lnk.remoting.netty.NettyRemotingServer;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月10日 下午4:40:12
+ */
+public class NettyChannelPoolTest {
+    private static NettyRemotingServer remotingServer;
+    private static String addr;
+
+    @BeforeClass
+    public static void setup() {
+        Configuration config = new Configuration();
+        config.setListenPort(0);
+        remotingServer = new NettyRemotingServer(new DefaultProtocolFactorySelector(), config);
+        remotingServer.registerDefaultProcessor(new CommandProcessor() {
+            public RemotingCommand processCommand(RemotingCommand request) throws Throwable {
+                Thread.sleep(5L);
+                return request;
+            }
+
+            public boolean tryAcquireFailure(long timeoutMillis) {
+                return false;
+            }
+
+            public void release() {}
+        }, Executors.newFixedThreadPool(8));
+        remotingServer.start();
+        addr = "127.0.0.1:" + remotingServer.getServerAddress().getPort();
+    }
+
+    @AfterClass
+    public static void destroy() {
+        remotingServer.shutdown();
+    }
+
+    private static NettyRemotingClient createRemotingClient(int channelsPerAddress, String selector) {
+        Configuration config = new Configuration();
+        config.setClientChannelsPerAddress(channelsPerAddress);
+        config.setClientChannelSelector(selector);
+        NettyRemotingClient client = new NettyRemotingClient(new DefaultProtocolFactorySelector(), config);
+        client.start();
+        return client;
+    }
+
+    private static RemotingCommand createRequest() {
+        RemotingCommand request = new RemotingCommand();
+        request.setCode(CommandCode.SUCCESS);
+        request.setBody(new byte[] {1, 2, 3});
+        return request;
+    }
+
+    @Test
+    public void testRoundRobin() throws Throwable {
+        NettyRemotingClient client = createRemotingClient(3, NettyChannelPool.ROUNDROBIN_SELECTOR);
+        try {
+            for (int i = 0; i < 30; i++) {
+                RemotingCommand response = client.invokeSync(addr, createRequest(), 3000L);
+                assertEquals(3, response.getBody().length);
+                response.release();
+            }
+            NettyChannelPool channelPool = client.getChannelPools().get(addr);
+            System.err.println(channelPool);
+            assertEquals(3, channelPool.getActiveChannels());
+            assertEquals(3L, channelPool.getConnectCount());
+            assertEquals(30L, channelPool.getSelectCount());
+            assertEquals(0, channelPool.getPendings());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testLeastPending() throws Throwable {
+        NettyRemotingClient client = createRemotingClient(4, NettyChannelPool.LEAST_PENDING_SELECTOR);
+        try {
+            final int requests = 64;
+            final CountDownLatch replies = new CountDownLatch(requests);
+            for (int i = 0; i < requests; i++) {
+                client.invokeAsync(addr, createRequest(), 3000L, new RemotingCallback() {
+                    public void onComplete(ReplyFuture replyFuture) {
+                        replies.countDown();
+                    }
+                });
+            }
+            assertTrue(replies.await(5, TimeUnit.SECONDS));
+            NettyChannelPool channelPool = client.getChannelPools().get(addr);
+            System.err.println(channelPool);
+            assertEquals(4, channelPool.getActiveChannels());
+            assertEquals(0, client.getPendings(addr));
+        } finally {
+            client.shutdown();
+        }
+    }
+}
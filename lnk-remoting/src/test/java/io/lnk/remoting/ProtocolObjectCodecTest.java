@@ -0,0 +1,240 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.lnk.api.InvokerCommand;
+import io.lnk.api.ProtocolObject;
+import io.lnk.api.Protocols;
+import io.lnk.api.RemoteObject;
+import io.lnk.api.RemoteObjectFactory;
+import io.lnk.api.protocol.ProtocolFactory;
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.protocol.object.DefaultObjectProtocolFactory;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月26日 下午3:42:17
+ */
+public class ProtocolObjectCodecTest {
+    private static final int[] PROTOCOLS = new int[] {Protocols.DEFAULT_PROTOCOL, Protocols.SMILE_PROTOCOL, Protocols.HESSIAN_PROTOCOL};
+    private final DefaultProtocolFactorySelector protocolFactorySelector = new DefaultProtocolFactorySelector();
+
+    public static class EchoRequest implements Serializable {
+        private static final long serialVersionUID = -5129006217460811063L;
+        private String name;
+        private long amount;
+        private List<String> tags;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(long amount) {
+            this.amount = amount;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof EchoRequest)) {
+                return false;
+            }
+            EchoRequest other = (EchoRequest) obj;
+            return name.equals(other.name) && amount == other.amount && tags.equals(other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static class StubRemoteObject implements RemoteObject {
+        private final String stub;
+
+        StubRemoteObject(String stub) {
+            this.stub = stub;
+        }
+
+        @Override
+        public String serializeStub() {
+            return stub;
+        }
+    }
+
+    private static EchoRequest echoRequest() {
+        EchoRequest request = new EchoRequest();
+        request.setName("刘飞");
+        request.setAmount(10086L);
+        request.setTags(new ArrayList<String>(Arrays.asList("a", "b")));
+        return request;
+    }
+
+    private static DefaultObjectProtocolFactory objectProtocolFactory(boolean inlineEnable) {
+        DefaultObjectProtocolFactory objectProtocolFactory = new DefaultObjectProtocolFactory();
+        objectProtocolFactory.setInlineEnable(inlineEnable);
+        objectProtocolFactory.setRemoteObjectFactory(new RemoteObjectFactory() {
+            @Override
+            public <T> T getRemoteStub(Class<T> serviceInterface, String serializeStub) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T> T getServiceObject(Class<T> serviceInterface, String version) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getServiceObject(String serializeStub) {
+                return (T) ("proxy:" + serializeStub);
+            }
+        });
+        return objectProtocolFactory;
+    }
+
+    private Object[] roundTrip(int protocol, boolean inlineEnable, Object[] args) throws Throwable {
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(protocol);
+        DefaultObjectProtocolFactory objectProtocolFactory = objectProtocolFactory(inlineEnable);
+        InvokerCommand command = new InvokerCommand();
+        command.setId("protocol-object-test");
+        command.setArgs(objectProtocolFactory.encode(args, protocolFactory));
+        InvokerCommand decoded = protocolFactory.decode(InvokerCommand.class, protocolFactory.encode(command));
+        assertEquals(command.getId(), decoded.getId());
+        for (ProtocolObject arg : decoded.getArgs()) {
+            if (arg.getType() != null) {
+                assertEquals("protocol " + protocol, inlineEnable, arg.isInline());
+            }
+        }
+        return objectProtocolFactory.decode(decoded.getArgs(), protocolFactory);
+    }
+
+    @Test
+    public void testInlineValues() throws Throwable {
+        for (int protocol : PROTOCOLS) {
+            HashMap<String, Object> map = new HashMap<String, Object>();
+            map.put("key", "value");
+            Object[] args = new Object[] {echoRequest(), "你好", 3, map};
+            Object[] decoded = this.roundTrip(protocol, true, args);
+            assertArrayEquals("protocol " + protocol, args, decoded);
+        }
+    }
+
+    @Test
+    public void testLegacyDataValues() throws Throwable {
+        for (int protocol : PROTOCOLS) {
+            Object[] args = new Object[] {echoRequest(), "你好", 3};
+            Object[] decoded = this.roundTrip(protocol, false, args);
+            assertArrayEquals("protocol " + protocol, args, decoded);
+        }
+    }
+
+    @Test
+    public void testRemoteStubs() throws Throwable {
+        for (int protocol : PROTOCOLS) {
+            for (boolean inlineEnable : new boolean[] {true, false}) {
+                Object[] decoded = this.roundTrip(protocol, inlineEnable, new Object[] {new StubRemoteObject("stub-1"), "plain"});
+                assertEquals("protocol " + protocol, "proxy:stub-1", decoded[0]);
+                assertEquals("plain", decoded[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testNullValues() throws Throwable {
+        for (int protocol : PROTOCOLS) {
+            for (boolean inlineEnable : new boolean[] {true, false}) {
+                Object[] decoded = this.roundTrip(protocol, inlineEnable, new Object[] {null, "plain", null});
+                assertArrayEquals("protocol " + protocol, new Object[] {null, "plain", null}, decoded);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyAndDeferredValue() throws Throwable {
+        for (int protocol : new int[] {Protocols.DEFAULT_PROTOCOL, Protocols.SMILE_PROTOCOL}) {
+            ProtocolFactory protocolFactory = this.protocolFactorySelector.select(protocol);
+            ProtocolObject decoded = protocolFactory.decode(ProtocolObject.class, protocolFactory.encode(new ProtocolObject()));
+            assertNull(decoded.getType());
+            assertNull(decoded.getData());
+            assertNull(decoded.getValue());
+        }
+        ProtocolFactory protocolFactory = this.protocolFactorySelector.select(Protocols.DEFAULT_PROTOCOL);
+        byte[] json = "{\"value\":{\"name\":\"刘飞\",\"amount\":1,\"tags\":[]},\"type\":\"io.lnk.remoting.ProtocolObjectCodecTest$EchoRequest\"}".getBytes("UTF-8");
+        ProtocolObject decoded = protocolFactory.decode(ProtocolObject.class, json);
+        assertEquals(EchoRequest.class, decoded.getType());// value先于type出现时延后解析
+        assertEquals("刘飞", ((EchoRequest) decoded.getValue()).getName());
+    }
+
+    /**
+     * 升级前的Jackson序列化结果: ProtocolObject只有type与data两个属性，data为base64(JSON)或二进制(Smile)
+     */
+    @Test
+    public void testLegacyPayloadWithInlineDisabled() throws Throwable {
+        for (int protocol : new int[] {Protocols.DEFAULT_PROTOCOL, Protocols.SMILE_PROTOCOL}) {
+            ProtocolFactory protocolFactory = this.protocolFactorySelector.select(protocol);
+            ObjectMapper legacyMapper = (protocol == Protocols.SMILE_PROTOCOL) ? new ObjectMapper(new SmileFactory()) : new ObjectMapper();
+            legacyMapper.setSerializationInclusion(Include.NON_NULL);
+            DefaultObjectProtocolFactory objectProtocolFactory = objectProtocolFactory(false);
+            ProtocolObject[] encodedArgs = objectProtocolFactory.encode(new Object[] {echoRequest(), null}, protocolFactory);
+            List<Map<String, Object>> legacyArgs = new ArrayList<Map<String, Object>>();
+            for (ProtocolObject arg : encodedArgs) {
+                Map<String, Object> legacyArg = new HashMap<String, Object>();
+                if (arg.getType() != null) {
+                    legacyArg.put("type", arg.getType().getName());
+                    legacyArg.put("data", arg.getData());
+                }
+                legacyArgs.add(legacyArg);
+            }
+            Map<String, Object> legacyCommand = new HashMap<String, Object>();
+            legacyCommand.put("id", "legacy");
+            legacyCommand.put("args", legacyArgs);
+            byte[] payload = legacyMapper.writeValueAsBytes(legacyCommand);
+            if (protocol == Protocols.DEFAULT_PROTOCOL) {
+                assertTrue(new String(payload, "UTF-8").contains("\"data\":\""));
+            }
+            InvokerCommand decoded = protocolFactory.decode(InvokerCommand.class, payload);
+            assertEquals("legacy", decoded.getId());
+            assertNotNull(decoded.getArgs()[0].getData());
+            assertFalse(decoded.getArgs()[0].isInline());
+            Object[] args = objectProtocolFactory.decode(decoded.getArgs(), protocolFactory);
+            assertEquals("protocol " + protocol, echoRequest(), args[0]);
+            assertNull(args[1]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年7月21日 上午11:20:36
+ */
+public class ReplyTimerTest {
+
+    @Test
+    public void testExpireAndCancel() throws Throwable {
+        ReplyTimer replyTimer = ReplyTimer.newHashedWheelReplyTimer(new Configuration());
+        try {
+            final CountDownLatch expired = new CountDownLatch(1);
+            final long startMillis = System.currentTimeMillis();
+            replyTimer.schedule(new ReplyFuture(1L, 100L), new TimerTask() {
+                public void run(Timeout timeout) throws Exception {
+                    expired.countDown();
+                }
+            });
+            ReplyFuture cancelled = new ReplyFuture(2L, 100L);
+            replyTimer.schedule(cancelled, new TimerTask() {
+                public void run(Timeout timeout) throws Exception {
+                    throw new IllegalStateException("cancelled timeout fired");
+                }
+            });
+            replyTimer.cancel(cancelled);
+            assertTrue(expired.await(1, TimeUnit.SECONDS));
+            long usedMillis = System.currentTimeMillis() - startMillis;
+            System.err.println("expired after " + usedMillis + "ms, " + replyTimer);
+            assertTrue(usedMillis < 500L);
+            assertEquals(2L, replyTimer.getScheduledCount());
+            assertEquals(1L, replyTimer.getExpiredCount());
+            assertEquals(1L, replyTimer.getCancelledCount());
+        } finally {
+            replyTimer.stop();
+        }
+    }
+}
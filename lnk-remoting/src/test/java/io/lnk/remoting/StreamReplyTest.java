@@ -0,0 +1,169 @@
+package io.lnk.remoting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.lnk.protocol.DefaultProtocolFactorySelector;
+import io.lnk.remoting.netty.NettyRemotingClient;
+import io.lnk.remoting.netty.NettyRemotingServer;
+import io.lnk.remoting.protocol.CommandCode;
+import io.lnk.remoting.protocol.RemotingCommand;
+
+/**
+ * @author 刘飞 E-mail:liufei_it@126.com
+ *
+ * @version 1.0.0
+ * @since 2017年8月18日 下午3:12:47
+ */
+public class StreamReplyTest {
+    private static final int CHUNK_SIZE = 1024;
+    private static final int CREDIT_WINDOW = 4;
+    private static final int BYTES_CODE = 1;
+    private static final int ENDLESS_CODE = 2;
+    private static final int BROKEN_CODE = 3;
+    private static final byte[] PAYLOAD = new byte[CHUNK_SIZE * 37 + 100];
+    private static final AtomicInteger endlessChunks = new AtomicInteger(0);
+    private static CountDownLatch endlessClosed;
+    private static NettyRemotingServer remotingServer;
+    private static NettyRemotingClient remotingClient;
+    private static ExecutorService executor;
+    private static String addr;
+
+    @BeforeClass
+    public static void setup() {
+        new Random(7).nextBytes(PAYLOAD);
+        Configuration config = new Configuration();
+        config.setListenPort(0);
+        config.setStreamChunkSize(CHUNK_SIZE);
+        config.setStreamCreditWindow(CREDIT_WINDOW);
+        config.setStreamReadTimeoutMillis(3000L);
+        executor = Executors.newCachedThreadPool();
+        remotingServer = new NettyRemotingServer(new DefaultProtocolFactorySelector(), config);
+        remotingServer.registerDefaultProcessor(new CommandProcessor() {
+            public RemotingCommand processCommand(RemotingCommand request) {
+                RemotingCommand response = RemotingCommand.replyCommand(request, CommandCode.SUCCESS);
+                response.setStream();
+                switch (request.getCode()) {
+                    case BYTES_CODE:
+                        response.setStreamBody(new ByteArrayInputStream(PAYLOAD));
+                        break;
+                    case ENDLESS_CODE:
+                        response.setStreamBody(new InputStream() {
+                            @Override
+                            public int read() {
+                                return 1;
+                            }
+
+                            @Override
+                            public int read(byte[] b, int off, int len) {
+                                endlessChunks.incrementAndGet();
+                                Arrays.fill(b, off, off + len, (byte) 1);
+                                return len;
+                            }
+
+                            @Override
+                            public void close() {
+                                endlessClosed.countDown();
+                            }
+                        });
+                        break;
+                    default:
+                        response.setStreamBody(new InputStream() {
+                            @Override
+                            public int read() throws IOException {
+                                throw new IOException("broken report");
+                            }
+                        });
+                }
+                return response;
+            }
+
+            @Override
+            public boolean tryAcquireFailure(long timeoutMillis) {
+                return false;
+            }
+
+            @Override
+            public void release() {}
+        }, executor);
+        remotingServer.start();
+        remotingClient = new NettyRemotingClient(new DefaultProtocolFactorySelector(), config);
+        remotingClient.start();
+        addr = "127.0.0.1:" + remotingServer.getServerAddress().getPort();
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        remotingClient.shutdown();
+        remotingServer.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testReadStream() throws Throwable {
+        RemotingCommand response = remotingClient.invokeSync(addr, newRequest(BYTES_CODE), 3000L);
+        InputStream in = response.getStreamBody();
+        assertNotNull(in);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[777];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        assertArrayEquals(PAYLOAD, out.toByteArray());
+    }
+
+    @Test
+    public void testCreditWindow() throws Throwable {
+        endlessChunks.set(0);
+        endlessClosed = new CountDownLatch(1);
+        RemotingCommand response = remotingClient.invokeSync(addr, newRequest(ENDLESS_CODE), 3000L);
+        InputStream in = response.getStreamBody();
+        assertEquals(1, in.read());
+        Thread.sleep(200L);
+        // 只读了第一块，服务端最多再写出窗口内的分块
+        assertTrue(endlessChunks.get() <= CREDIT_WINDOW + 1);
+        in.close();
+        assertTrue(endlessClosed.await(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBrokenStream() throws Throwable {
+        RemotingCommand response = remotingClient.invokeSync(addr, newRequest(BROKEN_CODE), 3000L);
+        InputStream in = response.getStreamBody();
+        try {
+            in.read();
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("broken report"));
+        }
+        in.close();
+    }
+
+    private static RemotingCommand newRequest(int code) {
+        RemotingCommand request = new RemotingCommand();
+        request.setCode(code);
+        request.setBody(new byte[0]);
+        return request;
+    }
+}
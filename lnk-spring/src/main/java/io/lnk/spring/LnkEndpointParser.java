@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
@@ -24,7 +25,11 @@ import io.lnk.api.app.Application;
 import io.lnk.cluster.NestedLoadBalance;
 import io.lnk.config.ctx.config.PlaceholderConfiguration;
 import io.lnk.config.ctx.ns.NsRegistryImpl;
+import io.lnk.core.cache.CacheRule;
+import io.lnk.core.cache.NearCache;
 import io.lnk.core.caller.DefaultRemoteObjectFactory;
+import io.lnk.flow.AdaptiveFlowController;
+import io.lnk.flow.RateLimitRule;
 import io.lnk.flow.SemaphoreFlowController;
 import io.lnk.lookup.ZooKeeperRegistry;
 import io.lnk.lookup.zookeeper.DefaultZooKeeperService;
@@ -46,6 +51,24 @@ import io.lnk.spring.utils.LnkComponentUtils.ComponentCallback;
 public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
     private static final Logger log = LoggerFactory.getLogger(LnkEndpointParser.class.getSimpleName());
     private static final String USE_EPOLL_NATIVE_SELECTOR_ATTR = "use-epoll-native-selector";
+    private static final String ZERO_COPY_CODEC_ENABLE_ATTR = "zero-copy-codec-enable";
+    private static final String REPLY_TIMER_TICK_MILLIS_ATTR = "reply-timer-tick-millis";
+    private static final String REPLY_TIMER_TICKS_PER_WHEEL_ATTR = "reply-timer-ticks-per-wheel";
+    private static final String COMPACT_INVOKER_COMMAND_ENABLE_ATTR = "compact-invoker-command-enable";
+    private static final String CLIENT_CHANNELS_PER_ADDRESS_ATTR = "client-channels-per-address";
+    private static final String CLIENT_CHANNEL_SELECTOR_ATTR = "client-channel-selector";
+    private static final String FLUSH_CONSOLIDATION_ENABLE_ATTR = "flush-consolidation-enable";
+    private static final String FLUSH_CONSOLIDATION_MAX_BATCH_ATTR = "flush-consolidation-max-batch";
+    private static final String STREAMING_PROTOCOL_ENABLE_ATTR = "streaming-protocol-enable";
+    private static final String INLINE_PROTOCOL_OBJECT_ENABLE_ATTR = "inline-protocol-object-enable";
+    private static final String COMPRESS_ENABLE_ATTR = "compress-enable";
+    private static final String COMPRESS_THRESHOLD_ATTR = "compress-threshold";
+    private static final String COMPRESS_TYPE_ATTR = "compress-type";
+    private static final String DECOMPRESS_MAX_LENGTH_ATTR = "decompress-max-length";
+    private static final String STREAM_CHUNK_SIZE_ATTR = "stream-chunk-size";
+    private static final String STREAM_CREDIT_WINDOW_ATTR = "stream-credit-window";
+    private static final String STREAM_READ_TIMEOUT_MILLIS_ATTR = "stream-read-timeout-millis";
+    private static final String DEADLINE_PROPAGATION_ENABLE_ATTR = "deadline-propagation-enable";
     private static final String DEFAULT_EXECUTOR_THREADS_ATTR = "default-executor-threads";
     private static final String DEFAULT_WORKER_PROCESSOR_THREADS_ATTR = "default-worker-processor-threads";
     private static final String POOLED_BYTEBUF_ALLOCATOR_ENABLE_ATTR = "pooled-bytebuf-allocator-enable";
@@ -54,7 +77,10 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
     private static final String CONNECT_TIMEOUT_MILLIS_ATTR = "connect-timeout-millis";
     private static final String CHANNEL_MAXIDLETIME_SECONDS_ATTR = "channel-maxidletime-seconds";
     private static final String SELECTOR_THREADS_ATTR = "selector-threads";
+    private static final String CLIENT_SELECTOR_THREADS_ATTR = "client-selector-threads";
     private static final String WORKER_THREADS_ATTR = "worker-threads";
+    private static final String EVENT_EXECUTOR_GROUP_ENABLE_ATTR = "event-executor-group-enable";
+    private static final String INLINE_ATTR = "inline";
     private static final String LISTEN_PORT_ATTR = "listen-port";
 
     @Override
@@ -77,6 +103,7 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
         final String registryId = "defaultRegistry";
         final String zooKeeperServiceId = "zooKeeperService";
         final String loadBalanceId = "nestedLoadBalance";
+        final String nearCacheId = "defaultNearCache";
         final Element applicationElement = DomUtils.getChildElementByTagName(element, "application");
         LnkComponentUtils.parse(applicationId, Application.class, element, parserContext, new ComponentCallback() {
             public void onParse(RootBeanDefinition beanDefinition) {
@@ -99,6 +126,7 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
         LnkComponentUtils.parse(objectProtocolFactoryId, DefaultObjectProtocolFactory.class, element, parserContext, new ComponentCallback() {
             public void onParse(RootBeanDefinition beanDefinition) {
                 beanDefinition.getPropertyValues().addPropertyValue("remoteObjectFactory", new RuntimeBeanReference(remoteObjectFactoryId));
+                beanDefinition.getPropertyValues().addPropertyValue("inlineEnable", element.getAttribute(INLINE_PROTOCOL_OBJECT_ENABLE_ATTR));
             }
         });
         builder.addPropertyValue("objectProtocolFactory", new RuntimeBeanReference(objectProtocolFactoryId));
@@ -107,6 +135,7 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
                 beanDefinition.getPropertyValues().addPropertyValue("endpoint", new RuntimeBeanReference(endpointId));
                 beanDefinition.getPropertyValues().addPropertyValue("protocolFactorySelector", new RuntimeBeanReference(protocolFactorySelectorId));
                 beanDefinition.getPropertyValues().addPropertyValue("objectProtocolFactory", new RuntimeBeanReference(objectProtocolFactoryId));
+                beanDefinition.getPropertyValues().addPropertyValue("nearCache", new RuntimeBeanReference(nearCacheId));
             }
         });
         builder.addPropertyValue("remoteObjectFactory", new RuntimeBeanReference(remoteObjectFactoryId));
@@ -120,7 +149,9 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
             public void onParse(RootBeanDefinition beanDefinition) {
                 beanDefinition.getPropertyValues().addPropertyValue("listenPort", element.getAttribute(LISTEN_PORT_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("workerThreads", element.getAttribute(WORKER_THREADS_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("eventExecutorGroupEnable", element.getAttribute(EVENT_EXECUTOR_GROUP_ENABLE_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("selectorThreads", element.getAttribute(SELECTOR_THREADS_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("clientSelectorThreads", element.getAttribute(CLIENT_SELECTOR_THREADS_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("connectTimeoutMillis", element.getAttribute(CONNECT_TIMEOUT_MILLIS_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("channelMaxIdleTimeSeconds", element.getAttribute(CHANNEL_MAXIDLETIME_SECONDS_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("socketSndBufSize", element.getAttribute(SOCKET_SNDBUF_SIZE_ATTR));
@@ -129,6 +160,24 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
                 beanDefinition.getPropertyValues().addPropertyValue("defaultWorkerProcessorThreads", element.getAttribute(DEFAULT_WORKER_PROCESSOR_THREADS_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("defaultExecutorThreads", element.getAttribute(DEFAULT_EXECUTOR_THREADS_ATTR));
                 beanDefinition.getPropertyValues().addPropertyValue("useEpollNativeSelector", element.getAttribute(USE_EPOLL_NATIVE_SELECTOR_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("zeroCopyCodecEnable", element.getAttribute(ZERO_COPY_CODEC_ENABLE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("replyTimerTickMillis", element.getAttribute(REPLY_TIMER_TICK_MILLIS_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("replyTimerTicksPerWheel", element.getAttribute(REPLY_TIMER_TICKS_PER_WHEEL_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("compactInvokerCommandEnable", element.getAttribute(COMPACT_INVOKER_COMMAND_ENABLE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("clientChannelsPerAddress", element.getAttribute(CLIENT_CHANNELS_PER_ADDRESS_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("clientChannelSelector", element.getAttribute(CLIENT_CHANNEL_SELECTOR_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("flushConsolidationEnable", element.getAttribute(FLUSH_CONSOLIDATION_ENABLE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("flushConsolidationMaxBatch", element.getAttribute(FLUSH_CONSOLIDATION_MAX_BATCH_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("streamingProtocolEnable", element.getAttribute(STREAMING_PROTOCOL_ENABLE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("inlineProtocolObjectEnable", element.getAttribute(INLINE_PROTOCOL_OBJECT_ENABLE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("compressEnable", element.getAttribute(COMPRESS_ENABLE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("compressThreshold", element.getAttribute(COMPRESS_THRESHOLD_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("compressType", element.getAttribute(COMPRESS_TYPE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("decompressMaxLength", element.getAttribute(DECOMPRESS_MAX_LENGTH_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("streamChunkSize", element.getAttribute(STREAM_CHUNK_SIZE_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("streamCreditWindow", element.getAttribute(STREAM_CREDIT_WINDOW_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("streamReadTimeoutMillis", element.getAttribute(STREAM_READ_TIMEOUT_MILLIS_ATTR));
+                beanDefinition.getPropertyValues().addPropertyValue("deadlinePropagationEnable", element.getAttribute(DEADLINE_PROPAGATION_ENABLE_ATTR));
             }
         });
         log.info("LnkEndpoint[{}] configuration : {}", endpointId, configurationId);
@@ -143,6 +192,10 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
         LnkComponentUtils.parse(registryId, ZooKeeperRegistry.class, element, parserContext, new ComponentCallback() {
             public void onParse(RootBeanDefinition beanDefinition) {
                 beanDefinition.getPropertyValues().addPropertyValue("zooKeeperService", new RuntimeBeanReference(zooKeeperServiceId));
+                String weight = registryElement.getAttribute("weight");
+                if (StringUtils.isNotBlank(weight)) {
+                    beanDefinition.getPropertyValues().addPropertyValue("weight", weight);
+                }
             }
         });
         builder.addPropertyValue("registry", new RuntimeBeanReference(registryId));
@@ -151,6 +204,14 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
         LnkComponentUtils.parse(loadBalanceId, NestedLoadBalance.class, element, parserContext, new ComponentCallback() {
             public void onParse(RootBeanDefinition beanDefinition) {
                 beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, loadBalanceElement.getAttribute("type"));
+                String warmupMillis = loadBalanceElement.getAttribute("warmup-millis");
+                if (StringUtils.isNotBlank(warmupMillis)) {
+                    beanDefinition.getPropertyValues().addPropertyValue("warmupMillis", warmupMillis);
+                }
+                String decayMillis = loadBalanceElement.getAttribute("decay-millis");
+                if (StringUtils.isNotBlank(decayMillis)) {
+                    beanDefinition.getPropertyValues().addPropertyValue("decayMillis", decayMillis);
+                }
             }
         });
         builder.addPropertyValue("loadBalance", new RuntimeBeanReference(loadBalanceId));
@@ -158,8 +219,33 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
         if (CollectionUtils.isNotEmpty(flowControlElements)) {
             final Element flowControlElement = flowControlElements.get(0);
             final String permits = flowControlElement.getAttribute("permits");
-            if (StringUtils.isNotBlank(permits)) {
-                String flowControllerId = "flowController";
+            String flowControllerId = "flowController";
+            if (StringUtils.equals(flowControlElement.getAttribute("type"), "adaptive")) {
+                String serverFlowControllerId = "serverFlowController";// 自适应上限只控制服务端处理请求，调用方仍使用permits个信号量
+                LnkComponentUtils.parse(serverFlowControllerId, AdaptiveFlowController.class, element, parserContext, new ComponentCallback() {
+                    public void onParse(RootBeanDefinition beanDefinition) {
+                        String initialLimit = flowControlElement.getAttribute("initial-limit");
+                        if (StringUtils.isNotBlank(initialLimit)) {
+                            beanDefinition.getPropertyValues().addPropertyValue("initialLimit", initialLimit);
+                        }
+                        String minLimit = flowControlElement.getAttribute("min-limit");
+                        if (StringUtils.isNotBlank(minLimit)) {
+                            beanDefinition.getPropertyValues().addPropertyValue("minLimit", minLimit);
+                        }
+                        String maxLimit = flowControlElement.getAttribute("max-limit");
+                        if (StringUtils.isNotBlank(maxLimit)) {
+                            beanDefinition.getPropertyValues().addPropertyValue("maxLimit", maxLimit);
+                        }
+                    }
+                });
+                builder.addPropertyValue("serverFlowController", new RuntimeBeanReference(serverFlowControllerId));
+                LnkComponentUtils.parse(flowControllerId, SemaphoreFlowController.class, element, parserContext, new ComponentCallback() {
+                    public void onParse(RootBeanDefinition beanDefinition) {
+                        beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, StringUtils.defaultIfBlank(permits, "3000"));
+                    }
+                });
+                builder.addPropertyValue("flowController", new RuntimeBeanReference(flowControllerId));
+            } else if (StringUtils.isNotBlank(permits)) {
                 LnkComponentUtils.parse(flowControllerId, SemaphoreFlowController.class, element, parserContext, new ComponentCallback() {
                     public void onParse(RootBeanDefinition beanDefinition) {
                         beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, permits);
@@ -168,6 +254,44 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
                 builder.addPropertyValue("flowController", new RuntimeBeanReference(flowControllerId));
             }
         }
+        List<RateLimitRule> rateLimitRules = new ArrayList<RateLimitRule>();
+        List<Element> rateLimitElements = DomUtils.getChildElementsByTagName(element, "rate-limit");
+        if (CollectionUtils.isNotEmpty(rateLimitElements)) {
+            List<Element> rateLimitMethodElements = DomUtils.getChildElementsByTagName(rateLimitElements.get(0), "method");
+            for (Element rateLimitMethodElement : rateLimitMethodElements) {
+                RateLimitRule rateLimitRule = new RateLimitRule();
+                rateLimitRule.setServiceId(StringUtils.trimToEmpty(rateLimitMethodElement.getAttribute("service-id")));
+                rateLimitRule.setMethod(StringUtils.trimToEmpty(rateLimitMethodElement.getAttribute("method")));
+                rateLimitRule.setApp(StringUtils.trimToEmpty(rateLimitMethodElement.getAttribute("app")));
+                rateLimitRule.setPermitsPerSecond(NumberUtils.toDouble(rateLimitMethodElement.getAttribute("permits-per-second")));
+                rateLimitRule.setBurst(NumberUtils.toInt(rateLimitMethodElement.getAttribute("burst")));
+                rateLimitRules.add(rateLimitRule);
+            }
+        }
+        builder.addPropertyValue("rateLimitRules", rateLimitRules);
+        final List<CacheRule> cacheRules = new ArrayList<CacheRule>();
+        List<Element> responseCacheElements = DomUtils.getChildElementsByTagName(element, "response-cache");
+        if (CollectionUtils.isNotEmpty(responseCacheElements)) {
+            List<Element> cacheMethodElements = DomUtils.getChildElementsByTagName(responseCacheElements.get(0), "method");
+            for (Element cacheMethodElement : cacheMethodElements) {
+                CacheRule cacheRule = new CacheRule();
+                cacheRule.setServiceId(StringUtils.trimToEmpty(cacheMethodElement.getAttribute("service-id")));
+                cacheRule.setMethod(StringUtils.trimToEmpty(cacheMethodElement.getAttribute("method")));
+                cacheRule.setTtlMillis(NumberUtils.toLong(cacheMethodElement.getAttribute("ttl-millis")));
+                cacheRule.setMaxEntries(NumberUtils.toInt(cacheMethodElement.getAttribute("max-entries"), cacheRule.getMaxEntries()));
+                cacheRule.setMaxBytes(NumberUtils.toLong(cacheMethodElement.getAttribute("max-bytes"), cacheRule.getMaxBytes()));
+                cacheRule.setPolicy(StringUtils.defaultIfBlank(cacheMethodElement.getAttribute("policy"), cacheRule.getPolicy()));
+                cacheRule.setNear(BooleanUtils.toBoolean(cacheMethodElement.getAttribute("near")));
+                cacheRules.add(cacheRule);
+            }
+        }
+        builder.addPropertyValue("cacheRules", cacheRules);
+        LnkComponentUtils.parse(nearCacheId, NearCache.class, element, parserContext, new ComponentCallback() {
+            public void onParse(RootBeanDefinition beanDefinition) {
+                beanDefinition.getPropertyValues().addPropertyValue("cacheRules", cacheRules);
+            }
+        });
+        builder.addPropertyValue("nearCache", new RuntimeBeanReference(nearCacheId));
         List<Element> bindElements = DomUtils.getChildElementsByTagName(element, "bind");
         Element bindElement = bindElements.get(0);
         List<Element> serviceGroupElements = DomUtils.getChildElementsByTagName(bindElement, "service-group");
@@ -176,6 +300,7 @@ public class LnkEndpointParser extends AbstractSingleBeanDefinitionParser {
             ServiceGroup serviceGroup = new ServiceGroup();
             serviceGroup.setServiceGroup(StringUtils.trimToEmpty(serviceGroupElement.getAttribute("service-group")));
             serviceGroup.setServiceGroupWorkerProcessorThreads(NumberUtils.toInt(serviceGroupElement.getAttribute(WORKER_THREADS_ATTR), 10));
+            serviceGroup.setInline(BooleanUtils.toBoolean(serviceGroupElement.getAttribute(INLINE_ATTR)));
             serviceGroups.add(serviceGroup);
         }
         builder.addPropertyValue("serviceGroups", serviceGroups);
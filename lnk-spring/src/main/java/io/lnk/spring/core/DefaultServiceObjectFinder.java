@@ -15,6 +15,8 @@ import org.springframework.util.ConcurrentReferenceHashMap;
 import io.lnk.api.InvokerCommand;
 import io.lnk.api.annotation.LnkVersion;
 import io.lnk.api.exception.NotFoundServiceException;
+import io.lnk.core.ServiceMethodInvoker;
+import io.lnk.core.ServiceMethodInvokers;
 import io.lnk.core.ServiceObjectFinder;
 
 /**
@@ -26,12 +28,19 @@ import io.lnk.core.ServiceObjectFinder;
 public class DefaultServiceObjectFinder implements ServiceObjectFinder, BeanFactoryAware, BeanClassLoaderAware {
     private static final Logger log = LoggerFactory.getLogger(DefaultServiceObjectFinder.class.getSimpleName());
     private final ConcurrentReferenceHashMap<String, Object> serviceObjects = new ConcurrentReferenceHashMap<String, Object>(256);
+    private final ServiceMethodInvokers serviceMethodInvokers = new ServiceMethodInvokers();
     private ListableBeanFactory beanFactory;
     private ClassLoader classLoader;
 
     @Override
     public void registry(String serviceId, String version, int protocol, Object bean) {
         this.serviceObjects.put(this.buildServiceObjectKey(serviceId, version, protocol), bean);
+        this.serviceMethodInvokers.registry(bean.getClass());
+    }
+
+    @Override
+    public ServiceMethodInvoker getServiceMethodInvoker(Object serviceObject, InvokerCommand command) throws NotFoundServiceException {
+        return this.serviceMethodInvokers.getServiceMethodInvoker(serviceObject.getClass(), command.getMethod(), command.getSignature());
     }
 
     @Override